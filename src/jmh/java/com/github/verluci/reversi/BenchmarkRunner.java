@@ -0,0 +1,54 @@
+package com.github.verluci.reversi;
+
+import org.apache.commons.cli.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * An entry-point which runs the JMH benchmarks with the GC profiler, so every benchmark reports the operations per
+ * second and the bytes that are allocated per operation.
+ *
+ * Build with the jmh profile (mvn -P jmh package) and run this class from the jar, or use org.openjdk.jmh.Main for all
+ * other options of JMH.
+ */
+public class BenchmarkRunner {
+    /**
+     * @param args -i INCLUDE_REGEX, -f FORKS
+     */
+    public static void main(String[] args) throws RunnerException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option includeOption = new Option("i", "include", true, "A regular expression of the benchmarks that should be run. (default: all)");
+        includeOption.setRequired(false);
+        options.addOption(includeOption);
+
+        Option forksOption = new Option("f", "forks", true, "The amount of forks per benchmark. (default: 1)");
+        forksOption.setRequired(false);
+        options.addOption(forksOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        //endregion
+
+        new Runner(new OptionsBuilder()
+                .include(cmd.getOptionValue("include", "com\\.github\\.verluci\\.reversi\\..*Benchmark"))
+                .forks(Integer.parseInt(cmd.getOptionValue("forks", "1")))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.Game.Player;
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+import com.github.verluci.reversi.game.bitboard.PlayoutSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rules of OthelloGame and the GameBoard helpers that are used by the agents.
+ *
+ * The single operations are measured on a midgame position that is reached with random moves from a fixed seed,
+ * the complete games are replayed from a recorded random game so every invocation does the same amount of work.
+ * Run with the GC profiler (see BenchmarkRunner) to see the allocations per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OthelloGameBenchmark {
+    private static final long SEED = 42;
+    private static final int MIDGAME_PLIES = 20;
+
+    private OthelloGame midgame;
+    private List<int[]> recordedMoves;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        random = new SplittableRandom(SEED);
+
+        // Record a complete random game as { player, x, y } for every move.
+        recordedMoves = new ArrayList<>();
+        OthelloGame game = new OthelloGame();
+        game.startGame(Player.PLAYER1);
+
+        while (game.getCurrentGameState() == Game.GameState.RUNNING) {
+            Player player = game.getCurrentPlayer();
+            Tile tile = chooseRandomMove(game, random);
+
+            recordedMoves.add(new int[] { player.ordinal(), tile.getXCoordinate(), tile.getYCoordinate() });
+            game.tryMove(player, tile.getXCoordinate(), tile.getYCoordinate());
+        }
+
+        midgame = new OthelloGame();
+        midgame.startGame(Player.PLAYER1);
+        for (int i = 0; i < MIDGAME_PLIES && i < recordedMoves.size(); i++) {
+            int[] move = recordedMoves.get(i);
+            midgame.tryMove(Player.values()[move[0]], move[1], move[2]);
+        }
+    }
+
+    @Benchmark
+    public OthelloGame findValidMoves() {
+        midgame.findValidMoves(midgame.getCurrentPlayer());
+        return midgame;
+    }
+
+    @Benchmark
+    public int countTilesWithState() {
+        return midgame.getBoard().countTilesWithState(TileState.PLAYER1);
+    }
+
+    @Benchmark
+    public long getPlayerTilesLongValue() {
+        return midgame.getBoard().getPlayerTilesLongValue(TileState.PLAYER1);
+    }
+
+    /**
+     * Only the flipping of the tiles of all moves of the recorded game, without searching for valid moves.
+     */
+    @Benchmark
+    public OthelloGame performMoves() {
+        OthelloGame game = new OthelloGame();
+        game.startGame(Player.PLAYER1);
+
+        for (int[] move : recordedMoves)
+            game.performMove(Player.values()[move[0]], move[1], move[2]);
+
+        return game;
+    }
+
+    /**
+     * All moves of the recorded game through tryMove(), which checks, performs and finds the next valid moves.
+     */
+    @Benchmark
+    public OthelloGame replayGame() {
+        OthelloGame game = new OthelloGame();
+        game.startGame(Player.PLAYER1);
+
+        for (int[] move : recordedMoves)
+            game.tryMove(Player.values()[move[0]], move[1], move[2]);
+
+        return game;
+    }
+
+    /**
+     * A complete game with random moves through the rules of OthelloGame, like the games of the RandomMoveAIAgent.
+     */
+    @Benchmark
+    public int randomGame() {
+        OthelloGame game = new OthelloGame();
+        game.startGame(Player.PLAYER1);
+
+        while (game.getCurrentGameState() == Game.GameState.RUNNING) {
+            Tile tile = chooseRandomMove(game, random);
+            game.tryMove(game.getCurrentPlayer(), tile.getXCoordinate(), tile.getYCoordinate());
+        }
+
+        return game.getPlayerScore(Player.PLAYER1);
+    }
+
+    /**
+     * The same random game on bitboards, as a reference for the cost of the Game abstraction.
+     */
+    @Benchmark
+    public int randomBitBoardGame() {
+        return PlayoutSimulator.playout(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT, random);
+    }
+
+    private static Tile chooseRandomMove(OthelloGame game, SplittableRandom random) {
+        List<Tile> moves = game.getBoard().getTilesWithState(TileState.POSSIBLE_MOVE);
+        return moves.get(random.nextInt(moves.size()));
+    }
+}
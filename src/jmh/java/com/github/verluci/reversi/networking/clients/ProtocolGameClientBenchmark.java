@@ -0,0 +1,63 @@
+package com.github.verluci.reversi.networking.clients;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the processing of received lines by a ProtocolGameClient (the parsing and the dispatch to the
+ * listeners), which is the same for the TelnetGameClient and the NioGameClient.
+ *
+ * processQueuedString() is what the TelnetGameClient calls for every line, processLine() is what the NioGameClient
+ * calls directly on the received bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolGameClientBenchmark {
+    private static final String MOVE = "SVR GAME MOVE {PLAYER: \"Janneke\", MOVE: \"26\", DETAILS: \"\"}";
+    private static final String TURN = "SVR GAME YOURTURN {TURNMESSAGE: \"\"}";
+    private static final String MATCH = "SVR GAME MATCH {PLAYERTOMOVE: \"Jip\", GAMETYPE: \"Reversi\", OPPONENT: \"Janneke\"}";
+
+    private OfflineGameClient client;
+    private byte[] moveBytes;
+    private long events;
+
+    @Setup
+    public void setup() {
+        client = new OfflineGameClient();
+        client.onMove(listener -> events += listener.getMove());
+        client.onTurn(listener -> events++);
+        client.onGameStart(listener -> events++);
+
+        moveBytes = MOVE.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public long processQueuedStringMove() {
+        client.processQueuedString(MOVE);
+        return events;
+    }
+
+    @Benchmark
+    public long processQueuedStringTurn() {
+        client.processQueuedString(TURN);
+        return events;
+    }
+
+    @Benchmark
+    public long processQueuedStringMatch() {
+        client.processQueuedString(MATCH);
+        return events;
+    }
+
+    @Benchmark
+    public long processLineMove() {
+        client.processLine(moveBytes, 0, moveBytes.length);
+        return events;
+    }
+}
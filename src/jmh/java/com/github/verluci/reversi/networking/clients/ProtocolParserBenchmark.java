@@ -0,0 +1,88 @@
+package com.github.verluci.reversi.networking.clients;
+
+import com.github.verluci.reversi.networking.types.Move;
+import com.github.verluci.reversi.networking.types.Player;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks that compare ProtocolParser with the previous split()/substring()/org.json parsing of the server messages.
+ * Every operation parses one message of a short game, run with the GC profiler to compare the bytes that are allocated
+ * per message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolParserBenchmark {
+    private static final String[] MESSAGES = {
+            "SVR GAME MOVE {PLAYER: \"Janneke\", MOVE: \"26\", DETAILS: \"\"}",
+            "SVR GAME YOURTURN {TURNMESSAGE: \"\"}",
+            "OK",
+            "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"19\", DETAILS: \"\"}",
+            "OK",
+            "SVR GAME MOVE {PLAYER: \"Janneke\", MOVE: \"34\", DETAILS: \"\"}",
+            "SVR GAME YOURTURN {TURNMESSAGE: \"\"}",
+            "SVR GAME MATCH {PLAYERTOMOVE: \"Jip\", GAMETYPE: \"Reversi\", OPPONENT: \"Janneke\"}",
+            "SVR GAME WIN {PLAYERONESCORE: \"40\", PLAYERTWOSCORE: \"24\", COMMENT: \"\"}",
+    };
+
+    private ProtocolParser parser;
+    private byte[][] lines;
+    private int index;
+
+    @Setup
+    public void setup() {
+        parser = new ProtocolParser();
+
+        lines = new byte[MESSAGES.length][];
+        for (int i = 0; i < MESSAGES.length; i++)
+            lines[i] = MESSAGES[i].getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Benchmark
+    public long parser() {
+        byte[] line = lines[nextIndex()];
+
+        if(parser.parse(line, 0, line.length) == ProtocolParser.MessageType.MOVE)
+            return parser.getMove().getMove();
+
+        return 0;
+    }
+
+    /**
+     * The parsing of the previous version of processQueuedString(), a new Move is created for every received move.
+     */
+    @Benchmark
+    public long legacy() {
+        String string = MESSAGES[nextIndex()];
+
+        if(string.startsWith("SVR")) {
+            String[] split = string.split(" ");
+
+            if(split[1].equals("GAME") && split[2].equals("MOVE")) {
+                JSONObject moveObject = new JSONObject(string.substring("SVR GAME MOVE ".length()));
+
+                Player player = new Player(moveObject.getString("PLAYER"));
+                int setMove = Integer.parseInt(moveObject.getString("MOVE"));
+                Move move = new Move(player, setMove, moveObject.getString("DETAILS"));
+                return move.getMove();
+            } else if(split.length > 3) {
+                JSONObject object = new JSONObject(string.substring(("SVR GAME " + split[2] + " ").length()));
+                return object.length();
+            }
+        }
+
+        return 0;
+    }
+
+    private int nextIndex() {
+        index = (index + 1) % MESSAGES.length;
+        return index;
+    }
+}
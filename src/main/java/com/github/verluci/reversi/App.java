@@ -1,9 +1,11 @@
 package com.github.verluci.reversi;
 
+import com.github.verluci.reversi.game.agents.TimeManager;
+import com.github.verluci.reversi.game.book.OpeningBook;
 import com.github.verluci.reversi.gpgpu.GraphicsDevice;
 import com.github.verluci.reversi.gpgpu.JOCLSample;
 import com.github.verluci.reversi.networking.GameClientExceptions;
-import com.github.verluci.reversi.networking.clients.TelnetGameClient;
+import com.github.verluci.reversi.networking.clients.NioGameClient;
 import com.github.verluci.reversi.networking.types.Player;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -50,6 +52,8 @@ public class App extends Application {
     private GameClient gameClient;
     private com.github.verluci.reversi.networking.types.Player localPlayer;
     private Properties properties;
+    private TimeManager timeManager;
+    private OpeningBook openingBook;
 
     //endregion
 
@@ -57,6 +61,8 @@ public class App extends Application {
     public void start(Stage primaryStage) throws Exception {
         setupConfig();
         setupGPU();
+        timeManager = TimeManager.fromProperties(properties);
+        setupOpeningBook();
         this.primaryStage = primaryStage;
         this.primaryStage.setResizable(false);
 
@@ -79,8 +85,9 @@ public class App extends Application {
     }
 
     public void initializeConnection(String name) throws GameClientExceptions.ConnectionException, GameClientExceptions.LoginException {
-        gameClient = new TelnetGameClient();
+        gameClient = new NioGameClient();
         gameClient.connect(properties.getProperty("ipAddress"), parseInt(properties.getProperty("port")));
+        timeManager.setLatencySource(gameClient);
         this.localPlayer = new com.github.verluci.reversi.networking.types.Player(name);
         gameClient.login(name);
     }
@@ -151,6 +158,17 @@ public class App extends Application {
         }
     }
 
+    private void setupOpeningBook() {
+        String bookLocation = properties.getProperty("openingBook", "");
+        if(!bookLocation.equals("")) {
+            try {
+                openingBook = OpeningBook.open(Paths.get(bookLocation));
+            } catch (IOException e) {
+                System.out.println("Failed to open the opening book: " + e.getMessage());
+            }
+        }
+    }
+
     //region Getters and Setters
 
     public Stage getPrimaryStage() {
@@ -177,5 +195,13 @@ public class App extends Application {
         return properties;
     }
 
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
     //endregion
 }
@@ -0,0 +1,305 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.agents.*;
+import com.github.verluci.reversi.game.book.OpeningBook;
+import com.github.verluci.reversi.game.events.EventDispatcher;
+import com.github.verluci.reversi.networking.GameClientExceptions;
+import com.github.verluci.reversi.networking.clients.NioEventLoop;
+import com.github.verluci.reversi.networking.clients.NioGameClient;
+import com.github.verluci.reversi.networking.types.GameResult;
+import com.github.verluci.reversi.networking.types.Player;
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless runner that plays with multiple accounts on the same server from a single JVM.
+ *
+ * All connections share a single NioEventLoop, and the searches of all bots share a single SearchPool which gives
+ * every running search a fair share of the cores. The listeners of all bots are executed on a single event thread,
+ * so the event loop only reads from the connections, and the games of all bots are played by a single SessionScheduler,
+ * so no thread is waiting for the moves of the opponents. Every bot subscribes to the game, plays the games it is
+ * matched in and subscribes again when a game has ended.
+ */
+public class BotFarm {
+    private final String hostname;
+    private final int port;
+    private final String gameType;
+    private final long turnTime;
+    private final OpeningBook openingBook;
+
+    private final NioEventLoop eventLoop;
+    private final ExecutorService eventThread;
+    private final SearchPool searchPool;
+    private final SessionScheduler sessionScheduler;
+
+    private final AtomicInteger wins = new AtomicInteger();
+    private final AtomicInteger losses = new AtomicInteger();
+    private final AtomicInteger draws = new AtomicInteger();
+
+    /**
+     * Constructor for BotFarm
+     * @param hostname The hostname of the server.
+     * @param port The port of the server.
+     * @param gameType The game the bots subscribe to, which should be Reversi (or Othello) because the bots only play that.
+     * @param turnTime The amount of milliseconds a bot is allowed to use per move.
+     * @param threadCount The amount of threads that are shared by the searches of all bots.
+     * @param openingBook The opening book that is used by all bots, or null.
+     * @throws IOException Thrown when the event loop could not be created.
+     */
+    public BotFarm(String hostname, int port, String gameType, long turnTime, int threadCount, OpeningBook openingBook) throws IOException {
+        this.hostname = hostname;
+        this.port = port;
+        this.gameType = gameType;
+        this.turnTime = turnTime;
+        this.openingBook = openingBook;
+
+        this.eventLoop = new NioEventLoop("BotFarm");
+        this.eventThread = EventDispatcher.newEventThread("BotFarm-events");
+        this.searchPool = new SearchPool(threadCount);
+        this.sessionScheduler = new SessionScheduler();
+    }
+
+    /**
+     * Connects a new bot to the server, logs in and subscribes to the game.
+     * @param username The username of the bot.
+     * @throws GameClientExceptions.ConnectionException Thrown when a connection to the server fails.
+     */
+    public void addBot(String username) throws GameClientExceptions.ConnectionException {
+        Bot bot = new Bot(username);
+        bot.connect();
+    }
+
+    /**
+     * @return A line with the combined results of all bots.
+     */
+    public String getResults() {
+        return "Results of all bots: wins=" + wins.get() + ", losses=" + losses.get() + ", draws=" + draws.get();
+    }
+
+    /**
+     * A single account on the server.
+     */
+    private class Bot {
+        private final String username;
+        private final Player localPlayer;
+        private final NioGameClient gameClient;
+        private final TimeManager timeManager;
+        private final MatchPool matchPool;
+
+        private Bot(String username) {
+            this.username = username;
+            this.localPlayer = new Player(username);
+            this.gameClient = new NioGameClient(eventLoop);
+            this.gameClient.setEventDispatcher(new EventDispatcher(eventThread));
+
+            this.timeManager = new TimeManager(turnTime);
+            this.timeManager.setLatencySource(gameClient);
+
+            // The agents are reused by the next game, so their search memory is only created once. A bot plays one
+            // match at a time, a match that starts while the agent is still finishing the search of the previous game
+            // waits for it, and any other match is refused because it would lose time on the clock of the server.
+            this.matchPool = new MatchPool(() -> {
+                CPUMCTSAIAgent aiAgent = new CPUMCTSAIAgent(searchPool);
+                aiAgent.setTimeManager(timeManager);
+                aiAgent.setOpeningBook(openingBook);
+                aiAgent.setTurnMetrics(gameClient.getTurnMetrics());
+                return aiAgent;
+            }, 1, sessionScheduler, true);
+        }
+
+        private void connect() throws GameClientExceptions.ConnectionException {
+            gameClient.connect(hostname, port);
+
+            gameClient.loginAsync(username)
+                    .thenRun(() -> gameClient.getEventDispatcher().execute(this::subscribe))
+                    .exceptionally(exception -> {
+                        System.err.println("[" + username + "] Failed to login: " + exception.getMessage());
+                        return null;
+                    });
+        }
+
+        /**
+         * Waits for the next match and subscribes to the game.
+         * This should be called from the event dispatcher of the client, the listeners of the previous game are cleared
+         * by then.
+         */
+        private void subscribe() {
+            if(!gameClient.getConnected())
+                return;
+
+            gameClient.onGameStart(listener -> startGame(listener.getStartingPlayer()));
+
+            gameClient.subscribeToGameAsync(gameType).exceptionally(exception -> {
+                System.err.println("[" + username + "] Failed to subscribe: " + exception.getMessage());
+                return null;
+            });
+        }
+
+        /**
+         * Starts a match of an agent of the pool against the opponent that has been matched, the scheduler plays it.
+         * @param startingPlayer The player that is allowed to make the first move.
+         */
+        private void startGame(Player startingPlayer) {
+            Agent networkAgent = new NetworkAgent(gameClient, localPlayer);
+
+            boolean localStarts = startingPlayer.equals(localPlayer);
+            CompletableFuture<Game> match = matchPool.startMatch(networkAgent, localStarts, OthelloGame.class, game -> {});
+
+            gameClient.onGameEnd(listener -> {
+                if(listener.getResult() == GameResult.WIN)
+                    wins.incrementAndGet();
+                else if(listener.getResult() == GameResult.LOSS)
+                    losses.incrementAndGet();
+                else
+                    draws.incrementAndGet();
+
+                System.out.println("[" + username + "] " + listener.getResult() + " "
+                        + listener.getPlayerOneScore() + "-" + listener.getPlayerTwoScore() + " | " + getResults());
+
+                // The listeners of this game have been cleared before this listener, so the next match can be
+                // subscribed to right away.
+                subscribe();
+            });
+
+            if(match == null) {
+                System.err.println("[" + username + "] The previous match is still being played, forfeiting this match.");
+                gameClient.forfeitAsync().exceptionally(exception -> {
+                    exception.printStackTrace();
+                    return null;
+                });
+                return;
+            }
+
+            match.exceptionally(exception -> {
+                System.err.println("[" + username + "] The game has failed: " + exception.getMessage());
+                return null;
+            });
+        }
+    }
+
+    /**
+     * An entry-point which runs multiple bots on the same server in a headless state.
+     * @param args -h HOSTNAME, -p PORT, -a ACCOUNTS_FILE or -u USERNAMES, -g GAME_TYPE, -tt TURN_TIME, -w WORKER_THREADS,
+     *             -b BOOK_FILE
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option hostnameOption = new Option("h", "hostname", true, "The host-name or ip-address of the server.");
+        hostnameOption.setRequired(true);
+        options.addOption(hostnameOption);
+
+        Option portOption = new Option("p", "port", true, "The port of the server.");
+        portOption.setRequired(true);
+        options.addOption(portOption);
+
+        Option accountsOption = new Option("a", "accounts", true, "A file with the username of one bot per line.");
+        accountsOption.setRequired(false);
+        options.addOption(accountsOption);
+
+        Option usernamesOption = new Option("u", "usernames", true, "A comma-separated list of usernames of the bots.");
+        usernamesOption.setRequired(false);
+        options.addOption(usernamesOption);
+
+        Option gameTypeOption = new Option("g", "gametype", true, "The game the bots subscribe to, only Reversi (or Othello) can be played by the bots. (default: Reversi)");
+        gameTypeOption.setRequired(false);
+        options.addOption(gameTypeOption);
+
+        Option turnTimeOption = new Option("tt", "turntime", true,
+                "The amount of seconds a bot is allowed to use per move. (default: 10)");
+        turnTimeOption.setRequired(false);
+        options.addOption(turnTimeOption);
+
+        Option workersOption = new Option("w", "workers", true,
+                "The amount of threads that are shared by the searches of all bots. (default: all cores)");
+        workersOption.setRequired(false);
+        options.addOption(workersOption);
+
+        Option bookOption = new Option("b", "book", true, "The location of an opening book-file.");
+        bookOption.setRequired(false);
+        options.addOption(bookOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        String hostname = cmd.getOptionValue("hostname");
+        int port = Integer.parseInt(cmd.getOptionValue("port"));
+        String gameType = cmd.getOptionValue("gametype", "Reversi");
+        if(!gameType.equalsIgnoreCase("Reversi") && !gameType.equalsIgnoreCase("Othello")) {
+            System.out.println("The bots can only play Reversi (or Othello), not: " + gameType);
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        long turnTime = cmd.getOptionValue("turntime") == null ? TimeManager.DEFAULT_TURN_TIME : (long) (Double.parseDouble(cmd.getOptionValue("turntime")) * 1000d);
+        int workerCount = cmd.getOptionValue("workers") == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(cmd.getOptionValue("workers"));
+
+        List<String> usernames = new ArrayList<>();
+        if(cmd.getOptionValue("accounts") != null) {
+            for (String line : Files.readAllLines(Paths.get(cmd.getOptionValue("accounts")))) {
+                if(!line.isBlank())
+                    usernames.add(line.trim());
+            }
+        }
+        if(cmd.getOptionValue("usernames") != null) {
+            for (String username : cmd.getOptionValue("usernames").split(",")) {
+                if(!username.isBlank())
+                    usernames.add(username.trim());
+            }
+        }
+
+        if(usernames.isEmpty()) {
+            System.out.println("No accounts were given, use -a ACCOUNTS_FILE or -u USERNAMES.");
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        //endregion
+
+        OpeningBook openingBook = null;
+        if(cmd.getOptionValue("book") != null) {
+            try {
+                openingBook = OpeningBook.open(Paths.get(cmd.getOptionValue("book")));
+                System.out.println("Opened opening book with " + openingBook.size() + " entries.");
+            } catch (IOException e) {
+                System.err.println("Failed to open the opening book: " + e.getMessage());
+            }
+        }
+
+        BotFarm botFarm = new BotFarm(hostname, port, gameType, turnTime, workerCount, openingBook);
+        for (String username : usernames) {
+            try {
+                botFarm.addBot(username);
+            } catch (GameClientExceptions.ConnectionException e) {
+                System.err.println("[" + username + "] " + e.getMessage());
+            }
+        }
+
+        System.out.println("Started " + usernames.size() + " bots with " + workerCount + " search threads.");
+
+        // The bots are running on daemon threads, so keep the main thread alive.
+        Thread.currentThread().join();
+    }
+}
@@ -1,13 +1,14 @@
 package com.github.verluci.reversi.game;
 
+import com.github.verluci.reversi.game.events.EventDispatcher;
 import com.github.verluci.reversi.game.events.GameEndListener;
 import com.github.verluci.reversi.game.events.GameStartListener;
 import com.github.verluci.reversi.game.events.MoveListener;
 import com.github.verluci.reversi.game.events.TurnListener;
 
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class contains an abstract definition of a two-player board-game.
@@ -27,11 +28,13 @@ public abstract class Game {
 
     //region Listener Declaration
 
-    private List<GameEndListener> gameEndListeners = new ArrayList<>();
-    private List<GameStartListener> gameStartListeners = new ArrayList<>();
-    private List<MoveListener> moveListeners = new ArrayList<>();
-    private List<MoveListener> invalidMoveListeners = new ArrayList<>();
-    private List<TurnListener> turnListeners = new ArrayList<>();
+    private List<GameEndListener> gameEndListeners = new CopyOnWriteArrayList<>();
+    private List<GameStartListener> gameStartListeners = new CopyOnWriteArrayList<>();
+    private List<MoveListener> moveListeners = new CopyOnWriteArrayList<>();
+    private List<MoveListener> invalidMoveListeners = new CopyOnWriteArrayList<>();
+    private List<TurnListener> turnListeners = new CopyOnWriteArrayList<>();
+
+    private volatile EventDispatcher eventDispatcher = new EventDispatcher();
 
     //endregion
 
@@ -325,13 +328,34 @@ public abstract class Game {
         turnListeners.add(listener);
     }
 
+    /**
+     * Changes the thread the listeners are executed on, by default they are executed directly on the thread that
+     * performs the move while it holds the lock of this game. This should be set before the game is started.
+     * @param eventDispatcher The dispatcher that executes the listeners.
+     */
+    public void setEventDispatcher(EventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * @return The dispatcher that executes the listeners.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
     /**
      * Executes all listeners that have been subscribed to onGameEnd()
      * @param winner The player that has won the game.
      */
     protected void notifyOnGameEnd(Player winner) {
-        for (GameEndListener listener : gameEndListeners)
-            listener.onGameEnd(winner, playerOneScore, playerTwoScore);
+        int playerOneScore = this.playerOneScore;
+        int playerTwoScore = this.playerTwoScore;
+
+        eventDispatcher.execute(() -> {
+            for (GameEndListener listener : gameEndListeners)
+                listener.onGameEnd(winner, playerOneScore, playerTwoScore);
+        });
     }
 
     /**
@@ -339,8 +363,10 @@ public abstract class Game {
      * @param starter The player that begins.
      */
     protected void notifyOnGameStart(Player starter) {
-        for (GameStartListener listener : gameStartListeners)
-            listener.onGameStart(starter);
+        eventDispatcher.execute(() -> {
+            for (GameStartListener listener : gameStartListeners)
+                listener.onGameStart(starter);
+        });
     }
 
     /**
@@ -350,9 +376,11 @@ public abstract class Game {
      * @param y The y position of the move.
      */
     protected void notifyOnMove(Player mover, int x, int y) {
-        for (MoveListener listener : moveListeners) {
-            listener.OnMove(mover, x, y);
-        }
+        eventDispatcher.execute(() -> {
+            for (MoveListener listener : moveListeners) {
+                listener.OnMove(mover, x, y);
+            }
+        });
     }
 
     /**
@@ -362,9 +390,11 @@ public abstract class Game {
      * @param y The y position of the move.
      */
     protected void notifyOnInvalidMove(Player mover, int x, int y) {
-        for (MoveListener listener : invalidMoveListeners) {
-            listener.OnMove(mover, x, y);
-        }
+        eventDispatcher.execute(() -> {
+            for (MoveListener listener : invalidMoveListeners) {
+                listener.OnMove(mover, x, y);
+            }
+        });
     }
 
     /**
@@ -372,9 +402,11 @@ public abstract class Game {
      * @param player The player that is allowed to make a move.
      */
     protected void notifyOnNextPlayer(Player player) {
-        for (TurnListener listener : turnListeners) {
-            listener.onNextPlayer(player);
-        }
+        eventDispatcher.execute(() -> {
+            for (TurnListener listener : turnListeners) {
+                listener.onNextPlayer(player);
+            }
+        });
     }
 
     //endregion
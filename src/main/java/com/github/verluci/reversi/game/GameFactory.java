@@ -11,7 +11,7 @@ public class GameFactory {
      * @param gameType The type of game you want to create.
      * @return A new Game object as the specified implementation.
      */
-    public static Game createGame(Class<Game> gameType) {
+    public static Game createGame(Class<? extends Game> gameType) {
         try {
             return gameType.getDeclaredConstructor().newInstance();
         } catch (InstantiationException
@@ -0,0 +1,243 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.agents.AIAgent;
+import com.github.verluci.reversi.game.agents.Agent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of matches between a local AI and an opponent, which are played by a SessionScheduler.
+ *
+ * The AI agents are created once and given back to the pool when their game has ended and their last search has
+ * finished, so the next match reuses the agent and everything it holds on to (its settings, its OpenCL session and
+ * its search memory). When all agents are in use the match waits in a queue until an agent is given back, so the pool
+ * never plays more matches at the same time than it has been created for. This is only suited for opponents without a
+ * clock (for example local agents), a match against a server loses time while it waits.
+ *
+ * A pool for matches against a server should be created to refuse the matches that are started while it is playing
+ * as many matches as it has been created for, so they can be forfeited. A match that is accepted can still wait for
+ * an agent that is finishing the search of a game that has already ended, but only for the rest of that search.
+ */
+public class MatchPool {
+    private final Supplier<? extends AIAgent> agentFactory;
+    private final int maxMatches;
+    private final SessionScheduler scheduler;
+    private final boolean isRefusingWhenFull;
+
+    // The agents that are not playing and the matches that are waiting for one, only used while holding the lock of
+    // this pool.
+    private final Deque<AIAgent> idleAgents = new ArrayDeque<>();
+    private final Queue<PendingMatch> pendingMatches = new ArrayDeque<>();
+    private int agentCount;
+    private int activeMatchCount;
+    private int playingMatchCount;
+
+    /**
+     * Constructor for MatchPool, which queues the matches that are started while all agents are in use. This should
+     * only be used for opponents without a clock.
+     * @param agentFactory Creates an AI agent when there is no idle agent and the pool is not full.
+     * @param maxMatches The maximum amount of matches that are played at the same time.
+     * @param scheduler The scheduler that plays the matches.
+     */
+    public MatchPool(Supplier<? extends AIAgent> agentFactory, int maxMatches, SessionScheduler scheduler) {
+        this(agentFactory, maxMatches, scheduler, false);
+    }
+
+    /**
+     * Constructor for MatchPool
+     * @param agentFactory Creates an AI agent when there is no idle agent and the pool is not full.
+     * @param maxMatches The maximum amount of matches that are played at the same time.
+     * @param scheduler The scheduler that plays the matches.
+     * @param isRefusingWhenFull True if a match that is started while the maximum amount of matches is being played
+     *                           should be refused instead of queued, which should be used for opponents with a clock.
+     */
+    public MatchPool(Supplier<? extends AIAgent> agentFactory, int maxMatches, SessionScheduler scheduler, boolean isRefusingWhenFull) {
+        this.agentFactory = agentFactory;
+        this.maxMatches = Math.max(maxMatches, 1);
+        this.scheduler = scheduler;
+        this.isRefusingWhenFull = isRefusingWhenFull;
+    }
+
+    /**
+     * Starts a match between an AI from the pool and the given opponent, or queues it until an AI is given back.
+     * The opponent is added to the game right away, so a NetworkAgent does not miss the moves that arrive while the
+     * match is waiting for an agent.
+     * @param opponent The agent the AI plays against.
+     * @param aiStarts True if the AI is allowed to make the first move.
+     * @param gameType The class-definition of the game that is going to be played.
+     * @param gameCreated Called with the game before it is started, for example to add listeners to it.
+     * @return A future that is completed with the game when it has ended, or null when the maximum amount of matches
+     *         is being played and this pool refuses matches.
+     */
+    public CompletableFuture<Game> startMatch(Agent opponent, boolean aiStarts, Class<?> gameType, Consumer<Game> gameCreated) {
+        if(!admit())
+            return null;
+
+        PendingMatch match = new PendingMatch(opponent, aiStarts);
+        try {
+            match.createGame(gameType, gameCreated);
+        } catch (RuntimeException e) {
+            endMatch();
+            throw e;
+        }
+
+        AIAgent agent = acquire(match);
+        if(agent != null)
+            start(match, agent);
+
+        return match.result;
+    }
+
+    /**
+     * Plays a match with the given agent, which is given back to the pool when the match has ended.
+     */
+    private void start(PendingMatch match, AIAgent agent) {
+        Game game = match.game;
+
+        // A match that has been ended by the opponent while it was waiting is not started anymore.
+        if(game.getCurrentGameState() == Game.GameState.ENDED) {
+            endMatch();
+            release(agent);
+            match.result.complete(game);
+            return;
+        }
+
+        try {
+            agent.setGame(game);
+            agent.setPlayer(match.aiStarts ? Game.Player.PLAYER1 : Game.Player.PLAYER2);
+
+            SessionInitializer session = match.aiStarts
+                    ? new SessionInitializer(game, agent, match.opponent)
+                    : new SessionInitializer(game, match.opponent, agent);
+
+            session.startAsync(match.aiStarts ? agent : match.opponent, scheduler).whenComplete((ended, exception) -> {
+                endMatch();
+                agent.whenIdle().thenRun(() -> release(agent));
+
+                if(exception != null)
+                    match.result.completeExceptionally(exception);
+                else
+                    match.result.complete(ended);
+            });
+        } catch (RuntimeException e) {
+            endMatch();
+            release(agent);
+            match.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return True if the match may be played, false when the maximum amount of matches is being played and this pool
+     *         refuses matches.
+     */
+    private synchronized boolean admit() {
+        if(isRefusingWhenFull && playingMatchCount >= maxMatches)
+            return false;
+
+        playingMatchCount++;
+        return true;
+    }
+
+    /**
+     * Called when the game of a match that has been admitted has ended.
+     */
+    private synchronized void endMatch() {
+        playingMatchCount--;
+    }
+
+    /**
+     * @param match The match that is queued when all agents are in use.
+     * @return An idle or new agent, or null when all agents are in use.
+     */
+    private synchronized AIAgent acquire(PendingMatch match) {
+        AIAgent agent = idleAgents.poll();
+
+        if(agent == null) {
+            if(agentCount >= maxMatches) {
+                pendingMatches.add(match);
+                return null;
+            }
+
+            agent = agentFactory.get();
+            agentCount++;
+        }
+
+        activeMatchCount++;
+        return agent;
+    }
+
+    /**
+     * Gives the agent to the match that has waited the longest, or back to the pool when no match is waiting.
+     */
+    private void release(AIAgent agent) {
+        PendingMatch match;
+        synchronized (this) {
+            match = pendingMatches.poll();
+
+            if(match == null) {
+                activeMatchCount--;
+                idleAgents.push(agent);
+                return;
+            }
+        }
+
+        start(match, agent);
+    }
+
+    /**
+     * @return The amount of matches that are being played, including matches that have ended of which the AI is still
+     *         finishing its last search.
+     */
+    public synchronized int getActiveMatchCount() {
+        return activeMatchCount;
+    }
+
+    /**
+     * @return The amount of matches of which the game has not ended yet, including matches that are waiting.
+     */
+    public synchronized int getPlayingMatchCount() {
+        return playingMatchCount;
+    }
+
+    /**
+     * @return The maximum amount of matches that are played at the same time.
+     */
+    public int getMaxMatches() {
+        return maxMatches;
+    }
+
+    /**
+     * @return The amount of matches that are waiting until an agent is given back.
+     */
+    public synchronized int getPendingMatchCount() {
+        return pendingMatches.size();
+    }
+
+    /**
+     * A match of which the game and opponent have been created, which is waiting for an agent of the pool.
+     */
+    private static class PendingMatch {
+        private final Agent opponent;
+        private final boolean aiStarts;
+        private final CompletableFuture<Game> result = new CompletableFuture<>();
+        private Game game;
+
+        private PendingMatch(Agent opponent, boolean aiStarts) {
+            this.opponent = opponent;
+            this.aiStarts = aiStarts;
+        }
+
+        private void createGame(Class<?> gameType, Consumer<Game> gameCreated) {
+            game = GameFactory.createGame((Class<Game>) gameType);
+
+            opponent.setGame(game);
+            opponent.setPlayer(aiStarts ? Game.Player.PLAYER2 : Game.Player.PLAYER1);
+            gameCreated.accept(game);
+        }
+    }
+}
@@ -0,0 +1,647 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+import com.github.verluci.reversi.gpgpu.GraphicsDevice;
+import com.github.verluci.reversi.gpgpu.JOCLSample;
+import com.github.verluci.reversi.gpgpu.KernelMoveGenerator;
+import org.apache.commons.cli.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * A perft (performance test) suite for the move generation, which counts the leaf nodes of the game-tree up to a given
+ * depth. Because the counts are known for the starting position and every move generator has to produce exactly the
+ * same count, perft is both a correctness test and a throughput benchmark (nodes/s) of a move generator.
+ *
+ * The counts follow the common convention for Othello:
+ * - A position at depth 0 is a single leaf node.
+ * - A pass is a ply, so when the player to move has no valid moves the opponent continues one depth deeper.
+ * - When neither player can make a move the game has ended and the position is a single leaf node, whatever the
+ *   remaining depth is.
+ *
+ * The move generation of the bitboard, of the OthelloGame (Tile[][]) and of the OpenCL kernel can be compared with
+ * each other, either by the counts or by checking every single position against the bitboard.
+ */
+public class Perft {
+    // The perft counts of the starting position, where the index is the depth.
+    public static final long[] STARTING_POSITION_COUNTS = {
+            1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L, 212258800L
+    };
+
+    // Below this depth a parallel perft is no longer split into tasks.
+    private static final int SPLIT_DEPTH = 3;
+    // The seed of the random games that are used to create the test positions.
+    private static final long TEST_POSITION_SEED = 2020L;
+
+    /**
+     * A move generator of which the results are counted by perft.
+     * Both methods use the tiles of the player to move and the tiles of the opponent as bitboards (bit = y * 8 + x).
+     */
+    public interface MoveGenerator {
+        /**
+         * @param player The tiles of the player to move.
+         * @param opponent The tiles of the opponent.
+         * @return A long value in which every bit that is set is a valid move of the player.
+         */
+        long findValidMoves(long player, long opponent);
+
+        /**
+         * @param player The tiles of the player that makes the move.
+         * @param opponent The tiles of the opponent.
+         * @param index The index of the tile the move is made on.
+         * @return A long value in which every bit that is set is a tile of the opponent that is flipped by this move.
+         */
+        long calculateFlips(long player, long opponent, int index);
+    }
+
+    /**
+     * A move generator that processes a batch of positions at once, like the OpenCL kernel.
+     */
+    public interface BatchMoveGenerator {
+        /**
+         * @return The maximum amount of positions in a single batch.
+         */
+        int getBatchSize();
+
+        /**
+         * Generates the moves of a batch of positions.
+         * @param positions An array with 2 values per position: the tiles of the player to move and the tiles of the opponent.
+         * @param offset The first position of the batch.
+         * @param count The amount of positions in the batch.
+         * @param validMoves The valid moves of every position of the batch.
+         * @param opponentCanMove If the opponent has a valid move in every position of the batch.
+         * @param moveResults 64 values per position of the batch, with the tiles of the player after a move on that tile,
+         *                    or 0 if the move is not valid.
+         */
+        void generate(long[] positions, int offset, int count, long[] validMoves, boolean[] opponentCanMove, long[] moveResults);
+    }
+
+    //region Move Generators
+
+    /**
+     * The move generation of the BitBoard, which is used by the CPU agents.
+     */
+    public static class BitBoardMoveGenerator implements MoveGenerator {
+        @Override
+        public long findValidMoves(long player, long opponent) {
+            return BitBoard.findValidMoves(player, opponent);
+        }
+
+        @Override
+        public long calculateFlips(long player, long opponent, int index) {
+            return BitBoard.calculateFlips(player, opponent, index);
+        }
+    }
+
+    /**
+     * The move generation of the OthelloGame, which is used by the game sessions.
+     * The position is copied into the Tile[][] of its own game with the player to move as PLAYER1, so a generator
+     * should only be used by a single thread.
+     */
+    public static class TileMoveGenerator implements MoveGenerator {
+        private final OthelloGame game = new OthelloGame();
+
+        @Override
+        public long findValidMoves(long player, long opponent) {
+            setPosition(player, opponent);
+            game.findValidMoves(Game.Player.PLAYER1);
+
+            return game.getBoard().getPlayerTilesLongValue(TileState.POSSIBLE_MOVE);
+        }
+
+        @Override
+        public long calculateFlips(long player, long opponent, int index) {
+            setPosition(player, opponent);
+            game.performMove(Game.Player.PLAYER1, index % 8, index / 8);
+
+            long playerTiles = game.getBoard().getPlayerTilesLongValue(TileState.PLAYER1);
+            return playerTiles & opponent;
+        }
+
+        private void setPosition(long player, long opponent) {
+            Tile[][] tiles = game.getBoard().getTiles();
+
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    long tile = 1L << (y * 8 + x);
+
+                    if((player & tile) != 0)
+                        tiles[x][y].setState(TileState.PLAYER1);
+                    else if((opponent & tile) != 0)
+                        tiles[x][y].setState(TileState.PLAYER2);
+                    else
+                        tiles[x][y].setState(TileState.NONE);
+                }
+            }
+        }
+    }
+
+    /**
+     * A move generator that checks every result of a move generator against a reference move generator.
+     */
+    public static class CrossCheckMoveGenerator implements MoveGenerator {
+        private final MoveGenerator generator;
+        private final MoveGenerator reference;
+
+        /**
+         * Constructor for CrossCheckMoveGenerator
+         * @param generator The move generator that is checked, its results are returned.
+         * @param reference The move generator it is checked against.
+         */
+        public CrossCheckMoveGenerator(MoveGenerator generator, MoveGenerator reference) {
+            this.generator = generator;
+            this.reference = reference;
+        }
+
+        @Override
+        public long findValidMoves(long player, long opponent) {
+            long moves = generator.findValidMoves(player, opponent);
+            long expected = reference.findValidMoves(player, opponent);
+
+            if(moves != expected)
+                throw new IllegalStateException("Different valid moves " + toHex(moves) + ", expected " + toHex(expected)
+                        + " in position " + positionToString(player, opponent));
+
+            return moves;
+        }
+
+        @Override
+        public long calculateFlips(long player, long opponent, int index) {
+            long flips = generator.calculateFlips(player, opponent, index);
+            long expected = reference.calculateFlips(player, opponent, index);
+
+            if(flips != expected)
+                throw new IllegalStateException("Different flips " + toHex(flips) + ", expected " + toHex(expected)
+                        + " of move " + BitBoard.indexToNotation(index) + " in position " + positionToString(player, opponent));
+
+            return flips;
+        }
+    }
+
+    /**
+     * The BitBoard as a BatchMoveGenerator, to compare the OpenCL kernel with the same level-wise perft.
+     */
+    public static class BitBoardBatchMoveGenerator implements BatchMoveGenerator {
+        @Override
+        public int getBatchSize() {
+            return 4096;
+        }
+
+        @Override
+        public void generate(long[] positions, int offset, int count, long[] validMoves, boolean[] opponentCanMove, long[] moveResults) {
+            for (int i = 0; i < count; i++) {
+                long player = positions[(offset + i) * 2];
+                long opponent = positions[(offset + i) * 2 + 1];
+
+                long moves = BitBoard.findValidMoves(player, opponent);
+                validMoves[i] = moves;
+                opponentCanMove[i] = BitBoard.findValidMoves(opponent, player) != 0;
+
+                Arrays.fill(moveResults, i * 64, i * 64 + 64, 0L);
+                for (long remaining = moves; remaining != 0; remaining &= remaining - 1) {
+                    int index = Long.numberOfTrailingZeros(remaining);
+                    moveResults[i * 64 + index] = player | BitBoard.calculateFlips(player, opponent, index) | (1L << index);
+                }
+            }
+        }
+    }
+
+    //endregion
+
+    //region Perft
+
+    /**
+     * Counts the leaf nodes of the game-tree on a single thread.
+     * @param player The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param depth The amount of plies that should be searched.
+     * @param generator The move generator that is used.
+     * @return The amount of leaf nodes.
+     */
+    public static long perft(long player, long opponent, int depth, MoveGenerator generator) {
+        if(depth == 0)
+            return 1;
+
+        long moves = generator.findValidMoves(player, opponent);
+        if(moves == 0) {
+            // The game has ended when the opponent cannot move either, otherwise the opponent continues after a pass.
+            if(generator.findValidMoves(opponent, player) == 0)
+                return 1;
+
+            return perft(opponent, player, depth - 1, generator);
+        }
+
+        // The children of the last ply are not visited, their amount is the amount of valid moves.
+        if(depth == 1)
+            return Long.bitCount(moves);
+
+        long nodes = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int index = Long.numberOfTrailingZeros(moves);
+            long flips = generator.calculateFlips(player, opponent, index);
+
+            nodes += perft(opponent & ~flips, player | flips | (1L << index), depth - 1, generator);
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes of the game-tree by splitting the top of the tree into tasks of the given pool.
+     * @param player The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param depth The amount of plies that should be searched.
+     * @param generatorFactory Creates a move generator for every thread of the pool.
+     * @param pool The pool the tasks are executed on.
+     * @return The amount of leaf nodes.
+     */
+    public static long perft(long player, long opponent, int depth, Supplier<MoveGenerator> generatorFactory, ForkJoinPool pool) {
+        ThreadLocal<MoveGenerator> generators = ThreadLocal.withInitial(generatorFactory);
+        return pool.invoke(new PerftTask(player, opponent, depth, generators));
+    }
+
+    /**
+     * Counts the leaf nodes of the game-tree level by level, so every level is generated in batches.
+     * @param player The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param depth The amount of plies that should be searched.
+     * @param generator The batch move generator that is used.
+     * @param reference A move generator every generated position is checked against, or null.
+     * @return The amount of leaf nodes.
+     */
+    public static long perft(long player, long opponent, int depth, BatchMoveGenerator generator, MoveGenerator reference) {
+        int batchSize = generator.getBatchSize();
+        long[] validMoves = new long[batchSize];
+        boolean[] opponentCanMove = new boolean[batchSize];
+        long[] moveResults = new long[batchSize * 64];
+
+        long[] positions = { player, opponent };
+        int positionCount = 1;
+        long nodes = 0;
+
+        for (int remaining = depth; remaining > 0 && positionCount > 0; remaining--) {
+            long[] children = new long[Math.max(positionCount * 16, 16)];
+            int childCount = 0;
+
+            for (int offset = 0; offset < positionCount; offset += batchSize) {
+                int count = Math.min(batchSize, positionCount - offset);
+                generator.generate(positions, offset, count, validMoves, opponentCanMove, moveResults);
+
+                for (int i = 0; i < count; i++) {
+                    long currentPlayer = positions[(offset + i) * 2];
+                    long currentOpponent = positions[(offset + i) * 2 + 1];
+                    long moves = validMoves[i];
+
+                    if(reference != null)
+                        checkBatchResult(currentPlayer, currentOpponent, moves, opponentCanMove[i], moveResults, i * 64, reference);
+
+                    if(moves == 0) {
+                        // The same rules as the recursive perft: an ended game or a pass on the last ply is a leaf node.
+                        if(!opponentCanMove[i] || remaining == 1) {
+                            nodes++;
+                            continue;
+                        }
+
+                        if(childCount * 2 + 2 > children.length)
+                            children = Arrays.copyOf(children, children.length * 2);
+
+                        children[childCount * 2] = currentOpponent;
+                        children[childCount * 2 + 1] = currentPlayer;
+                        childCount++;
+                    }
+                    else if(remaining == 1) {
+                        nodes += Long.bitCount(moves);
+                    }
+                    else {
+                        if((childCount + Long.bitCount(moves)) * 2 > children.length)
+                            children = Arrays.copyOf(children, Math.max(children.length * 2, (childCount + 64) * 2));
+
+                        for (; moves != 0; moves &= moves - 1) {
+                            int index = Long.numberOfTrailingZeros(moves);
+                            long playerAfterMove = moveResults[i * 64 + index];
+
+                            children[childCount * 2] = currentOpponent & ~playerAfterMove;
+                            children[childCount * 2 + 1] = playerAfterMove;
+                            childCount++;
+                        }
+                    }
+                }
+            }
+
+            positions = children;
+            positionCount = childCount;
+        }
+
+        // When the depth is 0 the starting position itself is the only leaf node.
+        return depth == 0 ? 1 : nodes;
+    }
+
+    private static void checkBatchResult(long player, long opponent, long moves, boolean opponentCanMove, long[] moveResults, int resultOffset, MoveGenerator reference) {
+        long expectedMoves = reference.findValidMoves(player, opponent);
+        if(moves != expectedMoves)
+            throw new IllegalStateException("Different valid moves " + toHex(moves) + ", expected " + toHex(expectedMoves)
+                    + " in position " + positionToString(player, opponent));
+
+        if(opponentCanMove != (reference.findValidMoves(opponent, player) != 0))
+            throw new IllegalStateException("Different result for the opponent being able to move in position " + positionToString(player, opponent));
+
+        for (int index = 0; index < 64; index++) {
+            long expected = (moves & (1L << index)) == 0 ? 0L : player | reference.calculateFlips(player, opponent, index) | (1L << index);
+
+            if(moveResults[resultOffset + index] != expected)
+                throw new IllegalStateException("Different result " + toHex(moveResults[resultOffset + index]) + ", expected "
+                        + toHex(expected) + " of move " + BitBoard.indexToNotation(index) + " in position " + positionToString(player, opponent));
+        }
+    }
+
+    /**
+     * A task that splits a perft into a task per move, until the SPLIT_DEPTH is reached.
+     */
+    private static class PerftTask extends RecursiveTask<Long> {
+        private final long player;
+        private final long opponent;
+        private final int depth;
+        private final ThreadLocal<MoveGenerator> generators;
+
+        private PerftTask(long player, long opponent, int depth, ThreadLocal<MoveGenerator> generators) {
+            this.player = player;
+            this.opponent = opponent;
+            this.depth = depth;
+            this.generators = generators;
+        }
+
+        @Override
+        protected Long compute() {
+            MoveGenerator generator = generators.get();
+            if(depth <= SPLIT_DEPTH)
+                return perft(player, opponent, depth, generator);
+
+            long moves = generator.findValidMoves(player, opponent);
+            if(moves == 0) {
+                if(generator.findValidMoves(opponent, player) == 0)
+                    return 1L;
+
+                return new PerftTask(opponent, player, depth - 1, generators).compute();
+            }
+
+            List<PerftTask> tasks = new ArrayList<>();
+            for (; moves != 0; moves &= moves - 1) {
+                int index = Long.numberOfTrailingZeros(moves);
+                long flips = generator.calculateFlips(player, opponent, index);
+
+                tasks.add(new PerftTask(opponent & ~flips, player | flips | (1L << index), depth - 1, generators));
+            }
+
+            long nodes = 0;
+            for (PerftTask task : invokeAll(tasks))
+                nodes += task.join();
+
+            return nodes;
+        }
+    }
+
+    //endregion
+
+    //region Test Positions
+
+    /**
+     * Creates the positions the move generators are tested with: positions of random games at several stages of the
+     * game, and a position in which the player to move has to pass.
+     * The random games use a fixed seed, so the positions are the same on every run.
+     * @return A list of positions, every position is an array of the tiles of the player to move and of the opponent.
+     */
+    public static List<long[]> createTestPositions() {
+        List<long[]> positions = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(TEST_POSITION_SEED);
+
+        for (int plies : new int[] { 10, 20, 30, 40, 50 }) {
+            long[] position = playRandomGame(random, plies, false);
+            if(position != null)
+                positions.add(position);
+        }
+
+        // Passes are rare, so play random games until one reaches a position in which a pass is forced.
+        long[] passPosition = null;
+        while (passPosition == null)
+            passPosition = playRandomGame(random, 60, true);
+
+        positions.add(passPosition);
+        return positions;
+    }
+
+    /**
+     * @param random The random that chooses the moves.
+     * @param plies The amount of moves that should be made.
+     * @param untilPass Stop at the first position in which the player to move has to pass.
+     * @return The position after the given amount of moves (or at the first pass), or null if the game has ended before.
+     */
+    private static long[] playRandomGame(SplittableRandom random, int plies, boolean untilPass) {
+        long player = BitBoard.STARTING_PLAYER;
+        long opponent = BitBoard.STARTING_OPPONENT;
+
+        for (int ply = 0; ply < plies; ply++) {
+            long moves = BitBoard.findValidMoves(player, opponent);
+            if(moves == 0) {
+                if(BitBoard.findValidMoves(opponent, player) == 0)
+                    return null;
+                if(untilPass)
+                    return new long[] { player, opponent };
+
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+                continue;
+            }
+
+            for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--)
+                moves &= moves - 1;
+
+            int index = Long.numberOfTrailingZeros(moves);
+            long flips = BitBoard.calculateFlips(player, opponent, index);
+
+            long nextPlayer = opponent & ~flips;
+            opponent = player | flips | (1L << index);
+            player = nextPlayer;
+        }
+
+        return untilPass ? null : new long[] { player, opponent };
+    }
+
+    //endregion
+
+    private static String toHex(long value) {
+        return String.format("0x%016X", value);
+    }
+
+    private static String positionToString(long player, long opponent) {
+        return "player=" + toHex(player) + " opponent=" + toHex(opponent);
+    }
+
+    /**
+     * An entry-point which runs perft with the given move generators on the starting position and the test positions,
+     * prints the throughput of every generator and exits with 1 when the generators do not agree.
+     * @param args -d DEPTH, -pd POSITION_DEPTH, -g GENERATORS, -t THREAD_COUNT, -gpu DEVICE_INDEX, -c
+     */
+    public static void main(String[] args) {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option depthOption = new Option("d", "depth", true, "The depth of the perft from the starting position. (default: 8)");
+        depthOption.setRequired(false);
+        options.addOption(depthOption);
+
+        Option positionDepthOption = new Option("pd", "positiondepth", true, "The depth of the perft from the test positions. (default: 6)");
+        positionDepthOption.setRequired(false);
+        options.addOption(positionDepthOption);
+
+        Option generatorsOption = new Option("g", "generators", true,
+                "A comma-separated list of move generators: bitboard, tiles, batch or opencl. (default: bitboard,tiles)");
+        generatorsOption.setRequired(false);
+        options.addOption(generatorsOption);
+
+        Option threadsOption = new Option("t", "threads", true,
+                "The amount of threads of the parallel perft, 1 only runs the single-threaded perft. (default: all cores)");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        Option deviceOption = new Option("gpu", "gpu", true, "The index of the graphics-device of the opencl generator. (default: 0)");
+        deviceOption.setRequired(false);
+        options.addOption(deviceOption);
+
+        Option checkOption = new Option("c", "check", false, "Check every position against the bitboard instead of only the counts.");
+        checkOption.setRequired(false);
+        options.addOption(checkOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        int depth = Integer.parseInt(cmd.getOptionValue("depth", "8"));
+        int positionDepth = Integer.parseInt(cmd.getOptionValue("positiondepth", "6"));
+        String[] generators = cmd.getOptionValue("generators", "bitboard,tiles").split(",");
+        int threads = Integer.parseInt(cmd.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int deviceIndex = Integer.parseInt(cmd.getOptionValue("gpu", "0"));
+        boolean check = cmd.hasOption("check");
+
+        //endregion
+
+        List<long[]> positions = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+
+        positions.add(new long[] { BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT });
+        names.add("start");
+        depths.add(depth);
+
+        List<long[]> testPositions = createTestPositions();
+        for (int i = 0; i < testPositions.size(); i++) {
+            positions.add(testPositions.get(i));
+            names.add("position " + (i + 1));
+            depths.add(positionDepth);
+        }
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        KernelMoveGenerator kernelGenerator = null;
+        boolean isCorrect = true;
+
+        try {
+            for (int p = 0; p < positions.size(); p++) {
+                long player = positions.get(p)[0];
+                long opponent = positions.get(p)[1];
+                int perftDepth = depths.get(p);
+
+                System.out.println(names.get(p) + " (" + positionToString(player, opponent) + "), depth " + perftDepth + ":");
+
+                long expected = p == 0 && perftDepth < STARTING_POSITION_COUNTS.length ? STARTING_POSITION_COUNTS[perftDepth] : -1;
+                for (String generatorName : generators) {
+                    String name = generatorName.trim();
+                    long[] counts;
+
+                    try {
+                        switch (name) {
+                            case "bitboard":
+                            case "tiles":
+                                Supplier<MoveGenerator> factory = name.equals("bitboard") ? BitBoardMoveGenerator::new : TileMoveGenerator::new;
+                                Supplier<MoveGenerator> generatorFactory = check ? () -> new CrossCheckMoveGenerator(factory.get(), new BitBoardMoveGenerator()) : factory;
+
+                                counts = new long[] { measure(name, () -> perft(player, opponent, perftDepth, generatorFactory.get())) };
+                                if(pool != null)
+                                    counts = new long[] { counts[0], measure(name + " x" + threads, () -> perft(player, opponent, perftDepth, generatorFactory, pool)) };
+                                break;
+                            case "batch":
+                                counts = new long[] { measure(name, () -> perft(player, opponent, perftDepth,
+                                        new BitBoardBatchMoveGenerator(), check ? new BitBoardMoveGenerator() : null)) };
+                                break;
+                            case "opencl":
+                                if(kernelGenerator == null) {
+                                    GraphicsDevice graphicsDevice = JOCLSample.getGraphicsDevices().get(deviceIndex);
+                                    kernelGenerator = new KernelMoveGenerator(graphicsDevice);
+                                    System.out.println("  using " + graphicsDevice.getName());
+                                }
+
+                                KernelMoveGenerator batchGenerator = kernelGenerator;
+                                counts = new long[] { measure(name, () -> perft(player, opponent, perftDepth,
+                                        batchGenerator, check ? new BitBoardMoveGenerator() : null)) };
+                                break;
+                            default:
+                                System.out.println("  Unknown move generator: " + name);
+                                continue;
+                        }
+                    } catch (IllegalStateException e) {
+                        System.out.println("  " + name + " MISMATCH: " + e.getMessage());
+                        isCorrect = false;
+                        continue;
+                    }
+
+                    for (long count : counts) {
+                        if(expected < 0)
+                            expected = count;
+                        else if(count != expected) {
+                            System.out.println("  " + name + " MISMATCH: " + count + " nodes, expected " + expected);
+                            isCorrect = false;
+                        }
+                    }
+                }
+            }
+        } finally {
+            if(pool != null)
+                pool.shutdown();
+            if(kernelGenerator != null)
+                kernelGenerator.close();
+        }
+
+        System.out.println(isCorrect ? "All move generators agree." : "The move generators do not agree.");
+        System.exit(isCorrect ? 0 : 1);
+    }
+
+    /**
+     * Runs a perft and prints its amount of nodes and its throughput.
+     * @param name The name of the move generator.
+     * @param perft The perft that should be measured.
+     * @return The amount of leaf nodes.
+     */
+    private static long measure(String name, Supplier<Long> perft) {
+        long startTime = System.nanoTime();
+        long nodes = perft.get();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(String.format("  %-12s %,14d nodes in %8.3fs (%,.0f nodes/s)", name, nodes, seconds, nodes / Math.max(seconds, 1e-9)));
+        return nodes;
+    }
+}
@@ -2,12 +2,19 @@ package com.github.verluci.reversi.game;
 
 import com.github.verluci.reversi.game.Game.*;
 import com.github.verluci.reversi.game.agents.*;
+import com.github.verluci.reversi.game.book.OpeningBook;
+import com.github.verluci.reversi.game.events.EventDispatcher;
 import com.github.verluci.reversi.gpgpu.JOCLSample;
 import com.github.verluci.reversi.networking.GameClientExceptions;
 import com.github.verluci.reversi.networking.clients.GameClient;
+import com.github.verluci.reversi.networking.clients.NioGameClient;
 import com.github.verluci.reversi.networking.clients.TelnetGameClient;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.security.InvalidParameterException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.apache.commons.cli.*;
 
 /**
@@ -37,7 +44,19 @@ public class SessionInitializer {
     }
 
     /**
-     * Start the session in which players are playing a Game.
+     * Constructor for SessionInitializer with agents that have already been added to the given game.
+     * @param game The game that is going to be played.
+     * @param player1 An Agent that is player1 in this game.
+     * @param player2 An Agent that is player2 in this game.
+     */
+    SessionInitializer(Game game, Agent player1, Agent player2) {
+        this.game = game;
+        this.player1 = player1;
+        this.player2 = player2;
+    }
+
+    /**
+     * Start the session in which players are playing a Game, this blocks the calling thread until the game has ended.
      * @param startingPlayer The player that is allowed to make the first move.
      */
     public void start(Agent startingPlayer) {
@@ -46,6 +65,14 @@ public class SessionInitializer {
         else
             throw new InvalidParameterException("The given player is not in this session!");
 
+        play();
+    }
+
+    /**
+     * Lets the agents make their moves until the game has ended, the game should already have been started.
+     * (for example when some moves have already been made on the game before the agents take over)
+     */
+    public void play() {
         while (game.getCurrentGameState() == Game.GameState.RUNNING) {
             switch (game.getCurrentPlayer()) {
                 case PLAYER1:
@@ -58,6 +85,21 @@ public class SessionInitializer {
         }
     }
 
+    /**
+     * Start the session in which players are playing a Game on the threads of a SessionScheduler.
+     * @param startingPlayer The player that is allowed to make the first move.
+     * @param scheduler The scheduler that plays the game.
+     * @return A future that is completed with the game when it has ended.
+     */
+    public CompletableFuture<Game> startAsync(Agent startingPlayer, SessionScheduler scheduler) {
+        if(startingPlayer == player1 || startingPlayer == player2)
+            game.startGame(startingPlayer.getPlayer());
+        else
+            throw new InvalidParameterException("The given player is not in this session!");
+
+        return scheduler.play(this);
+    }
+
     /**
      * @return The game that is being played.
      */
@@ -65,11 +107,65 @@ public class SessionInitializer {
         return game;
     }
 
+    /**
+     * @param player The player in the game.
+     * @return The agent that plays the given player.
+     */
+    public Agent getAgent(Player player) {
+        switch (player) {
+            case PLAYER1:
+                return player1;
+            case PLAYER2:
+                return player2;
+            default:
+                throw new InvalidParameterException("There is no agent for player " + player);
+        }
+    }
+
+    /**
+     * Plays every match that the server starts on the given client with an agent of the pool. The client clears its
+     * game listeners at the end of every game, so the listener of the next match is added again by then.
+     * @param gameClient The client that is logged in to the server.
+     * @param localPlayer The player on the local side of the matches.
+     * @param matchPool The pool of which the agents play the matches.
+     * @param gameCreated Called with every game before it is started, for example to add listeners to it.
+     */
+    static void playMatches(GameClient gameClient, com.github.verluci.reversi.networking.types.Player localPlayer,
+                            MatchPool matchPool, Consumer<Game> gameCreated) {
+        gameClient.onGameStart(listener -> {
+            gameClient.onGameEnd(gameEnd -> playMatches(gameClient, localPlayer, matchPool, gameCreated));
+
+            boolean localStarts = listener.getStartingPlayer().equals(localPlayer);
+            Agent networkAgent = new NetworkAgent(gameClient, localPlayer);
+
+            System.out.println("Starting player is " + listener.getStartingPlayer().getName());
+            System.out.println("The local Agent is " + (localStarts ? "PLAYER1" : "PLAYER2"));
+
+            var match = matchPool.startMatch(networkAgent, localStarts, OthelloGame.class, gameCreated);
+
+            if(match == null) {
+                System.err.println("All " + matchPool.getMaxMatches() + " matches are in use, forfeiting the match against "
+                        + listener.getOpponent().getName());
+                gameClient.forfeitAsync().exceptionally(exception -> {
+                    exception.printStackTrace();
+                    return null;
+                });
+                return;
+            }
+
+            match.exceptionally(exception -> {
+                exception.printStackTrace();
+                return null;
+            });
+        });
+    }
+
     /**
      * An entry-point which can be used to run the Othello/Reversi AI in a headless state.
-     * @param args -h HOSTNAME, -p PORT, -u USERNAME, -t THREAD_COUNT*1024, -gpu CL_DEVICE_INDEX
+     * @param args -h HOSTNAME, -p PORT, -u USERNAME, -t THREAD_COUNT*1024, -gpu CL_DEVICE_INDEX, -tt TURN_TIME, -b BOOK_FILE,
+     *             -c CLIENT_TYPE, -r RECORD_FILE, -m MAX_MATCHES
      */
-    public static void main(String[] args) throws GameClientExceptions.ConnectionException, GameClientExceptions.LoginException {
+    public static void main(String[] args) throws GameClientExceptions.ConnectionException, GameClientExceptions.LoginException, InterruptedException {
         //region Command Line Arguments
 
         Options options = new Options();
@@ -92,10 +188,32 @@ public class SessionInitializer {
         options.addOption(chosenDeviceOption);
 
         Option devicePerformanceOption = new Option("t", "threads", true,
-                "The base amount of threads * 1024 this GPU is going to use. The maximum amount of threads that are going to be used is threads * 2048.");
+                "The estimated amount of threads * 1024 this GPU can simulate from the starting position within a turn. It is only used until the speed of the GPU has been measured, after that the amount of threads per move follows from the measured speed and the time the TimeManager gives the move.");
         devicePerformanceOption.setRequired(true);
         options.addOption(devicePerformanceOption);
 
+        Option turnTimeOption = new Option("tt", "turntime", true,
+                "The amount of seconds a player is allowed to use per move. (default: 10)");
+        turnTimeOption.setRequired(false);
+        options.addOption(turnTimeOption);
+
+        Option bookOption = new Option("b", "book", true, "The location of an opening book-file.");
+        bookOption.setRequired(false);
+        options.addOption(bookOption);
+
+        Option clientOption = new Option("c", "client", true, "The connection that is used: nio or telnet. (default: nio)");
+        clientOption.setRequired(false);
+        options.addOption(clientOption);
+
+        Option recordOption = new Option("r", "record", true, "Records all traffic with the server to the given file.");
+        recordOption.setRequired(false);
+        options.addOption(recordOption);
+
+        Option matchesOption = new Option("m", "matches", true,
+                "The maximum amount of matches that are played at the same time, other matches are forfeited because they would lose time on the clock of the server while waiting. (default: 1)");
+        matchesOption.setRequired(false);
+        options.addOption(matchesOption);
+
         CommandLineParser parser = new DefaultParser();
         HelpFormatter formatter = new HelpFormatter();
         CommandLine cmd = null;
@@ -114,58 +232,65 @@ public class SessionInitializer {
         int port = Integer.parseInt(cmd.getOptionValue("port"));
         int estimateDevicePerformance = Integer.parseInt(cmd.getOptionValue("threads"));
         int chosenDeviceIndex = cmd.getOptionValue("gpu") == null ? 0 : Integer.parseInt(cmd.getOptionValue("gpu"));
+        long turnTime = cmd.getOptionValue("turntime") == null ? TimeManager.DEFAULT_TURN_TIME : (long) (Double.parseDouble(cmd.getOptionValue("turntime")) * 1000d);
+        boolean useTelnet = "telnet".equalsIgnoreCase(cmd.getOptionValue("client"));
+        int maxMatches = Integer.parseInt(cmd.getOptionValue("matches", "1"));
 
         //endregion
 
+        OpeningBook openingBook = null;
+        if(cmd.getOptionValue("book") != null) {
+            try {
+                openingBook = OpeningBook.open(Paths.get(cmd.getOptionValue("book")));
+                System.out.println("Opened opening book with " + openingBook.size() + " entries.");
+            } catch (IOException e) {
+                System.err.println("Failed to open the opening book: " + e.getMessage());
+            }
+        }
+        final OpeningBook finalOpeningBook = openingBook;
+
         var graphicsDevices = JOCLSample.getGraphicsDevices();
         var chosenDevice = graphicsDevices.get(chosenDeviceIndex);
         chosenDevice.setEstimatePerformance(estimateDevicePerformance);
         System.out.println(chosenDevice.toString());
 
-        GameClient gameClient = new TelnetGameClient();
+        GameClient gameClient = useTelnet ? new TelnetGameClient() : new NioGameClient();
+        // Creating the agents of a new game takes a while, so the listeners should not hold up the network thread.
+        gameClient.setEventDispatcher(new EventDispatcher(EventDispatcher.newEventThread("GameClient-events")));
+        if(cmd.getOptionValue("record") != null) {
+            try {
+                gameClient.startRecording(Paths.get(cmd.getOptionValue("record")));
+                Runtime.getRuntime().addShutdownHook(new Thread(gameClient::stopRecording));
+            } catch (IOException e) {
+                System.err.println("Failed to start recording: " + e.getMessage());
+            }
+        }
         gameClient.connect(hostname, port);
 
+        TimeManager timeManager = new TimeManager(turnTime);
+        timeManager.setLatencySource(gameClient);
+
         com.github.verluci.reversi.networking.types.Player localPlayer = new com.github.verluci.reversi.networking.types.Player(username);
         gameClient.login(username);
 
-        gameClient.onGameStart(listener -> {
-            Agent player1 = new MCTSAIAgent(chosenDevice);
-            Agent player2 = new NetworkAgent(gameClient, localPlayer);
-
-            SessionInitializer newSession;
-
-            System.out.println("Starting player is " + listener.getStartingPlayer().getName());
-            System.out.println("The local Agent is " + (listener.getStartingPlayer().getName().equals(username) ? "PLAYER1" : "PLAYER2"));
-
-            if(listener.getStartingPlayer().getName().equals(username))
-                newSession = new SessionInitializer(
-                        player1,
-                        player2,
-                        OthelloGame.class);
-            else
-                newSession = new SessionInitializer(
-                        player2,
-                        player1,
-                        OthelloGame.class);
-
-            final com.github.verluci.reversi.networking.types.Player[] startingPlayer = { null };
-            SessionInitializer finalNewSession = newSession;
-            Thread sessionThread = new Thread(() -> {
-                if(startingPlayer[0].equals(localPlayer))
-                    finalNewSession.start(player1);
-                else
-                    finalNewSession.start(player2);
-            });
-
-            Game game = newSession.getGame();
+        // The agents are reused by the next match, so the OpenCL session and search memory are only created once.
+        MatchPool matchPool = new MatchPool(() -> {
+            MCTSAIAgent aiAgent = new MCTSAIAgent(chosenDevice);
+            aiAgent.setTimeManager(timeManager);
+            aiAgent.setOpeningBook(finalOpeningBook);
+            aiAgent.setTurnMetrics(gameClient.getTurnMetrics());
+            return aiAgent;
+        }, maxMatches, new SessionScheduler(), true);
 
+        playMatches(gameClient, localPlayer, matchPool, game ->
             game.onGameEnd((winner, playerOneScore, playerTwoScore) -> {
                 System.out.println("Game has ended: p1=" + playerOneScore + ", p2=" + playerTwoScore + ", winner:" + winner);
+                System.out.println(gameClient.getTurnMetrics().getSummary());
                 System.out.println("\n" + game.getBoard().toString() + "\n");
-            });
+            })
+        );
 
-            startingPlayer[0] = listener.getStartingPlayer();
-            sessionThread.start();
-        });
+        // The matches are played on the daemon threads of the scheduler, so keep the main thread alive.
+        Thread.currentThread().join();
     }
 }
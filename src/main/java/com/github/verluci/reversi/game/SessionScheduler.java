@@ -0,0 +1,143 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.agents.Agent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays the games of many sessions on a small pool of threads.
+ *
+ * Instead of a thread per session that waits for every move, the scheduler requests the next move from the agent whose
+ * turn it is and continues the session when that move has been completed. Agents that wait for an event (a move from
+ * the server or a click in the UI) and agents that search on their own threads do not use a thread of the scheduler
+ * while they are thinking, so a few threads can play hundreds of sessions at the same time. Agents that block while
+ * thinking use a thread of the scheduler until their move has been made.
+ */
+public class SessionScheduler {
+    private final ExecutorService executor;
+    private final AtomicInteger activeSessionCount = new AtomicInteger();
+
+    /**
+     * Constructor for SessionScheduler that uses a thread per core.
+     */
+    public SessionScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for SessionScheduler
+     * @param threadCount The amount of threads that play the sessions.
+     */
+    public SessionScheduler(int threadCount) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(threadCount, 1), runnable -> {
+            Thread thread = new Thread(runnable, "session-scheduler-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lets the agents of a session make their moves until the game has ended, the game should already have been started.
+     * @param session The session that should be played.
+     * @return A future that is completed with the game when it has ended, or exceptionally when an agent has failed.
+     */
+    public CompletableFuture<Game> play(SessionInitializer session) {
+        ScheduledSession scheduledSession = new ScheduledSession(session);
+
+        activeSessionCount.incrementAndGet();
+        scheduledSession.result.whenComplete((game, exception) -> activeSessionCount.decrementAndGet());
+
+        executor.execute(scheduledSession::advance);
+        return scheduledSession.result;
+    }
+
+    /**
+     * @return The amount of sessions that are being played.
+     */
+    public int getActiveSessionCount() {
+        return activeSessionCount.get();
+    }
+
+    /**
+     * Stops the threads of this scheduler, sessions that are still being played are not completed.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A session that is being played by this scheduler.
+     */
+    private class ScheduledSession {
+        private final SessionInitializer session;
+        private final Game game;
+        private final CompletableFuture<Game> result = new CompletableFuture<>();
+
+        private volatile CompletableFuture<Tile> requestedMove;
+
+        private ScheduledSession(SessionInitializer session) {
+            this.session = session;
+            this.game = session.getGame();
+
+            // The game can also be ended while an agent is thinking (for example by the server), the move that has
+            // been requested is not needed anymore then.
+            game.onGameEnd((winner, playerOneScore, playerTwoScore) -> finish());
+        }
+
+        /**
+         * Requests the move of the agent whose turn it is, and advances again on a thread of the scheduler when the
+         * move has been completed.
+         */
+        private void advance() {
+            if(result.isDone())
+                return;
+
+            if(game.getCurrentGameState() != Game.GameState.RUNNING) {
+                finish();
+                return;
+            }
+
+            Agent agent = session.getAgent(game.getCurrentPlayer());
+            CompletableFuture<Tile> move;
+            try {
+                move = agent.requestMove(executor);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+
+            requestedMove = move;
+            // The game could have ended after the state was checked, before the move could be cancelled.
+            if(game.getCurrentGameState() != Game.GameState.RUNNING) {
+                finish();
+                return;
+            }
+
+            move.whenCompleteAsync((tile, exception) -> {
+                if(exception != null) {
+                    result.completeExceptionally(exception);
+                    return;
+                }
+
+                // An invalid move is requested again, like in SessionInitializer.play().
+                if(tile != null)
+                    game.tryMove(agent.getPlayer(), tile.getXCoordinate(), tile.getYCoordinate());
+
+                advance();
+            }, executor);
+        }
+
+        private void finish() {
+            // The result is completed first, otherwise the cancelled move could complete it with the cancellation.
+            result.complete(game);
+
+            CompletableFuture<Tile> move = requestedMove;
+            if(move != null)
+                move.cancel(false);
+        }
+    }
+}
@@ -1,33 +1,174 @@
 package com.github.verluci.reversi.game.agents;
 
+import com.github.verluci.reversi.game.Game;
 import com.github.verluci.reversi.game.GameBoard;
 import com.github.verluci.reversi.game.Tile;
+import com.github.verluci.reversi.game.TileState;
+import com.github.verluci.reversi.game.book.OpeningBook;
+import com.github.verluci.reversi.networking.clients.TurnMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Implement this method when you want to create an AIAgent
  * This class contains some default methods an AIAgent should have.
  */
 public abstract class AIAgent extends Agent {
+    protected TimeManager timeManager;
+    protected OpeningBook openingBook;
+    protected TurnMetrics turnMetrics;
+
+    // The last search of this AI, which keeps running when the move is no longer needed.
+    private volatile CompletableFuture<Tile> currentSearch;
+
     /**
      * The constructor for AIAgent
      */
     public AIAgent() {
         super();
+        this.timeManager = new TimeManager(TimeManager.DEFAULT_TURN_TIME);
     }
 
     /**
      * Implement this method and make it return a certain tile on the board.
      * @param board The board on which the optimal tile should be found on.
+     * @param budget The time this AI is allowed to spend on finding the optimal tile.
      * @return The optimal chosen Tile.
      */
-    protected abstract Tile findOptimalMove(GameBoard board);
+    protected abstract Tile findOptimalMove(GameBoard board, TurnBudget budget);
+
+    /**
+     * Implement this method if the AI can find the optimal tile without blocking the calling thread,
+     * by default findOptimalMove() is executed on the given executor.
+     * @param board The board on which the optimal tile should be found on.
+     * @param budget The time this AI is allowed to spend on finding the optimal tile.
+     * @param executor The executor on which blocking work can be executed.
+     * @return A future that is completed with the optimal chosen Tile.
+     */
+    protected CompletableFuture<Tile> findOptimalMoveAsync(GameBoard board, TurnBudget budget, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> findOptimalMove(board, budget), executor);
+    }
 
     /**
      * A default performNextMove() method for all AI's that is  based on finding the optimal move.
      */
     @Override
     public void performNextMove() {
-        Tile optimalMove = findOptimalMove(game.getBoard());
+        // Everything is executed on the calling thread.
+        Tile optimalMove = requestMove(Runnable::run).join();
         move(optimalMove.getXCoordinate(), optimalMove.getYCoordinate());
     }
+
+    /**
+     * Finds the optimal move using the opening book or findOptimalMoveAsync().
+     * @param executor The executor on which blocking work can be executed.
+     * @return A future that is completed with the optimal chosen Tile.
+     */
+    @Override
+    public CompletableFuture<Tile> requestMove(Executor executor) {
+        markTurnStage(TurnMetrics.Stage.THINK_STARTED);
+
+        Tile bookMove = findBookMove(game.getBoard());
+        if(bookMove != null) {
+            markTurnStage(TurnMetrics.Stage.THINK_FINISHED);
+            return CompletableFuture.completedFuture(bookMove);
+        }
+
+        TurnBudget budget = timeManager.startTurn(game.getBoard());
+        CompletableFuture<Tile> search = findOptimalMoveAsync(game.getBoard(), budget, executor);
+        currentSearch = search;
+
+        return search.thenApply(optimalMove -> {
+            markTurnStage(TurnMetrics.Stage.THINK_FINISHED);
+            return optimalMove;
+        });
+    }
+
+    /**
+     * A requested move can be cancelled (for example when the game has ended), but the search for it keeps running.
+     * @return A future that is completed when the last search of this AI has finished, after which it can be used in
+     *         another game.
+     */
+    public CompletableFuture<Void> whenIdle() {
+        CompletableFuture<Tile> search = currentSearch;
+        if(search == null)
+            return CompletableFuture.completedFuture(null);
+
+        return search.handle((optimalMove, exception) -> null);
+    }
+
+    private void markTurnStage(TurnMetrics.Stage stage) {
+        if(turnMetrics != null)
+            turnMetrics.mark(stage);
+    }
+
+    /**
+     * Looks up the current position in the opening book (if this AI has one).
+     * @param board The board on which the move should be found.
+     * @return A valid move from the opening book, or null if the position is not in the book.
+     */
+    protected Tile findBookMove(GameBoard board) {
+        if(openingBook == null || board.getXSize() != 8 || board.getYSize() != 8)
+            return null;
+
+        long playerTiles = board.getPlayerTilesLongValue(Game.getTileStateUsingPlayer(player));
+        long opponentTiles = board.getPlayerTilesLongValue(Game.getInvertedTileStateUsingPlayer(player));
+
+        int move = openingBook.findBestMove(playerTiles, opponentTiles);
+        if(move < 0)
+            return null;
+
+        Tile tile = board.getTile(move % 8, move / 8);
+        return tile.getState() == TileState.POSSIBLE_MOVE ? tile : null;
+    }
+
+    //region Getters and Setters
+
+    /**
+     * @return The TimeManager that decides how much time this AI can spend on a move.
+     */
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    /**
+     * Use this method if the AI should follow the turn-time of a match instead of the default turn-time.
+     * @param timeManager The TimeManager that decides how much time this AI can spend on a move.
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    /**
+     * @return The opening book this AI consults before searching, or null if it does not use one.
+     */
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /**
+     * Use this method if the AI should play moves from an opening book when the position is in the book.
+     * @param openingBook The opening book this AI should consult before searching.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * @return The metrics in which this AI marks when it starts and finishes thinking, or null if it does not.
+     */
+    public TurnMetrics getTurnMetrics() {
+        return turnMetrics;
+    }
+
+    /**
+     * Use this method if the thinking of this AI should be part of the turn-metrics of a GameClient.
+     * @param turnMetrics The metrics in which this AI marks when it starts and finishes thinking.
+     */
+    public void setTurnMetrics(TurnMetrics turnMetrics) {
+        this.turnMetrics = turnMetrics;
+    }
+
+    //endregion
 }
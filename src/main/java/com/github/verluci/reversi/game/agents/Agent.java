@@ -2,6 +2,10 @@ package com.github.verluci.reversi.game.agents;
 
 import com.github.verluci.reversi.game.Game;
 import com.github.verluci.reversi.game.Game.Player;
+import com.github.verluci.reversi.game.Tile;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Implement this class if you want to create a new agent that can play a game.
@@ -23,6 +27,22 @@ public abstract class Agent {
      */
     public abstract void performNextMove();
 
+    /**
+     * Requests the next move of this agent without waiting for it, this is used by the SessionScheduler.
+     * By default performNextMove() is executed on the given executor, override this method when the agent waits for an
+     * event (like a move of the server) or searches on its own threads, so no thread is blocked while it is thinking.
+     *
+     * @param executor The executor on which blocking work of the agent can be executed.
+     * @return A future that is completed with the tile the agent wants to move on, or with null when the agent has
+     *         already made its move using move() or has given up.
+     */
+    public CompletableFuture<Tile> requestMove(Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            performNextMove();
+            return null;
+        }, executor);
+    }
+
     /**
      * Use this method if you want to give up.
      */
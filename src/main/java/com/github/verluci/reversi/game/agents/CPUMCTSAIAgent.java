@@ -0,0 +1,137 @@
+package com.github.verluci.reversi.game.agents;
+
+import com.github.verluci.reversi.game.*;
+import com.github.verluci.reversi.game.bitboard.MoveStatistics;
+import com.github.verluci.reversi.game.bitboard.NodeTable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * This class contains an Othello AI that performs the same random simulations as the MCTSAIAgent,
+ * but on the cores of the CPU instead of on a GraphicsDevice.
+ *
+ * All threads grow a single SearchTree (an MCTS-Solver) until the soft deadline of the turn has passed or the position
+ * has been solved, the move with the highest average result is chosen unless a move has been proven. The nodes of the
+ * tree are kept in a NodeTable during the whole game, so the next turn (after the move of the opponent, for example a
+ * NetworkAgent) starts with the statistics of the part of the tree that can still be reached. The table is cleared but
+ * kept when the agent is reused by a next game, so an agent should be reused instead of created for every game.
+ * The simulations run on a SearchPool, which can be shared by multiple agents that are playing at the same time.
+ * When the move is requested asynchronously no thread waits for the simulations, the move is chosen by the thread
+ * that finishes the last slice.
+ */
+public class CPUMCTSAIAgent extends AIAgent {
+    // The maximum amount of nodes the search of this agent keeps in memory.
+    private static final int TABLE_CAPACITY = 1 << 18;
+
+    private final SearchPool searchPool;
+    private final NodeTable nodeTable = new NodeTable(TABLE_CAPACITY);
+
+    /**
+     * Constructor for CPUMCTSAIAgent that uses all available cores.
+     */
+    public CPUMCTSAIAgent() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for CPUMCTSAIAgent
+     * @param threadCount The amount of threads that should perform simulations.
+     */
+    public CPUMCTSAIAgent(int threadCount) {
+        this(new SearchPool(threadCount));
+    }
+
+    /**
+     * Constructor for CPUMCTSAIAgent that shares the threads of a SearchPool with other agents.
+     * @param searchPool The pool that performs the simulations.
+     */
+    public CPUMCTSAIAgent(SearchPool searchPool) {
+        this.searchPool = searchPool;
+    }
+
+    /**
+     * @param board The board on which the optimal tile should be found on.
+     * @param budget The time the simulations are allowed to take.
+     * @return The tile with the highest average result.
+     */
+    @Override
+    protected Tile findOptimalMove(GameBoard board, TurnBudget budget) {
+        var moves = board.getTilesWithState(TileState.POSSIBLE_MOVE);
+
+        // A forced move does not have to be simulated.
+        if(moves.size() == 1)
+            return moves.get(0);
+
+        long playerTiles = board.getPlayerTilesLongValue(Game.getTileStateUsingPlayer(player));
+        long opponentTiles = board.getPlayerTilesLongValue(Game.getInvertedTileStateUsingPlayer(player));
+
+        MoveStatistics statistics = simulate(playerTiles, opponentTiles, budget);
+        int move = statistics.getMove(statistics.getBestMoveIndex());
+
+        return board.getTile(move % board.getXSize(), move / board.getXSize());
+    }
+
+    /**
+     * Searches on all threads until the soft deadline of the budget has passed or the position has been solved.
+     * @param playerTiles The tiles of the player that is allowed to move.
+     * @param opponentTiles The tiles of the opponent.
+     * @param budget The time the simulations are allowed to take.
+     * @return The combined statistics of all threads.
+     */
+    public MoveStatistics simulate(long playerTiles, long opponentTiles, TurnBudget budget) {
+        long deadline = System.nanoTime() + budget.getRemainingSoftTime() * 1_000_000L;
+
+        try {
+            return searchPool.simulate(playerTiles, opponentTiles, deadline, nodeTable).get();
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            return new MoveStatistics(playerTiles, opponentTiles);
+        }
+    }
+
+    /**
+     * @param board The board on which the optimal tile should be found on.
+     * @param budget The time the simulations are allowed to take.
+     * @param executor Not used, the simulations are performed by the SearchPool.
+     * @return A future that is completed with the tile with the highest average result.
+     */
+    @Override
+    protected CompletableFuture<Tile> findOptimalMoveAsync(GameBoard board, TurnBudget budget, Executor executor) {
+        var moves = board.getTilesWithState(TileState.POSSIBLE_MOVE);
+
+        // A forced move does not have to be simulated.
+        if(moves.size() == 1)
+            return CompletableFuture.completedFuture(moves.get(0));
+
+        long playerTiles = board.getPlayerTilesLongValue(Game.getTileStateUsingPlayer(player));
+        long opponentTiles = board.getPlayerTilesLongValue(Game.getInvertedTileStateUsingPlayer(player));
+        long deadline = System.nanoTime() + budget.getRemainingSoftTime() * 1_000_000L;
+
+        return searchPool.simulate(playerTiles, opponentTiles, deadline, nodeTable).handle((statistics, exception) -> {
+            if(exception != null) {
+                exception.printStackTrace();
+                statistics = new MoveStatistics(playerTiles, opponentTiles);
+            }
+
+            int move = statistics.getMove(statistics.getBestMoveIndex());
+            return board.getTile(move % board.getXSize(), move / board.getXSize());
+        });
+    }
+
+    /**
+     * setGame() is overriden in CPUMCTSAIAgent because the simulations only work for OthelloGame.
+     * The nodes of the previous game are removed.
+     * @param game The game this agent should play in.
+     */
+    @Override
+    public void setGame(Game game) {
+        if(game instanceof OthelloGame) {
+            super.setGame(game);
+            nodeTable.clear();
+        } else {
+            throw new IllegalArgumentException("This MCTS-AI can only be used for Othello/Reversi!");
+        }
+    }
+}
@@ -4,22 +4,61 @@ import com.github.verluci.reversi.game.GameBoard;
 import com.github.verluci.reversi.game.Tile;
 import com.github.verluci.reversi.game.TileState;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Use this agent if you want to play against an AI that will always pick the first possible tile.
  */
 public class FirstMoveAIAgent extends AIAgent {
+    // The default amount of milliseconds this AI pretends to think.
+    private static final long MOVE_DELAY = 250;
+
+    private long moveDelay = MOVE_DELAY;
+
     /**
      * @param board The board on which the optimal tile should be found on.
+     * @param budget The time this AI is allowed to spend, the artificial delay never exceeds the soft deadline.
      * @return The first possible move it can find.
      */
     @Override
-    protected Tile findOptimalMove(GameBoard board) {
-        try {
-            Thread.sleep(250);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    protected Tile findOptimalMove(GameBoard board, TurnBudget budget) {
+        if(moveDelay > 0) {
+            try {
+                Thread.sleep(Math.min(moveDelay, budget.getSoftTime()));
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
         }
+        return findFirstMove(board);
+    }
+
+    /**
+     * @param board The board on which the optimal tile should be found on.
+     * @param budget The time this AI is allowed to spend, the artificial delay never exceeds the soft deadline.
+     * @param executor The executor the move is chosen on after the artificial delay.
+     * @return A future that is completed with the move after the artificial delay, without blocking a thread in between.
+     */
+    @Override
+    protected CompletableFuture<Tile> findOptimalMoveAsync(GameBoard board, TurnBudget budget, Executor executor) {
+        if(moveDelay <= 0)
+            return CompletableFuture.completedFuture(findFirstMove(board));
+
+        Executor delayedExecutor = CompletableFuture.delayedExecutor(Math.min(moveDelay, budget.getSoftTime()), TimeUnit.MILLISECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> findFirstMove(board), delayedExecutor);
+    }
+
+    private Tile findFirstMove(GameBoard board) {
         var possibleMoves = board.getTilesWithState(TileState.POSSIBLE_MOVE);
         return possibleMoves.get(0);
     }
+
+    /**
+     * Use this method to change how long this AI pretends to think, for example 0 when playing headless matches.
+     * @param moveDelay The amount of milliseconds this AI waits before making a move.
+     */
+    public void setMoveDelay(long moveDelay) {
+        this.moveDelay = moveDelay;
+    }
 }
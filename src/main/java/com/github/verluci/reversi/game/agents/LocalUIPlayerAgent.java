@@ -1,5 +1,10 @@
 package com.github.verluci.reversi.game.agents;
 
+import com.github.verluci.reversi.game.Tile;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Use this agent if you want to use a local agent for in a UI.
  */
@@ -8,30 +13,39 @@ public class LocalUIPlayerAgent extends Agent {
     private int x;
     private int y;
 
+    private CompletableFuture<Tile> requestedMove;
+
     /**
      * Use this method in your GUI to perform a move.
      * @param x The horizontal position of this move.
      * @param y The vertical position of this move.
      */
-    public synchronized void doMove(int x, int y) {
-        this.x = x;
-        this.y = y;
-        this.doneWithTurn = true;
-        notify();
+    public void doMove(int x, int y) {
+        CompletableFuture<Tile> move;
+        synchronized (this) {
+            move = requestedMove;
+            requestedMove = null;
+
+            if(move == null || move.isDone()) {
+                this.x = x;
+                this.y = y;
+                this.doneWithTurn = true;
+                return;
+            }
+        }
+
+        // The future is completed outside of the lock, because completing it continues the game.
+        move.complete(game.getBoard().getTile(x, y));
     }
 
     /**
      * This method waits until doMove is performed.
      */
     @Override
-    public synchronized void performNextMove() {
+    public void performNextMove() {
         try {
-            while (!doneWithTurn) {
-                wait();
-            }
-            move(this.x, this.y);
-            doneWithTurn = false;
-
+            Tile tile = requestMove(Runnable::run).get();
+            move(tile.getXCoordinate(), tile.getYCoordinate());
         } catch (InterruptedException e) {
          System.err.println("Player unexpectedly closed the application!");
         }
@@ -39,4 +53,20 @@ public class LocalUIPlayerAgent extends Agent {
             e.printStackTrace();
         }
     }
+
+    /**
+     * @param executor Not used, the move is completed by the thread that calls doMove.
+     * @return A future that is completed with the tile of the next doMove, or of the last doMove that has been performed
+     *         before the move was requested.
+     */
+    @Override
+    public synchronized CompletableFuture<Tile> requestMove(Executor executor) {
+        if(doneWithTurn) {
+            doneWithTurn = false;
+            return CompletableFuture.completedFuture(game.getBoard().getTile(x, y));
+        }
+
+        requestedMove = new CompletableFuture<>();
+        return requestedMove;
+    }
 }
@@ -1,8 +1,12 @@
 package com.github.verluci.reversi.game.agents;
 
 import com.github.verluci.reversi.game.*;
+import com.github.verluci.reversi.game.bitboard.EndgameSolver;
+import com.github.verluci.reversi.game.bitboard.MoveStatistics;
+import com.github.verluci.reversi.game.bitboard.Proof;
 import com.github.verluci.reversi.gpgpu.GraphicsDevice;
 import com.github.verluci.reversi.gpgpu.MCTSHelper;
+import com.github.verluci.reversi.gpgpu.MCTSKernelSession;
 
 /**
  * This class contains a GPU accelerated Othello AI based on the MCTS algorithm.
@@ -12,10 +16,23 @@ import com.github.verluci.reversi.gpgpu.MCTSHelper;
  * in the package com.github.verluci.reversi.gpgpu;
  *
  * For the explanation of the executed kernel-code on the graphics-device see resources/mcts_reversi_kernel.cl
+ *
+ * All agents on the same device share its MCTSKernelSession. When several agents are searching at the same time, the
+ * device is divided between them, so every search still finishes within the soft deadline of its budget.
+ *
+ * Near the end of the game the EndgameSolver tries to prove the moves first, for at most half of the soft deadline. A
+ * winning move (or the best move when all moves have been proven) is played without simulations, and moves that have
+ * been proven to lose are not simulated.
  */
 public class MCTSAIAgent extends AIAgent {
+    // Positions with this amount of empty tiles or less are solved before they are simulated.
+    private static final int SOLVER_EMPTY_TILES = 14;
+
     private final GraphicsDevice graphicsDevice;
 
+    // The amount of threads / 1024 of every search, or 0 when it is calculated from the budget.
+    private int fixedThreadCount;
+
     /**
      * Constructor for MCTSAIAgent
      * @param graphicsDevice The graphics device the games should be simulated on.
@@ -26,30 +43,50 @@ public class MCTSAIAgent extends AIAgent {
 
     /**
      * @param board The board on which the optimal tile should be found on.
+     * @param budget The time the simulations are allowed to take.
      * @return The most optimal tile the MCTS-ai could find.
      */
     @Override
-    protected Tile findOptimalMove(GameBoard board) {
+    protected Tile findOptimalMove(GameBoard board, TurnBudget budget) {
         // Retrieve all possible moves from the current board.
         var moves = board.getTilesWithState(TileState.POSSIBLE_MOVE);
 
-        // Put the moves in the following array: [ move_count, move1, move2, move3, move4, 0, 0, 0, ... ]
-        int[] possibleMoves = new int[board.getXSize() * board.getYSize() + 1];
-        possibleMoves[0] = moves.size();
-        for (int i = 0; i < moves.size(); i++) {
-            var move = moves.get(i);
-            possibleMoves[i+1] = (move.getYCoordinate() * board.getXSize()) + move.getXCoordinate();
-        }
+        // A forced move does not have to be simulated.
+        if(moves.size() == 1)
+            return moves.get(0);
 
         // Retrieve the player tiles as a 64-bit (u)long.
         long player1 = board.getPlayerTilesLongValue(Game.getTileStateUsingPlayer(player));
         long player2 = board.getPlayerTilesLongValue(Game.getInvertedTileStateUsingPlayer(player));
 
-        // Choose the amount of simulations based on the current state of the game and the strength of the GraphicsDevice.
-        int threadCount = MCTSHelper.calculateThreadCount(graphicsDevice, board);
+        MoveStatistics proofs = new MoveStatistics(player1, player2);
+        if(64 - Long.bitCount(player1 | player2) <= SOLVER_EMPTY_TILES) {
+            long deadline = System.nanoTime() + budget.getRemainingSoftTime() * 500_000L;
+            if(new EndgameSolver(Long.MAX_VALUE, deadline).prove(proofs)) {
+                int move = proofs.getMove(proofs.getBestMoveIndex());
+                return board.getTile(move % board.getXSize(), move / board.getXSize());
+            }
+        }
+
+        // Put the moves in the following array: [ move_count, move1, move2, move3, move4, 0, 0, 0, ... ]
+        // Moves that have been proven to lose are left out, there is always a move left that has not been proven.
+        int[] possibleMoves = new int[board.getXSize() * board.getYSize() + 1];
+        for (int i = 0; i < proofs.getMoveCount(); i++) {
+            if(proofs.getProof(i) != Proof.LOSS)
+                possibleMoves[++possibleMoves[0]] = proofs.getMove(i);
+        }
+
+        // Choose the amount of simulations based on the time budget and the measured speed of the GraphicsDevice,
+        // divided by the amount of searches that are using the device at the same time (including this search).
+        MCTSKernelSession session = MCTSKernelSession.get(graphicsDevice);
+        int threadCount = fixedThreadCount;
+        if(threadCount <= 0) {
+            int searchCount = session.getActiveSearchCount() + 1;
+            threadCount = Math.max(MCTSHelper.calculateThreadCount(graphicsDevice, board, budget) / searchCount, 1);
+        }
 
         // Estimate the most optimal move with OpenCL using the provided GraphicsDevice and threadCount.
-        int move = MCTSHelper.getOptimalMoveUsingOpenCL(graphicsDevice, player1, player2, possibleMoves, threadCount);
+        int move = session.getOptimalMove(player1, player2, possibleMoves, threadCount);
 
         // Convert the retrieved optimal tile-index to an x and y coordinate
         int x = move % board.getXSize();
@@ -59,6 +96,15 @@ public class MCTSAIAgent extends AIAgent {
         return board.getTile(x, y);
     }
 
+    /**
+     * Makes every search simulate the same amount of games regardless of its budget, for example to measure how the
+     * strength of this agent scales with the amount of simulations. The budget is still used by the EndgameSolver.
+     * @param fixedThreadCount The amount of threads / 1024 of every search, or 0 to calculate it from the budget.
+     */
+    public void setFixedThreadCount(int fixedThreadCount) {
+        this.fixedThreadCount = fixedThreadCount;
+    }
+
     /**
      * setGame() is overriden in MCTSAIAgent because the MCTSAIAgent only works for OthelloGame.
      * @param game The game this agent should play in.
@@ -1,18 +1,43 @@
 package com.github.verluci.reversi.game.agents;
 
 import com.github.verluci.reversi.game.Game;
-import com.github.verluci.reversi.networking.GameClientExceptions;
+import com.github.verluci.reversi.game.Tile;
 import com.github.verluci.reversi.networking.clients.GameClient;
+import com.github.verluci.reversi.networking.clients.TurnMetrics;
 import com.github.verluci.reversi.networking.types.GameResult;
 import com.github.verluci.reversi.networking.types.Player;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
 /**
  * Use this Agent if you want to play against an enemy that has been fetched using a running GameClient
+ *
+ * A move of the enemy completes the move that has been requested from this agent, or is put in a queue until the next
+ * move is requested, so a move that arrives before this agent is waiting for it can never be missed. No thread is
+ * waiting for the enemy when the move is requested asynchronously.
+ *
+ * A local move can only be sent to the server after the server has given the turn to the local player (YOURTURN).
+ * Both events can arrive in any order, so the handshake stores either a turn that has arrived without a move, or the
+ * local moves that are waiting for a turn. When the opponent has to pass, the local player can make multiple moves
+ * before the next turn arrives, so these moves are queued and sent one per turn in the order they have been made.
+ * Whichever of the two events arrives second sends the move immediately, nothing is waiting or spinning in between.
  */
 public class NetworkAgent extends Agent {
+    // The value that is put in the queue of enemy moves when the game has ended.
+    private static final int GAME_ENDED = -1;
+
     private GameClient gameClient;
     private Player localPlayer;
-    private volatile boolean isLocalPlayerTurn = false;
+
+    // The moves of the enemy and the handshake, only used while holding the lock of this agent.
+    private final Queue<Integer> remoteMoves = new ArrayDeque<>();
+    private CompletableFuture<Tile> requestedMove;
+    private final Queue<Integer> localMoves = new ArrayDeque<>();
+    private boolean hasTurn;
 
     /**
      * Constructor for NetworkAgent
@@ -27,17 +52,60 @@ public class NetworkAgent extends Agent {
     }
 
     /**
-     * This method waits until the gameClient returns a move from the enemy player.
+     * This method waits until the gameClient returns a move from the enemy player, or until the game has ended.
      */
     @Override
     public void performNextMove() {
+        try {
+            Tile tile = requestMove(Runnable::run).get();
+            if(tile != null)
+                move(tile.getXCoordinate(), tile.getYCoordinate());
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.println("The match ended unexpectedly!");
+        }
+    }
+
+    /**
+     * @param executor Not used, the move is completed by the thread of the gameClient.
+     * @return A future that is completed with the move of the enemy player, or with null when the game has ended.
+     */
+    @Override
+    public synchronized CompletableFuture<Tile> requestMove(Executor executor) {
+        Integer position = remoteMoves.poll();
+        if(position != null)
+            return CompletableFuture.completedFuture(toTile(position));
+
+        requestedMove = new CompletableFuture<>();
+        return requestedMove;
+    }
+
+    /**
+     * Completes the requested move with a move of the enemy player, or queues the move until it is requested.
+     * @param position The position of the move, or GAME_ENDED.
+     */
+    private void receiveRemoteMove(int position) {
+        CompletableFuture<Tile> move;
         synchronized (this) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                System.err.println("The match ended unexpectedly!");
+            move = requestedMove;
+            requestedMove = null;
+
+            if(move == null || move.isDone()) {
+                remoteMoves.add(position);
+                return;
             }
         }
+
+        // The future is completed outside of the lock, because completing it continues the game.
+        move.complete(toTile(position));
+    }
+
+    private Tile toTile(int position) {
+        if(position == GAME_ENDED)
+            return null;
+
+        int xCoordinate = position % game.getBoard().getXSize();
+        int yCoordinate = Math.floorDiv(position, game.getBoard().getXSize());
+        return game.getBoard().getTile(xCoordinate, yCoordinate);
     }
 
     /**
@@ -48,18 +116,16 @@ public class NetworkAgent extends Agent {
     public void setGame(Game game) {
         super.setGame(game);
 
-        gameClient.onMove(listener -> {
-            int position = listener.getMove();
-
-            int xCoordinate = position % game.getBoard().getXSize();
-            int yCoordinate = Math.floorDiv(position, game.getBoard().getXSize());
+        synchronized (this) {
+            remoteMoves.clear();
+            requestedMove = null;
+            localMoves.clear();
+            hasTurn = false;
+        }
 
-            synchronized (this) {
-                if(!listener.getPlayer().equals(localPlayer)) {
-                    move( xCoordinate, yCoordinate);
-                    notify();
-                }
-            }
+        gameClient.onMove(listener -> {
+            if(!listener.getPlayer().equals(localPlayer))
+                receiveRemoteMove(listener.getMove());
         });
 
         gameClient.onGameEnd(listener -> {
@@ -83,31 +149,59 @@ public class NetworkAgent extends Agent {
                     break;
             }
 
-            synchronized (this) {
-                notify();
-            }
+            gameClient.getTurnMetrics().discardTurn();
+            receiveRemoteMove(GAME_ENDED);
         });
 
-        gameClient.onTurn(listener -> {
-            synchronized (this) {
-                isLocalPlayerTurn = true;
-                notify();
-            }
-        });
+        gameClient.onTurn(listener -> receiveTurn());
 
         game.onMove((mover, xPosition, yPosition) -> {
-            if(mover != player) {
-                while (!isLocalPlayerTurn)
-                    Thread.onSpinWait();
+            if(mover != player)
+                receiveLocalMove(xPosition + (yPosition * game.getBoard().getXSize()));
+        });
+    }
 
-                isLocalPlayerTurn = false;
+    //region Handshake
 
-                try {
-                    gameClient.performMove(xPosition + (yPosition * game.getBoard().getXSize()));
-                } catch (GameClientExceptions.MoveException e) {
-                    e.printStackTrace();
-                }
-            }
+    /**
+     * Called when the server has given the turn to the local player.
+     * Sends the oldest local move that is waiting for a turn, otherwise stores the turn for the next local move.
+     */
+    private synchronized void receiveTurn() {
+        gameClient.getTurnMetrics().mark(TurnMetrics.Stage.DISPATCHED);
+
+        Integer position = localMoves.poll();
+
+        if(position != null)
+            sendMove(position);
+        else
+            hasTurn = true;
+    }
+
+    /**
+     * Called when the local player has made a move.
+     * Sends the move if the turn has already been received, otherwise queues the move until a turn arrives.
+     * @param position The position of the move.
+     */
+    private synchronized void receiveLocalMove(int position) {
+        if(hasTurn) {
+            hasTurn = false;
+            sendMove(position);
+        } else {
+            localMoves.add(position);
+        }
+    }
+
+    /**
+     * Sends a move without waiting for the response, so this can be called from the thread of the GameClient.
+     * @param position The position of the move.
+     */
+    private void sendMove(int position) {
+        gameClient.performMoveAsync(position).exceptionally(exception -> {
+            exception.printStackTrace();
+            return null;
         });
     }
+
+    //endregion
 }
@@ -0,0 +1,154 @@
+package com.github.verluci.reversi.game.agents;
+
+import com.github.verluci.reversi.game.bitboard.MoveStatistics;
+import com.github.verluci.reversi.game.bitboard.NodeTable;
+import com.github.verluci.reversi.game.bitboard.SearchTree;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of worker threads that can be shared by the searches of multiple agents.
+ *
+ * A search is split into slices of a few milliseconds. After a slice has finished it is put at the back of the queue
+ * of the pool again (until the deadline of the search has passed), so all searches that are running at the same time
+ * get a fair share of the threads, no matter when they have been started or how long their deadline is.
+ *
+ * All slices of a search grow the same SearchTree, of which the nodes are stored in a NodeTable. A search finishes
+ * before its deadline when the tree has proven the result of the position.
+ */
+public class SearchPool {
+    // The amount of milliseconds a slice simulates before it gives its thread to the next slice in the queue.
+    private static final long SLICE_TIME = 5;
+
+    // The amount of nodes of the table of a search that is not given a table.
+    private static final int DEFAULT_TABLE_CAPACITY = 1 << 18;
+
+    private static final SplittableRandom seedGenerator = new SplittableRandom();
+
+    private final int threadCount;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor for SearchPool
+     * @param threadCount The amount of worker threads.
+     */
+    public SearchPool(int threadCount) {
+        this.threadCount = Math.max(threadCount, 1);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "search-pool-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches all possible moves of the given position until the deadline has passed or the position has been solved.
+     * @param playerTiles The tiles of the player that is allowed to move.
+     * @param opponentTiles The tiles of the opponent.
+     * @param deadline The value of System.nanoTime() at which the simulations should stop.
+     * @return A future that is completed with the statistics (and proven moves) of the tree.
+     */
+    public CompletableFuture<MoveStatistics> simulate(long playerTiles, long opponentTiles, long deadline) {
+        return simulate(playerTiles, opponentTiles, deadline, new NodeTable(DEFAULT_TABLE_CAPACITY));
+    }
+
+    /**
+     * Searches all possible moves of the given position until the deadline has passed or the position has been solved,
+     * the nodes of earlier searches in the given table are reused.
+     * @param playerTiles The tiles of the player that is allowed to move.
+     * @param opponentTiles The tiles of the opponent.
+     * @param deadline The value of System.nanoTime() at which the simulations should stop.
+     * @param table The table in which the nodes of the tree are stored, which should not be used by another search at
+     *              the same time.
+     * @return A future that is completed with the statistics (and proven moves) of the tree.
+     */
+    public CompletableFuture<MoveStatistics> simulate(long playerTiles, long opponentTiles, long deadline, NodeTable table) {
+        Search search = new Search(new SearchTree(playerTiles, opponentTiles, table), deadline, threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            SplittableRandom random;
+            synchronized (seedGenerator) {
+                random = seedGenerator.split();
+            }
+
+            executor.execute(new Slice(search, random));
+        }
+
+        return search.result;
+    }
+
+    /**
+     * @return The amount of worker threads.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Stops the worker threads, searches that are still running are not completed.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A search that is running in this pool, it is completed when all of its slices have reached the deadline or when
+     * the position has been solved.
+     */
+    private static class Search {
+        private final SearchTree tree;
+        private final long deadline;
+        private final AtomicInteger activeSlices;
+        private final CompletableFuture<MoveStatistics> result = new CompletableFuture<>();
+
+        private Search(SearchTree tree, long deadline, int sliceCount) {
+            this.tree = tree;
+            this.deadline = deadline;
+            this.activeSlices = new AtomicInteger(sliceCount);
+        }
+
+        private void finishSlice() {
+            if(activeSlices.decrementAndGet() == 0) {
+                MoveStatistics statistics = new MoveStatistics(tree.getPlayer(), tree.getOpponent());
+                tree.exportTo(statistics);
+                result.complete(statistics);
+            }
+        }
+    }
+
+    /**
+     * A part of a search that runs on a single thread, and puts itself back in the queue until the deadline.
+     */
+    private class Slice implements Runnable {
+        private final Search search;
+        private final SplittableRandom random;
+
+        private Slice(Search search, SplittableRandom random) {
+            this.search = search;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            long sliceEnd = System.nanoTime() + SLICE_TIME * 1_000_000L;
+            long deadline = sliceEnd - search.deadline < 0 ? sliceEnd : search.deadline;
+
+            try {
+                search.tree.searchUntil(deadline, random);
+
+                if(!search.tree.isSolved() && System.nanoTime() - search.deadline < 0)
+                    executor.execute(this);
+                else
+                    search.finishSlice();
+            } catch (RejectedExecutionException e) {
+                search.finishSlice();
+            } catch (RuntimeException e) {
+                search.result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.verluci.reversi.game.agents;
+
+import com.github.verluci.reversi.game.GameBoard;
+import com.github.verluci.reversi.game.TileState;
+import com.github.verluci.reversi.networking.clients.GameClient;
+
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * This class converts the turn-time of a match into a TurnBudget for every single move.
+ *
+ * The hard deadline is the turn-time minus a safety margin and the measured round-trip time to the server,
+ * this is the latest moment a move can be sent without losing on time.
+ * The soft deadline is a part of the hard deadline based on the phase of the game:
+ *      factor = MIN_FACTOR + (MAX_FACTOR - MIN_FACTOR) * sin(progress * π)
+ * where progress is the part of the board that has been filled. The opening and the endgame use less time
+ * than the middlegame, where most of the games are decided.
+ */
+public class TimeManager {
+    // The default turn-time of the tournament server in milliseconds.
+    public static final long DEFAULT_TURN_TIME = 10_000;
+
+    // The minimum amount of milliseconds that are always reserved for overhead (garbage collection, scheduling).
+    private static final long MINIMUM_SAFETY_MARGIN = 150;
+    // The part of the turn-time that is reserved for overhead.
+    private static final double SAFETY_FACTOR = 0.05;
+    // The amount of round-trips that are reserved (one for receiving YOURTURN, one for sending the move + jitter).
+    private static final double LATENCY_FACTOR = 2.0;
+
+    // The part of the hard deadline that is used as soft deadline in the opening/endgame and the middlegame.
+    private static final double MIN_FACTOR = 0.35;
+    private static final double MAX_FACTOR = 0.85;
+
+    private volatile long turnTime;
+    private volatile LongSupplier latencySource;
+
+    /**
+     * Constructor for TimeManager
+     * @param turnTime The amount of milliseconds a player is allowed to use per move.
+     */
+    public TimeManager(long turnTime) {
+        setTurnTime(turnTime);
+        this.latencySource = () -> 0L;
+    }
+
+    /**
+     * Creates a TimeManager using the turnTime (in seconds) defined in the given properties.
+     * @param properties The properties that contain the turnTime.
+     * @return A TimeManager for the configured turnTime, or the default turn-time if none or an invalid one has been
+     *         configured.
+     */
+    public static TimeManager fromProperties(Properties properties) {
+        String turnTime = properties.getProperty("turnTime");
+
+        if(turnTime == null || turnTime.trim().isEmpty())
+            return new TimeManager(DEFAULT_TURN_TIME);
+
+        try {
+            long turnTimeMilliseconds = (long) (Double.parseDouble(turnTime.trim()) * 1000d);
+            if(turnTimeMilliseconds > 0)
+                return new TimeManager(turnTimeMilliseconds);
+        } catch (NumberFormatException e) {
+            System.out.println("The configured turn time is not a number of seconds: " + turnTime);
+        }
+
+        return new TimeManager(DEFAULT_TURN_TIME);
+    }
+
+    /**
+     * Creates a TurnBudget for the move that is about to be made on the given board.
+     * The returned budget starts counting immediately.
+     * @param board The board on which the next move is going to be made.
+     * @return The time the agent is allowed to spend on the next move.
+     */
+    public TurnBudget startTurn(GameBoard board) {
+        long hardTime = calculateHardTime();
+
+        // A forced move does not need any thinking time.
+        if(board.countTilesWithState(TileState.POSSIBLE_MOVE) == 1)
+            return new TurnBudget(0, hardTime);
+
+        int tileCount = board.getXSize() * board.getYSize();
+        int emptyTiles = board.countTilesWithState(TileState.NONE) + board.countTilesWithState(TileState.POSSIBLE_MOVE);
+
+        return new TurnBudget((long) (hardTime * calculatePhaseFactor(emptyTiles, tileCount)), hardTime);
+    }
+
+    /**
+     * @return The turn-time minus the safety margin and the measured latency in milliseconds.
+     */
+    private long calculateHardTime() {
+        long safetyMargin = Math.max(MINIMUM_SAFETY_MARGIN, (long) (turnTime * SAFETY_FACTOR));
+        long latency = (long) ((latencySource.getAsLong() / 1_000_000d) * LATENCY_FACTOR);
+
+        return Math.max(0, turnTime - safetyMargin - latency);
+    }
+
+    /**
+     * @param emptyTiles The amount of empty tiles on the board.
+     * @param tileCount The total amount of tiles on the board.
+     * @return The part of the hard deadline that should be used as soft deadline.
+     */
+    private static double calculatePhaseFactor(int emptyTiles, int tileCount) {
+        double progress = Math.min(Math.max(1d - ((double) emptyTiles / tileCount), 0d), 1d);
+        return MIN_FACTOR + (MAX_FACTOR - MIN_FACTOR) * Math.sin(progress * Math.PI);
+    }
+
+    //region Getters and Setters
+
+    /**
+     * @return The amount of milliseconds a player is allowed to use per move.
+     */
+    public long getTurnTime() {
+        return turnTime;
+    }
+
+    /**
+     * @param turnTime The amount of milliseconds a player is allowed to use per move.
+     */
+    public void setTurnTime(long turnTime) {
+        if(turnTime <= 0)
+            throw new IllegalArgumentException("The turn-time should be larger than zero!");
+
+        this.turnTime = turnTime;
+    }
+
+    /**
+     * Use this method if the round-trip time of the given GameClient should be subtracted from every TurnBudget.
+     * @param gameClient The GameClient the match is played on.
+     */
+    public void setLatencySource(GameClient gameClient) {
+        this.latencySource = gameClient::getRoundTripTime;
+    }
+
+    /**
+     * @param latencySource A supplier of the round-trip time to the server in nanoseconds.
+     */
+    public void setLatencySource(LongSupplier latencySource) {
+        this.latencySource = latencySource;
+    }
+
+    //endregion
+}
@@ -0,0 +1,84 @@
+package com.github.verluci.reversi.game.agents;
+
+/**
+ * This class contains the amount of time an agent is allowed to spend on a single move.
+ * The soft deadline is the time an agent should aim for, the hard deadline is the time it should never exceed.
+ */
+public class TurnBudget {
+    private final long startTime;
+    private final long softTime;
+    private final long hardTime;
+
+    /**
+     * Constructor for TurnBudget, the budget starts counting from the moment it is created.
+     * @param softTime The amount of milliseconds the agent should aim to spend on this move.
+     * @param hardTime The amount of milliseconds the agent is never allowed to exceed on this move.
+     */
+    public TurnBudget(long softTime, long hardTime) {
+        this.startTime = System.nanoTime();
+        this.softTime = Math.max(0, Math.min(softTime, hardTime));
+        this.hardTime = Math.max(0, hardTime);
+    }
+
+    //region Getters
+
+    /**
+     * @return The amount of milliseconds the agent should aim to spend on this move.
+     */
+    public long getSoftTime() {
+        return softTime;
+    }
+
+    /**
+     * @return The amount of milliseconds the agent is never allowed to exceed on this move.
+     */
+    public long getHardTime() {
+        return hardTime;
+    }
+
+    /**
+     * @return The amount of milliseconds that have passed since this budget has been created.
+     */
+    public long getElapsedTime() {
+        return (System.nanoTime() - startTime) / 1_000_000L;
+    }
+
+    /**
+     * @return The amount of milliseconds left until the soft deadline, or 0 if it has already passed.
+     */
+    public long getRemainingSoftTime() {
+        return Math.max(0, softTime - getElapsedTime());
+    }
+
+    /**
+     * @return The amount of milliseconds left until the hard deadline, or 0 if it has already passed.
+     */
+    public long getRemainingHardTime() {
+        return Math.max(0, hardTime - getElapsedTime());
+    }
+
+    /**
+     * @return True if the agent should stop searching and play its best move.
+     */
+    public boolean isSoftDeadlinePassed() {
+        return getElapsedTime() >= softTime;
+    }
+
+    /**
+     * @return True if the agent has run out of time completely.
+     */
+    public boolean isHardDeadlinePassed() {
+        return getElapsedTime() >= hardTime;
+    }
+
+    //endregion
+
+    @Override
+    public String toString() {
+        return "TurnBudget{" +
+                "softTime=" + softTime +
+                ", hardTime=" + hardTime +
+                ", elapsedTime=" + getElapsedTime() +
+                '}';
+    }
+}
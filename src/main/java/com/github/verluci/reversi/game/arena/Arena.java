@@ -0,0 +1,407 @@
+package com.github.verluci.reversi.game.arena;
+
+import com.github.verluci.reversi.game.Game;
+import com.github.verluci.reversi.game.Game.Player;
+import com.github.verluci.reversi.game.OthelloGame;
+import com.github.verluci.reversi.game.SessionInitializer;
+import com.github.verluci.reversi.game.SessionScheduler;
+import com.github.verluci.reversi.game.agents.*;
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+import com.github.verluci.reversi.game.book.OpeningBook;
+import com.github.verluci.reversi.gpgpu.GraphicsDevice;
+import com.github.verluci.reversi.gpgpu.JOCLSample;
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * A headless tournament runner that plays many Othello games between two agents at the same time, which can be used
+ * to measure if a change makes an agent stronger.
+ *
+ * Every game is a normal OthelloGame that is played by a SessionInitializer, but the first moves are taken from a list
+ * of balanced openings (all distinct positions after a few moves). Every opening is played twice, the agents swap
+ * colors in the second game, so the advantage of an opening is cancelled out.
+ * The games are played by a SessionScheduler with at most a thread per core, so many more games than threads can be
+ * played at the same time. Agents that search with a time limit share a single SearchPool, so they get less time when
+ * many games run at once. The agents are given back when their game has ended and reused by a later game, so a slot does
+ * not create new agents (and their search memory) for every game.
+ */
+public class Arena {
+    private final Supplier<Agent> firstAgent;
+    private final Supplier<Agent> secondAgent;
+    private final List<int[]> openings;
+    private final int threadCount;
+
+    // The agents that are not playing a game.
+    private final Queue<Agent> idleFirstAgents = new ConcurrentLinkedQueue<>();
+    private final Queue<Agent> idleSecondAgents = new ConcurrentLinkedQueue<>();
+
+    private final MatchResults results = new MatchResults();
+    private final List<GameResultListener> resultListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean isStopped;
+
+    /**
+     * Constructor for Arena
+     * @param firstAgent Creates the first agent when there is no idle one, the results are seen from this agent.
+     * @param secondAgent Creates the second agent when there is no idle one.
+     * @param openings The openings the games start from, every opening is a list of tile indices.
+     * @param threadCount The amount of games that are played at the same time.
+     */
+    public Arena(Supplier<Agent> firstAgent, Supplier<Agent> secondAgent, List<int[]> openings, int threadCount) {
+        this.firstAgent = firstAgent;
+        this.secondAgent = secondAgent;
+        this.openings = openings.isEmpty() ? List.of(new int[0]) : openings;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Plays the given amount of games, two consecutive games use the same opening with swapped colors.
+     * @param gameCount The amount of games that should be played.
+     * @return The results of all games that have been played by this arena.
+     */
+    public MatchResults play(int gameCount) {
+        SessionScheduler scheduler = new SessionScheduler(Math.min(threadCount, Runtime.getRuntime().availableProcessors()));
+        Semaphore freeSlots = new Semaphore(threadCount);
+        int reportInterval = Math.max(1, gameCount / 10);
+
+        // The games are started from this thread when a slot is free, instead of from the end of the previous game of
+        // the slot, so a game that ends right away does not start the next game inside its own callback.
+        try {
+            for (int game = 0; game < gameCount && !isStopped; game++) {
+                freeSlots.acquire();
+                if(isStopped) {
+                    freeSlots.release();
+                    break;
+                }
+
+                int gameIndex = game;
+                try {
+                    int[] opening = openings.get((game / 2) % openings.size());
+                    playGame(game, opening, game % 2 == 0, scheduler).whenComplete((ignored, exception) -> {
+                        if(exception != null)
+                            exception.printStackTrace();
+
+                        if((gameIndex + 1) % reportInterval == 0)
+                            System.out.println(results);
+
+                        freeSlots.release();
+                    });
+                } catch (RuntimeException e) {
+                    // A game that could not be started is skipped, the slot is used by the next game.
+                    e.printStackTrace();
+                    freeSlots.release();
+                }
+            }
+
+            // Waits until every slot has finished its last game.
+            freeSlots.acquire(threadCount);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        scheduler.shutdown();
+        return results;
+    }
+
+    /**
+     * Stops playing new games, the games that are being played are finished.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * @return The results of all games that have been played by this arena.
+     */
+    public MatchResults getResults() {
+        return results;
+    }
+
+    /**
+     * Fires the given listener when a game has ended, from a thread of the scheduler that played the game.
+     * @param listener The listener that should be fired when a game has ended.
+     */
+    public void onGameResult(GameResultListener listener) {
+        resultListeners.add(listener);
+    }
+
+    /**
+     * Plays a single game from an opening and adds the result to the results.
+     * @param gameIndex The index of the game, the games 2n and 2n+1 use the same opening.
+     * @param opening The moves that are made before the agents take over.
+     * @param firstAgentStarts True if the first agent is PLAYER1, which makes the first move of the opening.
+     * @param scheduler The scheduler that plays the game after the opening.
+     * @return A future that is completed when the game has ended and its result has been added.
+     */
+    private CompletableFuture<Void> playGame(int gameIndex, int[] opening, boolean firstAgentStarts, SessionScheduler scheduler) {
+        Agent first = acquire(idleFirstAgents, firstAgent);
+        Agent second = acquire(idleSecondAgents, secondAgent);
+
+        CompletableFuture<Void> result;
+        try {
+            result = startGame(gameIndex, opening, first, second, firstAgentStarts, scheduler);
+        } catch (RuntimeException e) {
+            release(idleFirstAgents, first);
+            release(idleSecondAgents, second);
+            throw e;
+        }
+
+        return result.whenComplete((ignored, exception) -> {
+            release(idleFirstAgents, first);
+            release(idleSecondAgents, second);
+        });
+    }
+
+    private CompletableFuture<Void> startGame(int gameIndex, int[] opening, Agent first, Agent second, boolean firstAgentStarts, SessionScheduler scheduler) {
+        SessionInitializer session = firstAgentStarts
+                ? new SessionInitializer(first, second, OthelloGame.class)
+                : new SessionInitializer(second, first, OthelloGame.class);
+        Game game = session.getGame();
+
+        int[] result = new int[2];
+        game.onGameEnd((winner, playerOneScore, playerTwoScore) -> {
+            result[0] = firstAgentStarts ? playerOneScore - playerTwoScore : playerTwoScore - playerOneScore;
+            result[1] = winner == Player.UNDEFINED ? 0 : (winner == first.getPlayer() ? 1 : -1);
+        });
+
+        game.startGame(Player.PLAYER1);
+        for (int move : opening) {
+            if(!game.tryMove(game.getCurrentPlayer(), move % 8, move / 8))
+                throw new IllegalStateException("The opening contains an invalid move: " + BitBoard.indexToNotation(move));
+        }
+
+        return scheduler.play(session).thenRun(() -> {
+            results.add(result[0], result[1]);
+
+            for (GameResultListener listener : resultListeners)
+                listener.onGameResult(gameIndex, result[0], result[1]);
+        });
+    }
+
+    private static Agent acquire(Queue<Agent> idleAgents, Supplier<Agent> factory) {
+        Agent agent = idleAgents.poll();
+        return agent != null ? agent : factory.get();
+    }
+
+    /**
+     * Gives an agent back when it has finished its last search, so it is not given a new game while it is searching.
+     */
+    private static void release(Queue<Agent> idleAgents, Agent agent) {
+        if(agent instanceof AIAgent)
+            ((AIAgent) agent).whenIdle().thenRun(() -> idleAgents.add(agent));
+        else
+            idleAgents.add(agent);
+    }
+
+    /**
+     * Finds all distinct positions after the given amount of moves from the starting position, positions that are a
+     * rotation or reflection of a position that has already been found are skipped.
+     * @param plies The amount of moves in every opening.
+     * @return The moves of every opening as tile indices.
+     */
+    public static List<int[]> generateOpenings(int plies) {
+        List<int[]> openings = new ArrayList<>();
+        generateOpenings(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT, new int[plies], 0, new HashSet<>(), openings);
+        return openings;
+    }
+
+    private static void generateOpenings(long player, long opponent, int[] moves, int ply, Set<String> positions, List<int[]> openings) {
+        if(ply == moves.length) {
+            int symmetry = BitBoard.findCanonicalSymmetry(player, opponent);
+            String position = BitBoard.transform(player, symmetry) + "/" + BitBoard.transform(opponent, symmetry);
+
+            if(positions.add(position))
+                openings.add(moves.clone());
+            return;
+        }
+
+        long validMoves = BitBoard.findValidMoves(player, opponent);
+        for (long remaining = validMoves; remaining != 0; remaining &= remaining - 1) {
+            int move = Long.numberOfTrailingZeros(remaining);
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+
+            moves[ply] = move;
+            generateOpenings(opponent ^ flips, player | flips | (1L << move), moves, ply + 1, positions, openings);
+        }
+    }
+
+    /**
+     * Creates a factory for agents from a specification: random, first, mcts[:TURN_TIME_MS[:BOOK_FILE]] or
+     * gpu[:TURN_TIME_MS[:DEVICE_INDEX[:THREADS]]], where THREADS is a fixed amount of threads * 1024 that is simulated
+     * for every move instead of the amount that fits in the turn-time.
+     * @param specification The specification of the agent.
+     * @param searchPool The pool that is shared by all searching agents.
+     * @return A factory that creates a new agent, which is reused by the games of an arena.
+     * @throws IOException Thrown when the opening book of the agent can not be opened.
+     */
+    public static Supplier<Agent> createAgentFactory(String specification, SearchPool searchPool) throws IOException {
+        String[] parts = specification.split(":");
+
+        switch (parts[0].toLowerCase()) {
+            case "random":
+                return () -> {
+                    RandomMoveAIAgent agent = new RandomMoveAIAgent();
+                    agent.setMoveDelay(0);
+                    return agent;
+                };
+            case "first":
+                return () -> {
+                    FirstMoveAIAgent agent = new FirstMoveAIAgent();
+                    agent.setMoveDelay(0);
+                    return agent;
+                };
+            case "mcts":
+                long turnTime = parts.length > 1 ? Long.parseLong(parts[1]) : 100;
+                OpeningBook openingBook = parts.length > 2 ? OpeningBook.open(Paths.get(parts[2])) : null;
+
+                return () -> {
+                    CPUMCTSAIAgent agent = new CPUMCTSAIAgent(searchPool);
+                    agent.setTimeManager(new TimeManager(turnTime));
+                    agent.setOpeningBook(openingBook);
+                    return agent;
+                };
+            case "gpu":
+                long gpuTurnTime = parts.length > 1 ? Long.parseLong(parts[1]) : 1000;
+                int deviceIndex = parts.length > 2 ? Integer.parseInt(parts[2]) : 0;
+
+                int fixedThreadCount = parts.length > 3 ? Integer.parseInt(parts[3]) : 0;
+
+                GraphicsDevice graphicsDevice = JOCLSample.getGraphicsDevices().get(deviceIndex);
+                return () -> {
+                    MCTSAIAgent agent = new MCTSAIAgent(graphicsDevice);
+                    agent.setTimeManager(new TimeManager(gpuTurnTime));
+                    agent.setFixedThreadCount(fixedThreadCount);
+                    return agent;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown agent: " + specification);
+        }
+    }
+
+    /**
+     * An entry-point which plays games between two agents and prints the results of the first agent.
+     * With -sprt the games are stopped as soon as the test has a result, the exit code is 0 when the first agent
+     * (the candidate) is accepted, 1 when it is rejected and 2 when the maximum amount of games has been reached.
+     * @param args -a FIRST_AGENT, -b SECOND_AGENT, -n GAMES, -t THREAD_COUNT, -w SEARCH_THREADS, -o OPENING_PLIES,
+     *             -sprt ELO0,ELO1, -alpha ALPHA, -beta BETA
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option firstAgentOption = new Option("a", "first", true,
+                "The first agent: random, first, mcts[:TURN_TIME_MS[:BOOK_FILE]] or gpu[:TURN_TIME_MS[:DEVICE_INDEX[:THREADS]]].");
+        firstAgentOption.setRequired(true);
+        options.addOption(firstAgentOption);
+
+        Option secondAgentOption = new Option("b", "second", true, "The second agent, in the same format as the first agent.");
+        secondAgentOption.setRequired(true);
+        options.addOption(secondAgentOption);
+
+        Option gamesOption = new Option("n", "games", true, "The amount of games that should be played. (default: 1000)");
+        gamesOption.setRequired(false);
+        options.addOption(gamesOption);
+
+        Option threadsOption = new Option("t", "threads", true, "The amount of games that are played at the same time. (default: all cores)");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        Option workersOption = new Option("w", "workers", true, "The amount of threads that are shared by all searches. (default: all cores)");
+        workersOption.setRequired(false);
+        options.addOption(workersOption);
+
+        Option openingPliesOption = new Option("o", "openingplies", true, "The amount of moves in every opening. (default: 4)");
+        openingPliesOption.setRequired(false);
+        options.addOption(openingPliesOption);
+
+        Option sprtOption = new Option("sprt", "sprt", true,
+                "Stops when a SPRT with the given Elo hypotheses (for example 0,5) has a result, -n is the maximum amount of games then.");
+        sprtOption.setRequired(false);
+        options.addOption(sprtOption);
+
+        Option alphaOption = new Option("alpha", "alpha", true, "The chance of accepting a candidate that is not stronger. (default: 0.05)");
+        alphaOption.setRequired(false);
+        options.addOption(alphaOption);
+
+        Option betaOption = new Option("beta", "beta", true, "The chance of rejecting a candidate that is stronger. (default: 0.05)");
+        betaOption.setRequired(false);
+        options.addOption(betaOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        int games = Integer.parseInt(cmd.getOptionValue("games", cmd.getOptionValue("sprt") == null ? "1000" : "100000"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int workers = Integer.parseInt(cmd.getOptionValue("workers", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int openingPlies = Integer.parseInt(cmd.getOptionValue("openingplies", "4"));
+        double alpha = Double.parseDouble(cmd.getOptionValue("alpha", "0.05"));
+        double beta = Double.parseDouble(cmd.getOptionValue("beta", "0.05"));
+
+        //endregion
+
+        SearchPool searchPool = new SearchPool(workers);
+        Supplier<Agent> firstAgent = createAgentFactory(cmd.getOptionValue("first"), searchPool);
+        Supplier<Agent> secondAgent = createAgentFactory(cmd.getOptionValue("second"), searchPool);
+
+        List<int[]> openings = generateOpenings(openingPlies);
+        System.out.println("Playing " + games + " games from " + openings.size() + " openings of " + openingPlies + " moves, " + threads + " at the same time.");
+
+        Arena arena = new Arena(firstAgent, secondAgent, openings, threads);
+
+        Sprt sprt = null;
+        if(cmd.getOptionValue("sprt") != null) {
+            String[] hypotheses = cmd.getOptionValue("sprt").split(",");
+            Sprt test = new Sprt(Double.parseDouble(hypotheses[0]), Double.parseDouble(hypotheses[1]), alpha, beta);
+
+            arena.onGameResult((game, discDifference, winner) -> {
+                test.onGameResult(game, discDifference, winner);
+
+                if(test.getResult() != Sprt.Result.CONTINUE)
+                    arena.stop();
+                else if(game % 200 == 199)
+                    System.out.println(test);
+            });
+            sprt = test;
+        }
+
+        long startTime = System.currentTimeMillis();
+        MatchResults results = arena.play(games);
+        long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+
+        System.out.println(cmd.getOptionValue("first") + " vs " + cmd.getOptionValue("second") + ": " + results);
+        System.out.println("Played in " + elapsed + "ms (" + (results.getGameCount() * 1000L / elapsed) + " games/s)");
+
+        searchPool.shutdown();
+
+        if(sprt != null) {
+            System.out.println(sprt);
+
+            switch (sprt.getResult()) {
+                case ACCEPTED:
+                    System.exit(0);
+                case REJECTED:
+                    System.exit(1);
+                default:
+                    System.exit(2);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.verluci.reversi.game.arena;
+
+/**
+ * An interface that should be implemented when creating a listener for when a game in an Arena has ended.
+ */
+public interface GameResultListener {
+    void onGameResult(int game, int discDifference, int winner);
+}
@@ -0,0 +1,152 @@
+package com.github.verluci.reversi.game.arena;
+
+/**
+ * The combined results of the games between two agents, seen from the first agent.
+ *
+ * The Elo difference is calculated from the average score (a win counts as 1, a draw as 0.5), the error bars use the
+ * standard error of the scores of the single games.
+ */
+public class MatchResults {
+    // The z-score of a two-sided 95% confidence interval.
+    private static final double CONFIDENCE_Z = 1.959964;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    private long discDifferenceSum;
+    private long discDifferenceSquareSum;
+
+    /**
+     * Adds the result of a single game.
+     * @param discDifference The amount of discs of the first agent minus the amount of discs of the second agent.
+     * @param winner 1 if the first agent has won, -1 if the second agent has won, 0 if it is a draw.
+     */
+    public synchronized void add(int discDifference, int winner) {
+        if(winner > 0)
+            wins++;
+        else if(winner < 0)
+            losses++;
+        else
+            draws++;
+
+        discDifferenceSum += discDifference;
+        discDifferenceSquareSum += (long) discDifference * discDifference;
+    }
+
+    //region Getters
+
+    /**
+     * @return The amount of games that have been played.
+     */
+    public synchronized int getGameCount() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * @return The amount of games the first agent has won.
+     */
+    public synchronized int getWins() {
+        return wins;
+    }
+
+    /**
+     * @return The amount of games that ended in a draw.
+     */
+    public synchronized int getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return The amount of games the first agent has lost.
+     */
+    public synchronized int getLosses() {
+        return losses;
+    }
+
+    /**
+     * @return The average score of the first agent between 0 and 1.
+     */
+    public synchronized double getScore() {
+        int games = getGameCount();
+        return games == 0 ? 0.5 : (wins + draws * 0.5) / games;
+    }
+
+    /**
+     * @return The standard error of the average score.
+     */
+    public synchronized double getScoreError() {
+        int games = getGameCount();
+        if(games < 2)
+            return 0.5;
+
+        double score = getScore();
+        double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+        return Math.sqrt(variance / games);
+    }
+
+    /**
+     * @return The average amount of discs the first agent has more than the second agent at the end of a game.
+     */
+    public synchronized double getDiscDifference() {
+        int games = getGameCount();
+        return games == 0 ? 0 : (double) discDifferenceSum / games;
+    }
+
+    /**
+     * @return The standard error of the average disc difference.
+     */
+    public synchronized double getDiscDifferenceError() {
+        int games = getGameCount();
+        if(games < 2)
+            return 0;
+
+        double average = getDiscDifference();
+        double variance = ((double) discDifferenceSquareSum / games - average * average) * games / (games - 1);
+        return Math.sqrt(Math.max(variance, 0) / games);
+    }
+
+    /**
+     * @return The Elo difference between the first and the second agent.
+     */
+    public synchronized double getElo() {
+        return toElo(getScore());
+    }
+
+    /**
+     * @return The lower bound of the 95% confidence interval of the Elo difference.
+     */
+    public synchronized double getEloLowerBound() {
+        return toElo(getScore() - CONFIDENCE_Z * getScoreError());
+    }
+
+    /**
+     * @return The upper bound of the 95% confidence interval of the Elo difference.
+     */
+    public synchronized double getEloUpperBound() {
+        return toElo(getScore() + CONFIDENCE_Z * getScoreError());
+    }
+
+    //endregion
+
+    /**
+     * @param score An average score between 0 and 1.
+     * @return The Elo difference that results in the given expected score, limited to about +-1040 for scores of 0 and 1.
+     */
+    public static double toElo(double score) {
+        double clampedScore = Math.max(0.0025, Math.min(0.9975, score));
+        return -400 * Math.log10(1 / clampedScore - 1);
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d games: +%d =%d -%d, score %.1f%%, disc difference %+.2f +- %.2f, Elo %+.1f (95%%: %+.1f .. %+.1f)",
+                getGameCount(), wins, draws, losses, getScore() * 100,
+                getDiscDifference(), CONFIDENCE_Z * getDiscDifferenceError(),
+                getElo(), getEloLowerBound(), getEloUpperBound());
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.verluci.reversi.game.arena;
+
+import com.github.verluci.reversi.game.agents.Agent;
+import com.github.verluci.reversi.game.agents.SearchPool;
+import org.apache.commons.cli.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * A headless tool that measures how the strength of an agent scales with its budget per move, by playing an Arena
+ * match against a fixed reference agent for every budget of a ladder (for example 100ms to 10s).
+ *
+ * The agent is given as a specification with a {} in place of the budget, so mcts:{} varies the turn-time and
+ * gpu:1000:0:{} varies the fixed amount of simulations (threads * 1024) per move of the MCTSAIAgent, which does not
+ * depend on the measured speed of the device. Every budget uses the same
+ * openings, and the Elo against the reference is written to a CSV file after every budget, so a partial ladder
+ * can already be used.
+ * The searches share a single SearchPool, so time-based ladders should play one game at a time (the default),
+ * otherwise the games get less time than their budget.
+ */
+public class ScalingHarness {
+    private static final String CSV_HEADER = "budget,games,wins,draws,losses,score,elo,elo_lower,elo_upper,disc_difference,seconds";
+
+    /**
+     * An entry-point which plays the ladder and writes the Elo per budget as CSV.
+     * @param args -a AGENT_TEMPLATE, -r REFERENCE_AGENT, -l LADDER, -n GAMES_PER_BUDGET, -t THREAD_COUNT,
+     *             -w SEARCH_THREADS, -o OPENING_PLIES, -csv OUTPUT_FILE
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option agentOption = new Option("a", "agent", true,
+                "The agent with {} in place of the budget, for example mcts:{} or gpu:1000:0:{}.");
+        agentOption.setRequired(true);
+        options.addOption(agentOption);
+
+        Option referenceOption = new Option("r", "reference", true, "The reference agent every budget plays against.");
+        referenceOption.setRequired(true);
+        options.addOption(referenceOption);
+
+        Option ladderOption = new Option("l", "ladder", true,
+                "A comma-separated list of budgets. (default: 100,200,500,1000,2000,5000,10000)");
+        ladderOption.setRequired(false);
+        options.addOption(ladderOption);
+
+        Option gamesOption = new Option("n", "games", true, "The amount of games per budget. (default: 200)");
+        gamesOption.setRequired(false);
+        options.addOption(gamesOption);
+
+        Option threadsOption = new Option("t", "threads", true, "The amount of games that are played at the same time. (default: 1)");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        Option workersOption = new Option("w", "workers", true, "The amount of threads that are shared by all searches. (default: all cores)");
+        workersOption.setRequired(false);
+        options.addOption(workersOption);
+
+        Option openingPliesOption = new Option("o", "openingplies", true, "The amount of moves in every opening. (default: 4)");
+        openingPliesOption.setRequired(false);
+        options.addOption(openingPliesOption);
+
+        Option csvOption = new Option("csv", "csv", true, "The file the results are written to. (default: scaling.csv)");
+        csvOption.setRequired(false);
+        options.addOption(csvOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        String agentTemplate = cmd.getOptionValue("agent");
+        if(!agentTemplate.contains("{}")) {
+            System.out.println("The agent should contain {} in place of the budget.");
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        String[] ladder = cmd.getOptionValue("ladder", "100,200,500,1000,2000,5000,10000").split(",");
+        int games = Integer.parseInt(cmd.getOptionValue("games", "200"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads", "1"));
+        int workers = Integer.parseInt(cmd.getOptionValue("workers", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int openingPlies = Integer.parseInt(cmd.getOptionValue("openingplies", "4"));
+
+        //endregion
+
+        SearchPool searchPool = new SearchPool(workers);
+        Supplier<Agent> referenceAgent = Arena.createAgentFactory(cmd.getOptionValue("reference"), searchPool);
+        List<int[]> openings = Arena.generateOpenings(openingPlies);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(cmd.getOptionValue("csv", "scaling.csv")))) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+
+            for (String step : ladder) {
+                String budget = step.trim();
+                String specification = agentTemplate.replace("{}", budget);
+                System.out.println("Playing " + games + " games of " + specification + " vs " + cmd.getOptionValue("reference"));
+
+                long startTime = System.currentTimeMillis();
+                Arena arena = new Arena(Arena.createAgentFactory(specification, searchPool), referenceAgent, openings, threads);
+                MatchResults results = arena.play(games);
+                double seconds = (System.currentTimeMillis() - startTime) / 1000d;
+
+                System.out.println(specification + ": " + results);
+
+                writer.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.4f,%.1f,%.1f,%.1f,%.2f,%.1f",
+                        budget, results.getGameCount(), results.getWins(), results.getDraws(), results.getLosses(),
+                        results.getScore(), results.getElo(), results.getEloLowerBound(), results.getEloUpperBound(),
+                        results.getDiscDifference(), seconds));
+                writer.newLine();
+                writer.flush();
+            }
+        }
+
+        searchPool.shutdown();
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.verluci.reversi.game.arena;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A sequential probability ratio test which decides after every pair of games if a candidate agent is stronger than a
+ * baseline agent, so a change can be accepted or rejected in as few games as possible.
+ *
+ * The test compares the hypothesis that the candidate is elo0 stronger (H0) with the hypothesis that it is elo1
+ * stronger (H1). The two games of the same opening (with swapped colors) are combined into a single pair score, which
+ * removes most of the variance of the openings. The log-likelihood ratio is approximated with the mean and variance
+ * of the pair scores (a generalized SPRT), the same way engine testing frameworks like fishtest do.
+ */
+public class Sprt implements GameResultListener {
+    public enum Result { CONTINUE, ACCEPTED, REJECTED }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    // The amount of pairs per pair score: 0, 0.5, 1, 1.5 and 2 points out of 2 games.
+    private final long[] pairCounts = new long[5];
+    private final Map<Integer, Integer> unpairedPoints = new HashMap<>();
+    private Result result = Result.CONTINUE;
+
+    /**
+     * Constructor for Sprt
+     * @param elo0 The Elo difference of the null hypothesis, for example 0.
+     * @param elo1 The Elo difference of the alternative hypothesis, for example 5.
+     * @param alpha The chance of accepting the candidate when H0 is true.
+     * @param beta The chance of rejecting the candidate when H1 is true.
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Adds the result of a game of the candidate, the games 2n and 2n+1 of an Arena form a pair.
+     * @param game The index of the game in the arena.
+     * @param discDifference The disc difference of the candidate. (not used by the test)
+     * @param winner 1 if the candidate has won, -1 if the baseline has won, 0 if it is a draw.
+     */
+    @Override
+    public synchronized void onGameResult(int game, int discDifference, int winner) {
+        int points = winner + 1;
+        Integer otherPoints = unpairedPoints.remove(game / 2);
+
+        if(otherPoints != null) {
+            pairCounts[points + otherPoints]++;
+            updateResult();
+        } else {
+            unpairedPoints.put(game / 2, points);
+        }
+    }
+
+    /**
+     * @return The log-likelihood ratio of H1 compared to H0 over all complete pairs.
+     */
+    public synchronized double getLogLikelihoodRatio() {
+        long pairs = getPairCount();
+        if(pairs < 2)
+            return 0;
+
+        double mean = 0;
+        for (int i = 0; i < pairCounts.length; i++)
+            mean += pairCounts[i] * (i / 4d);
+        mean /= pairs;
+
+        double variance = 0;
+        for (int i = 0; i < pairCounts.length; i++)
+            variance += pairCounts[i] * (i / 4d - mean) * (i / 4d - mean);
+        variance /= pairs;
+
+        // Without any variance (for example only draws so far) the ratio can not be estimated yet.
+        if(variance <= 0)
+            return 0;
+
+        double score0 = toScore(elo0);
+        double score1 = toScore(elo1);
+        return pairs * (score1 - score0) * (2 * mean - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * @return ACCEPTED if H1 is accepted, REJECTED if H0 is accepted, or CONTINUE if more games are needed.
+     *         The result does not change anymore once a hypothesis has been accepted, games that were still being
+     *         played at that moment are only added to the counts.
+     */
+    public synchronized Result getResult() {
+        return result;
+    }
+
+    private void updateResult() {
+        if(result != Result.CONTINUE)
+            return;
+
+        double ratio = getLogLikelihoodRatio();
+        if(ratio >= upperBound)
+            result = Result.ACCEPTED;
+        else if(ratio <= lowerBound)
+            result = Result.REJECTED;
+    }
+
+    /**
+     * @return The amount of complete pairs of games.
+     */
+    public synchronized long getPairCount() {
+        long pairs = 0;
+        for (long count : pairCounts)
+            pairs += count;
+
+        return pairs;
+    }
+
+    /**
+     * @param elo An Elo difference.
+     * @return The expected score of the stronger player.
+     */
+    private static double toScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("SPRT elo0=%.1f elo1=%.1f: LLR %.2f [%.2f, %.2f], %d pairs (0-2 points: %d %d %d %d %d), %s",
+                elo0, elo1, getLogLikelihoodRatio(), lowerBound, upperBound, getPairCount(),
+                pairCounts[0], pairCounts[1], pairCounts[2], pairCounts[3], pairCounts[4], getResult());
+    }
+}
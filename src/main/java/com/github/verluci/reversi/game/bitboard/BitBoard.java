@@ -0,0 +1,251 @@
+package com.github.verluci.reversi.game.bitboard;
+
+/**
+ * This class contains static helper methods for an Othello board that is stored as two 64-bit long values.
+ * Every bit represents a tile on the board where the index of a tile is (y * 8) + x, which is the same layout as
+ * GameBoard.getPlayerTilesLongValue() and the OpenCL kernel (resources/mcts_reversi_kernel.cl) use.
+ */
+public class BitBoard {
+    // The amount of different symmetries (rotations and reflections) of a square board.
+    public static final int SYMMETRY_COUNT = 8;
+
+    // The tiles of the starting position of Othello for the player that is allowed to make the first move.
+    public static final long STARTING_PLAYER = 0x0000000810000000L;
+    public static final long STARTING_OPPONENT = 0x0000001008000000L;
+
+    // Masks that are used to prevent tiles from wrapping around the left (x = 0) and right (x = 7) side of the board.
+    private static final long NOT_LEFT_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+    private static final long NOT_RIGHT_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    // The directions as offsets in bit-indices: E, W, S, N, SE, SW, NE, NW
+    private static final int[] DIRECTIONS = { 1, -1, 8, -8, 9, 7, -7, -9 };
+
+    /**
+     * Moves all tiles one step in the given direction, tiles that would wrap around the board are removed.
+     * @param tiles The tiles that should be moved.
+     * @param direction The direction as an offset in bit-indices.
+     * @return The moved tiles.
+     */
+    private static long shift(long tiles, int direction) {
+        switch (direction) {
+            case 1:  return (tiles << 1) & NOT_LEFT_COLUMN;
+            case -1: return (tiles >>> 1) & NOT_RIGHT_COLUMN;
+            case 8:  return tiles << 8;
+            case -8: return tiles >>> 8;
+            case 9:  return (tiles << 9) & NOT_LEFT_COLUMN;
+            case 7:  return (tiles << 7) & NOT_RIGHT_COLUMN;
+            case -7: return (tiles >>> 7) & NOT_LEFT_COLUMN;
+            case -9: return (tiles >>> 9) & NOT_RIGHT_COLUMN;
+            default: throw new IllegalArgumentException("The given direction does not exist!");
+        }
+    }
+
+    //region Move Generation
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return A long value in which every bit that is set is a valid move for the player.
+     */
+    public static long findValidMoves(long player, long opponent) {
+        long empty = ~(player | opponent);
+        long moves = 0L;
+
+        for (int direction : DIRECTIONS) {
+            long candidates = shift(player, direction) & opponent;
+            candidates |= shift(candidates, direction) & opponent;
+            candidates |= shift(candidates, direction) & opponent;
+            candidates |= shift(candidates, direction) & opponent;
+            candidates |= shift(candidates, direction) & opponent;
+            candidates |= shift(candidates, direction) & opponent;
+            moves |= shift(candidates, direction) & empty;
+        }
+
+        return moves;
+    }
+
+    /**
+     * @param player The tiles of the player that makes the move.
+     * @param opponent The tiles of the opponent.
+     * @param index The index of the tile the move is made on.
+     * @return A long value in which every bit that is set is a tile of the opponent that is flipped by this move.
+     */
+    public static long calculateFlips(long player, long opponent, int index) {
+        long move = 1L << index;
+        long flips = 0L;
+
+        for (int direction : DIRECTIONS) {
+            long line = 0L;
+            long current = shift(move, direction);
+
+            while ((current & opponent) != 0) {
+                line |= current;
+                current = shift(current, direction);
+            }
+
+            if((current & player) != 0)
+                flips |= line;
+        }
+
+        return flips;
+    }
+
+    /**
+     * @param player The tiles of the player.
+     * @param opponent The tiles of the opponent.
+     * @return True if neither player can make a move.
+     */
+    public static boolean isGameOver(long player, long opponent) {
+        return findValidMoves(player, opponent) == 0 && findValidMoves(opponent, player) == 0;
+    }
+
+    //endregion
+
+    //region Symmetries
+
+    /**
+     * Mirrors the board vertically. (y becomes 7 - y)
+     * @param tiles The tiles that should be mirrored.
+     * @return The mirrored tiles.
+     */
+    public static long mirrorVertical(long tiles) {
+        return Long.reverseBytes(tiles);
+    }
+
+    /**
+     * Mirrors the board horizontally. (x becomes 7 - x)
+     * @param tiles The tiles that should be mirrored.
+     * @return The mirrored tiles.
+     */
+    public static long mirrorHorizontal(long tiles) {
+        tiles = ((tiles >>> 1) & 0x5555555555555555L) | ((tiles & 0x5555555555555555L) << 1);
+        tiles = ((tiles >>> 2) & 0x3333333333333333L) | ((tiles & 0x3333333333333333L) << 2);
+        tiles = ((tiles >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((tiles & 0x0F0F0F0F0F0F0F0FL) << 4);
+        return tiles;
+    }
+
+    /**
+     * Mirrors the board in its main diagonal. (x becomes y and y becomes x)
+     * @param tiles The tiles that should be mirrored.
+     * @return The mirrored tiles.
+     */
+    public static long transpose(long tiles) {
+        long t;
+        t = 0x0F0F0F0F00000000L & (tiles ^ (tiles << 28));
+        tiles ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (tiles ^ (tiles << 14));
+        tiles ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (tiles ^ (tiles << 7));
+        tiles ^= t ^ (t >>> 7);
+        return tiles;
+    }
+
+    /**
+     * Applies one of the eight symmetries of the board.
+     * The symmetry is a combination of the following bits: 4 = transpose, 1 = mirror horizontal, 2 = mirror vertical,
+     * which are applied in that order.
+     * @param tiles The tiles that should be transformed.
+     * @param symmetry The symmetry between 0 and 7 that should be applied.
+     * @return The transformed tiles.
+     */
+    public static long transform(long tiles, int symmetry) {
+        if((symmetry & 4) != 0)
+            tiles = transpose(tiles);
+        if((symmetry & 1) != 0)
+            tiles = mirrorHorizontal(tiles);
+        if((symmetry & 2) != 0)
+            tiles = mirrorVertical(tiles);
+
+        return tiles;
+    }
+
+    /**
+     * Reverts a symmetry that has been applied using transform().
+     * @param tiles The transformed tiles.
+     * @param symmetry The symmetry between 0 and 7 that has been applied.
+     * @return The original tiles.
+     */
+    public static long inverseTransform(long tiles, int symmetry) {
+        if((symmetry & 2) != 0)
+            tiles = mirrorVertical(tiles);
+        if((symmetry & 1) != 0)
+            tiles = mirrorHorizontal(tiles);
+        if((symmetry & 4) != 0)
+            tiles = transpose(tiles);
+
+        return tiles;
+    }
+
+    /**
+     * @param index The index of a tile.
+     * @param symmetry The symmetry between 0 and 7 that should be applied.
+     * @return The index of the tile after the symmetry has been applied.
+     */
+    public static int transformIndex(int index, int symmetry) {
+        return Long.numberOfTrailingZeros(transform(1L << index, symmetry));
+    }
+
+    /**
+     * @param index The index of a transformed tile.
+     * @param symmetry The symmetry between 0 and 7 that has been applied.
+     * @return The index of the tile before the symmetry was applied.
+     */
+    public static int inverseTransformIndex(int index, int symmetry) {
+        return Long.numberOfTrailingZeros(inverseTransform(1L << index, symmetry));
+    }
+
+    /**
+     * Finds the symmetry that transforms the given position into its canonical form.
+     * The canonical form is the symmetry with the lowest (unsigned) player value, and the lowest opponent value
+     * when the player values are equal. All eight symmetries of a position share the same canonical form.
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The symmetry between 0 and 7 that results in the canonical form.
+     */
+    public static int findCanonicalSymmetry(long player, long opponent) {
+        int canonicalSymmetry = 0;
+        long canonicalPlayer = player;
+        long canonicalOpponent = opponent;
+
+        for (int symmetry = 1; symmetry < SYMMETRY_COUNT; symmetry++) {
+            long transformedPlayer = transform(player, symmetry);
+            int comparison = Long.compareUnsigned(transformedPlayer, canonicalPlayer);
+
+            if(comparison > 0)
+                continue;
+
+            long transformedOpponent = transform(opponent, symmetry);
+            if(comparison < 0 || Long.compareUnsigned(transformedOpponent, canonicalOpponent) < 0) {
+                canonicalSymmetry = symmetry;
+                canonicalPlayer = transformedPlayer;
+                canonicalOpponent = transformedOpponent;
+            }
+        }
+
+        return canonicalSymmetry;
+    }
+
+    //endregion
+
+    /**
+     * @param index The index of a tile.
+     * @return The name of the tile in the common Othello notation. (for example: d3)
+     */
+    public static String indexToNotation(int index) {
+        return "" + (char) ('a' + (index % 8)) + (char) ('1' + (index / 8));
+    }
+
+    /**
+     * @param notation The name of a tile in the common Othello notation. (for example: d3)
+     * @return The index of the tile.
+     */
+    public static int notationToIndex(String notation) {
+        int x = Character.toLowerCase(notation.charAt(0)) - 'a';
+        int y = notation.charAt(1) - '1';
+
+        if(x < 0 || x >= 8 || y < 0 || y >= 8)
+            throw new IllegalArgumentException("The given notation is not a tile: " + notation);
+
+        return (y * 8) + x;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.verluci.reversi.game.bitboard;
+
+/**
+ * An exact alpha-beta search for positions near the end of the game, which proves whether a position is won, drawn or
+ * lost instead of estimating it with random simulations.
+ *
+ * The amount of nodes of a search is limited, and a search can have a deadline, because the size of the search grows
+ * very fast with the amount of empty tiles. A search that reaches one of these limits is aborted and proves nothing.
+ */
+public class EndgameSolver {
+    // The amount of nodes that are searched between checking the deadline.
+    private static final int NODES_PER_DEADLINE_CHECK = 4096;
+
+    // Moves are ordered by the mobility of the opponent when more tiles than this are empty, below it the ordering
+    // costs more time than it saves.
+    private static final int ORDERING_EMPTY_TILES = 6;
+
+    private final long nodeLimit;
+    private final long deadline;
+
+    private long nodeCount;
+    private boolean isAborted;
+
+    /**
+     * Constructor for EndgameSolver without a deadline.
+     * @param nodeLimit The maximum amount of nodes a single search is allowed to visit.
+     */
+    public EndgameSolver(long nodeLimit) {
+        this(nodeLimit, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor for EndgameSolver
+     * @param nodeLimit The maximum amount of nodes a single search is allowed to visit.
+     * @param deadline The value of System.nanoTime() at which all searches are aborted, or Long.MAX_VALUE.
+     */
+    public EndgameSolver(long nodeLimit, long deadline) {
+        this.nodeLimit = nodeLimit;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Proves the result of a position, only whether it is won, drawn or lost is searched (not by how many discs).
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The proven result for the player, or UNPROVEN if the search has been aborted.
+     */
+    public Proof prove(long player, long opponent) {
+        nodeCount = 0;
+        isAborted = false;
+
+        int result = search(player, opponent, -1, 1, false);
+        return isAborted ? Proof.UNPROVEN : Proof.fromDiscDifference(result);
+    }
+
+    /**
+     * Proves the result of every move of the given statistics, until a move has been proven to win or a search has
+     * been aborted. The node limit applies to the search of every move.
+     * @param statistics The statistics in which the proven results are stored.
+     * @return True if the statistics have been solved, see MoveStatistics.isSolved().
+     */
+    public boolean prove(MoveStatistics statistics) {
+        long player = statistics.getPlayer();
+        long opponent = statistics.getOpponent();
+
+        for (int i = 0; i < statistics.getMoveCount(); i++) {
+            if(statistics.getProof(i) != Proof.UNPROVEN)
+                continue;
+
+            int move = statistics.getMove(i);
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+
+            // The opponent is allowed to move after this move, so the result is inverted.
+            Proof proof = prove(opponent ^ flips, player | flips | (1L << move)).invert();
+            if(proof == Proof.UNPROVEN)
+                return false;
+
+            statistics.setProof(i, proof);
+            if(proof == Proof.WIN)
+                return true;
+        }
+
+        return statistics.isSolved();
+    }
+
+    /**
+     * A negamax search with alpha-beta pruning.
+     * @param passed True if the opponent has passed to get to this position.
+     * @return The difference in discs at the end of the game for the player, if it lies between alpha and beta.
+     *         Otherwise a bound of it.
+     */
+    private int search(long player, long opponent, int alpha, int beta, boolean passed) {
+        if(++nodeCount % NODES_PER_DEADLINE_CHECK == 0 && System.nanoTime() - deadline > 0)
+            isAborted = true;
+        if(nodeCount > nodeLimit)
+            isAborted = true;
+        if(isAborted)
+            return 0;
+
+        long moves = BitBoard.findValidMoves(player, opponent);
+
+        if(moves == 0) {
+            if(passed)
+                return Long.bitCount(player) - Long.bitCount(opponent);
+
+            return -search(opponent, player, -beta, -alpha, true);
+        }
+
+        int emptyTiles = 64 - Long.bitCount(player | opponent);
+        int best = -64;
+
+        while (moves != 0) {
+            long move = emptyTiles > ORDERING_EMPTY_TILES
+                    ? findMoveWithLeastMobility(player, opponent, moves)
+                    : Long.lowestOneBit(moves);
+            moves ^= move;
+
+            long flips = BitBoard.calculateFlips(player, opponent, Long.numberOfTrailingZeros(move));
+            int result = -search(opponent ^ flips, player | flips | move, -beta, -alpha, false);
+
+            if(result > best) {
+                best = result;
+                if(best > alpha)
+                    alpha = best;
+                if(alpha >= beta)
+                    break;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @return The move (as a single set bit) after which the opponent has the fewest possible moves.
+     */
+    private static long findMoveWithLeastMobility(long player, long opponent, long moves) {
+        long best = 0L;
+        int bestMobility = Integer.MAX_VALUE;
+
+        for (long remaining = moves; remaining != 0; remaining &= remaining - 1) {
+            long move = Long.lowestOneBit(remaining);
+            long flips = BitBoard.calculateFlips(player, opponent, Long.numberOfTrailingZeros(move));
+            int mobility = Long.bitCount(BitBoard.findValidMoves(opponent ^ flips, player | flips | move));
+
+            if(mobility < bestMobility) {
+                best = move;
+                bestMobility = mobility;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * @return The amount of nodes the last search has visited.
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * This class contains the simulation results of every possible move in a single position.
+ * All results are stored from the perspective of the player that is allowed to move in this position.
+ *
+ * A move can also be proven to win, draw or lose (by a search that has solved it), which overrules its simulations.
+ */
+public class MoveStatistics {
+    private final long player;
+    private final long opponent;
+
+    private final int[] moves;
+    private final int[] games;
+    private final long[] scoreSums;
+    private final long[] discDifferenceSums;
+    private final Proof[] proofs;
+
+    /**
+     * Constructor for MoveStatistics
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     */
+    public MoveStatistics(long player, long opponent) {
+        this.player = player;
+        this.opponent = opponent;
+
+        long validMoves = BitBoard.findValidMoves(player, opponent);
+        this.moves = new int[Long.bitCount(validMoves)];
+        for (int i = 0; validMoves != 0; i++) {
+            moves[i] = Long.numberOfTrailingZeros(validMoves);
+            validMoves &= validMoves - 1;
+        }
+
+        this.games = new int[moves.length];
+        this.scoreSums = new long[moves.length];
+        this.discDifferenceSums = new long[moves.length];
+        this.proofs = new Proof[moves.length];
+        Arrays.fill(proofs, Proof.UNPROVEN);
+    }
+
+    /**
+     * Adds the result of a single simulated game to a move.
+     * @param moveIndex The index of the move in this statistics (not the index of the tile).
+     * @param discDifference The difference in discs at the end of the game for the player.
+     */
+    public void add(int moveIndex, int discDifference) {
+        games[moveIndex]++;
+        scoreSums[moveIndex] += Integer.signum(discDifference);
+        discDifferenceSums[moveIndex] += discDifference;
+    }
+
+    /**
+     * Adds the results of several simulated games to a move.
+     * @param moveIndex The index of the move in this statistics (not the index of the tile).
+     * @param gameCount The amount of games.
+     * @param scoreSum The sum of the results of the games, where every game is a win (1), a draw (0) or a loss (-1).
+     * @param discDifferenceSum The sum of the differences in discs at the end of the games for the player.
+     */
+    public void add(int moveIndex, int gameCount, long scoreSum, long discDifferenceSum) {
+        games[moveIndex] += gameCount;
+        scoreSums[moveIndex] += scoreSum;
+        discDifferenceSums[moveIndex] += discDifferenceSum;
+    }
+
+    /**
+     * Adds all results of another MoveStatistics of the same position to this one.
+     * @param other The statistics that should be added.
+     */
+    public void merge(MoveStatistics other) {
+        if(other.player != player || other.opponent != opponent)
+            throw new IllegalArgumentException("Only statistics of the same position can be merged!");
+
+        for (int i = 0; i < moves.length; i++) {
+            games[i] += other.games[i];
+            scoreSums[i] += other.scoreSums[i];
+            discDifferenceSums[i] += other.discDifferenceSums[i];
+
+            if(other.proofs[i] != Proof.UNPROVEN)
+                proofs[i] = other.proofs[i];
+        }
+    }
+
+    /**
+     * @return True if a move has been proven to win or all moves have been proven, so simulating more games does not
+     *         change the best move anymore.
+     */
+    public boolean isSolved() {
+        boolean isEveryMoveProven = true;
+
+        for (Proof proof : proofs) {
+            if(proof == Proof.WIN)
+                return true;
+            if(proof == Proof.UNPROVEN)
+                isEveryMoveProven = false;
+        }
+
+        return isEveryMoveProven;
+    }
+
+    /**
+     * @return The index (in this statistics) of the move with the highest score, ties are broken on disc-difference.
+     *         A proven win is better and a proven loss is worse than any score, a proven draw has a score of 0.
+     *         Returns -1 if there are no possible moves.
+     */
+    public int getBestMoveIndex() {
+        int best = -1;
+
+        for (int i = 0; i < moves.length; i++) {
+            if(best < 0 || getValue(i) > getValue(best)
+                    || (getValue(i) == getValue(best) && getDiscDifference(i) > getDiscDifference(best)))
+                best = i;
+        }
+
+        return best;
+    }
+
+    private double getValue(int moveIndex) {
+        switch (proofs[moveIndex]) {
+            case WIN:  return 2d;
+            case DRAW: return 0d;
+            case LOSS: return -2d;
+            default:   return getScore(moveIndex);
+        }
+    }
+
+    //region Getters
+
+    public long getPlayer() {
+        return player;
+    }
+
+    public long getOpponent() {
+        return opponent;
+    }
+
+    /**
+     * @return The amount of possible moves in this position.
+     */
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * @param moveIndex The index of the move in this statistics.
+     * @return The index of the tile the move is made on.
+     */
+    public int getMove(int moveIndex) {
+        return moves[moveIndex];
+    }
+
+    /**
+     * @param moveIndex The index of the move in this statistics.
+     * @return The amount of simulated games of this move.
+     */
+    public int getGames(int moveIndex) {
+        return games[moveIndex];
+    }
+
+    /**
+     * @return The total amount of simulated games of all moves.
+     */
+    public long getTotalGames() {
+        long total = 0;
+        for (int gameCount : games)
+            total += gameCount;
+
+        return total;
+    }
+
+    /**
+     * @param moveIndex The index of the move in this statistics.
+     * @return The average result of this move between -1 (loss) and 1 (win).
+     */
+    public double getScore(int moveIndex) {
+        return games[moveIndex] == 0 ? 0d : (double) scoreSums[moveIndex] / games[moveIndex];
+    }
+
+    /**
+     * @param moveIndex The index of the move in this statistics.
+     * @return The average difference in discs at the end of the game.
+     */
+    public double getDiscDifference(int moveIndex) {
+        return games[moveIndex] == 0 ? 0d : (double) discDifferenceSums[moveIndex] / games[moveIndex];
+    }
+
+    /**
+     * @param moveIndex The index of the move in this statistics.
+     * @return The proven result of this move for the player, or UNPROVEN.
+     */
+    public Proof getProof(int moveIndex) {
+        return proofs[moveIndex];
+    }
+
+    /**
+     * @param moveIndex The index of the move in this statistics.
+     * @param proof The proven result of this move for the player.
+     */
+    public void setProof(int moveIndex, Proof proof) {
+        proofs[moveIndex] = proof;
+    }
+
+    //endregion
+}
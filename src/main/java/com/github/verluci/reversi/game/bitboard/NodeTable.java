@@ -0,0 +1,194 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent table with a fixed size that holds the nodes of a SearchTree, indexed by the Zobrist hash of their
+ * position. A position that can be reached by different move orders (a transposition) has a single node, so its
+ * statistics are shared by all of those move orders instead of being searched again for every one of them.
+ *
+ * The table consists of buckets of BUCKET_SIZE slots. When the bucket of a new position is full, a node is replaced:
+ * a node that can not be reached anymore (it has fewer discs than the root of the last search) is replaced first,
+ * otherwise the node with the fewest visits. Nodes are inserted and replaced with compare-and-set, so the table can be
+ * used by multiple threads at the same time without locking.
+ *
+ * A table can be kept between the turns of a game, the nodes of the positions that are still reachable are reused by
+ * the next search and the others are replaced over time.
+ */
+public class NodeTable {
+    // The amount of slots in which the node of a position can be stored.
+    private static final int BUCKET_SIZE = 4;
+
+    private final AtomicReferenceArray<Node> slots;
+    private final int bucketMask;
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Nodes with fewer discs than the root of the last search can not be reached anymore.
+    private volatile int rootDiscCount;
+
+    /**
+     * Constructor for NodeTable
+     * @param capacity The maximum amount of nodes, which is rounded up to a power of two.
+     */
+    public NodeTable(int capacity) {
+        int slotCount = Integer.highestOneBit((Math.max(capacity, BUCKET_SIZE) - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.bucketMask = slotCount - BUCKET_SIZE;
+    }
+
+    /**
+     * Tells the table the root of a new search, so the nodes that can not be reached from it are replaced first.
+     * @param player The tiles of the player that is allowed to move in the root.
+     * @param opponent The tiles of the opponent.
+     */
+    public void startSearch(long player, long opponent) {
+        rootDiscCount = Long.bitCount(player | opponent);
+    }
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The node of the position, or null if it is not in the table.
+     */
+    Node get(long player, long opponent) {
+        long hash = Zobrist.hash(player, opponent);
+        int bucket = (int) hash & bucketMask;
+
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            Node node = slots.get(bucket + i);
+            if(node != null && node.is(hash, player, opponent))
+                return node;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The node of the position, which is added to the table if it is not in the table yet.
+     */
+    Node getOrCreate(long player, long opponent) {
+        long hash = Zobrist.hash(player, opponent);
+        int bucket = (int) hash & bucketMask;
+
+        while (true) {
+            int replacedSlot = -1;
+            Node replaced = null;
+            boolean isChanged = false;
+
+            for (int i = 0; i < BUCKET_SIZE && !isChanged; i++) {
+                Node node = slots.get(bucket + i);
+
+                if(node == null) {
+                    Node created = new Node(hash, player, opponent);
+                    if(slots.compareAndSet(bucket + i, null, created)) {
+                        size.incrementAndGet();
+                        return created;
+                    }
+
+                    // Another thread has used this slot, so the bucket is read again.
+                    isChanged = true;
+                } else if(node.is(hash, player, opponent)) {
+                    return node;
+                } else if(replaced == null || isBetterReplacement(node, replaced)) {
+                    replacedSlot = bucket + i;
+                    replaced = node;
+                }
+            }
+
+            if(!isChanged) {
+                Node created = new Node(hash, player, opponent);
+                if(slots.compareAndSet(replacedSlot, replaced, created))
+                    return created;
+            }
+        }
+    }
+
+    private boolean isBetterReplacement(Node node, Node other) {
+        boolean isReachable = node.discCount >= rootDiscCount;
+        boolean isOtherReachable = other.discCount >= rootDiscCount;
+
+        if(isReachable != isOtherReachable)
+            return !isReachable;
+
+        return node.visits < other.visits;
+    }
+
+    /**
+     * Removes all nodes, for example when a new game is started.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++)
+            slots.set(i, null);
+
+        size.set(0);
+    }
+
+    /**
+     * @return The amount of nodes in the table.
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * @return The maximum amount of nodes in the table.
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * A position in the search, with the statistics of the games that have passed through it.
+     * The statistics are changed while holding the lock of the node, but can be read without it.
+     */
+    static class Node {
+        final long hash;
+        final long player;
+        final long opponent;
+        final int discCount;
+
+        // The possible moves of the player, if there are none the player has to pass or the game has ended.
+        final long moves;
+        final boolean isGameOver;
+
+        // The statistics are stored for the player that has made the move to this node.
+        volatile int visits;
+        volatile long scoreSum;
+        volatile long discDifferenceSum;
+        volatile Proof proof = Proof.UNPROVEN;
+
+        private Node(long hash, long player, long opponent) {
+            this.hash = hash;
+            this.player = player;
+            this.opponent = opponent;
+            this.discCount = Long.bitCount(player | opponent);
+            this.moves = BitBoard.findValidMoves(player, opponent);
+            this.isGameOver = moves == 0 && BitBoard.findValidMoves(opponent, player) == 0;
+        }
+
+        private boolean is(long hash, long player, long opponent) {
+            return this.hash == hash && this.player == player && this.opponent == opponent;
+        }
+
+        /**
+         * Counts a loss for the player that has made the move to this node before the game has been simulated, so
+         * other threads choose a different path while the game is being simulated.
+         */
+        synchronized void addVirtualLoss() {
+            visits++;
+            scoreSum--;
+        }
+
+        /**
+         * Replaces the virtual loss by the result of the game.
+         * @param discDifference The difference in discs at the end of the game for the player that is allowed to move.
+         */
+        synchronized void update(int discDifference) {
+            scoreSum += 1 - Integer.signum(discDifference);
+            discDifferenceSum -= discDifference;
+        }
+    }
+}
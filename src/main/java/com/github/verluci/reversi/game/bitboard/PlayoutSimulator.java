@@ -0,0 +1,100 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class contains a CPU implementation of the random simulations that are performed in
+ * resources/mcts_reversi_kernel.cl; games are played with random moves until neither player can move.
+ */
+public class PlayoutSimulator {
+    // The amount of rounds (one game per move) that are simulated between checking the deadline.
+    private static final int ROUNDS_PER_DEADLINE_CHECK = 16;
+
+    /**
+     * Plays random moves from the given position until the game has ended.
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @param random The random number generator that chooses the moves.
+     * @return The difference in discs at the end of the game for the given player.
+     */
+    public static int playout(long player, long opponent, SplittableRandom random) {
+        boolean isPlayerToMove = true;
+
+        while (true) {
+            long moves = BitBoard.findValidMoves(player, opponent);
+
+            if(moves == 0) {
+                if(BitBoard.findValidMoves(opponent, player) == 0)
+                    break;
+            } else {
+                int move = selectMove(moves, random.nextInt(Long.bitCount(moves)));
+                long flips = BitBoard.calculateFlips(player, opponent, move);
+
+                player |= flips | (1L << move);
+                opponent ^= flips;
+            }
+
+            long temporary = player;
+            player = opponent;
+            opponent = temporary;
+            isPlayerToMove = !isPlayerToMove;
+        }
+
+        int discDifference = Long.bitCount(player) - Long.bitCount(opponent);
+        return isPlayerToMove ? discDifference : -discDifference;
+    }
+
+    /**
+     * Simulates one game for every move of the given statistics.
+     * @param statistics The statistics the results should be added to.
+     * @param random The random number generator that chooses the moves.
+     */
+    public static void simulateRound(MoveStatistics statistics, SplittableRandom random) {
+        long player = statistics.getPlayer();
+        long opponent = statistics.getOpponent();
+
+        for (int i = 0; i < statistics.getMoveCount(); i++) {
+            int move = statistics.getMove(i);
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+
+            // The opponent is allowed to move after this move, so the result is inverted.
+            statistics.add(i, -playout(opponent ^ flips, player | flips | (1L << move), random));
+        }
+    }
+
+    /**
+     * Simulates the given amount of games for every move of the given statistics.
+     * @param statistics The statistics the results should be added to.
+     * @param gamesPerMove The amount of games that should be simulated for every move.
+     * @param random The random number generator that chooses the moves.
+     */
+    public static void simulate(MoveStatistics statistics, int gamesPerMove, SplittableRandom random) {
+        for (int i = 0; i < gamesPerMove; i++)
+            simulateRound(statistics, random);
+    }
+
+    /**
+     * Simulates games for every move of the given statistics until the deadline has passed.
+     * @param statistics The statistics the results should be added to.
+     * @param deadline The value of System.nanoTime() at which the simulations should stop.
+     * @param random The random number generator that chooses the moves.
+     */
+    public static void simulateUntil(MoveStatistics statistics, long deadline, SplittableRandom random) {
+        do {
+            for (int i = 0; i < ROUNDS_PER_DEADLINE_CHECK; i++)
+                simulateRound(statistics, random);
+        } while (System.nanoTime() - deadline < 0);
+    }
+
+    /**
+     * @param moves A long value in which every set bit is a possible move.
+     * @param n The number of the move that should be selected.
+     * @return The index of the n-th set bit (starting at 0) in the given moves.
+     */
+    public static int selectMove(long moves, int n) {
+        for (int i = 0; i < n; i++)
+            moves &= moves - 1;
+
+        return Long.numberOfTrailingZeros(moves);
+    }
+}
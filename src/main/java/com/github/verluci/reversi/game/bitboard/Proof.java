@@ -0,0 +1,30 @@
+package com.github.verluci.reversi.game.bitboard;
+
+/**
+ * An enum that holds the proven (game-theoretic) result of a position or move, for the player that is allowed to move.
+ */
+public enum Proof {
+    UNPROVEN,
+    WIN,
+    DRAW,
+    LOSS;
+
+    /**
+     * @return The same result from the perspective of the other player.
+     */
+    public Proof invert() {
+        switch (this) {
+            case WIN:  return LOSS;
+            case LOSS: return WIN;
+            default:   return this;
+        }
+    }
+
+    /**
+     * @param discDifference The difference in discs at the end of a game.
+     * @return The proven result of a game that has ended with the given difference in discs.
+     */
+    public static Proof fromDiscDifference(int discDifference) {
+        return discDifference > 0 ? WIN : discDifference < 0 ? LOSS : DRAW;
+    }
+}
@@ -0,0 +1,342 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import com.github.verluci.reversi.game.bitboard.NodeTable.Node;
+
+import java.util.SplittableRandom;
+
+/**
+ * A Monte Carlo search tree (UCT) of a single position which proves results like the MCTS-Solver.
+ * https://en.wikipedia.org/wiki/Monte_Carlo_tree_search
+ *
+ * Every iteration selects a path through the tree, adds a single node to it and evaluates that node: a game that has
+ * ended and a position with few empty tiles (solved by the EndgameSolver) are proven, other nodes are evaluated with a
+ * random playout of the PlayoutSimulator. Proven results are propagated to the root with minimax semantics: a node is
+ * won if one of its moves wins, and it is drawn or lost once all of its moves have been proven. Moves that have been
+ * proven to lose are not selected anymore and proven nodes are not simulated again, so the iterations are spent on the
+ * part of the tree that has not been decided yet. The search stops when the root has been proven.
+ *
+ * The nodes are stored in a NodeTable instead of in their parent, which makes the tree a directed acyclic graph in
+ * which transpositions share a node. Multiple threads can search the same tree at the same time, a virtual loss keeps
+ * them from all following the same path.
+ */
+public class SearchTree {
+    // The exploration constant of UCT, for results between -1 (loss) and 1 (win).
+    private static final double EXPLORATION = 1.0;
+
+    // Nodes with this amount of empty tiles or less are solved when they are added to the tree.
+    private static final int SOLVER_EMPTY_TILES = 8;
+    private static final long SOLVER_NODE_LIMIT = 20_000;
+
+    // The amount of iterations between checking the deadline.
+    private static final int ITERATIONS_PER_DEADLINE_CHECK = 64;
+
+    // A game has at most 60 moves and a pass is always followed by a move, so a path is never longer than this.
+    private static final int MAX_PATH_LENGTH = 128;
+
+    private final NodeTable table;
+    private final Node root;
+
+    /**
+     * Constructor for SearchTree, which reuses the nodes that are already in the given table.
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @param table The table in which the nodes are stored.
+     */
+    public SearchTree(long player, long opponent, NodeTable table) {
+        this.table = table;
+
+        table.startSearch(player, opponent);
+        this.root = table.getOrCreate(player, opponent);
+
+        if(root.isGameOver)
+            root.proof = Proof.fromDiscDifference(Long.bitCount(player) - Long.bitCount(opponent));
+    }
+
+    /**
+     * Performs iterations until the deadline has passed or the root has been proven, this can be called by multiple
+     * threads at the same time.
+     * @param deadline The value of System.nanoTime() at which the search should stop.
+     * @param random The random number generator of the playouts, which should not be shared with other threads.
+     */
+    public void searchUntil(long deadline, SplittableRandom random) {
+        Node[] path = new Node[MAX_PATH_LENGTH];
+        EndgameSolver solver = new EndgameSolver(SOLVER_NODE_LIMIT);
+
+        do {
+            for (int i = 0; i < ITERATIONS_PER_DEADLINE_CHECK && !isSolved(); i++)
+                iterate(path, solver, random);
+        } while (!isSolved() && System.nanoTime() - deadline < 0);
+    }
+
+    /**
+     * Performs the given amount of iterations, or fewer when the root has been proven. Unlike searchUntil() the amount
+     * of work does not depend on the speed of the machine, for example when building an opening book.
+     * @param iterations The maximum amount of iterations.
+     * @param random The random number generator of the playouts, which should not be shared with other threads.
+     */
+    public void search(int iterations, SplittableRandom random) {
+        Node[] path = new Node[MAX_PATH_LENGTH];
+        EndgameSolver solver = new EndgameSolver(SOLVER_NODE_LIMIT);
+
+        for (int i = 0; i < iterations && !isSolved(); i++)
+            iterate(path, solver, random);
+    }
+
+    /**
+     * Selects a path through the tree, expands and evaluates its last node and updates all nodes of the path.
+     * @param path The array in which the path is stored.
+     * @param solver The solver of the nodes near the end of the game.
+     * @param random The random number generator of the playout.
+     */
+    private void iterate(Node[] path, EndgameSolver solver, SplittableRandom random) {
+        int length = 0;
+        Node node = root;
+        node.addVirtualLoss();
+        path[length++] = node;
+
+        // The result of the iteration for the player that is allowed to move in the last node of the path.
+        int discDifference;
+
+        while (true) {
+            if(node.proof != Proof.UNPROVEN) {
+                discDifference = getDiscDifference(node.proof);
+                break;
+            }
+
+            // A node that is being evaluated by another thread can be reached before it has been proven.
+            if(node.isGameOver) {
+                discDifference = evaluate(node, solver, random);
+                break;
+            }
+
+            Node child = selectOrExpand(node);
+            if(child == null) {
+                // The node has been proven by the proofs of its children.
+                discDifference = getDiscDifference(node.proof);
+                break;
+            }
+
+            boolean isNew = child.visits == 0;
+            child.addVirtualLoss();
+            path[length++] = child;
+            node = child;
+
+            if(isNew) {
+                discDifference = evaluate(child, solver, random);
+                break;
+            }
+        }
+
+        backpropagate(path, length, discDifference);
+    }
+
+    /**
+     * Finds the child of the given node with the highest UCT value, or adds a child that is not in the table yet.
+     * Children that are proven wins for the opponent are skipped, and the node is proven when its children allow it.
+     * @return The selected child, or null if the node has been proven.
+     */
+    private Node selectOrExpand(Node node) {
+        double logVisits = Math.log(Math.max(node.visits, 1));
+        Node best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        boolean isEveryChildProven = true;
+        boolean canDraw = false;
+
+        // A player without moves passes, the position is the same but the other player is allowed to move.
+        long moves = node.moves;
+        boolean isPass = moves == 0;
+
+        do {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            Node child;
+            if(isPass) {
+                child = table.getOrCreate(node.opponent, node.player);
+            } else {
+                long flips = BitBoard.calculateFlips(node.player, node.opponent, move);
+                long childPlayer = node.opponent ^ flips;
+                long childOpponent = node.player | flips | (1L << move);
+
+                child = table.get(childPlayer, childOpponent);
+                if(child == null)
+                    return table.getOrCreate(childPlayer, childOpponent);
+            }
+
+            // A child that has been added by another thread but has not been evaluated yet is selected as well.
+            int visits = child.visits;
+            if(visits == 0)
+                return child;
+
+            Proof proof = child.proof;
+            if(proof == Proof.LOSS) {
+                node.proof = Proof.WIN;
+                return null;
+            }
+
+            if(proof == Proof.UNPROVEN)
+                isEveryChildProven = false;
+            else if(proof == Proof.DRAW)
+                canDraw = true;
+
+            if(proof == Proof.WIN)
+                continue;
+
+            // A proven draw is worth exactly 0, other children are worth their average result.
+            double value = proof == Proof.DRAW ? 0d : (double) child.scoreSum / visits;
+            value += EXPLORATION * Math.sqrt(logVisits / visits);
+
+            if(value > bestValue) {
+                best = child;
+                bestValue = value;
+            }
+        } while (moves != 0);
+
+        if(isEveryChildProven) {
+            node.proof = canDraw ? Proof.DRAW : Proof.LOSS;
+            return null;
+        }
+
+        return best;
+    }
+
+    /**
+     * Proves the given node if the game has ended or if it can be solved, otherwise a random playout is performed.
+     * @return The difference in discs at the end of the game for the player that is allowed to move in the node.
+     */
+    private static int evaluate(Node node, EndgameSolver solver, SplittableRandom random) {
+        if(node.isGameOver) {
+            int discDifference = Long.bitCount(node.player) - Long.bitCount(node.opponent);
+            node.proof = Proof.fromDiscDifference(discDifference);
+            return discDifference;
+        }
+
+        if(64 - node.discCount <= SOLVER_EMPTY_TILES) {
+            Proof proof = solver.prove(node.player, node.opponent);
+            if(proof != Proof.UNPROVEN) {
+                node.proof = proof;
+                return getDiscDifference(proof);
+            }
+        }
+
+        return PlayoutSimulator.playout(node.player, node.opponent, random);
+    }
+
+    /**
+     * Adds the result to all nodes of the path and propagates a proven result towards the root.
+     * @param path The nodes of the path, starting at the root.
+     * @param length The length of the path.
+     * @param discDifference The result for the player that is allowed to move in the last node of the path.
+     */
+    private void backpropagate(Node[] path, int length, int discDifference) {
+        boolean isProving = path[length - 1].proof != Proof.UNPROVEN;
+
+        for (int i = length - 1; i >= 0; i--) {
+            Node node = path[i];
+            node.update(discDifference);
+
+            if(isProving && i < length - 1)
+                isProving = node.proof == Proof.UNPROVEN && updateProof(node);
+
+            discDifference = -discDifference;
+        }
+    }
+
+    /**
+     * Proves a node of which a child has just been proven, if its children allow it.
+     * @return True if the node has been proven.
+     */
+    private boolean updateProof(Node node) {
+        long moves = node.moves;
+        boolean isPass = moves == 0;
+        boolean canDraw = false;
+
+        do {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            Node child;
+            if(isPass) {
+                child = table.get(node.opponent, node.player);
+            } else {
+                long flips = BitBoard.calculateFlips(node.player, node.opponent, move);
+                child = table.get(node.opponent ^ flips, node.player | flips | (1L << move));
+            }
+
+            Proof proof = child == null ? Proof.UNPROVEN : child.proof;
+            if(proof == Proof.LOSS) {
+                node.proof = Proof.WIN;
+                return true;
+            }
+
+            if(proof == Proof.UNPROVEN)
+                return false;
+            if(proof == Proof.DRAW)
+                canDraw = true;
+        } while (moves != 0);
+
+        node.proof = canDraw ? Proof.DRAW : Proof.LOSS;
+        return true;
+    }
+
+    /**
+     * @return A difference in discs that has the same result as the given proof.
+     */
+    private static int getDiscDifference(Proof proof) {
+        return proof == Proof.WIN ? 1 : proof == Proof.LOSS ? -1 : 0;
+    }
+
+    /**
+     * Adds the results and proofs of the moves of the root to the given statistics. The results include the games of
+     * earlier searches that have reached the same positions.
+     * @param statistics The statistics of the same position as the root of this tree.
+     */
+    public void exportTo(MoveStatistics statistics) {
+        if(statistics.getPlayer() != root.player || statistics.getOpponent() != root.opponent)
+            throw new IllegalArgumentException("Only statistics of the same position can be exported to!");
+
+        for (int i = 0; i < statistics.getMoveCount(); i++) {
+            int move = statistics.getMove(i);
+            long flips = BitBoard.calculateFlips(root.player, root.opponent, move);
+            Node child = table.get(root.opponent ^ flips, root.player | flips | (1L << move));
+
+            if(child == null)
+                continue;
+
+            statistics.add(i, child.visits, child.scoreSum, child.discDifferenceSum);
+
+            // The proof of a child is for the opponent, who is allowed to move after the move.
+            if(child.proof != Proof.UNPROVEN)
+                statistics.setProof(i, child.proof.invert());
+        }
+    }
+
+    /**
+     * @return True if the result of the root has been proven.
+     */
+    public boolean isSolved() {
+        return root.proof != Proof.UNPROVEN;
+    }
+
+    /**
+     * @return The proven result of the root for the player that is allowed to move, or UNPROVEN.
+     */
+    public Proof getProof() {
+        return root.proof;
+    }
+
+    public long getPlayer() {
+        return root.player;
+    }
+
+    public long getOpponent() {
+        return root.opponent;
+    }
+
+    /**
+     * @return The table in which the nodes of this tree are stored.
+     */
+    public NodeTable getTable() {
+        return table;
+    }
+}
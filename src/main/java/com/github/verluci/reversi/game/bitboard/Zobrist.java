@@ -0,0 +1,56 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class contains Zobrist hashing for positions that are stored as the tiles of the player that is allowed to move
+ * and the tiles of the opponent. https://en.wikipedia.org/wiki/Zobrist_hashing
+ *
+ * Every tile has a random key for the player and one for the opponent, the hash of a position is the XOR of the keys of
+ * all occupied tiles. The keys are combined per byte of the board beforehand, so a hash takes 16 lookups.
+ */
+public class Zobrist {
+    // A fixed seed, so hashes are the same in every run.
+    private static final long SEED = 0x5A0B2157L;
+
+    private static final long[][] PLAYER_KEYS = new long[8][256];
+    private static final long[][] OPPONENT_KEYS = new long[8][256];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        fillKeys(PLAYER_KEYS, random);
+        fillKeys(OPPONENT_KEYS, random);
+    }
+
+    /**
+     * Fills the keys of every possible byte value at every byte of the board with the keys of its tiles.
+     */
+    private static void fillKeys(long[][] keys, SplittableRandom random) {
+        for (int row = 0; row < 8; row++) {
+            long[] tileKeys = new long[8];
+            for (int x = 0; x < 8; x++)
+                tileKeys[x] = random.nextLong();
+
+            for (int value = 1; value < 256; value++) {
+                int lowestTile = Integer.numberOfTrailingZeros(value);
+                keys[row][value] = keys[row][value & (value - 1)] ^ tileKeys[lowestTile];
+            }
+        }
+    }
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The Zobrist hash of the position.
+     */
+    public static long hash(long player, long opponent) {
+        long hash = 0L;
+
+        for (int row = 0; row < 8; row++) {
+            hash ^= PLAYER_KEYS[row][(int) (player >>> (row * 8)) & 0xFF];
+            hash ^= OPPONENT_KEYS[row][(int) (opponent >>> (row * 8)) & 0xFF];
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.verluci.reversi.game.book;
+
+/**
+ * This class contains the statistics of a single move from a single (canonical) position in an OpeningBook.
+ */
+public class BookEntry {
+    // The amount of bytes a single entry uses in a book-file.
+    public static final int SIZE = 32;
+
+    private final long player;
+    private final long opponent;
+    private final int move;
+    private final int games;
+    private final float score;
+    private final float discDifference;
+
+    /**
+     * Constructor for BookEntry
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @param move The index of the tile the move is made on.
+     * @param games The amount of games/evaluations these statistics are based on.
+     * @param score The expected result of the move for the player between -1 (loss) and 1 (win).
+     * @param discDifference The expected difference in discs at the end of the game for the player.
+     */
+    public BookEntry(long player, long opponent, int move, int games, float score, float discDifference) {
+        this.player = player;
+        this.opponent = opponent;
+        this.move = move;
+        this.games = games;
+        this.score = score;
+        this.discDifference = discDifference;
+    }
+
+    /**
+     * Compares the keys of two entries in the order they are stored in a book-file.
+     * @param a The first entry.
+     * @param b The second entry.
+     * @return A negative value, zero or a positive value if a is ordered before, equal to or after b.
+     */
+    public static int compareKeys(BookEntry a, BookEntry b) {
+        return compareKeys(a.player, a.opponent, a.move, b.player, b.opponent, b.move);
+    }
+
+    /**
+     * Compares two keys in the order they are stored in a book-file. (unsigned player, unsigned opponent, move)
+     * @return A negative value, zero or a positive value if the first key is ordered before, equal to or after the second key.
+     */
+    static int compareKeys(long playerA, long opponentA, int moveA, long playerB, long opponentB, int moveB) {
+        int comparison = Long.compareUnsigned(playerA, playerB);
+        if(comparison != 0)
+            return comparison;
+
+        comparison = Long.compareUnsigned(opponentA, opponentB);
+        if(comparison != 0)
+            return comparison;
+
+        return Integer.compare(moveA, moveB);
+    }
+
+    //region Getters
+
+    /**
+     * @return The tiles of the player that is allowed to move.
+     */
+    public long getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The tiles of the opponent.
+     */
+    public long getOpponent() {
+        return opponent;
+    }
+
+    /**
+     * @return The index of the tile the move is made on.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    /**
+     * @return The amount of games/evaluations these statistics are based on.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return The expected result of the move for the player between -1 (loss) and 1 (win).
+     */
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * @return The expected difference in discs at the end of the game for the player.
+     */
+    public float getDiscDifference() {
+        return discDifference;
+    }
+
+    //endregion
+
+    @Override
+    public String toString() {
+        return "BookEntry{" +
+                "player=" + Long.toHexString(player) +
+                ", opponent=" + Long.toHexString(opponent) +
+                ", move=" + move +
+                ", games=" + games +
+                ", score=" + score +
+                ", discDifference=" + discDifference +
+                '}';
+    }
+}
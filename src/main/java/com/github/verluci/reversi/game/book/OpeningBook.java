@@ -0,0 +1,195 @@
+package com.github.verluci.reversi.game.book;
+
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class contains a read-only opening book for Othello that is memory-mapped from a binary book-file.
+ *
+ * A book-file starts with a header of HEADER_SIZE bytes: [ MAGIC (int), VERSION (int), entry-count (long) ]
+ * followed by fixed-width entries of BookEntry.SIZE bytes:
+ *      [ player (long), opponent (long), move (int), games (int), score (float), disc-difference (float) ]
+ *
+ * Positions are stored in their canonical form (see BitBoard.findCanonicalSymmetry()) so all eight symmetries of a
+ * position share the same entries. The entries are sorted by (unsigned player, unsigned opponent, move) which makes
+ * it possible to find a position using a binary search directly on the mapped file, without loading it on the heap.
+ */
+public class OpeningBook {
+    public static final int MAGIC = 0x5256424B;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private int minimumGames;
+
+    /**
+     * Constructor for OpeningBook, use OpeningBook.open() to open a book-file.
+     * @param buffer The mapped contents of the book-file.
+     * @param entryCount The amount of entries in the book-file.
+     */
+    private OpeningBook(MappedByteBuffer buffer, int entryCount) {
+        this.buffer = buffer;
+        this.entryCount = entryCount;
+        this.minimumGames = 1;
+    }
+
+    /**
+     * Maps the given book-file into memory, the contents of the file are loaded lazily by the operating system.
+     * @param path The location of the book-file.
+     * @return An OpeningBook that reads from the given book-file.
+     * @throws IOException Thrown when the file can't be read or is not a valid book-file.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE || size > Integer.MAX_VALUE)
+                throw new IOException("The book-file has an invalid size: " + path);
+
+            // The mapping stays valid after the channel has been closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("The given file is not a valid book-file: " + path);
+
+            long entryCount = buffer.getLong(8);
+            if(HEADER_SIZE + entryCount * BookEntry.SIZE != size)
+                throw new IOException("The book-file is incomplete: " + path);
+
+            return new OpeningBook(buffer, (int) entryCount);
+        }
+    }
+
+    /**
+     * Finds the best move in the book for the given position.
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The index of the tile with the highest score, or -1 if the position is not in the book.
+     */
+    public int findBestMove(long player, long opponent) {
+        int symmetry = BitBoard.findCanonicalSymmetry(player, opponent);
+        long canonicalPlayer = BitBoard.transform(player, symmetry);
+        long canonicalOpponent = BitBoard.transform(opponent, symmetry);
+
+        int bestMove = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        int bestGames = 0;
+
+        for (int i = findFirstEntry(canonicalPlayer, canonicalOpponent); i < entryCount && matches(i, canonicalPlayer, canonicalOpponent); i++) {
+            int offset = HEADER_SIZE + i * BookEntry.SIZE;
+            int games = buffer.getInt(offset + 20);
+            float score = buffer.getFloat(offset + 24);
+
+            if(games < minimumGames)
+                continue;
+
+            if(score > bestScore || (score == bestScore && games > bestGames)) {
+                bestMove = buffer.getInt(offset + 16);
+                bestScore = score;
+                bestGames = games;
+            }
+        }
+
+        if(bestMove < 0)
+            return -1;
+
+        return BitBoard.inverseTransformIndex(bestMove, symmetry);
+    }
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return All entries of the given position, with the moves converted back to the orientation of the given position.
+     */
+    public List<BookEntry> getEntries(long player, long opponent) {
+        int symmetry = BitBoard.findCanonicalSymmetry(player, opponent);
+        long canonicalPlayer = BitBoard.transform(player, symmetry);
+        long canonicalOpponent = BitBoard.transform(opponent, symmetry);
+
+        List<BookEntry> entries = new ArrayList<>();
+        for (int i = findFirstEntry(canonicalPlayer, canonicalOpponent); i < entryCount && matches(i, canonicalPlayer, canonicalOpponent); i++) {
+            BookEntry entry = readEntry(i);
+            entries.add(new BookEntry(player, opponent, BitBoard.inverseTransformIndex(entry.getMove(), symmetry),
+                    entry.getGames(), entry.getScore(), entry.getDiscDifference()));
+        }
+
+        return entries;
+    }
+
+    /**
+     * @param index The index of the entry in the book-file.
+     * @return The entry at the given index as it is stored in the book-file (in its canonical form).
+     */
+    public BookEntry readEntry(int index) {
+        int offset = HEADER_SIZE + index * BookEntry.SIZE;
+
+        return new BookEntry(
+                buffer.getLong(offset),
+                buffer.getLong(offset + 8),
+                buffer.getInt(offset + 16),
+                buffer.getInt(offset + 20),
+                buffer.getFloat(offset + 24),
+                buffer.getFloat(offset + 28));
+    }
+
+    /**
+     * Performs a binary search for the first entry of the given canonical position.
+     * @return The index of the first entry that is not ordered before the given position.
+     */
+    private int findFirstEntry(long player, long opponent) {
+        int low = 0;
+        int high = entryCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_SIZE + middle * BookEntry.SIZE;
+
+            if(BookEntry.compareKeys(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getInt(offset + 16), player, opponent, Integer.MIN_VALUE) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    /**
+     * @return True if the entry at the given index belongs to the given canonical position.
+     */
+    private boolean matches(int index, long player, long opponent) {
+        int offset = HEADER_SIZE + index * BookEntry.SIZE;
+        return buffer.getLong(offset) == player && buffer.getLong(offset + 8) == opponent;
+    }
+
+    //region Getters and Setters
+
+    /**
+     * @return The amount of entries in this book.
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * @return The minimum amount of games an entry should be based on before it is played.
+     */
+    public int getMinimumGames() {
+        return minimumGames;
+    }
+
+    /**
+     * @param minimumGames The minimum amount of games an entry should be based on before it is played.
+     */
+    public void setMinimumGames(int minimumGames) {
+        this.minimumGames = minimumGames;
+    }
+
+    //endregion
+}
@@ -0,0 +1,764 @@
+package com.github.verluci.reversi.game.book;
+
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+import com.github.verluci.reversi.game.bitboard.MoveStatistics;
+import com.github.verluci.reversi.game.bitboard.NodeTable;
+import com.github.verluci.reversi.game.bitboard.Proof;
+import com.github.verluci.reversi.game.bitboard.SearchTree;
+import org.apache.commons.cli.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A headless tool that builds an opening book using drop-out expansion.
+ *
+ * The opening tree is stored as a graph of canonical positions. Every position is evaluated by the same MCTS-Solver
+ * (SearchTree) that the CPUMCTSAIAgent plays with, which proves the moves near the end of the game with the
+ * EndgameSolver. The value of a position is the negamax of the values of its moves, where a move uses the value of
+ * the resulting position if it has been evaluated and its searched result otherwise.
+ *
+ * The values are scores between -1 (loss) and 1 (win), the same objective that the agents and OpeningBook choose
+ * their moves by, the average difference in discs only breaks ties.
+ *
+ * Every iteration the positions with the lowest expansion cost are evaluated in parallel, the expansion cost of a
+ * position is the sum of the scores that have been given up on the way from the root (the difference between the
+ * best move and the chosen move), plus a penalty per move. This makes sure the main lines are expanded deeply
+ * while less likely deviations are still covered.
+ *
+ * An iteration does not walk through the whole graph. The values are only updated along the parents of the newly
+ * evaluated positions, and the positions that have not been evaluated yet are kept in a priority frontier ordered
+ * by expansion cost. The cost of a position taken from the frontier is checked against the current values of its
+ * parents, and the frontier is rebuilt from the root after the graph has grown by a quarter, so the costs never get
+ * too far out of date while building stays linear in the size of the graph.
+ *
+ * The graph is written to a checkpoint-file regularly, so a build that has been stopped can be resumed.
+ */
+public class OpeningBookBuilder {
+    private static final int CHECKPOINT_MAGIC = 0x52564243;
+    private static final int CHECKPOINT_VERSION = 2;
+
+    // The maximum amount of nodes of the search of every thread, the nodes are kept between positions so
+    // transpositions are not searched again.
+    private static final int TABLE_CAPACITY = 1 << 18;
+
+    private static final PositionKey ROOT = PositionKey.canonical(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT);
+
+    private final Map<PositionKey, BookNode> nodes = new HashMap<>();
+    private final Map<PositionKey, List<BookNode>> parents = new HashMap<>();
+    private final PriorityQueue<Candidate> frontier = new PriorityQueue<>();
+    private int nextRebuildSize;
+
+    private final ExecutorService executor;
+    private final SplittableRandom random = new SplittableRandom();
+    private final ThreadLocal<NodeTable> nodeTables = ThreadLocal.withInitial(() -> new NodeTable(TABLE_CAPACITY));
+
+    private final int threadCount;
+    private final int gamesPerMove;
+    private final int maximumDepth;
+    private final double depthCost;
+
+    /**
+     * Constructor for OpeningBookBuilder
+     * @param threadCount The amount of positions that are evaluated in parallel.
+     * @param gamesPerMove The amount of iterations of the search of a position per move of that position.
+     * @param maximumDepth The maximum amount of moves from the starting position that are expanded.
+     * @param depthCost The expansion cost (in score) of every move from the starting position.
+     */
+    public OpeningBookBuilder(int threadCount, int gamesPerMove, int maximumDepth, double depthCost) {
+        this.threadCount = threadCount;
+        this.gamesPerMove = gamesPerMove;
+        this.maximumDepth = maximumDepth;
+        this.depthCost = depthCost;
+        this.executor = Executors.newFixedThreadPool(threadCount);
+    }
+
+    //region Expansion
+
+    /**
+     * Evaluates the positions with the lowest expansion cost until the given amount of positions has been evaluated.
+     * @param positionCount The amount of positions that should be evaluated.
+     * @param checkpoint The location of the checkpoint-file, or null if no checkpoints should be written.
+     * @param checkpointInterval The amount of evaluated positions between two checkpoints.
+     * @throws IOException Thrown when writing a checkpoint fails.
+     */
+    public void expand(int positionCount, Path checkpoint, int checkpointInterval) throws IOException {
+        if(!nodes.containsKey(ROOT))
+            evaluate(Collections.singletonList(ROOT));
+
+        int evaluated = 0;
+        int sinceCheckpoint = 0;
+        long startTime = System.currentTimeMillis();
+
+        while (evaluated < positionCount) {
+            List<PositionKey> leaves = selectLeaves(Math.min(threadCount * 4, positionCount - evaluated));
+            if(leaves.isEmpty()) {
+                System.out.println("The opening tree has been fully expanded up to the maximum depth.");
+                break;
+            }
+
+            evaluate(leaves);
+            evaluated += leaves.size();
+            sinceCheckpoint += leaves.size();
+
+            if(checkpoint != null && sinceCheckpoint >= checkpointInterval) {
+                writeCheckpoint(checkpoint);
+                sinceCheckpoint = 0;
+            }
+
+            long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+            System.out.println("Evaluated " + evaluated + "/" + positionCount + " positions ("
+                    + nodes.size() + " in book, " + (evaluated * 1000L / elapsed) + " positions/s)");
+        }
+
+        if(checkpoint != null)
+            writeCheckpoint(checkpoint);
+    }
+
+    /**
+     * Evaluates the given positions in parallel by searching them with the MCTS-Solver.
+     * @param positions The canonical positions that should be evaluated.
+     */
+    private void evaluate(List<PositionKey> positions) {
+        List<Future<BookNode>> futures = new ArrayList<>();
+        for (PositionKey position : positions) {
+            SplittableRandom taskRandom = random.split();
+
+            futures.add(executor.submit(() -> {
+                MoveStatistics statistics = new MoveStatistics(position.player, position.opponent);
+
+                SearchTree tree = new SearchTree(position.player, position.opponent, nodeTables.get());
+                tree.search(gamesPerMove * statistics.getMoveCount(), taskRandom);
+                tree.exportTo(statistics);
+
+                return BookNode.fromStatistics(statistics);
+            }));
+        }
+
+        List<BookNode> evaluated = new ArrayList<>();
+        for (Future<BookNode> future : futures) {
+            try {
+                BookNode node = future.get();
+                addNode(node);
+                evaluated.add(node);
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Failed to evaluate a position!", e);
+            }
+        }
+
+        Set<BookNode> changed = updateValues(evaluated);
+
+        // The expansion cost of a position depends on the values of its parents, so parents are handled first.
+        evaluated.sort(Comparator.comparingInt(BookNode::getDepth));
+        for (BookNode node : evaluated)
+            node.cost = getCost(node.key);
+
+        for (BookNode node : changed)
+            addChildrenToFrontier(node);
+    }
+
+    /**
+     * Adds an evaluated position to the graph and registers it as a parent of the positions after its moves.
+     */
+    private void addNode(BookNode node) {
+        nodes.put(node.key, node);
+
+        for (PositionKey child : node.children) {
+            if(child == null)
+                continue;
+
+            List<BookNode> childParents = parents.computeIfAbsent(child, key -> new ArrayList<>(1));
+            if(!childParents.contains(node))
+                childParents.add(node);
+        }
+    }
+
+    /**
+     * Selects the positions that have not been evaluated yet with the lowest expansion cost.
+     * @param count The maximum amount of positions that should be selected.
+     * @return The selected positions, ordered by expansion cost.
+     */
+    private List<PositionKey> selectLeaves(int count) {
+        if(nodes.size() >= nextRebuildSize || frontier.isEmpty())
+            rebuildFrontier();
+
+        List<PositionKey> leaves = new ArrayList<>();
+        Set<PositionKey> selected = new HashSet<>();
+
+        Candidate candidate;
+        while (leaves.size() < count && (candidate = frontier.poll()) != null) {
+            if(nodes.containsKey(candidate.position) || selected.contains(candidate.position))
+                continue;
+
+            // The values of the parents can have changed since the position was added, a position that has become
+            // more expensive than the next candidate is added again with its current cost.
+            double cost = getCost(candidate.position);
+            if(cost > candidate.cost && !frontier.isEmpty() && frontier.peek().cost < cost) {
+                frontier.add(new Candidate(candidate.position, cost));
+                continue;
+            }
+
+            selected.add(candidate.position);
+            leaves.add(candidate.position);
+        }
+
+        return leaves;
+    }
+
+    /**
+     * Calculates the lowest expansion cost of every evaluated position from the root, like Dijkstra's algorithm, and
+     * fills the frontier with every position that has not been evaluated yet within the maximum depth.
+     */
+    private void rebuildFrontier() {
+        frontier.clear();
+        for (BookNode node : nodes.values())
+            node.cost = Double.POSITIVE_INFINITY;
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        Set<PositionKey> reached = new HashSet<>();
+        queue.add(new Candidate(ROOT, 0d));
+
+        Candidate candidate;
+        while ((candidate = queue.poll()) != null) {
+            if(!reached.add(candidate.position))
+                continue;
+
+            BookNode node = nodes.get(candidate.position);
+            if(node == null) {
+                frontier.add(candidate);
+                continue;
+            }
+
+            node.cost = candidate.cost;
+            if(node.getDepth() >= maximumDepth)
+                continue;
+
+            for (int i = 0; i < node.moves.length; i++) {
+                PositionKey child = node.children[i];
+                if(child != null && !reached.contains(child))
+                    queue.add(new Candidate(child, node.cost + getMoveCost(node, i)));
+            }
+        }
+
+        nextRebuildSize = nodes.size() + Math.max(nodes.size() / 4, threadCount * 4);
+    }
+
+    /**
+     * Adds the positions after the moves of the given position that have not been evaluated yet to the frontier,
+     * with their expansion cost through this position.
+     */
+    private void addChildrenToFrontier(BookNode node) {
+        if(node.cost == Double.POSITIVE_INFINITY || node.getDepth() >= maximumDepth)
+            return;
+
+        for (int i = 0; i < node.moves.length; i++) {
+            PositionKey child = node.children[i];
+            if(child != null && !nodes.containsKey(child))
+                frontier.add(new Candidate(child, node.cost + getMoveCost(node, i)));
+        }
+    }
+
+    /**
+     * @return The lowest expansion cost of a position through its evaluated parents.
+     */
+    private double getCost(PositionKey position) {
+        if(position.equals(ROOT))
+            return 0d;
+
+        double cost = Double.POSITIVE_INFINITY;
+        for (BookNode parent : parents.getOrDefault(position, Collections.emptyList())) {
+            for (int i = 0; i < parent.moves.length; i++) {
+                if(position.equals(parent.children[i]))
+                    cost = Math.min(cost, parent.cost + getMoveCost(parent, i));
+            }
+        }
+
+        return cost;
+    }
+
+    /**
+     * @return The expansion cost of a move: the score given up compared to the best move, plus the cost per move.
+     */
+    private double getMoveCost(BookNode node, int moveIndex) {
+        return node.score - node.getMoveScore(moveIndex, nodes) + depthCost;
+    }
+
+    /**
+     * Recalculates the negamax values of the given positions and of their ancestors whose value depends on them.
+     * The positions are updated from the deepest to the shallowest, so every position is updated once.
+     * @param positions The positions that have been evaluated or changed.
+     * @return The positions of which the value has changed, including the given positions.
+     */
+    private Set<BookNode> updateValues(Collection<BookNode> positions) {
+        PriorityQueue<BookNode> queue = new PriorityQueue<>(Comparator.comparingInt(BookNode::getDepth).reversed());
+        Set<BookNode> queued = new HashSet<>(positions);
+        Set<BookNode> changed = new HashSet<>(positions);
+        queue.addAll(positions);
+
+        BookNode node;
+        while ((node = queue.poll()) != null) {
+            queued.remove(node);
+
+            double previousScore = node.score;
+            double previousDiscDifference = node.discDifference;
+            node.updateValue(nodes);
+
+            if(node.score == previousScore && node.discDifference == previousDiscDifference && !changed.contains(node))
+                continue;
+
+            changed.add(node);
+            for (BookNode parent : parents.getOrDefault(node.key, Collections.emptyList())) {
+                if(queued.add(parent))
+                    queue.add(parent);
+            }
+        }
+
+        return changed;
+    }
+
+    //endregion
+
+    //region Game Archives
+
+    /**
+     * Evaluates all positions of the games in the given archive up to the maximum depth.
+     * Every line of the archive contains a single game in the common Othello notation, for example: f5d6c3d3c4
+     * @param archive The location of the archive.
+     * @throws IOException Thrown when the archive can't be read.
+     */
+    public void addArchive(Path archive) throws IOException {
+        Set<PositionKey> positions = new LinkedHashSet<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(archive)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String moves = line.replaceAll("[^a-hA-H1-8]", "");
+
+                long player = BitBoard.STARTING_PLAYER;
+                long opponent = BitBoard.STARTING_OPPONENT;
+
+                for (int i = 0; i + 1 < moves.length() && i / 2 < maximumDepth; i += 2) {
+                    if(BitBoard.findValidMoves(player, opponent) == 0) {
+                        long temporary = player;
+                        player = opponent;
+                        opponent = temporary;
+                    }
+
+                    PositionKey position = PositionKey.canonical(player, opponent);
+                    if(!nodes.containsKey(position))
+                        positions.add(position);
+
+                    int move = BitBoard.notationToIndex(moves.substring(i, i + 2));
+                    if((BitBoard.findValidMoves(player, opponent) & (1L << move)) == 0)
+                        break;
+
+                    long flips = BitBoard.calculateFlips(player, opponent, move);
+                    long newPlayer = opponent ^ flips;
+                    opponent = player | flips | (1L << move);
+                    player = newPlayer;
+                }
+            }
+        }
+
+        System.out.println("Evaluating " + positions.size() + " positions from the archive: " + archive);
+
+        List<PositionKey> batch = new ArrayList<>();
+        for (PositionKey position : positions) {
+            batch.add(position);
+            if(batch.size() >= threadCount * 4) {
+                evaluate(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        if(!batch.isEmpty())
+            evaluate(batch);
+    }
+
+    //endregion
+
+    //region Checkpoints and Output
+
+    /**
+     * Writes all evaluated positions to a checkpoint-file.
+     * @param checkpoint The location of the checkpoint-file.
+     * @throws IOException Thrown when the checkpoint-file can't be written.
+     */
+    public void writeCheckpoint(Path checkpoint) throws IOException {
+        Path temporaryPath = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(nodes.size());
+
+            for (BookNode node : nodes.values()) {
+                out.writeLong(node.player);
+                out.writeLong(node.opponent);
+                out.writeByte(node.moves.length);
+
+                for (int i = 0; i < node.moves.length; i++) {
+                    out.writeByte(node.moves[i]);
+                    out.writeInt(node.games[i]);
+                    out.writeFloat(node.scores[i]);
+                    out.writeFloat(node.discDifferences[i]);
+                }
+            }
+        }
+
+        Files.move(temporaryPath, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads all evaluated positions from a checkpoint-file.
+     * @param checkpoint The location of the checkpoint-file.
+     * @throws IOException Thrown when the checkpoint-file can't be read or is invalid.
+     */
+    public void readCheckpoint(Path checkpoint) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if(in.readInt() != CHECKPOINT_MAGIC)
+                throw new IOException("The given file is not a valid checkpoint-file: " + checkpoint);
+
+            // The first version stored the amount of games once per position, every move had the same amount.
+            int version = in.readInt();
+            if(version != 1 && version != CHECKPOINT_VERSION)
+                throw new IOException("The given checkpoint-file has an unknown version: " + checkpoint);
+
+            int nodeCount = in.readInt();
+            for (int n = 0; n < nodeCount; n++) {
+                long player = in.readLong();
+                long opponent = in.readLong();
+                int positionGames = version == 1 ? in.readInt() : 0;
+                int moveCount = in.readUnsignedByte();
+
+                int[] moves = new int[moveCount];
+                int[] games = new int[moveCount];
+                float[] scores = new float[moveCount];
+                float[] discDifferences = new float[moveCount];
+                for (int i = 0; i < moveCount; i++) {
+                    moves[i] = in.readUnsignedByte();
+                    games[i] = version == 1 ? positionGames : in.readInt();
+                    scores[i] = in.readFloat();
+                    discDifferences[i] = in.readFloat();
+                }
+
+                addNode(new BookNode(player, opponent, moves, games, scores, discDifferences));
+            }
+        }
+
+        updateValues(new ArrayList<>(nodes.values()));
+        nextRebuildSize = 0;
+    }
+
+    /**
+     * Writes all moves of all evaluated positions to a book-file that can be opened by OpeningBook.
+     * @param output The location of the book-file.
+     * @throws IOException Thrown when the book-file can't be written.
+     */
+    public void writeBook(Path output) throws IOException {
+        List<BookEntry> entries = new ArrayList<>();
+
+        for (BookNode node : nodes.values()) {
+            for (int i = 0; i < node.moves.length; i++) {
+                entries.add(new BookEntry(node.player, node.opponent, node.moves[i], node.games[i],
+                        (float) node.getMoveScore(i, nodes), (float) node.getMoveDiscDifference(i, nodes)));
+            }
+        }
+
+        OpeningBookWriter.write(output, entries);
+    }
+
+    /**
+     * Stops the threads that evaluate positions.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    //endregion
+
+    //region Positions
+
+    /**
+     * The key of a canonical position in the opening graph.
+     */
+    private static final class PositionKey {
+        private final long player;
+        private final long opponent;
+
+        private PositionKey(long player, long opponent) {
+            this.player = player;
+            this.opponent = opponent;
+        }
+
+        /**
+         * @return The key of the canonical form of the given position.
+         */
+        private static PositionKey canonical(long player, long opponent) {
+            int symmetry = BitBoard.findCanonicalSymmetry(player, opponent);
+            return new PositionKey(BitBoard.transform(player, symmetry), BitBoard.transform(opponent, symmetry));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PositionKey that = (PositionKey) o;
+            return player == that.player && opponent == that.opponent;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(player * 31 + opponent);
+        }
+    }
+
+    /**
+     * An evaluated canonical position in the opening graph.
+     */
+    private static final class BookNode {
+        private final PositionKey key;
+        private final long player;
+        private final long opponent;
+
+        private final int[] moves;
+        private final int[] games;
+        private final float[] scores;
+        private final float[] discDifferences;
+
+        // The canonical positions after the moves, and whether the opponent has to pass after them.
+        private final PositionKey[] children;
+        private final boolean[] passes;
+
+        // The negamax values of this position from the perspective of the player that is allowed to move,
+        // these are NaN until the value has been calculated.
+        private double score = Double.NaN;
+        private double discDifference = Double.NaN;
+
+        // The lowest expansion cost of this position, as far as it is known.
+        private double cost = Double.POSITIVE_INFINITY;
+
+        private BookNode(long player, long opponent, int[] moves, int[] games, float[] scores, float[] discDifferences) {
+            this.key = new PositionKey(player, opponent);
+            this.player = player;
+            this.opponent = opponent;
+            this.moves = moves;
+            this.games = games;
+            this.scores = scores;
+            this.discDifferences = discDifferences;
+
+            this.children = new PositionKey[moves.length];
+            this.passes = new boolean[moves.length];
+            for (int i = 0; i < moves.length; i++) {
+                children[i] = findChild(i);
+                passes[i] = isPassAfter(i);
+            }
+        }
+
+        private static BookNode fromStatistics(MoveStatistics statistics) {
+            int moveCount = statistics.getMoveCount();
+            int[] moves = new int[moveCount];
+            int[] games = new int[moveCount];
+            float[] scores = new float[moveCount];
+            float[] discDifferences = new float[moveCount];
+
+            for (int i = 0; i < moveCount; i++) {
+                moves[i] = statistics.getMove(i);
+                games[i] = statistics.getGames(i);
+                discDifferences[i] = (float) statistics.getDiscDifference(i);
+
+                // A proven move is worth exactly its result.
+                Proof proof = statistics.getProof(i);
+                scores[i] = proof == Proof.WIN ? 1f : proof == Proof.LOSS ? -1f : proof == Proof.DRAW ? 0f : (float) statistics.getScore(i);
+            }
+
+            return new BookNode(statistics.getPlayer(), statistics.getOpponent(), moves, games, scores, discDifferences);
+        }
+
+        /**
+         * @param moveIndex The index of the move in this position.
+         * @return The canonical position after the move (and a possible pass), or null if the game has ended.
+         */
+        private PositionKey findChild(int moveIndex) {
+            int move = moves[moveIndex];
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+            long childPlayer = opponent ^ flips;
+            long childOpponent = player | flips | (1L << move);
+
+            if(BitBoard.findValidMoves(childPlayer, childOpponent) != 0)
+                return PositionKey.canonical(childPlayer, childOpponent);
+
+            if(BitBoard.findValidMoves(childOpponent, childPlayer) != 0)
+                return PositionKey.canonical(childOpponent, childPlayer);
+
+            return null;
+        }
+
+        /**
+         * @return True if the opponent has to pass after the given move, so the same player is allowed to move again.
+         */
+        private boolean isPassAfter(int moveIndex) {
+            int move = moves[moveIndex];
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+            return BitBoard.findValidMoves(opponent ^ flips, player | flips | (1L << move)) == 0;
+        }
+
+        /**
+         * @return The amount of moves from the starting position, every move adds a single disc.
+         */
+        private int getDepth() {
+            return Long.bitCount(player | opponent) - 4;
+        }
+
+        private double getMoveScore(int moveIndex, Map<PositionKey, BookNode> nodes) {
+            PositionKey child = children[moveIndex];
+            BookNode childNode = child == null ? null : nodes.get(child);
+
+            if(childNode == null || Double.isNaN(childNode.score))
+                return scores[moveIndex];
+
+            return passes[moveIndex] ? childNode.score : -childNode.score;
+        }
+
+        private double getMoveDiscDifference(int moveIndex, Map<PositionKey, BookNode> nodes) {
+            PositionKey child = children[moveIndex];
+            BookNode childNode = child == null ? null : nodes.get(child);
+
+            if(childNode == null || Double.isNaN(childNode.discDifference))
+                return discDifferences[moveIndex];
+
+            return passes[moveIndex] ? childNode.discDifference : -childNode.discDifference;
+        }
+
+        /**
+         * Sets the value of this position to the value of its best move, the move with the highest score where ties
+         * are broken on disc-difference.
+         */
+        private void updateValue(Map<PositionKey, BookNode> nodes) {
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double bestDiscDifference = 0d;
+
+            for (int i = 0; i < moves.length; i++) {
+                double moveScore = getMoveScore(i, nodes);
+                double moveDiscDifference = getMoveDiscDifference(i, nodes);
+
+                if(moveScore > bestScore || (moveScore == bestScore && moveDiscDifference > bestDiscDifference)) {
+                    bestScore = moveScore;
+                    bestDiscDifference = moveDiscDifference;
+                }
+            }
+
+            this.score = moves.length == 0 ? 0d : bestScore;
+            this.discDifference = bestDiscDifference;
+        }
+    }
+
+    /**
+     * A position that has not been evaluated yet, with its expansion cost at the moment it was added to a queue.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        private final PositionKey position;
+        private final double cost;
+
+        private Candidate(PositionKey position, double cost) {
+            this.position = position;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(cost, other.cost);
+        }
+    }
+
+    //endregion
+
+    /**
+     * An entry-point which can be used to build an opening book in a headless state.
+     * @param args -o BOOK_FILE, -n POSITIONS, -c CHECKPOINT_FILE, -a ARCHIVE_FILE, -g GAMES_PER_MOVE, -d MAX_DEPTH,
+     *             -dc DEPTH_COST, -t THREAD_COUNT
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option outputOption = new Option("o", "output", true, "The location the book-file is written to.");
+        outputOption.setRequired(true);
+        options.addOption(outputOption);
+
+        Option positionsOption = new Option("n", "positions", true, "The amount of positions that should be evaluated.");
+        positionsOption.setRequired(true);
+        options.addOption(positionsOption);
+
+        Option checkpointOption = new Option("c", "checkpoint", true,
+                "The location of the checkpoint-file, an existing checkpoint will be resumed.");
+        checkpointOption.setRequired(false);
+        options.addOption(checkpointOption);
+
+        Option archiveOption = new Option("a", "archive", true,
+                "A file with one game per line (for example: f5d6c3d3c4) whose positions are evaluated first.");
+        archiveOption.setRequired(false);
+        options.addOption(archiveOption);
+
+        Option gamesOption = new Option("g", "games", true, "The amount of iterations of the search of a position per move of that position. (default: 2000)");
+        gamesOption.setRequired(false);
+        options.addOption(gamesOption);
+
+        Option depthOption = new Option("d", "depth", true, "The maximum depth of the book in moves. (default: 20)");
+        depthOption.setRequired(false);
+        options.addOption(depthOption);
+
+        Option depthCostOption = new Option("dc", "depthcost", true, "The expansion cost per move, in score between -1 (loss) and 1 (win). (default: 0.05)");
+        depthCostOption.setRequired(false);
+        options.addOption(depthCostOption);
+
+        Option threadsOption = new Option("t", "threads", true, "The amount of threads that evaluate positions. (default: all cores)");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        Path output = Paths.get(cmd.getOptionValue("output"));
+        int positions = Integer.parseInt(cmd.getOptionValue("positions"));
+        Path checkpoint = cmd.getOptionValue("checkpoint") == null ? null : Paths.get(cmd.getOptionValue("checkpoint"));
+        int games = Integer.parseInt(cmd.getOptionValue("games", "2000"));
+        int depth = Integer.parseInt(cmd.getOptionValue("depth", "20"));
+        double depthCost = Double.parseDouble(cmd.getOptionValue("depthcost", "0.05"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        //endregion
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(threads, games, depth, depthCost);
+
+        if(checkpoint != null && Files.exists(checkpoint)) {
+            builder.readCheckpoint(checkpoint);
+            System.out.println("Resumed " + builder.nodes.size() + " positions from checkpoint: " + checkpoint);
+        }
+
+        if(cmd.getOptionValue("archive") != null)
+            builder.addArchive(Paths.get(cmd.getOptionValue("archive")));
+
+        builder.expand(positions, checkpoint, Math.max(threads * 16, 64));
+        builder.writeBook(output);
+        builder.shutdown();
+
+        System.out.println("Written " + builder.nodes.size() + " positions to: " + output);
+    }
+}
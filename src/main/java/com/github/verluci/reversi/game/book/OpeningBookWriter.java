@@ -0,0 +1,51 @@
+package com.github.verluci.reversi.game.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class writes book-files that can be read by OpeningBook.
+ */
+public class OpeningBookWriter {
+    /**
+     * Writes the given entries as a sorted book-file. The entries should already be in their canonical form.
+     * @param path The location the book-file should be written to.
+     * @param entries The entries that should be in the book.
+     * @throws IOException Thrown when the file can't be written or when a move occurs twice in the same position.
+     */
+    public static void write(Path path, Collection<BookEntry> entries) throws IOException {
+        List<BookEntry> sortedEntries = new ArrayList<>(entries);
+        sortedEntries.sort(BookEntry::compareKeys);
+
+        for (int i = 1; i < sortedEntries.size(); i++) {
+            if(BookEntry.compareKeys(sortedEntries.get(i - 1), sortedEntries.get(i)) == 0)
+                throw new IOException("The same move occurs twice in a position: " + sortedEntries.get(i));
+        }
+
+        // Write to a temporary file first so a running bot never maps a half-written book.
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeLong(sortedEntries.size());
+
+            for (BookEntry entry : sortedEntries) {
+                out.writeLong(entry.getPlayer());
+                out.writeLong(entry.getOpponent());
+                out.writeInt(entry.getMove());
+                out.writeInt(entry.getGames());
+                out.writeFloat(entry.getScore());
+                out.writeFloat(entry.getDiscDifference());
+            }
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,304 @@
+package com.github.verluci.reversi.game.evaluation;
+
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A static evaluation function for Othello that is built from patterns of tiles.
+ *
+ * Every pattern is a small group of tiles (an edge, a corner, a diagonal) that is looked at in every symmetry
+ * of the board that results in a different group of tiles. The tiles of a pattern form a base-3 number
+ * (0 = empty, 1 = player, 2 = opponent) which is used as index in the weight table of that pattern. The tiles are taken from the bitboards using masks and shifts, and
+ * converted from binary to base-3 using a precomputed table, so an evaluation does not contain any branches.
+ *
+ * There is a separate set of weight tables for every phase of the game (based on the amount of discs on the board).
+ * The weights are expressed in discs from the perspective of the player that is allowed to move.
+ */
+public class PatternEvaluator {
+    // The resource that contains the trained weights.
+    public static final String WEIGHTS_RESOURCE = "/pattern_weights.bin";
+
+    private static final int WEIGHTS_MAGIC = 0x52565057;
+    private static final int WEIGHTS_VERSION = 1;
+
+    // The amount of phases the game is split into, every phase has its own set of weights.
+    public static final int PHASE_COUNT = 12;
+
+    // The patterns that are used: edge + X-squares, 2x5 corner, 3x3 corner and the diagonals of length 8 to 4.
+    public static final int[] PATTERN_SIZES = { 10, 10, 9, 8, 7, 6, 5, 4 };
+
+    // The position of the weights of every pattern in the weights of a phase.
+    public static final int[] PATTERN_OFFSETS = new int[PATTERN_SIZES.length];
+    // The amount of weights of a single phase.
+    public static final int PHASE_SIZE;
+
+    // The amount of pattern instances on a board: 4 edges, 8 2x5 corners, 4 3x3 corners, 2 long diagonals
+    // and 4 of every shorter diagonal. Symmetries that map a pattern onto itself are not counted twice.
+    public static final int INDEX_COUNT = 4 + 8 + 4 + 2 + 4 * 4;
+
+    // The masks of the diagonals that start at (k, 0) and end at (7, 7 - k) for k = 0, 1, 2, 3, 4.
+    private static final long[] DIAGONAL_MASKS = new long[5];
+
+    // Converts a binary number into a base-3 number with the same digits, for example: 0b101 -> 1*9 + 0*3 + 1 = 10
+    private static final int[] BINARY_TO_TERNARY = new int[1 << 10];
+
+    static {
+        int offset = 0;
+        for (int i = 0; i < PATTERN_SIZES.length; i++) {
+            PATTERN_OFFSETS[i] = offset;
+            offset += pow3(PATTERN_SIZES[i]);
+        }
+        PHASE_SIZE = offset;
+
+        for (int k = 0; k < DIAGONAL_MASKS.length; k++) {
+            for (int i = 0; i < 8 - k; i++)
+                DIAGONAL_MASKS[k] |= 1L << (i * 9 + k);
+        }
+
+        for (int bits = 0; bits < BINARY_TO_TERNARY.length; bits++) {
+            int ternary = 0;
+            for (int digit = 9; digit >= 0; digit--)
+                ternary = ternary * 3 + ((bits >>> digit) & 1);
+
+            BINARY_TO_TERNARY[bits] = ternary;
+        }
+    }
+
+    private final float[][] weights;
+
+    /**
+     * Constructor for PatternEvaluator
+     * @param weights The weights of every phase, every phase should contain PHASE_SIZE weights.
+     */
+    public PatternEvaluator(float[][] weights) {
+        if(weights.length != PHASE_COUNT)
+            throw new IllegalArgumentException("The weights should contain " + PHASE_COUNT + " phases!");
+
+        for (float[] phaseWeights : weights) {
+            if(phaseWeights.length != PHASE_SIZE)
+                throw new IllegalArgumentException("Every phase should contain " + PHASE_SIZE + " weights!");
+        }
+
+        this.weights = weights;
+    }
+
+    /**
+     * Constructor for PatternEvaluator in which all weights are zero.
+     */
+    public PatternEvaluator() {
+        this(new float[PHASE_COUNT][PHASE_SIZE]);
+    }
+
+    //region Evaluation
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The expected disc difference at the end of the game from the perspective of the player.
+     */
+    public float evaluate(long player, long opponent) {
+        float[] w = weights[getPhase(player, opponent)];
+
+        // The board in all eight symmetries, see BitBoard.transform() for the numbering.
+        long p0 = player, p1 = BitBoard.mirrorHorizontal(p0), p2 = BitBoard.mirrorVertical(p0), p3 = BitBoard.mirrorVertical(p1);
+        long p4 = BitBoard.transpose(p0), p5 = BitBoard.mirrorHorizontal(p4), p6 = BitBoard.mirrorVertical(p4), p7 = BitBoard.mirrorVertical(p5);
+        long o0 = opponent, o1 = BitBoard.mirrorHorizontal(o0), o2 = BitBoard.mirrorVertical(o0), o3 = BitBoard.mirrorVertical(o1);
+        long o4 = BitBoard.transpose(o0), o5 = BitBoard.mirrorHorizontal(o4), o6 = BitBoard.mirrorVertical(o4), o7 = BitBoard.mirrorVertical(o5);
+
+        int edge = PATTERN_OFFSETS[0];
+        float score = w[edge + index(edge(p0), edge(o0))] + w[edge + index(edge(p2), edge(o2))]
+                + w[edge + index(edge(p4), edge(o4))] + w[edge + index(edge(p6), edge(o6))];
+
+        int corner2x5 = PATTERN_OFFSETS[1];
+        score += w[corner2x5 + index(corner2x5(p0), corner2x5(o0))] + w[corner2x5 + index(corner2x5(p1), corner2x5(o1))]
+                + w[corner2x5 + index(corner2x5(p2), corner2x5(o2))] + w[corner2x5 + index(corner2x5(p3), corner2x5(o3))]
+                + w[corner2x5 + index(corner2x5(p4), corner2x5(o4))] + w[corner2x5 + index(corner2x5(p5), corner2x5(o5))]
+                + w[corner2x5 + index(corner2x5(p6), corner2x5(o6))] + w[corner2x5 + index(corner2x5(p7), corner2x5(o7))];
+
+        int corner3x3 = PATTERN_OFFSETS[2];
+        score += w[corner3x3 + index(corner3x3(p0), corner3x3(o0))] + w[corner3x3 + index(corner3x3(p1), corner3x3(o1))]
+                + w[corner3x3 + index(corner3x3(p2), corner3x3(o2))] + w[corner3x3 + index(corner3x3(p3), corner3x3(o3))];
+
+        int diagonal8 = PATTERN_OFFSETS[3];
+        score += w[diagonal8 + index(diagonal(p0, 0), diagonal(o0, 0))] + w[diagonal8 + index(diagonal(p1, 0), diagonal(o1, 0))];
+
+        for (int k = 1; k < DIAGONAL_MASKS.length; k++) {
+            int diagonal = PATTERN_OFFSETS[3 + k];
+            score += w[diagonal + index(diagonal(p0, k), diagonal(o0, k))] + w[diagonal + index(diagonal(p1, k), diagonal(o1, k))]
+                    + w[diagonal + index(diagonal(p2, k), diagonal(o2, k))] + w[diagonal + index(diagonal(p3, k), diagonal(o3, k))];
+        }
+
+        return score;
+    }
+
+    /**
+     * Calculates the positions in the weights of a phase that are used to evaluate the given position.
+     * The sum of the weights at these positions is the evaluation of the position.
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @param indices The array the positions are written to, should have a length of at least INDEX_COUNT.
+     */
+    public static void calculateIndices(long player, long opponent, int[] indices) {
+        int i = 0;
+
+        for (int symmetry = 0; symmetry < BitBoard.SYMMETRY_COUNT; symmetry++) {
+            long p = BitBoard.transform(player, symmetry);
+            long o = BitBoard.transform(opponent, symmetry);
+
+            if((symmetry & 1) == 0)
+                indices[i++] = PATTERN_OFFSETS[0] + index(edge(p), edge(o));
+
+            indices[i++] = PATTERN_OFFSETS[1] + index(corner2x5(p), corner2x5(o));
+
+            if(symmetry < 4)
+                indices[i++] = PATTERN_OFFSETS[2] + index(corner3x3(p), corner3x3(o));
+
+            if(symmetry < 2)
+                indices[i++] = PATTERN_OFFSETS[3] + index(diagonal(p, 0), diagonal(o, 0));
+
+            if(symmetry < 4) {
+                for (int k = 1; k < DIAGONAL_MASKS.length; k++)
+                    indices[i++] = PATTERN_OFFSETS[3 + k] + index(diagonal(p, k), diagonal(o, k));
+            }
+        }
+    }
+
+    /**
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @return The phase of the game between 0 and PHASE_COUNT - 1.
+     */
+    public static int getPhase(long player, long opponent) {
+        int discCount = Long.bitCount(player | opponent);
+        return Math.min(Math.max((discCount - 4) * PHASE_COUNT / 61, 0), PHASE_COUNT - 1);
+    }
+
+    //endregion
+
+    //region Patterns
+
+    /**
+     * @return The base-3 index of a pattern from the binary tiles of both players.
+     */
+    private static int index(int playerBits, int opponentBits) {
+        return BINARY_TO_TERNARY[playerBits] + 2 * BINARY_TO_TERNARY[opponentBits];
+    }
+
+    /**
+     * @return The tiles a1 to h1 and the X-squares b2 and g2.
+     */
+    private static int edge(long tiles) {
+        return (int) ((tiles & 0xFFL) | ((tiles >>> 1) & 0x100L) | ((tiles >>> 5) & 0x200L));
+    }
+
+    /**
+     * @return The tiles a1 to e1 and a2 to e2.
+     */
+    private static int corner2x5(long tiles) {
+        return (int) ((tiles & 0x1FL) | ((tiles >>> 3) & 0x3E0L));
+    }
+
+    /**
+     * @return The tiles a1 to c1, a2 to c2 and a3 to c3.
+     */
+    private static int corner3x3(long tiles) {
+        return (int) ((tiles & 0x7L) | ((tiles >>> 5) & 0x38L) | ((tiles >>> 10) & 0x1C0L));
+    }
+
+    /**
+     * Every tile of a diagonal is in a different column, so multiplying collects the tiles in the highest byte.
+     * @return The tiles of the diagonal that starts at (k, 0).
+     */
+    private static int diagonal(long tiles, int k) {
+        return (int) (((tiles & DIAGONAL_MASKS[k]) * 0x0101010101010101L) >>> (56 + k));
+    }
+
+    private static int pow3(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++)
+            result *= 3;
+
+        return result;
+    }
+
+    //endregion
+
+    //region Weights
+
+    /**
+     * Loads the weights from the resources, if there are no trained weights all weights are zero.
+     * @return A PatternEvaluator with the weights from the resources.
+     */
+    public static PatternEvaluator fromResources() {
+        try (InputStream in = PatternEvaluator.class.getResourceAsStream(WEIGHTS_RESOURCE)) {
+            if(in == null) {
+                System.out.println("No pattern weights found in the resources, all weights are zero.");
+                return new PatternEvaluator();
+            }
+
+            return load(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new PatternEvaluator();
+        }
+    }
+
+    /**
+     * @param in The stream that contains the weights.
+     * @return A PatternEvaluator with the weights from the given stream.
+     * @throws IOException Thrown when the stream can't be read or does not contain valid weights.
+     */
+    public static PatternEvaluator load(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in));
+
+        if(dataIn.readInt() != WEIGHTS_MAGIC || dataIn.readInt() != WEIGHTS_VERSION)
+            throw new IOException("The given stream does not contain pattern weights!");
+
+        if(dataIn.readInt() != PHASE_COUNT || dataIn.readInt() != PHASE_SIZE)
+            throw new IOException("The pattern weights were made for a different set of patterns!");
+
+        float[][] weights = new float[PHASE_COUNT][PHASE_SIZE];
+        for (float[] phaseWeights : weights) {
+            for (int i = 0; i < PHASE_SIZE; i++)
+                phaseWeights[i] = dataIn.readFloat();
+        }
+
+        return new PatternEvaluator(weights);
+    }
+
+    /**
+     * Writes the weights to a file that can be loaded using load().
+     * @param path The location of the file.
+     * @throws IOException Thrown when the file can't be written.
+     */
+    public void save(Path path) throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            out.writeInt(WEIGHTS_MAGIC);
+            out.writeInt(WEIGHTS_VERSION);
+            out.writeInt(PHASE_COUNT);
+            out.writeInt(PHASE_SIZE);
+
+            for (float[] phaseWeights : weights) {
+                for (float weight : phaseWeights)
+                    out.writeFloat(weight);
+            }
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return The weights of every phase, changes to these weights are used by this evaluator.
+     */
+    public float[][] getWeights() {
+        return weights;
+    }
+
+    //endregion
+}
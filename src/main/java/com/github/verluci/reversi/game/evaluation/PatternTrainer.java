@@ -0,0 +1,275 @@
+package com.github.verluci.reversi.game.evaluation;
+
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * A headless tool that fits the weights of a PatternEvaluator to the positions of a TrainingSet,
+ * so the evaluation of a position predicts the disc difference at the end of its game.
+ *
+ * The weights are fitted using least squares with batch gradient descent. Every epoch the positions are split over
+ * the threads, every thread adds the errors of its positions to its own gradient, after which the gradients are
+ * summed and every weight is moved by its gradient divided by the amount of positions it occurs in. Weights of
+ * patterns that rarely occur are moved less (regularization), so they don't fit the noise of a few games.
+ */
+public class PatternTrainer {
+    private final TrainingSet trainingSet;
+    private final PatternEvaluator evaluator;
+    private final ExecutorService executor;
+    private final int threadCount;
+
+    private final int trainingSize;
+    private final int[] occurrences;
+
+    /**
+     * Constructor for PatternTrainer
+     * @param trainingSet The positions the weights should be fitted to.
+     * @param evaluator The evaluator whose weights are fitted.
+     * @param threadCount The amount of threads that calculate the gradient.
+     * @param validationFraction The part of the positions (at the end of the set) that is only used for validation.
+     */
+    public PatternTrainer(TrainingSet trainingSet, PatternEvaluator evaluator, int threadCount, double validationFraction) {
+        this.trainingSet = trainingSet;
+        this.evaluator = evaluator;
+        this.threadCount = threadCount;
+        this.executor = Executors.newFixedThreadPool(threadCount);
+
+        this.trainingSize = (int) (trainingSet.size() * (1d - validationFraction));
+        this.occurrences = countOccurrences();
+    }
+
+    /**
+     * @return The amount of training positions every weight occurs in.
+     */
+    private int[] countOccurrences() {
+        int[] occurrences = new int[PatternEvaluator.PHASE_COUNT * PatternEvaluator.PHASE_SIZE];
+        int[] indices = new int[PatternEvaluator.INDEX_COUNT];
+
+        for (int i = 0; i < trainingSize; i++) {
+            long player = trainingSet.getPlayer(i);
+            long opponent = trainingSet.getOpponent(i);
+            int phaseOffset = PatternEvaluator.getPhase(player, opponent) * PatternEvaluator.PHASE_SIZE;
+
+            PatternEvaluator.calculateIndices(player, opponent, indices);
+            for (int index : indices)
+                occurrences[phaseOffset + index]++;
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Performs a single step of gradient descent over all training positions.
+     * @param learningRate The part of the average error of a weight that is corrected every epoch.
+     * @param regularization The amount of positions that is added to the occurrences of every weight.
+     * @return The mean squared error of the training positions before the step.
+     */
+    public double trainEpoch(double learningRate, double regularization) {
+        List<Future<double[]>> futures = new ArrayList<>();
+        int sliceSize = (trainingSize + threadCount - 1) / threadCount;
+
+        for (int t = 0; t < threadCount; t++) {
+            int start = t * sliceSize;
+            int end = Math.min(start + sliceSize, trainingSize);
+            futures.add(executor.submit(() -> calculateGradient(start, end)));
+        }
+
+        double[] gradient = null;
+        for (Future<double[]> future : futures) {
+            double[] threadGradient = getResult(future);
+
+            if(gradient == null) {
+                gradient = threadGradient;
+            } else {
+                for (int i = 0; i < gradient.length; i++)
+                    gradient[i] += threadGradient[i];
+            }
+        }
+
+        // The squared error is stored after the gradient itself.
+        int weightCount = PatternEvaluator.PHASE_COUNT * PatternEvaluator.PHASE_SIZE;
+        float[][] weights = evaluator.getWeights();
+
+        for (int i = 0; i < weightCount; i++) {
+            if(occurrences[i] > 0)
+                weights[i / PatternEvaluator.PHASE_SIZE][i % PatternEvaluator.PHASE_SIZE] +=
+                        (float) (learningRate * gradient[i] / (occurrences[i] + regularization));
+        }
+
+        return gradient[weightCount] / Math.max(trainingSize, 1);
+    }
+
+    /**
+     * @return The gradient of the given training positions, followed by the sum of their squared errors.
+     */
+    private double[] calculateGradient(int start, int end) {
+        int weightCount = PatternEvaluator.PHASE_COUNT * PatternEvaluator.PHASE_SIZE;
+        double[] gradient = new double[weightCount + 1];
+        int[] indices = new int[PatternEvaluator.INDEX_COUNT];
+        float[][] weights = evaluator.getWeights();
+
+        for (int i = start; i < end; i++) {
+            long player = trainingSet.getPlayer(i);
+            long opponent = trainingSet.getOpponent(i);
+            int phase = PatternEvaluator.getPhase(player, opponent);
+            float[] phaseWeights = weights[phase];
+
+            PatternEvaluator.calculateIndices(player, opponent, indices);
+
+            float prediction = 0f;
+            for (int index : indices)
+                prediction += phaseWeights[index];
+
+            double error = trainingSet.getDiscDifference(i) - prediction;
+            int phaseOffset = phase * PatternEvaluator.PHASE_SIZE;
+            for (int index : indices)
+                gradient[phaseOffset + index] += error;
+
+            gradient[weightCount] += error * error;
+        }
+
+        return gradient;
+    }
+
+    /**
+     * @return The mean squared error of the validation positions, or NaN if there are no validation positions.
+     */
+    public double validate() {
+        List<Future<double[]>> futures = new ArrayList<>();
+        int validationSize = trainingSet.size() - trainingSize;
+        int sliceSize = (validationSize + threadCount - 1) / threadCount;
+
+        for (int t = 0; t < threadCount; t++) {
+            int start = trainingSize + t * sliceSize;
+            int end = Math.min(start + sliceSize, trainingSet.size());
+
+            futures.add(executor.submit(() -> {
+                double squaredError = 0d;
+                for (int i = start; i < end; i++) {
+                    double error = trainingSet.getDiscDifference(i) - evaluator.evaluate(trainingSet.getPlayer(i), trainingSet.getOpponent(i));
+                    squaredError += error * error;
+                }
+
+                return new double[] { squaredError };
+            }));
+        }
+
+        double squaredError = 0d;
+        for (Future<double[]> future : futures)
+            squaredError += getResult(future)[0];
+
+        return validationSize == 0 ? Double.NaN : squaredError / validationSize;
+    }
+
+    private static double[] getResult(Future<double[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Failed to calculate the gradient!", e);
+        }
+    }
+
+    /**
+     * Stops the threads that calculate the gradient.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * An entry-point which can be used to train the pattern weights in a headless state.
+     * @param args -i INPUT_DIRECTORY, -o WEIGHTS_FILE, -w INITIAL_WEIGHTS_FILE, -e EPOCHS, -lr LEARNING_RATE,
+     *             -rg REGULARIZATION, -v VALIDATION_FRACTION, -t THREAD_COUNT
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option inputOption = new Option("i", "input", true, "The directory that contains the positions.");
+        inputOption.setRequired(true);
+        options.addOption(inputOption);
+
+        Option outputOption = new Option("o", "output", true, "The location the weights are written to.");
+        outputOption.setRequired(true);
+        options.addOption(outputOption);
+
+        Option weightsOption = new Option("w", "weights", true, "The weights the training starts with.");
+        weightsOption.setRequired(false);
+        options.addOption(weightsOption);
+
+        Option epochsOption = new Option("e", "epochs", true, "The amount of epochs. (default: 100)");
+        epochsOption.setRequired(false);
+        options.addOption(epochsOption);
+
+        Option learningRateOption = new Option("lr", "learningrate", true, "The learning rate. (default: 0.02)");
+        learningRateOption.setRequired(false);
+        options.addOption(learningRateOption);
+
+        Option regularizationOption = new Option("rg", "regularization", true,
+                "The amount of positions added to the occurrences of every weight. (default: 8)");
+        regularizationOption.setRequired(false);
+        options.addOption(regularizationOption);
+
+        Option validationOption = new Option("v", "validation", true, "The part of the positions used for validation. (default: 0.05)");
+        validationOption.setRequired(false);
+        options.addOption(validationOption);
+
+        Option threadsOption = new Option("t", "threads", true, "The amount of threads. (default: all cores)");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        Path input = Paths.get(cmd.getOptionValue("input"));
+        Path output = Paths.get(cmd.getOptionValue("output"));
+        int epochs = Integer.parseInt(cmd.getOptionValue("epochs", "100"));
+        double learningRate = Double.parseDouble(cmd.getOptionValue("learningrate", "0.02"));
+        double regularization = Double.parseDouble(cmd.getOptionValue("regularization", "8"));
+        double validationFraction = Double.parseDouble(cmd.getOptionValue("validation", "0.05"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        PatternEvaluator evaluator = new PatternEvaluator();
+        if(cmd.getOptionValue("weights") != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(cmd.getOptionValue("weights")))) {
+                evaluator = PatternEvaluator.load(in);
+            }
+        }
+
+        //endregion
+
+        TrainingSet trainingSet = TrainingSet.load(input);
+        System.out.println("Loaded " + trainingSet.size() + " positions from: " + input);
+
+        PatternTrainer trainer = new PatternTrainer(trainingSet, evaluator, threads, validationFraction);
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            double trainingError = trainer.trainEpoch(learningRate, regularization);
+
+            if(epoch % 10 == 0 || epoch == epochs)
+                System.out.printf("Epoch %d: training MSE %.3f, validation MSE %.3f%n", epoch, trainingError, trainer.validate());
+        }
+        trainer.shutdown();
+
+        evaluator.save(output);
+        System.out.println("Written the weights to: " + output + " (copy it to resources" + PatternEvaluator.WEIGHTS_RESOURCE + " to use it)");
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.verluci.reversi.game.evaluation;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Streams positions with the final disc difference of their game to chunked binary files.
+ *
+ * Every chunk starts with a header (magic, version, amount of positions) followed by the positions,
+ * a position is the tiles of the player that is allowed to move, the tiles of the opponent and the disc difference
+ * at the end of the game from the perspective of the player: 8 + 8 + 1 bytes.
+ * A chunk is written to a temporary file first, so a directory never contains incomplete chunks.
+ */
+public class PositionWriter implements Closeable {
+    static final int CHUNK_MAGIC = 0x52565350;
+    static final int CHUNK_VERSION = 1;
+    static final String CHUNK_EXTENSION = ".positions";
+
+    private final Path directory;
+    private final String prefix;
+    private final int chunkSize;
+
+    private final long[] players;
+    private final long[] opponents;
+    private final byte[] discDifferences;
+    private int count;
+    private int chunkNumber;
+    private long positionCount;
+
+    /**
+     * Constructor for PositionWriter
+     * @param directory The directory the chunks are written to.
+     * @param prefix The name every chunk starts with, should be unique for every writer that uses the directory.
+     * @param chunkSize The amount of positions in a single chunk.
+     */
+    public PositionWriter(Path directory, String prefix, int chunkSize) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.chunkSize = chunkSize;
+
+        this.players = new long[chunkSize];
+        this.opponents = new long[chunkSize];
+        this.discDifferences = new byte[chunkSize];
+    }
+
+    /**
+     * Adds a position, the current chunk is written when it is full.
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @param discDifference The disc difference at the end of the game from the perspective of the player.
+     * @throws IOException Thrown when a chunk can't be written.
+     */
+    public void add(long player, long opponent, int discDifference) throws IOException {
+        players[count] = player;
+        opponents[count] = opponent;
+        discDifferences[count] = (byte) discDifference;
+        count++;
+        positionCount++;
+
+        if(count == chunkSize)
+            flush();
+    }
+
+    /**
+     * Writes all positions that have been added since the last chunk to a new chunk.
+     * @throws IOException Thrown when the chunk can't be written.
+     */
+    public void flush() throws IOException {
+        if(count == 0)
+            return;
+
+        Path chunk = directory.resolve(String.format("%s-%05d%s", prefix, chunkNumber++, CHUNK_EXTENSION));
+        Path temporaryPath = chunk.resolveSibling(chunk.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath), 1 << 16))) {
+            out.writeInt(CHUNK_MAGIC);
+            out.writeInt(CHUNK_VERSION);
+            out.writeInt(count);
+
+            for (int i = 0; i < count; i++) {
+                out.writeLong(players[i]);
+                out.writeLong(opponents[i]);
+                out.writeByte(discDifferences[i]);
+            }
+        }
+
+        Files.move(temporaryPath, chunk, StandardCopyOption.REPLACE_EXISTING);
+        count = 0;
+    }
+
+    /**
+     * @return The amount of positions that have been added to this writer.
+     */
+    public long getPositionCount() {
+        return positionCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,265 @@
+package com.github.verluci.reversi.game.evaluation;
+
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+import com.github.verluci.reversi.game.bitboard.MoveStatistics;
+import com.github.verluci.reversi.game.bitboard.PlayoutSimulator;
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless tool that plays games between CPU agents on multiple threads and writes every position with the
+ * final disc difference of its game to chunked files (see PositionWriter), which can be used by PatternTrainer.
+ *
+ * The games are played directly on bitboards instead of through Game and its listeners, every thread plays its own
+ * games and writes its own chunks, so the threads never have to wait on each other.
+ * The first moves of every game are random so the games are different, after that the moves are chosen using the
+ * given pattern weights (with some randomness), or using a flat Monte Carlo simulation if there are no weights.
+ */
+public class SelfPlayGenerator {
+    // The maximum amount of positions in a single game (60 moves and some passes).
+    private static final int MAXIMUM_GAME_LENGTH = 128;
+
+    private final int randomPlies;
+    private final int gamesPerMove;
+    private final double exploration;
+    private final PatternEvaluator evaluator;
+
+    /**
+     * Constructor for SelfPlayGenerator
+     * @param randomPlies The amount of random moves at the start of every game.
+     * @param gamesPerMove The amount of simulated games per move when there is no evaluator.
+     * @param exploration The chance that a random move is made instead of the best move.
+     * @param evaluator The evaluator that is used to choose moves, or null if moves are chosen using simulations.
+     */
+    public SelfPlayGenerator(int randomPlies, int gamesPerMove, double exploration, PatternEvaluator evaluator) {
+        this.randomPlies = randomPlies;
+        this.gamesPerMove = gamesPerMove;
+        this.exploration = exploration;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Plays the given amount of games on multiple threads.
+     * @param directory The directory the chunks are written to.
+     * @param gameCount The amount of games that should be played.
+     * @param threadCount The amount of threads that play games.
+     * @param chunkSize The amount of positions in a single chunk.
+     * @throws IOException Thrown when a chunk can't be written.
+     */
+    public void generate(Path directory, int gameCount, int threadCount, int chunkSize) throws IOException {
+        Files.createDirectories(directory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        AtomicInteger playedGames = new AtomicInteger();
+        SplittableRandom random = new SplittableRandom();
+        String runName = Long.toString(System.currentTimeMillis(), 36);
+        long startTime = System.currentTimeMillis();
+
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            SplittableRandom threadRandom = random.split();
+            String prefix = runName + "-" + t;
+
+            futures.add(executor.submit(() -> {
+                try (PositionWriter writer = new PositionWriter(directory, prefix, chunkSize)) {
+                    int game;
+                    while ((game = playedGames.getAndIncrement()) < gameCount) {
+                        playGame(writer, threadRandom);
+
+                        if(game > 0 && game % 10_000 == 0) {
+                            long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+                            System.out.println("Played " + game + "/" + gameCount + " games (" + (game * 1000L / elapsed) + " games/s)");
+                        }
+                    }
+
+                    return writer.getPositionCount();
+                }
+            }));
+        }
+
+        long positionCount = 0;
+        for (Future<Long> future : futures) {
+            try {
+                positionCount += future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IOException("Failed to play the self-play games!", e);
+            }
+        }
+        executor.shutdown();
+
+        long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+        System.out.println("Played " + gameCount + " games with " + positionCount + " positions in " + elapsed + "ms ("
+                + (gameCount * 1000L / elapsed) + " games/s)");
+    }
+
+    /**
+     * Plays a single game and writes all positions in which a move could be made to the writer.
+     */
+    private void playGame(PositionWriter writer, SplittableRandom random) throws IOException {
+        long[] players = new long[MAXIMUM_GAME_LENGTH];
+        long[] opponents = new long[MAXIMUM_GAME_LENGTH];
+        boolean[] isFirstPlayer = new boolean[MAXIMUM_GAME_LENGTH];
+        int positionCount = 0;
+
+        long player = BitBoard.STARTING_PLAYER;
+        long opponent = BitBoard.STARTING_OPPONENT;
+        boolean isFirstPlayerToMove = true;
+        int ply = 0;
+
+        while (true) {
+            long moves = BitBoard.findValidMoves(player, opponent);
+
+            if(moves == 0) {
+                if(BitBoard.findValidMoves(opponent, player) == 0)
+                    break;
+            } else {
+                players[positionCount] = player;
+                opponents[positionCount] = opponent;
+                isFirstPlayer[positionCount] = isFirstPlayerToMove;
+                positionCount++;
+
+                int move = chooseMove(player, opponent, moves, ply++, random);
+                long flips = BitBoard.calculateFlips(player, opponent, move);
+
+                player |= flips | (1L << move);
+                opponent ^= flips;
+            }
+
+            long temporary = player;
+            player = opponent;
+            opponent = temporary;
+            isFirstPlayerToMove = !isFirstPlayerToMove;
+        }
+
+        int discDifference = Long.bitCount(player) - Long.bitCount(opponent);
+        int firstPlayerDiscDifference = isFirstPlayerToMove ? discDifference : -discDifference;
+
+        for (int i = 0; i < positionCount; i++)
+            writer.add(players[i], opponents[i], isFirstPlayer[i] ? firstPlayerDiscDifference : -firstPlayerDiscDifference);
+    }
+
+    /**
+     * @return The index of the tile the player should move to.
+     */
+    private int chooseMove(long player, long opponent, long moves, int ply, SplittableRandom random) {
+        if(ply < randomPlies || Long.bitCount(moves) == 1 || random.nextDouble() < exploration)
+            return PlayoutSimulator.selectMove(moves, random.nextInt(Long.bitCount(moves)));
+
+        if(evaluator == null) {
+            MoveStatistics statistics = new MoveStatistics(player, opponent);
+            PlayoutSimulator.simulate(statistics, gamesPerMove, random);
+            return statistics.getMove(statistics.getBestMoveIndex());
+        }
+
+        int bestMove = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+
+        for (long remaining = moves; remaining != 0; remaining &= remaining - 1) {
+            int move = Long.numberOfTrailingZeros(remaining);
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+            long newPlayer = player | flips | (1L << move);
+            long newOpponent = opponent ^ flips;
+
+            float score;
+            if(BitBoard.findValidMoves(newOpponent, newPlayer) != 0)
+                score = -evaluator.evaluate(newOpponent, newPlayer);
+            else if(BitBoard.findValidMoves(newPlayer, newOpponent) != 0)
+                score = evaluator.evaluate(newPlayer, newOpponent);
+            else
+                score = (Long.bitCount(newPlayer) - Long.bitCount(newOpponent)) * 1000f;
+
+            if(score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * An entry-point which can be used to generate self-play positions in a headless state.
+     * @param args -o OUTPUT_DIRECTORY, -n GAMES, -t THREAD_COUNT, -w WEIGHTS_FILE, -g GAMES_PER_MOVE, -r RANDOM_PLIES,
+     *             -e EXPLORATION, -cs CHUNK_SIZE
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option outputOption = new Option("o", "output", true, "The directory the positions are written to.");
+        outputOption.setRequired(true);
+        options.addOption(outputOption);
+
+        Option gamesOption = new Option("n", "games", true, "The amount of games that should be played.");
+        gamesOption.setRequired(true);
+        options.addOption(gamesOption);
+
+        Option threadsOption = new Option("t", "threads", true, "The amount of threads that play games. (default: all cores)");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        Option weightsOption = new Option("w", "weights", true, "The pattern weights that are used to choose moves.");
+        weightsOption.setRequired(false);
+        options.addOption(weightsOption);
+
+        Option simulationsOption = new Option("g", "simulations", true,
+                "The amount of simulated games per move when no weights are given. (default: 4)");
+        simulationsOption.setRequired(false);
+        options.addOption(simulationsOption);
+
+        Option randomPliesOption = new Option("r", "randomplies", true, "The amount of random moves at the start of every game. (default: 8)");
+        randomPliesOption.setRequired(false);
+        options.addOption(randomPliesOption);
+
+        Option explorationOption = new Option("e", "exploration", true, "The chance of a random move. (default: 0.05)");
+        explorationOption.setRequired(false);
+        options.addOption(explorationOption);
+
+        Option chunkSizeOption = new Option("cs", "chunksize", true, "The amount of positions per chunk. (default: 1000000)");
+        chunkSizeOption.setRequired(false);
+        options.addOption(chunkSizeOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        Path output = Paths.get(cmd.getOptionValue("output"));
+        int games = Integer.parseInt(cmd.getOptionValue("games"));
+        int threads = Integer.parseInt(cmd.getOptionValue("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int simulations = Integer.parseInt(cmd.getOptionValue("simulations", "4"));
+        int randomPlies = Integer.parseInt(cmd.getOptionValue("randomplies", "8"));
+        double exploration = Double.parseDouble(cmd.getOptionValue("exploration", "0.05"));
+        int chunkSize = Integer.parseInt(cmd.getOptionValue("chunksize", "1000000"));
+
+        PatternEvaluator evaluator = null;
+        if(cmd.getOptionValue("weights") != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(cmd.getOptionValue("weights")))) {
+                evaluator = PatternEvaluator.load(in);
+            }
+        }
+
+        //endregion
+
+        new SelfPlayGenerator(randomPlies, simulations, exploration, evaluator).generate(output, games, threads, chunkSize);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.verluci.reversi.game.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * All positions of the chunks in a directory that have been written by PositionWriter.
+ */
+public class TrainingSet {
+    private final long[] players;
+    private final long[] opponents;
+    private final byte[] discDifferences;
+
+    private TrainingSet(long[] players, long[] opponents, byte[] discDifferences) {
+        this.players = players;
+        this.opponents = opponents;
+        this.discDifferences = discDifferences;
+    }
+
+    /**
+     * Reads all chunks in the given directory.
+     * @param directory The directory that contains the chunks.
+     * @return A TrainingSet with the positions of all chunks.
+     * @throws IOException Thrown when a chunk can't be read or is invalid.
+     */
+    public static TrainingSet load(Path directory) throws IOException {
+        List<Path> chunks;
+        try (Stream<Path> files = Files.list(directory)) {
+            chunks = files.filter(path -> path.getFileName().toString().endsWith(PositionWriter.CHUNK_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<long[]> chunkPlayers = new ArrayList<>();
+        List<long[]> chunkOpponents = new ArrayList<>();
+        List<byte[]> chunkDiscDifferences = new ArrayList<>();
+        int totalCount = 0;
+
+        for (Path chunk : chunks) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(chunk), 1 << 16))) {
+                if(in.readInt() != PositionWriter.CHUNK_MAGIC || in.readInt() != PositionWriter.CHUNK_VERSION)
+                    throw new IOException("The given file is not a valid chunk: " + chunk);
+
+                int count = in.readInt();
+                long[] players = new long[count];
+                long[] opponents = new long[count];
+                byte[] discDifferences = new byte[count];
+
+                for (int i = 0; i < count; i++) {
+                    players[i] = in.readLong();
+                    opponents[i] = in.readLong();
+                    discDifferences[i] = in.readByte();
+                }
+
+                chunkPlayers.add(players);
+                chunkOpponents.add(opponents);
+                chunkDiscDifferences.add(discDifferences);
+                totalCount += count;
+            }
+        }
+
+        long[] players = new long[totalCount];
+        long[] opponents = new long[totalCount];
+        byte[] discDifferences = new byte[totalCount];
+
+        int position = 0;
+        for (int i = 0; i < chunkPlayers.size(); i++) {
+            int count = chunkPlayers.get(i).length;
+            System.arraycopy(chunkPlayers.get(i), 0, players, position, count);
+            System.arraycopy(chunkOpponents.get(i), 0, opponents, position, count);
+            System.arraycopy(chunkDiscDifferences.get(i), 0, discDifferences, position, count);
+            position += count;
+        }
+
+        return new TrainingSet(players, opponents, discDifferences);
+    }
+
+    //region Getters
+
+    /**
+     * @return The amount of positions in this set.
+     */
+    public int size() {
+        return players.length;
+    }
+
+    /**
+     * @param index The index of a position.
+     * @return The tiles of the player that is allowed to move.
+     */
+    public long getPlayer(int index) {
+        return players[index];
+    }
+
+    /**
+     * @param index The index of a position.
+     * @return The tiles of the opponent.
+     */
+    public long getOpponent(int index) {
+        return opponents[index];
+    }
+
+    /**
+     * @param index The index of a position.
+     * @return The disc difference at the end of the game from the perspective of the player.
+     */
+    public int getDiscDifference(int index) {
+        return discDifferences[index];
+    }
+
+    //endregion
+}
@@ -0,0 +1,102 @@
+package com.github.verluci.reversi.game.events;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decides on which thread the listeners of a Game or a GameClient are executed.
+ *
+ * By default the listeners are executed directly on the thread that raises the event, which means a slow listener
+ * holds up the network thread or the lock of the game. When an executor is given, the events are queued and executed
+ * on that executor instead, one at a time and in the order they have been raised. Multiple dispatchers can share the
+ * same executor, the order is only guaranteed between the events of the same dispatcher.
+ */
+public class EventDispatcher implements Executor {
+    // The amount of events that are executed before the executor is given back to the other dispatchers.
+    private static final int EVENTS_PER_RUN = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+    private final Runnable runTask = this::run;
+
+    /**
+     * Constructor for EventDispatcher, which executes the listeners directly on the thread that raises the event.
+     */
+    public EventDispatcher() {
+        this(null);
+    }
+
+    /**
+     * Constructor for EventDispatcher
+     * @param executor The executor the events are executed on, or null to execute them on the thread that raises them.
+     */
+    public EventDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor with a single daemon thread, which can be shared by multiple dispatchers.
+     * @param name The name of the thread.
+     * @return The executor.
+     */
+    public static ExecutorService newEventThread(String name) {
+        return Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return True if the events are executed on an executor, in which case everything an event needs should be
+     *         copied before it is raised.
+     */
+    public boolean isAsynchronous() {
+        return executor != null;
+    }
+
+    /**
+     * Executes an event after all events that have been raised before it.
+     * @param event The event that should be executed.
+     */
+    @Override
+    public void execute(Runnable event) {
+        if(executor == null) {
+            event.run();
+            return;
+        }
+
+        events.add(event);
+        schedule();
+    }
+
+    private void schedule() {
+        if(isScheduled.compareAndSet(false, true))
+            executor.execute(runTask);
+    }
+
+    private void run() {
+        for (int i = 0; i < EVENTS_PER_RUN; i++) {
+            Runnable event = events.poll();
+            if(event == null)
+                break;
+
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        isScheduled.set(false);
+
+        // Events that have been added while running (or that did not fit in this run) are executed in a new run.
+        if(!events.isEmpty())
+            schedule();
+    }
+}
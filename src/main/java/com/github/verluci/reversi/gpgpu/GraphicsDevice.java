@@ -18,6 +18,7 @@ public class GraphicsDevice {
     private String platformVersion;
 
     private int estimatePerformance;
+    private volatile double simulationRate;
 
     public GraphicsDevice(cl_device_id id, cl_platform_id platform_id, String name, String openClVersion, String vendor, String driverVersion, DeviceType type, String platformName, String platformVersion) {
         this.id = id;
@@ -78,6 +79,22 @@ public class GraphicsDevice {
         this.estimatePerformance = estimatePerformance;
     }
 
+    /**
+     * @return The measured simulation-rate of this device in (threads / 1024) * empty-tiles per millisecond,
+     *         or 0 if it has not been measured yet.
+     */
+    public double getSimulationRate() {
+        return simulationRate;
+    }
+
+    /**
+     * @param simulationRate The simulation-rate of this device in (threads / 1024) * empty-tiles per millisecond: a
+     *                       launch of 1024 threads on a board with 30 empty tiles that takes 1 millisecond is a rate of 30.
+     */
+    public void setSimulationRate(double simulationRate) {
+        this.simulationRate = simulationRate;
+    }
+
     //endregion
 
     @Override
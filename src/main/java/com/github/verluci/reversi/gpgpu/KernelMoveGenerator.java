@@ -0,0 +1,127 @@
+package com.github.verluci.reversi.gpgpu;
+
+import com.github.verluci.reversi.game.Perft;
+import org.jocl.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.jocl.CL.*;
+
+/**
+ * This class runs the move generation of 'resources/mcts_reversi_kernel.cl' on a GraphicsDevice through the debug
+ * entry-point moveGenerationKernel, so it can be checked against the move generation on the CPU with Perft.
+ *
+ * Unlike MCTSHelper the context, program and buffers are created once and reused for every batch, so the
+ * generator should be closed when it is no longer used.
+ */
+public class KernelMoveGenerator implements Perft.BatchMoveGenerator, AutoCloseable {
+    // The amount of positions that are generated per execution of the kernel.
+    private static final int BATCH_SIZE = 16384;
+
+    private final cl_context context;
+    private final cl_command_queue commandQueue;
+    private final cl_program program;
+    private final cl_kernel kernel;
+
+    private final cl_mem positionsMem;
+    private final cl_mem validMovesMem;
+    private final cl_mem opponentCanMoveMem;
+    private final cl_mem moveResultsMem;
+
+    private final int[] opponentCanMoveArray = new int[BATCH_SIZE];
+
+    /**
+     * Constructor for KernelMoveGenerator, which builds the kernel for the given device.
+     * @param graphicsDevice The graphics-device on which the moves should be generated.
+     */
+    public KernelMoveGenerator(GraphicsDevice graphicsDevice) {
+        var platform = graphicsDevice.getPlatform_id();
+        var device = graphicsDevice.getId();
+
+        //region Context
+
+        // Enable exceptions and subsequently omit error checks.
+        CL.setExceptionsEnabled(true);
+
+        // Initialize the context properties
+        cl_context_properties contextProperties = new cl_context_properties();
+        contextProperties.addProperty(CL_CONTEXT_PLATFORM, platform);
+
+        // Create a context and a command-queue for the selected device
+        context = clCreateContext(contextProperties, 1, new cl_device_id[]{ device }, null, null, null);
+        commandQueue = clCreateCommandQueue(context, device, 0, null);
+
+        //endregion
+
+        //region Memory allocation
+
+        positionsMem = clCreateBuffer(context, CL_MEM_READ_ONLY, Sizeof.cl_ulong * 2 * BATCH_SIZE, null, null);
+        validMovesMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, Sizeof.cl_ulong * BATCH_SIZE, null, null);
+        opponentCanMoveMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, Sizeof.cl_int * BATCH_SIZE, null, null);
+        moveResultsMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, Sizeof.cl_ulong * 64 * BATCH_SIZE, null, null);
+
+        //endregion
+
+        //region load kernel
+
+        String content = "";
+        try {
+            InputStream in = KernelMoveGenerator.class.getResourceAsStream("/mcts_reversi_kernel.cl");
+            content = new String(in.readAllBytes());
+        }
+        catch (NullPointerException | IOException e) {
+            e.printStackTrace();
+        }
+
+        program = clCreateProgramWithSource(context, 1, new String[]{ content }, null, null);
+        clBuildProgram(program, 0, null, null, null, null);
+        kernel = clCreateKernel(program, "moveGenerationKernel", null);
+
+        //endregion
+
+        int arg = 0;
+        clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(positionsMem));
+        clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(validMovesMem));
+        clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(opponentCanMoveMem));
+        clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(moveResultsMem));
+    }
+
+    @Override
+    public int getBatchSize() {
+        return BATCH_SIZE;
+    }
+
+    @Override
+    public void generate(long[] positions, int offset, int count, long[] validMoves, boolean[] opponentCanMove, long[] moveResults) {
+        // Copy the positions of this batch to the device.
+        clEnqueueWriteBuffer(commandQueue, positionsMem, CL_TRUE, 0, Sizeof.cl_ulong * 2 * count,
+                Pointer.to(positions).withByteOffset(Sizeof.cl_ulong * 2L * offset), 0, null, null);
+
+        // Execute the kernel with a thread per position
+        clEnqueueNDRangeKernel(commandQueue, kernel, 1, null, new long[]{ count }, null, 0, null, null);
+
+        // Read the output data
+        clEnqueueReadBuffer(commandQueue, validMovesMem, CL_TRUE, 0, Sizeof.cl_ulong * count, Pointer.to(validMoves), 0, null, null);
+        clEnqueueReadBuffer(commandQueue, opponentCanMoveMem, CL_TRUE, 0, Sizeof.cl_int * count, Pointer.to(opponentCanMoveArray), 0, null, null);
+        clEnqueueReadBuffer(commandQueue, moveResultsMem, CL_TRUE, 0, Sizeof.cl_ulong * 64 * count, Pointer.to(moveResults), 0, null, null);
+
+        for (int i = 0; i < count; i++)
+            opponentCanMove[i] = opponentCanMoveArray[i] != 0;
+    }
+
+    /**
+     * Releases the kernel, program, memory buffers and context on the graphics-device.
+     */
+    @Override
+    public void close() {
+        clReleaseMemObject(positionsMem);
+        clReleaseMemObject(validMovesMem);
+        clReleaseMemObject(opponentCanMoveMem);
+        clReleaseMemObject(moveResultsMem);
+        clReleaseKernel(kernel);
+        clReleaseProgram(program);
+        clReleaseCommandQueue(commandQueue);
+        clReleaseContext(context);
+    }
+}
@@ -0,0 +1,247 @@
+package com.github.verluci.reversi.gpgpu;
+
+import org.jocl.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.jocl.CL.*;
+
+/**
+ * An OpenCL session on a single GraphicsDevice that performs the simulations of the MCTSAIAgent.
+ *
+ * The context, command-queue and program of 'resources/mcts_reversi_kernel.cl' are created once, and the buffers on
+ * the device and on the host are only reallocated when a search needs more threads than any search before it. There
+ * is a single session per device, which is shared by all agents (and matches) that use the device.
+ *
+ * The searches of multiple matches are executed one at a time, in the order they have been requested (a fair lock),
+ * so every match gets its turn on the device. Use getActiveSearchCount() to divide the device between the matches.
+ */
+public class MCTSKernelSession implements AutoCloseable {
+    private static final Map<GraphicsDevice, MCTSKernelSession> sessions = new ConcurrentHashMap<>();
+
+    private final GraphicsDevice graphicsDevice;
+    private final ReentrantLock deviceLock = new ReentrantLock(true);
+    private final AtomicInteger activeSearchCount = new AtomicInteger();
+    private final SplittableRandom random = new SplittableRandom();
+
+    private final cl_context context;
+    private final cl_command_queue commandQueue;
+    private final cl_program program;
+    private final cl_kernel kernel;
+
+    private final cl_mem playerTilesMem;
+    private final cl_mem possibleMovesMem;
+    private cl_mem randomNumbersMem;
+    private cl_mem resultsMem;
+
+    // The amount of threads the buffers have been allocated for.
+    private int capacity;
+    private int[] randomNumberArray = new int[0];
+    private int[] resultArray = new int[0];
+    private boolean isClosed;
+
+    /**
+     * @param graphicsDevice The graphics-device the session should run on.
+     * @return The session of the given device, which is created when it is used for the first time.
+     */
+    public static MCTSKernelSession get(GraphicsDevice graphicsDevice) {
+        return sessions.computeIfAbsent(graphicsDevice, MCTSKernelSession::new);
+    }
+
+    /**
+     * Constructor for MCTSKernelSession, which builds the kernel for the given device.
+     * @param graphicsDevice The graphics-device the session should run on.
+     */
+    private MCTSKernelSession(GraphicsDevice graphicsDevice) {
+        this.graphicsDevice = graphicsDevice;
+
+        var platform = graphicsDevice.getPlatform_id();
+        var device = graphicsDevice.getId();
+
+        //region Context
+
+        // Enable exceptions and subsequently omit error checks.
+        CL.setExceptionsEnabled(true);
+
+        // Initialize the context properties
+        cl_context_properties contextProperties = new cl_context_properties();
+        contextProperties.addProperty(CL_CONTEXT_PLATFORM, platform);
+
+        // Create a context and a command-queue for the selected device
+        context = clCreateContext(contextProperties, 1, new cl_device_id[]{ device }, null, null, null);
+        commandQueue = clCreateCommandQueue(context, device, 0, null);
+
+        //endregion
+
+        //region load kernel
+
+        String content = "";
+        try {
+            InputStream in = MCTSKernelSession.class.getResourceAsStream("/mcts_reversi_kernel.cl");
+            content = new String(in.readAllBytes());
+        }
+        catch (NullPointerException | IOException e) {
+            e.printStackTrace();
+        }
+
+        program = clCreateProgramWithSource(context, 1, new String[]{ content }, null, null);
+        clBuildProgram(program, 0, null, null, null, null);
+        kernel = clCreateKernel(program, "mctsKernel", null);
+
+        //endregion
+
+        // The input buffers of the position have a fixed size.
+        playerTilesMem = clCreateBuffer(context, CL_MEM_READ_ONLY, Sizeof.cl_ulong * 2, null, null);
+        possibleMovesMem = clCreateBuffer(context, CL_MEM_READ_ONLY, Sizeof.cl_int * 65, null, null);
+    }
+
+    /**
+     * Performs threadCount * 1024 simulations of the given position and returns the move with the most wins, see
+     * MCTSHelper.getOptimalMoveUsingOpenCL(). This waits until the searches that have been requested before have
+     * finished, the time it takes to perform the simulations is recorded in the simulation-rate of the device.
+     *
+     * @param player The tiles of the player that is allowed to move.
+     * @param opponent The tiles of the opponent.
+     * @param possibleMoves An array of size 65 in which the first value is the count of possible moves, following all
+     *                      possible moves.
+     * @param threadCount The amount of threads x 1024 that the GraphicsDevice is going to simulate.
+     * @return The most optimal move the AI was able to find.
+     */
+    public int getOptimalMove(long player, long opponent, int[] possibleMoves, int threadCount) {
+        final int NUMBER_OF_THREADS = threadCount * 1024;
+
+        activeSearchCount.incrementAndGet();
+        deviceLock.lock();
+        try {
+            if(isClosed)
+                throw new IllegalStateException("The OpenCL session of " + graphicsDevice.getName() + " has been closed.");
+
+            long startTime = System.nanoTime();
+            ensureCapacity(NUMBER_OF_THREADS);
+
+            // Fill the random-number-array with random values, 64 per simulation.
+            for (int i = 0; i < NUMBER_OF_THREADS * 64; i++)
+                randomNumberArray[i] = random.nextInt();
+
+            long[] players = { player, opponent };
+            clEnqueueWriteBuffer(commandQueue, playerTilesMem, CL_TRUE, 0, Sizeof.cl_ulong * 2, Pointer.to(players), 0, null, null);
+            clEnqueueWriteBuffer(commandQueue, possibleMovesMem, CL_TRUE, 0, Sizeof.cl_int * 65, Pointer.to(possibleMoves), 0, null, null);
+            clEnqueueWriteBuffer(commandQueue, randomNumbersMem, CL_TRUE, 0, Sizeof.cl_uint * NUMBER_OF_THREADS * 64L, Pointer.to(randomNumberArray), 0, null, null);
+
+            // The buffers can be reallocated, so the arguments are set for every search.
+            int arg = 0;
+            clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(playerTilesMem));
+            clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(possibleMovesMem));
+            clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(randomNumbersMem));
+            clSetKernelArg(kernel, arg++, Sizeof.cl_mem, Pointer.to(resultsMem));
+
+            // Execute the kernel
+            clEnqueueNDRangeKernel(commandQueue, kernel, 1, null, new long[]{ NUMBER_OF_THREADS }, null, 0, null, null);
+
+            // Read the output data
+            clEnqueueReadBuffer(commandQueue, resultsMem, CL_TRUE, 0, Sizeof.cl_int * NUMBER_OF_THREADS, Pointer.to(resultArray), 0, null, null);
+
+            // Only the time on the device is measured, not the time this search has been waiting for other searches.
+            int emptyTiles = 64 - Long.bitCount(player | opponent);
+            MCTSHelper.recordSimulationTime(graphicsDevice, emptyTiles, threadCount, System.nanoTime() - startTime);
+
+            return findMostWins(possibleMoves, NUMBER_OF_THREADS);
+        } finally {
+            deviceLock.unlock();
+            activeSearchCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reallocates the buffers when they are too small for the given amount of threads.
+     * @param threads The amount of threads of the next search.
+     */
+    private void ensureCapacity(int threads) {
+        if(threads <= capacity)
+            return;
+
+        if(randomNumbersMem != null) {
+            clReleaseMemObject(randomNumbersMem);
+            clReleaseMemObject(resultsMem);
+        }
+
+        randomNumberArray = new int[threads * 64];
+        resultArray = new int[threads];
+        randomNumbersMem = clCreateBuffer(context, CL_MEM_READ_ONLY, Sizeof.cl_uint * threads * 64L, null, null);
+        resultsMem = clCreateBuffer(context, CL_MEM_WRITE_ONLY, Sizeof.cl_int * threads, null, null);
+        capacity = threads;
+    }
+
+    /**
+     * Sums the wins of the simulations per move, the simulations are divided over the moves by their index.
+     * @param possibleMoves The count of possible moves, following all possible moves.
+     * @param resultCount The amount of simulations that have been performed.
+     * @return The move with the most wins.
+     */
+    private int findMostWins(int[] possibleMoves, int resultCount) {
+        int[] winCounter = new int[possibleMoves[0]];
+
+        for (int i = 0; i < resultCount; i++) {
+            if(resultArray[i] == 1)
+                winCounter[i % possibleMoves[0]]++;
+        }
+
+        // The path with the most wins will be chosen as a move.
+        int largest = 0;
+        for (int i = 1; i < winCounter.length; i++) {
+            if (winCounter[i] > winCounter[largest])
+                largest = i;
+        }
+
+        return possibleMoves[largest + 1];
+    }
+
+    /**
+     * @return The amount of searches that are running or waiting on this device.
+     */
+    public int getActiveSearchCount() {
+        return activeSearchCount.get();
+    }
+
+    /**
+     * @return The graphics-device this session runs on.
+     */
+    public GraphicsDevice getGraphicsDevice() {
+        return graphicsDevice;
+    }
+
+    /**
+     * Releases the kernel, program, memory buffers and context on the graphics-device, after the running search has
+     * finished. The next call to get() creates a new session for the device.
+     */
+    @Override
+    public void close() {
+        sessions.remove(graphicsDevice, this);
+
+        deviceLock.lock();
+        try {
+            if(isClosed)
+                return;
+            isClosed = true;
+
+            if(randomNumbersMem != null) {
+                clReleaseMemObject(randomNumbersMem);
+                clReleaseMemObject(resultsMem);
+            }
+            clReleaseMemObject(playerTilesMem);
+            clReleaseMemObject(possibleMovesMem);
+            clReleaseKernel(kernel);
+            clReleaseProgram(program);
+            clReleaseCommandQueue(commandQueue);
+            clReleaseContext(context);
+        } finally {
+            deviceLock.unlock();
+        }
+    }
+}
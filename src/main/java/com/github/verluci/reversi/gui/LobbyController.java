@@ -1,10 +1,11 @@
 package com.github.verluci.reversi.gui;
 
 import com.github.verluci.reversi.App;
+import com.github.verluci.reversi.networking.clients.PlayerListCache;
+import com.github.verluci.reversi.networking.listeners.PlayerListChangeListener;
 import com.github.verluci.reversi.networking.types.Difficulty;
 import com.github.verluci.reversi.networking.types.Player;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -33,7 +34,9 @@ public class LobbyController extends AnchorPane {
     private ListView currentPlayers;
     @FXML
     private Text welkomSpeler;
-    private Timeline timeline;
+    private final ObservableList<String> playerNames = FXCollections.observableArrayList();
+    private PlayerListCache playerListCache;
+    private PlayerListChangeListener playerListListener;
 
     /*
      *  Method to initialize this scene UI.
@@ -50,30 +53,35 @@ public class LobbyController extends AnchorPane {
     }
 
     /*
-     *  Method to update current player list. Updates every second.
+     *  Method to update current player list. The list is refreshed every second in the background,
+     *  only the players that joined or left are changed in the ListView.
      */
     private void updateCurrentPlayerList() {
-        timeline = new Timeline(
-                new KeyFrame(
-                        Duration.ZERO,
-                        actionEvent -> {
-                            Player[] players = App.getInstance().getGameClient().getPlayerList();
-                            ObservableList<String> playersAr = FXCollections.observableArrayList();
-                            for (int i = 0; i < players.length; i++) {
-                                String playerName = players[i].getName();
-                                if (!playerName.equals(App.getInstance().getLocalPlayer().getName())) {
-                                    playersAr.add(playerName);
-                                }
-                            }
-                            currentPlayers.setItems(playersAr);
-                        }
-                ),
-                new KeyFrame(
-                        PROBE_FREQUENCY
-                )
-        );
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
+        String localPlayerName = App.getInstance().getLocalPlayer().getName();
+        currentPlayers.setItems(playerNames);
+
+        playerListListener = (addedPlayers, removedPlayers) -> Platform.runLater(() -> {
+            for (Player player : removedPlayers) {
+                playerNames.remove(player.getName());
+            }
+            for (Player player : addedPlayers) {
+                if (!player.getName().equals(localPlayerName)) {
+                    playerNames.add(player.getName());
+                }
+            }
+        });
+
+        playerListCache = App.getInstance().getGameClient().getPlayerListCache();
+        playerListCache.onPlayerListChange(playerListListener);
+        playerListCache.start((long) PROBE_FREQUENCY.toMillis());
+    }
+
+    /*
+     *  Stops updating the current player list when leaving the lobby.
+     */
+    private void stopUpdatingPlayerList() {
+        playerListCache.stop();
+        playerListCache.removePlayerListChangeListener(playerListListener);
     }
 
     /*
@@ -145,7 +153,7 @@ public class LobbyController extends AnchorPane {
      *  @param  difficulty  requested game difficulty
      */
     public void navigateOthello(boolean online, Difficulty difficulty) {
-        timeline.stop();
+        stopUpdatingPlayerList();
         FXMLLoader loader = new FXMLLoader(ClassLoader.getSystemResource("othello.fxml"));
         Parent root = null;
         try {
@@ -173,7 +181,7 @@ public class LobbyController extends AnchorPane {
      *  @param  difficulty  requested game difficulty
      */
     public void navigateTickTackToe(boolean online, Difficulty difficulty) {
-        timeline.stop();
+        stopUpdatingPlayerList();
         FXMLLoader loader = new FXMLLoader(ClassLoader.getSystemResource("boterkaaseneieren.fxml"));
         Parent root = null;
         try {
@@ -98,7 +98,13 @@ public class OthelloController extends AnchorPane {
         } else if (difficulty == Difficulty.NORMAAL) {
             player2 = new RandomMoveAIAgent();
         } else if (difficulty == Difficulty.MOEILIJK) {
-            player2 = new MCTSAIAgent(App.getInstance().getSelectedGraphicsDevice());
+            MCTSAIAgent mctsAIAgent = new MCTSAIAgent(App.getInstance().getSelectedGraphicsDevice());
+            mctsAIAgent.setOpeningBook(App.getInstance().getOpeningBook());
+            player2 = mctsAIAgent;
+        }
+
+        if (player2 instanceof AIAgent) {
+            ((AIAgent) player2).setTimeManager(App.getInstance().getTimeManager());
         }
         session = new SessionInitializer(player1, player2, OthelloGame.class);
         sessionThread = new Thread(() -> {
@@ -60,8 +60,9 @@ public class SettingsController extends AnchorPane {
             @Override
             public void changed(ObservableValue<? extends String> observable, String oldValue,
                                 String newValue) {
-                if (!newValue.matches("\\d*")) {
-                    turnTime.setText(newValue.replaceAll("[^\\d]", ""));
+                // The turn time is in seconds and may have a fraction, for example 2.5.
+                if (!newValue.matches("\\d*(\\.\\d*)?")) {
+                    turnTime.setText(oldValue);
                 }
             }
         });
@@ -97,6 +98,16 @@ public class SettingsController extends AnchorPane {
         properties.setProperty("gpuName", gpuName.getText());
         properties.store(out, null);
 
+        if(!turnTime.getText().isEmpty()) {
+            try {
+                long turnTimeMilliseconds = (long) (Double.parseDouble(turnTime.getText()) * 1000d);
+                if(turnTimeMilliseconds > 0)
+                    App.getInstance().getTimeManager().setTurnTime(turnTimeMilliseconds);
+            } catch (NumberFormatException e) {
+                System.out.println("The turn time is not a number of seconds: " + turnTime.getText());
+            }
+        }
+
         if(App.getInstance().getSelectedGraphicsDevice() != null) {
             App.getInstance().getSelectedGraphicsDevice().setEstimatePerformance(Integer.parseInt(properties.getProperty("threads")));
         }
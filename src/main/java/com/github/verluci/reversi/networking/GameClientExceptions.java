@@ -10,6 +10,12 @@ public class GameClientExceptions {
     public static class ChallengePlayerException extends Exception
         { public ChallengePlayerException(String message) { super(message); }}
 
+    /**
+     * This Exception is thrown when the server responds to a command with ERR, or when the command could not be sent.
+     */
+    public static class CommandException extends Exception
+        { public CommandException(String message) { super(message); }}
+
     /**
      * This Exception is thrown when any connection method has failed.
      */
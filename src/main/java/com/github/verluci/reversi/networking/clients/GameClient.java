@@ -1,11 +1,15 @@
 package com.github.verluci.reversi.networking.clients;
 
+import com.github.verluci.reversi.game.events.EventDispatcher;
 import com.github.verluci.reversi.networking.listeners.*;
 import com.github.verluci.reversi.networking.types.*;
 import com.github.verluci.reversi.networking.GameClientExceptions.*;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This interface can be inherited by different connection types
@@ -15,15 +19,28 @@ public abstract class GameClient {
 
     //region Listener Declaration
 
-    private List<GameEndListener> gameEndListeners = new ArrayList<>();
-    private List<GameStartListener> gameStartListeners = new ArrayList<>();
-    private List<MoveListener> moveListeners = new ArrayList<>();
-    private List<TurnListener> turnListeners = new ArrayList<>();
-    private List<ReceiveChallengeListener> receiveChallengeListeners = new ArrayList<>();
-    private List<CancelChallengeListener> cancelChallengeListeners = new ArrayList<>();
+    private List<GameEndListener> gameEndListeners = new CopyOnWriteArrayList<>();
+    private List<GameStartListener> gameStartListeners = new CopyOnWriteArrayList<>();
+    private List<MoveListener> moveListeners = new CopyOnWriteArrayList<>();
+    private List<TurnListener> turnListeners = new CopyOnWriteArrayList<>();
+    private List<ReceiveChallengeListener> receiveChallengeListeners = new CopyOnWriteArrayList<>();
+    private List<CancelChallengeListener> cancelChallengeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile EventDispatcher eventDispatcher = new EventDispatcher();
 
     //endregion
 
+    // The smoothing factor of the exponential moving average of the round-trip time.
+    private static final double ROUND_TRIP_SMOOTHING = 0.2;
+
+    private volatile long roundTripTime = 0;
+
+    private volatile TrafficRecorder recorder;
+
+    private final TurnMetrics turnMetrics = new TurnMetrics();
+
+    private final PlayerListCache playerListCache = new PlayerListCache(this);
+
     //region Actions
 
     /**
@@ -112,6 +129,157 @@ public abstract class GameClient {
 
     //endregion
 
+    //region Asynchronous Actions
+
+    /**
+     * Asynchronous version of login(), the returned future fails with a CommandException when the command has failed.
+     * @param username the unique username you want to use to connect to the server.
+     * @return A future that is completed when the server has accepted the login.
+     */
+    public abstract CompletableFuture<Void> loginAsync(String username);
+
+    /**
+     * Asynchronous version of getGameList().
+     * @return A future that is completed with the games that the server supports.
+     */
+    public abstract CompletableFuture<String[]> getGameListAsync();
+
+    /**
+     * Asynchronous version of getPlayerList().
+     * @return A future that is completed with the players that are online.
+     */
+    public abstract CompletableFuture<Player[]> getPlayerListAsync();
+
+    /**
+     * Asynchronous version of subscribeToGame().
+     * @param gameName The name of the game you want to subscribe to.
+     * @return A future that is completed when the server has accepted the subscription.
+     */
+    public abstract CompletableFuture<Void> subscribeToGameAsync(String gameName);
+
+    /**
+     * Asynchronous version of challengePlayer().
+     * @param player The player you want to challenge.
+     * @param gameName The name of the game you want to play with the challenged player.
+     * @return A future that is completed when the server has accepted the challenge.
+     */
+    public abstract CompletableFuture<Void> challengePlayerAsync(Player player, String gameName);
+
+    /**
+     * Asynchronous version of acceptChallenge().
+     * @param challenge The challenge that should be accepted.
+     * @return A future that is completed when the server has accepted the command.
+     */
+    public abstract CompletableFuture<Void> acceptChallengeAsync(Challenge challenge);
+
+    /**
+     * Asynchronous version of performMove().
+     * @param position The position the move should be performed on.
+     * @return A future that is completed when the server has accepted the move. (also on illegal moves!)
+     */
+    public abstract CompletableFuture<Void> performMoveAsync(int position);
+
+    /**
+     * Asynchronous version of forfeit().
+     * @return A future that is completed when the server has accepted the command.
+     */
+    public abstract CompletableFuture<Void> forfeitAsync();
+
+    //endregion
+
+    /**
+     * @return The cached player-list of the server, which is only refreshed after it has been started.
+     */
+    public PlayerListCache getPlayerListCache() {
+        return playerListCache;
+    }
+
+    //region Latency
+
+    /**
+     * @return The smoothed round-trip time between sending a command and receiving its response in nanoseconds,
+     *         or 0 if no round-trip has been measured yet.
+     */
+    public long getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * Adds a measured round-trip to the smoothed round-trip time.
+     * @param nanoseconds The time between sending a command and receiving its response.
+     */
+    protected void recordRoundTripTime(long nanoseconds) {
+        if(roundTripTime == 0)
+            roundTripTime = nanoseconds;
+        else
+            roundTripTime = (long) (roundTripTime + ROUND_TRIP_SMOOTHING * (nanoseconds - roundTripTime));
+    }
+
+    /**
+     * @return The metrics of the stages of the turns of the local player, the client marks the network stages and
+     *         the agents mark the other stages.
+     */
+    public TurnMetrics getTurnMetrics() {
+        return turnMetrics;
+    }
+
+    //endregion
+
+    //region Recording
+
+    /**
+     * Starts writing every line that is received or sent to a log, which can be replayed by the TrafficReplayer.
+     * A recording that is already running is stopped first.
+     * @param file The file the log is written to, an existing file is overwritten.
+     * @throws IOException Thrown when the file could not be created.
+     */
+    public void startRecording(Path file) throws IOException {
+        stopRecording();
+        recorder = new TrafficRecorder(file);
+    }
+
+    /**
+     * Stops the recording and writes the remaining records to the file.
+     */
+    public void stopRecording() {
+        TrafficRecorder currentRecorder = recorder;
+        recorder = null;
+
+        if(currentRecorder != null)
+            currentRecorder.close();
+    }
+
+    /**
+     * @return True if the traffic of this client is being recorded.
+     */
+    public boolean isRecording() {
+        return recorder != null;
+    }
+
+    /**
+     * Records a line that has been received, if a recording is running.
+     * @param bytes The array that contains the line.
+     * @param start The position of the first byte of the line.
+     * @param end The position after the last byte of the line. (without the line-ending)
+     */
+    protected void recordInbound(byte[] bytes, int start, int end) {
+        TrafficRecorder currentRecorder = recorder;
+        if(currentRecorder != null)
+            currentRecorder.recordInbound(bytes, start, end);
+    }
+
+    /**
+     * Records a line that has been sent, if a recording is running.
+     * @param line The line without the line-ending.
+     */
+    protected void recordOutbound(String line) {
+        TrafficRecorder currentRecorder = recorder;
+        if(currentRecorder != null)
+            currentRecorder.recordOutbound(line);
+    }
+
+    //endregion
+
     //region Reactions/Events
 
     /**
@@ -162,15 +330,34 @@ public abstract class GameClient {
         cancelChallengeListeners.add(listener);
     }
 
+    /**
+     * Changes the thread the listeners are executed on, by default they are executed directly on the thread that
+     * processes the information of the server. This should be set before connecting.
+     * @param eventDispatcher The dispatcher that executes the listeners.
+     */
+    public void setEventDispatcher(EventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * @return The dispatcher that executes the listeners, tasks that are executed on it run after the events that
+     *         have already been raised.
+     */
+    public EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
     /**
      * Executes all listeners that have been subscribed to onGameEnd()
      * @param gameEnd Information about how the game has ended.
      */
     protected void notifyOnGameEnd(GameEnd gameEnd) {
-        for (GameEndListener listener : gameEndListeners) {
-            listener.onGameEnded(gameEnd);
+        if(eventDispatcher.isAsynchronous()) {
+            GameEnd copy = new GameEnd(gameEnd.getResult(), gameEnd.getPlayerOneScore(), gameEnd.getPlayerTwoScore(), gameEnd.getComment());
+            eventDispatcher.execute(() -> dispatchGameEnd(copy));
+        } else {
+            dispatchGameEnd(gameEnd);
         }
-        clearGameListeners();
     }
 
     /**
@@ -178,8 +365,11 @@ public abstract class GameClient {
      * @param gameStart Information about the start of the game.
      */
     protected void notifyOnGameStart(GameStart gameStart) {
-        for (GameStartListener listener : gameStartListeners) {
-            listener.onStartGame(gameStart);
+        if(eventDispatcher.isAsynchronous()) {
+            GameStart copy = new GameStart(gameStart.getStartingPlayer(), gameStart.getOpponent(), gameStart.getGameType());
+            eventDispatcher.execute(() -> dispatchGameStart(copy));
+        } else {
+            dispatchGameStart(gameStart);
         }
     }
 
@@ -188,8 +378,11 @@ public abstract class GameClient {
      * @param move The move that has been made and will be sent to all listeners.
      */
     protected void notifyOnMove(Move move) {
-        for (MoveListener listener : moveListeners) {
-            listener.onPlayerMove(move);
+        if(eventDispatcher.isAsynchronous()) {
+            Move copy = new Move(move.getPlayer(), move.getMove(), move.getDetails());
+            eventDispatcher.execute(() -> dispatchMove(copy));
+        } else {
+            dispatchMove(move);
         }
     }
 
@@ -198,9 +391,11 @@ public abstract class GameClient {
      * @param message An optional non-null message that can be sent when the player receives the turn.
      */
     protected void notifyOnTurn(String message) {
-        for (TurnListener listener : turnListeners) {
-            listener.onReceiveTurn(message);
-        }
+        eventDispatcher.execute(() -> {
+            for (TurnListener listener : turnListeners) {
+                listener.onReceiveTurn(message);
+            }
+        });
     }
 
     /**
@@ -208,9 +403,11 @@ public abstract class GameClient {
      * @param challenge The challenge that has been received.
      */
     protected void notifyOnReceiveChallenge(Challenge challenge) {
-        for (ReceiveChallengeListener listener : receiveChallengeListeners) {
-            listener.onReceiveChallenge(challenge);
-        }
+        eventDispatcher.execute(() -> {
+            for (ReceiveChallengeListener listener : receiveChallengeListeners) {
+                listener.onReceiveChallenge(challenge);
+            }
+        });
     }
 
     /**
@@ -218,8 +415,36 @@ public abstract class GameClient {
      * @param challenge The challenge that has been cancelled.
      */
     protected void notifyOnCancelChallenge(Challenge challenge) {
-        for (CancelChallengeListener listener : cancelChallengeListeners) {
-            listener.onCancelChallenge(challenge);
+        eventDispatcher.execute(() -> {
+            for (CancelChallengeListener listener : cancelChallengeListeners) {
+                listener.onCancelChallenge(challenge);
+            }
+        });
+    }
+
+    // The listeners are read when the event is executed, so listeners that are added by an earlier event
+    // (for example in onGameStart()) receive the events that have been raised after it.
+
+    // The listeners of the game that has ended are cleared before they are executed, so a listener can add the
+    // listeners of the next game (for example onGameStart()) without missing a match that follows right after it.
+    private void dispatchGameEnd(GameEnd gameEnd) {
+        List<GameEndListener> listeners = List.copyOf(gameEndListeners);
+        clearGameListeners();
+
+        for (GameEndListener listener : listeners) {
+            listener.onGameEnded(gameEnd);
+        }
+    }
+
+    private void dispatchGameStart(GameStart gameStart) {
+        for (GameStartListener listener : gameStartListeners) {
+            listener.onStartGame(gameStart);
+        }
+    }
+
+    private void dispatchMove(Move move) {
+        for (MoveListener listener : moveListeners) {
+            listener.onPlayerMove(move);
         }
     }
     //endregion
@@ -0,0 +1,163 @@
+package com.github.verluci.reversi.networking.clients;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A single thread with a Selector that reads the information of one or more NioGameClients, and writes the commands
+ * they could not write immediately.
+ *
+ * A NioGameClient creates its own event loop by default, but many clients can share one event loop so dozens of
+ * connections only cost a single thread. Listeners of the clients are called from this thread, so they should never
+ * block, otherwise all connections on the same event loop have to wait.
+ */
+public class NioEventLoop implements Closeable {
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean isRunning = true;
+
+    /**
+     * Constructor for NioEventLoop, this starts the thread of the event loop.
+     * @param name The name of the thread.
+     * @throws IOException Thrown when the selector could not be opened.
+     */
+    public NioEventLoop(String name) throws IOException {
+        selector = Selector.open();
+
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Registers the channel of a client, the client reads from the channel on this event loop from now on.
+     * @param channel A non-blocking channel.
+     * @param client The client that the channel belongs to.
+     */
+    void register(SocketChannel channel, NioGameClient client) {
+        execute(() -> {
+            try {
+                channel.register(selector, SelectionKey.OP_READ, client);
+            } catch (IOException e) {
+                e.printStackTrace();
+                client.connectionClosed();
+            }
+        });
+    }
+
+    /**
+     * Lets the event loop write the queued lines of a client as soon as its channel is writable.
+     * @param channel A channel that has been registered on this event loop.
+     */
+    void requestWrite(SocketChannel channel) {
+        execute(() -> {
+            SelectionKey key = channel.keyFor(selector);
+            if(key != null && key.isValid())
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        });
+    }
+
+    /**
+     * Runs a task on the thread of this event loop, after all information that has already been read is processed.
+     * @param task The task that should be run.
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * @return True if the current thread is the thread of this event loop.
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Stops the thread of this event loop and closes the selector, channels that are registered are not closed.
+     */
+    @Override
+    public void close() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Waits for information on all registered channels and lets the clients process it until the loop is closed.
+     */
+    private void run() {
+        try {
+            while (isRunning) {
+                selector.select();
+
+                // A task that fails is skipped, the other tasks and clients are not affected by it.
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    NioGameClient client = (NioGameClient) key.attachment();
+                    if(!key.isValid())
+                        continue;
+
+                    try {
+                        if(key.isWritable() && client.flush())
+                            key.interestOps(SelectionKey.OP_READ);
+
+                        if(key.isReadable() && !client.readAvailable())
+                            closeClient(key, client);
+                    } catch (IOException e) {
+                        if(client.getConnected())
+                            e.printStackTrace();
+                        closeClient(key, client);
+                    } catch (RuntimeException e) {
+                        // For example a listener of the client that fails, only this client is closed.
+                        e.printStackTrace();
+                        closeClient(key, client);
+                    }
+                }
+            }
+
+            selector.close();
+        } catch (IOException e) {
+            if(isRunning)
+                e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops reading from the channel of a client and closes it, without affecting the other clients.
+     */
+    private static void closeClient(SelectionKey key, NioGameClient client) {
+        key.cancel();
+
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            client.connectionClosed();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.verluci.reversi.networking.clients;
+
+import com.github.verluci.reversi.networking.GameClientExceptions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * A GameClient that uses a non-blocking SocketChannel which is driven by the Selector of a NioEventLoop.
+ *
+ * The thread of the event loop waits on the selector, reads everything that is available into a reusable direct buffer,
+ * copies it in bulk to a line-array and parses every complete line directly from that array on the same thread.
+ * Compared to TelnetGameClient there is no reading byte-by-byte and no handoff between a reading and a processing
+ * thread, so listeners (for example onTurn) are notified as soon as the line has arrived.
+ * Commands are written directly to the channel from the thread that sends them. When the socket can not take all of a
+ * command, the rest is queued and written by the event loop as soon as the channel is writable again, so a sending
+ * thread (or the event loop itself) never waits for a slow connection.
+ *
+ * By default every client has its own event loop, but multiple clients can share a single event loop.
+ */
+public class NioGameClient extends ProtocolGameClient {
+
+    //region Declarations
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final ByteBuffer readBuffer;
+    private byte[] lineBytes;
+    private int lineLength;
+
+    // The commands that could not be written yet, guarded by the queue itself.
+    private final Queue<ByteBuffer> writeQueue = new ArrayDeque<>();
+
+    private SocketChannel channel;
+    private NioEventLoop eventLoop;
+    private final boolean ownsEventLoop;
+
+    private volatile boolean isConnected;
+
+    //endregion
+
+    /**
+     * Constructor for NioGameClient.
+     * Use the method .connect() in this class if you want to initiate a connection.
+     */
+    public NioGameClient() {
+        this(null);
+    }
+
+    /**
+     * Constructor for NioGameClient that reads on a shared event loop.
+     * Use the method .connect() in this class if you want to initiate a connection.
+     * @param eventLoop The event loop that is shared with other clients, or null to create one when connecting.
+     */
+    public NioGameClient(NioEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+        this.ownsEventLoop = eventLoop == null;
+
+        readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        lineBytes = new byte[BUFFER_SIZE];
+    }
+
+    //region Game Methods
+
+    /**
+     * Use this method to connect to a given server.
+     * The information received from the server is read and processed on the thread of the event loop.
+     * @param hostname The hostname of this server
+     * @param port The port of this server. (usually 7789)
+     * @throws ConnectionException Thrown when a connection to the server fails.
+     */
+    @Override
+    public void connect(String hostname, int port) throws ConnectionException {
+        try {
+            if(!isConnected) {
+                channel = SocketChannel.open(new InetSocketAddress(hostname, port));
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+
+                if(ownsEventLoop)
+                    eventLoop = new NioEventLoop("NioGameClient");
+
+                isConnected = true;
+                eventLoop.register(channel, this);
+            }
+        } catch (IOException e) {
+            throw new ConnectionException("Failed to connect to server: " + hostname + ":" + port);
+        }
+    }
+
+    /**
+     * Disconnects you from the server.
+     * @throws ConnectionException Thrown when disconnecting from the server fails.
+     */
+    @Override
+    public void disconnect() throws ConnectionException {
+        try {
+            isConnected = false;
+            failPendingCommands();
+
+            channel.close();
+            if(ownsEventLoop)
+                eventLoop.close();
+        } catch (IOException e) {
+            throw new ConnectionException("Failed to disconnect from the server!");
+        }
+    }
+
+    /**
+     * @return True if you are currently connected to the server.
+     */
+    @Override
+    public boolean getConnected() {
+        return isConnected;
+    }
+
+    //endregion
+
+    //region Reading
+
+    /**
+     * Called by the event loop when the server has closed the connection, or reading from the channel failed.
+     */
+    void connectionClosed() {
+        if(!isConnected)
+            return;
+
+        System.out.println("The server has closed the connection.");
+        isConnected = false;
+        failPendingCommands();
+
+        if(ownsEventLoop)
+            eventLoop.close();
+    }
+
+    /**
+     * Reads all information that is available on the channel and processes every complete line.
+     * @return False if the server has closed the connection.
+     * @throws IOException Thrown when reading from the channel fails.
+     */
+    boolean readAvailable() throws IOException {
+        int read;
+        while ((read = channel.read(readBuffer)) > 0) {
+            readBuffer.flip();
+
+            if(lineLength + read > lineBytes.length)
+                lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, lineLength + read));
+
+            int scanStart = lineLength;
+            readBuffer.get(lineBytes, lineLength, read);
+            readBuffer.clear();
+            lineLength += read;
+
+            processLines(scanStart);
+        }
+
+        return read >= 0;
+    }
+
+    /**
+     * Processes every complete line in the line-array and moves the remaining incomplete line to the front.
+     * @param scanStart The position from which the line-array has not been searched for line-endings yet.
+     */
+    private void processLines(int scanStart) {
+        int lineStart = 0;
+
+        for (int i = scanStart; i < lineLength; i++) {
+            if(lineBytes[i] != '\n')
+                continue;
+
+            int lineEnd = i;
+            if(lineEnd > lineStart && lineBytes[lineEnd - 1] == '\r')
+                lineEnd--;
+
+            processLine(lineBytes, lineStart, lineEnd);
+            lineStart = i + 1;
+        }
+
+        if(lineStart > 0) {
+            System.arraycopy(lineBytes, lineStart, lineBytes, 0, lineLength - lineStart);
+            lineLength -= lineStart;
+        }
+    }
+
+    //endregion
+
+    //region Writing
+
+    /**
+     * Writes a single line directly to the channel, or queues it when earlier lines are still waiting or the socket
+     * is full. Queued lines are written by the event loop.
+     * @param line The line that should be sent to the server.
+     * @throws IOException Thrown when writing to the channel fails.
+     */
+    @Override
+    protected void writeLine(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.ISO_8859_1));
+
+        synchronized (writeQueue) {
+            if(writeQueue.isEmpty()) {
+                channel.write(buffer);
+                if(!buffer.hasRemaining())
+                    return;
+            }
+
+            writeQueue.add(buffer);
+        }
+
+        eventLoop.requestWrite(channel);
+    }
+
+    /**
+     * Called by the event loop when the channel is writable, writes as many queued lines as the socket can take.
+     * @return True if all queued lines have been written.
+     * @throws IOException Thrown when writing to the channel fails.
+     */
+    boolean flush() throws IOException {
+        synchronized (writeQueue) {
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                channel.write(buffer);
+                if(buffer.hasRemaining())
+                    return false;
+
+                writeQueue.poll();
+            }
+
+            return true;
+        }
+    }
+
+    //endregion
+}
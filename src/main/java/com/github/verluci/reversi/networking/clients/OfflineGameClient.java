@@ -0,0 +1,24 @@
+package com.github.verluci.reversi.networking.clients;
+
+import com.github.verluci.reversi.networking.GameClientExceptions.ConnectionException;
+
+/**
+ * A ProtocolGameClient without a connection, the lines it would send are ignored.
+ * Lines are given to it directly through processLine() or processQueuedString(), for example by the TrafficReplayer
+ * and the benchmarks of the message processing.
+ */
+class OfflineGameClient extends ProtocolGameClient {
+    @Override
+    public void connect(String hostname, int port) throws ConnectionException { }
+
+    @Override
+    public void disconnect() throws ConnectionException { }
+
+    @Override
+    public boolean getConnected() {
+        return true;
+    }
+
+    @Override
+    protected void writeLine(String line) { }
+}
@@ -0,0 +1,150 @@
+package com.github.verluci.reversi.networking.clients;
+
+import com.github.verluci.reversi.networking.listeners.PlayerListChangeListener;
+import com.github.verluci.reversi.networking.types.Player;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps the last player-list of the server, so the list does not have to be requested every time it is shown.
+ *
+ * The list is refreshed in the background on a fixed interval. A refresh while the previous request has not been
+ * answered yet does not send a new request, but waits for the one that has already been sent. Every time the list has
+ * changed the version is incremented and the listeners only receive the players that have joined or left.
+ */
+public class PlayerListCache {
+    // The amount of milliseconds after which a request that has not been answered is given up, so a new one can be sent.
+    private static final long REQUEST_TIMEOUT = 5000;
+
+    private final GameClient gameClient;
+    private final List<PlayerListChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private Set<Player> players = new LinkedHashSet<>();
+    private long version;
+
+    private CompletableFuture<Player[]> pendingRequest;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor for PlayerListCache
+     * @param gameClient The client that requests the player-list.
+     */
+    public PlayerListCache(GameClient gameClient) {
+        this.gameClient = gameClient;
+    }
+
+    /**
+     * Starts refreshing the list in the background, a refresh that is already running is restarted with the new interval.
+     * @param interval The amount of milliseconds between two refreshes.
+     */
+    public synchronized void start(long interval) {
+        stop();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "PlayerListCache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing the list in the background, the last list is kept.
+     */
+    public synchronized void stop() {
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Requests the player-list from the server, unless a request is already waiting for an answer.
+     * @return A future that is completed with the player-list when the cache has been updated.
+     */
+    public synchronized CompletableFuture<Player[]> refresh() {
+        if(pendingRequest != null)
+            return pendingRequest;
+
+        if(!gameClient.getConnected())
+            return CompletableFuture.completedFuture(getPlayers());
+
+        CompletableFuture<Player[]> request = gameClient.getPlayerListAsync().orTimeout(REQUEST_TIMEOUT, TimeUnit.MILLISECONDS);
+        pendingRequest = request;
+
+        request.whenComplete((playerList, exception) -> {
+            synchronized (this) {
+                pendingRequest = null;
+            }
+
+            if(exception == null)
+                update(playerList);
+        });
+
+        return request;
+    }
+
+    /**
+     * Replaces the list and notifies the listeners of the players that have joined or left.
+     * @param playerList The complete player-list that has been received from the server.
+     */
+    synchronized void update(Player[] playerList) {
+        Set<Player> newPlayers = new LinkedHashSet<>(Arrays.asList(playerList));
+
+        List<Player> addedPlayers = new ArrayList<>();
+        for (Player player : newPlayers) {
+            if(!players.contains(player))
+                addedPlayers.add(player);
+        }
+
+        List<Player> removedPlayers = new ArrayList<>();
+        for (Player player : players) {
+            if(!newPlayers.contains(player))
+                removedPlayers.add(player);
+        }
+
+        if(addedPlayers.isEmpty() && removedPlayers.isEmpty())
+            return;
+
+        players = newPlayers;
+        version++;
+
+        Player[] added = addedPlayers.toArray(new Player[0]);
+        Player[] removed = removedPlayers.toArray(new Player[0]);
+        for (PlayerListChangeListener listener : listeners)
+            listener.onPlayerListChange(added, removed);
+    }
+
+    /**
+     * @return The players in the last list that has been received.
+     */
+    public synchronized Player[] getPlayers() {
+        return players.toArray(new Player[0]);
+    }
+
+    /**
+     * @return The version of the list, which is incremented every time the list changes.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Fires the given listener when players have joined or left. The listener immediately receives all players that are
+     * currently in the list as joined players, so it does not miss a change between reading and listening.
+     * @param listener The listener that should be fired when the player-list has changed.
+     */
+    public synchronized void onPlayerListChange(PlayerListChangeListener listener) {
+        listeners.add(listener);
+        listener.onPlayerListChange(getPlayers(), new Player[0]);
+    }
+
+    /**
+     * Stops firing a listener that has been added with onPlayerListChange().
+     * @param listener The listener that should no longer be fired.
+     */
+    public void removePlayerListChangeListener(PlayerListChangeListener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,429 @@
+package com.github.verluci.reversi.networking.clients;
+
+import com.github.verluci.reversi.networking.types.*;
+import com.github.verluci.reversi.networking.GameClientExceptions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class implements the text-protocol of the game-server on top of a connection that can write and read lines.
+ * Subclasses only have to implement the connection itself, and pass every received line to processLine().
+ *
+ * The server answers every command in the order the commands have been sent, so every command that is sent adds a
+ * CompletableFuture to a queue which is completed by the first OK or ERR that is received. Lists are completed by
+ * the first SVR GAMELIST/PLAYERLIST that is received. The blocking methods wait on these futures, so waiting for
+ * a response does not use any CPU time.
+ */
+public abstract class ProtocolGameClient extends GameClient {
+
+    //region Declarations
+
+    private final Queue<CompletableFuture<Void>> pendingCommands = new ConcurrentLinkedQueue<>();
+    private final Queue<CompletableFuture<String[]>> pendingGameLists = new ConcurrentLinkedQueue<>();
+    private final Queue<CompletableFuture<Player[]>> pendingPlayerLists = new ConcurrentLinkedQueue<>();
+
+    private ConcurrentHashMap<Integer, Challenge> activeChallenges;
+
+    private final ProtocolParser parser = new ProtocolParser();
+
+    //endregion
+
+    /**
+     * Constructor for ProtocolGameClient.
+     */
+    protected ProtocolGameClient() {
+        activeChallenges = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Processes a single line that has been received from the server (without the line-ending).
+     * @param string The line that has been received.
+     */
+    public void processQueuedString(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.ISO_8859_1);
+        processLine(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Processes a single line that has been received from the server, directly from the received bytes.
+     * The Move, GameStart and GameEnd that are given to the listeners are reused for the next message.
+     * @param bytes The array that contains the line.
+     * @param start The position of the first byte of the line.
+     * @param end The position after the last byte of the line. (without the line-ending)
+     */
+    protected void processLine(byte[] bytes, int start, int end) {
+        recordInbound(bytes, start, end);
+
+        switch (parser.parse(bytes, start, end)) {
+            case MOVE:
+                notifyOnMove(parser.getMove());
+                break;
+            case YOURTURN:
+                getTurnMetrics().mark(TurnMetrics.Stage.RECEIVED);
+                notifyOnTurn(parser.getTurnMessage());
+                break;
+            case MATCH:
+                notifyOnGameStart(parser.getGameStart());
+                break;
+            case GAME_END:
+                notifyOnGameEnd(parser.getGameEnd());
+                break;
+            case CHALLENGE:
+                Challenge challenge = parser.getChallenge();
+                activeChallenges.put(challenge.getNumber(), challenge);
+                notifyOnReceiveChallenge(challenge);
+                break;
+            case CHALLENGE_CANCELLED:
+                Challenge cancelledChallenge = activeChallenges.remove(parser.getChallengeNumber());
+                notifyOnCancelChallenge(cancelledChallenge);
+                break;
+            case PLAYERLIST:
+                String[] names = parser.getList();
+                Player[] playerList = new Player[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    playerList[i] = new Player(names[i]);
+                }
+
+                CompletableFuture<Player[]> pendingPlayerList = pendingPlayerLists.poll();
+                if(pendingPlayerList != null)
+                    pendingPlayerList.complete(playerList);
+                break;
+            case GAMELIST:
+                CompletableFuture<String[]> pendingGameList = pendingGameLists.poll();
+                if(pendingGameList != null)
+                    pendingGameList.complete(parser.getList());
+                break;
+            case ERR:
+                CompletableFuture<Void> failedCommand = pendingCommands.poll();
+                if(failedCommand != null)
+                    failedCommand.completeExceptionally(new CommandException(parser.getErrorMessage()));
+                break;
+            case OK:
+                CompletableFuture<Void> pendingCommand = pendingCommands.poll();
+                if(pendingCommand != null)
+                    pendingCommand.complete(null);
+                break;
+            case MALFORMED:
+                System.out.println("Dropped a malformed message from the server: " + parser.getErrorMessage());
+                break;
+        }
+    }
+
+    //region Game Methods
+
+    /**
+     * Use this method if you want to login to the server with a certain username.
+     * @param username the unique username you want to use to connect to the server.
+     * @throws LoginException Thrown when the username already exists or if the command has failed.
+     */
+    @Override
+    public void login(String username) throws LoginException {
+        try {
+            await(loginAsync(username));
+        } catch (Exception e) {
+            throw new LoginException(e.getMessage());
+        }
+    }
+
+    /**
+     * Use this command if you want to logout, logging out closes the connection
+     * (this is how the telnet-server has been implemented sadly).
+     * @throws LoginException Thrown when logging out somehow fails.
+     */
+    @Override
+    public void logout() throws LoginException {
+        try {
+            recordOutbound("logout");
+            writeLine("logout");
+        } catch (Exception e) {
+            throw new LoginException(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves a list of games that the server supports.
+     * @return A String[] array of games that the server supports.
+     */
+    @Override
+    public String[] getGameList() {
+        try {
+            return await(getGameListAsync());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new String[0];
+        }
+    }
+
+    /**
+     * Retrieves all the players that are currently online.
+     * @return A list of players that are online.
+     */
+    @Override
+    public Player[] getPlayerList() {
+        try {
+            return await(getPlayerListAsync());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new Player[0];
+        }
+    }
+
+    /**
+     * @return A list of challenges against you.
+     */
+    @Override
+    public Challenge[] getChallenges() {
+        var iterator = activeChallenges.values().iterator();
+        List<Challenge> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+
+        return list.toArray(new Challenge[0]);
+    }
+
+    /**
+     * Use this method if you want to subscribe to a game inorder to auto-join a match.
+     * @param gameName The name of the game you want to subscribe to.
+     * @throws SubscribeException Thrown when the response is not OK but an ERR.
+     */
+    @Override
+    public void subscribeToGame(String gameName) throws SubscribeException {
+        try {
+            await(subscribeToGameAsync(gameName));
+        } catch (Exception e) {
+            throw new SubscribeException(e.getMessage());
+        }
+    }
+
+    /**
+     * Use this method if you want to challenge a player to a match.
+     * @param player The player you want to challenge.
+     * @param gameName The name of the game you want to play with the challenged player.
+     * @throws ChallengePlayerException Thrown when challenging a player fails because of invalid Player-name or Game-name.
+     */
+    @Override
+    public void challengePlayer(Player player, String gameName) throws ChallengePlayerException {
+        try {
+            await(challengePlayerAsync(player, gameName));
+        } catch (Exception e) {
+            throw new ChallengePlayerException(e.getMessage());
+        }
+    }
+
+    /**
+     * Use this method when you want to accept a given challenge.
+     * @param challenge The challenge that should be accepted.
+     * @throws ChallengePlayerException Thrown when accepting a challenge fails.
+     */
+    @Override
+    public void acceptChallenge(Challenge challenge) throws ChallengePlayerException{
+        try {
+            await(acceptChallengeAsync(challenge));
+        } catch (Exception e) {
+            throw new ChallengePlayerException(e.getMessage());
+        }
+    }
+
+    /**
+     * Performs a move on the given position. beware! will return OK on illegal moves!
+     * @param position The position the move should be performed on.
+     * @throws MoveException Thrown when a move fails because of invalid syntax (not because of illegal moves).
+     */
+    @Override
+    public void performMove(int position) throws MoveException {
+        try {
+            await(performMoveAsync(position));
+        } catch (Exception e) {
+            throw new MoveException(e.getMessage());
+        }
+    }
+
+    /**
+     * Use this method when you want to give up during a match.
+     * @throws MoveException Thrown when the response is not OK but an ERR.
+     */
+    @Override
+    public void forfeit() throws MoveException {
+        try {
+            await(forfeitAsync());
+        } catch (Exception e) {
+            throw new MoveException(e.getMessage());
+        }
+    }
+
+    //endregion
+
+    //region Asynchronous Game Methods
+
+    /**
+     * Sends a login command for the given username.
+     * @param username the unique username you want to use to connect to the server.
+     * @return A future that is completed when the server has responded with OK.
+     */
+    @Override
+    public CompletableFuture<Void> loginAsync(String username) {
+        return sendCommand("login " + username);
+    }
+
+    /**
+     * Requests the list of games that the server supports.
+     * @return A future that is completed with the games that the server supports.
+     */
+    @Override
+    public synchronized CompletableFuture<String[]> getGameListAsync() {
+        CompletableFuture<String[]> gameList = new CompletableFuture<>();
+        pendingGameLists.add(gameList);
+
+        sendCommand("get gamelist").whenComplete((result, exception) -> {
+            if(exception != null && pendingGameLists.remove(gameList))
+                gameList.completeExceptionally(exception);
+        });
+
+        return gameList;
+    }
+
+    /**
+     * Requests the list of players that are currently online.
+     * @return A future that is completed with the players that are online.
+     */
+    @Override
+    public synchronized CompletableFuture<Player[]> getPlayerListAsync() {
+        CompletableFuture<Player[]> playerList = new CompletableFuture<>();
+        pendingPlayerLists.add(playerList);
+
+        sendCommand("get playerlist").whenComplete((result, exception) -> {
+            if(exception != null && pendingPlayerLists.remove(playerList))
+                playerList.completeExceptionally(exception);
+        });
+
+        return playerList;
+    }
+
+    /**
+     * Sends a subscribe command for the given game.
+     * @param gameName The name of the game you want to subscribe to.
+     * @return A future that is completed when the server has responded with OK.
+     */
+    @Override
+    public CompletableFuture<Void> subscribeToGameAsync(String gameName) {
+        return sendCommand("subscribe " + gameName);
+    }
+
+    /**
+     * Sends a challenge to the given player.
+     * @param player The player you want to challenge.
+     * @param gameName The name of the game you want to play with the challenged player.
+     * @return A future that is completed when the server has responded with OK.
+     */
+    @Override
+    public CompletableFuture<Void> challengePlayerAsync(Player player, String gameName) {
+        return sendCommand("challenge \"" + player.getName() + "\" \"" + gameName + "\"");
+    }
+
+    /**
+     * Accepts the given challenge.
+     * @param challenge The challenge that should be accepted.
+     * @return A future that is completed when the server has responded with OK.
+     */
+    @Override
+    public CompletableFuture<Void> acceptChallengeAsync(Challenge challenge) {
+        return sendCommand("challenge accept " + challenge.getNumber());
+    }
+
+    /**
+     * Sends a move on the given position. beware! will return OK on illegal moves!
+     * @param position The position the move should be performed on.
+     * @return A future that is completed when the server has responded with OK.
+     */
+    @Override
+    public CompletableFuture<Void> performMoveAsync(int position) {
+        CompletableFuture<Void> response = sendCommand("move " + position);
+        getTurnMetrics().mark(TurnMetrics.Stage.WRITTEN);
+
+        response.thenRun(() -> getTurnMetrics().mark(TurnMetrics.Stage.ACKNOWLEDGED));
+        return response;
+    }
+
+    /**
+     * Gives up the current match.
+     * @return A future that is completed when the server has responded with OK.
+     */
+    @Override
+    public CompletableFuture<Void> forfeitAsync() {
+        return sendCommand("forfeit");
+    }
+
+    //endregion
+
+    /**
+     * Writes a single line to the server, the line-ending is added by this method.
+     * @param line The line that should be sent to the server.
+     * @throws IOException Thrown when writing to the connection fails.
+     */
+    protected abstract void writeLine(String line) throws IOException;
+
+    /**
+     * Universal send used by the different game methods, the returned future is completed by the response.
+     * @param command The command that needs to be sent to the server.
+     * @return A future that is completed when the server responds with OK, or completed exceptionally with a
+     *         CommandException when the server responds with ERR or the command could not be sent.
+     */
+    protected synchronized CompletableFuture<Void> sendCommand(String command) {
+        CompletableFuture<Void> response = new CompletableFuture<>();
+        pendingCommands.add(response);
+
+        long sendTime = System.nanoTime();
+        try {
+            recordOutbound(command);
+            writeLine(command);
+        } catch (IOException e) {
+            e.printStackTrace();
+            pendingCommands.remove(response);
+            response.completeExceptionally(new CommandException("Failed command:" + command));
+            return response;
+        }
+
+        response.thenRun(() -> recordRoundTripTime(System.nanoTime() - sendTime));
+        return response;
+    }
+
+    /**
+     * Fails all commands that are still waiting for a response, used when the connection has been closed.
+     */
+    protected void failPendingCommands() {
+        CommandException exception = new CommandException("The connection to the server has been closed.");
+
+        CompletableFuture<Void> pendingCommand;
+        while ((pendingCommand = pendingCommands.poll()) != null)
+            pendingCommand.completeExceptionally(exception);
+
+        CompletableFuture<String[]> pendingGameList;
+        while ((pendingGameList = pendingGameLists.poll()) != null)
+            pendingGameList.completeExceptionally(exception);
+
+        CompletableFuture<Player[]> pendingPlayerList;
+        while ((pendingPlayerList = pendingPlayerLists.poll()) != null)
+            pendingPlayerList.completeExceptionally(exception);
+    }
+
+    /**
+     * Waits until the given future has been completed.
+     * @param future The future of a command.
+     * @return The result of the command.
+     * @throws Exception Thrown with the message of the response when the command has failed.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new Exception(e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package com.github.verluci.reversi.networking.clients;
+
+import com.github.verluci.reversi.networking.types.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parser for the lines that are sent by the game-server, which reads directly from the received bytes.
+ *
+ * The server sends its information as pseudo-JSON ({KEY: "value", ...} and ["value", ...]), which is tokenized
+ * by hand instead of through split(), substring() and org.json. The most frequent messages (MOVE, YOURTURN, MATCH and
+ * the end of a game) are parsed into a single reused Move, GameStart or GameEnd, and the names and texts inside them
+ * are taken from small caches of recently received values. This means a received move does not allocate anything
+ * once the names of both players are known.
+ *
+ * A line of a known type that can not be parsed (for example a move without a valid position) is reported as MALFORMED,
+ * so it is dropped instead of being passed on with a made-up value.
+ *
+ * A parser is not thread-safe, it should only be used by the thread that reads from the connection.
+ */
+public class ProtocolParser {
+
+    /**
+     * The types of lines that can be received from the server.
+     */
+    public enum MessageType {
+        OK, ERR, MOVE, YOURTURN, MATCH, GAME_END, CHALLENGE, CHALLENGE_CANCELLED, PLAYERLIST, GAMELIST, MALFORMED, UNKNOWN
+    }
+
+    //region Declarations
+
+    private static final byte[] OK = bytes("OK");
+    private static final byte[] ERR = bytes("ERR");
+    private static final byte[] SVR_GAME_MOVE = bytes("SVR GAME MOVE ");
+    private static final byte[] SVR_GAME_YOURTURN = bytes("SVR GAME YOURTURN ");
+    private static final byte[] SVR_GAME_MATCH = bytes("SVR GAME MATCH ");
+    private static final byte[] SVR_GAME_WIN = bytes("SVR GAME WIN ");
+    private static final byte[] SVR_GAME_LOSS = bytes("SVR GAME LOSS ");
+    private static final byte[] SVR_GAME_DRAW = bytes("SVR GAME DRAW ");
+    private static final byte[] SVR_GAME_CHALLENGE_CANCELLED = bytes("SVR GAME CHALLENGE CANCELLED ");
+    private static final byte[] SVR_GAME_CHALLENGE = bytes("SVR GAME CHALLENGE ");
+    private static final byte[] SVR_PLAYERLIST = bytes("SVR PLAYERLIST ");
+    private static final byte[] SVR_GAMELIST = bytes("SVR GAMELIST ");
+
+    private static final byte[] KEY_PLAYER = bytes("PLAYER");
+    private static final byte[] KEY_MOVE = bytes("MOVE");
+    private static final byte[] KEY_DETAILS = bytes("DETAILS");
+    private static final byte[] KEY_TURNMESSAGE = bytes("TURNMESSAGE");
+    private static final byte[] KEY_PLAYERTOMOVE = bytes("PLAYERTOMOVE");
+    private static final byte[] KEY_OPPONENT = bytes("OPPONENT");
+    private static final byte[] KEY_GAMETYPE = bytes("GAMETYPE");
+    private static final byte[] KEY_PLAYERONESCORE = bytes("PLAYERONESCORE");
+    private static final byte[] KEY_PLAYERTWOSCORE = bytes("PLAYERTWOSCORE");
+    private static final byte[] KEY_COMMENT = bytes("COMMENT");
+    private static final byte[] KEY_CHALLENGER = bytes("CHALLENGER");
+    private static final byte[] KEY_CHALLENGENUMBER = bytes("CHALLENGENUMBER");
+
+    // The amount of recently received names and texts that are remembered.
+    private static final int CACHE_SIZE = 16;
+
+    // Numbers with more digits than this could overflow an int.
+    private static final int MAX_DIGITS = 9;
+
+    private final Move move = new Move(null, 0, null);
+    private final GameStart gameStart = new GameStart(null, null, null);
+    private final GameEnd gameEnd = new GameEnd(null, 0, 0, null);
+
+    private Challenge challenge;
+    private int challengeNumber;
+    private String turnMessage;
+    private String errorMessage;
+    private String[] list;
+
+    private final byte[][] cachedBytes = new byte[CACHE_SIZE][];
+    private final String[] cachedStrings = new String[CACHE_SIZE];
+    private final Player[] cachedPlayers = new Player[CACHE_SIZE];
+    private int nextCacheIndex;
+
+    // The position of the current key and value inside the line that is being parsed.
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private int keyStart;
+    private int keyEnd;
+    private int valueStart;
+    private int valueEnd;
+    private boolean valueEscaped;
+
+    //endregion
+
+    /**
+     * Parses a single line that has been received from the server.
+     * @param bytes The array that contains the line.
+     * @param start The position of the first byte of the line.
+     * @param end The position after the last byte of the line. (without the line-ending)
+     * @return The type of the line, the contents can be retrieved using the getter of that type.
+     */
+    public MessageType parse(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.end = end;
+
+        try {
+            return parseMessage(start);
+        } catch (NumberFormatException e) {
+            errorMessage = e.getMessage() + " in: " + new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+            return MessageType.MALFORMED;
+        }
+    }
+
+    private MessageType parseMessage(int start) {
+        if(startsWith(start, SVR_GAME_MOVE)) {
+            return parseMove(start + SVR_GAME_MOVE.length);
+        } else if(startsWith(start, OK)) {
+            return MessageType.OK;
+        } else if(startsWith(start, SVR_GAME_YOURTURN)) {
+            return parseTurn(start + SVR_GAME_YOURTURN.length);
+        } else if(startsWith(start, SVR_GAME_MATCH)) {
+            return parseMatch(start + SVR_GAME_MATCH.length);
+        } else if(startsWith(start, SVR_GAME_WIN)) {
+            return parseGameEnd(start + SVR_GAME_WIN.length, GameResult.WIN);
+        } else if(startsWith(start, SVR_GAME_LOSS)) {
+            return parseGameEnd(start + SVR_GAME_LOSS.length, GameResult.LOSS);
+        } else if(startsWith(start, SVR_GAME_DRAW)) {
+            return parseGameEnd(start + SVR_GAME_DRAW.length, GameResult.DRAW);
+        } else if(startsWith(start, SVR_GAME_CHALLENGE_CANCELLED)) {
+            return parseChallengeCancelled(start + SVR_GAME_CHALLENGE_CANCELLED.length);
+        } else if(startsWith(start, SVR_GAME_CHALLENGE)) {
+            return parseChallenge(start + SVR_GAME_CHALLENGE.length);
+        } else if(startsWith(start, SVR_PLAYERLIST)) {
+            list = parseList(start + SVR_PLAYERLIST.length);
+            return MessageType.PLAYERLIST;
+        } else if(startsWith(start, SVR_GAMELIST)) {
+            list = parseList(start + SVR_GAMELIST.length);
+            return MessageType.GAMELIST;
+        } else if(startsWith(start, ERR)) {
+            errorMessage = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+            return MessageType.ERR;
+        }
+
+        return MessageType.UNKNOWN;
+    }
+
+    //region Messages
+
+    private MessageType parseMove(int start) {
+        Player player = null;
+        int position = -1;
+        String details = "";
+
+        beginObject(start);
+        while (nextEntry()) {
+            if(keyEquals(KEY_PLAYER))
+                player = readPlayer();
+            else if(keyEquals(KEY_MOVE))
+                position = readInt();
+            else if(keyEquals(KEY_DETAILS))
+                details = readString();
+        }
+
+        if(position < 0)
+            throw new NumberFormatException("A move without a valid position");
+
+        move.set(player, position, details);
+        return MessageType.MOVE;
+    }
+
+    private MessageType parseTurn(int start) {
+        turnMessage = "";
+
+        beginObject(start);
+        while (nextEntry()) {
+            if(keyEquals(KEY_TURNMESSAGE))
+                turnMessage = readString();
+        }
+
+        return MessageType.YOURTURN;
+    }
+
+    private MessageType parseMatch(int start) {
+        Player playerToMove = null;
+        Player opponent = null;
+        String gameType = null;
+
+        beginObject(start);
+        while (nextEntry()) {
+            if(keyEquals(KEY_PLAYERTOMOVE))
+                playerToMove = readPlayer();
+            else if(keyEquals(KEY_OPPONENT))
+                opponent = readPlayer();
+            else if(keyEquals(KEY_GAMETYPE))
+                gameType = readString();
+        }
+
+        gameStart.set(playerToMove, opponent, gameType);
+        return MessageType.MATCH;
+    }
+
+    private MessageType parseGameEnd(int start, GameResult result) {
+        int playerOneScore = 0;
+        int playerTwoScore = 0;
+        String comment = "";
+
+        beginObject(start);
+        while (nextEntry()) {
+            if(keyEquals(KEY_PLAYERONESCORE))
+                playerOneScore = readInt();
+            else if(keyEquals(KEY_PLAYERTWOSCORE))
+                playerTwoScore = readInt();
+            else if(keyEquals(KEY_COMMENT))
+                comment = readString();
+        }
+
+        gameEnd.set(result, playerOneScore, playerTwoScore, comment);
+        return MessageType.GAME_END;
+    }
+
+    private MessageType parseChallenge(int start) {
+        int number = -1;
+        Player challenger = null;
+        String gameType = null;
+
+        beginObject(start);
+        while (nextEntry()) {
+            if(keyEquals(KEY_CHALLENGENUMBER))
+                number = readInt();
+            else if(keyEquals(KEY_CHALLENGER))
+                challenger = readPlayer();
+            else if(keyEquals(KEY_GAMETYPE))
+                gameType = readString();
+        }
+
+        challenge = new Challenge(number, challenger, gameType);
+        return MessageType.CHALLENGE;
+    }
+
+    private MessageType parseChallengeCancelled(int start) {
+        challengeNumber = -1;
+
+        beginObject(start);
+        while (nextEntry()) {
+            if(keyEquals(KEY_CHALLENGENUMBER))
+                challengeNumber = readInt();
+        }
+
+        return MessageType.CHALLENGE_CANCELLED;
+    }
+
+    private String[] parseList(int start) {
+        List<String> values = new ArrayList<>();
+
+        position = start;
+        skipUntil('[');
+        while (nextValue())
+            values.add(readString());
+
+        return values.toArray(new String[0]);
+    }
+
+    //endregion
+
+    //region Tokenizer
+
+    private void beginObject(int start) {
+        position = start;
+        skipUntil('{');
+    }
+
+    /**
+     * Finds the next KEY: "value" pair of an object.
+     * @return False if the end of the object has been reached.
+     */
+    private boolean nextEntry() {
+        skipSeparators();
+        if(position >= end || bytes[position] == '}')
+            return false;
+
+        keyStart = position;
+        while (position < end && bytes[position] != ':' && bytes[position] != ' ')
+            position++;
+        keyEnd = position;
+
+        skipUntil(':');
+        return nextValue();
+    }
+
+    /**
+     * Finds the next "value" of an object or a list.
+     * @return False if the end of the object or list has been reached.
+     */
+    private boolean nextValue() {
+        skipSeparators();
+        if(position >= end || bytes[position] == '}' || bytes[position] == ']')
+            return false;
+
+        valueEscaped = false;
+
+        if(bytes[position] != '"') {
+            // Values without quotes (for example numbers) end at the next separator.
+            valueStart = position;
+            while (position < end && bytes[position] != ',' && bytes[position] != '}' && bytes[position] != ']')
+                position++;
+
+            valueEnd = position;
+            while (valueEnd > valueStart && bytes[valueEnd - 1] == ' ')
+                valueEnd--;
+
+            return true;
+        }
+
+        valueStart = ++position;
+        while (position < end && bytes[position] != '"') {
+            if(bytes[position] == '\\') {
+                valueEscaped = true;
+                position++;
+            }
+            position++;
+        }
+
+        valueEnd = Math.min(position, end);
+        position++;
+        return true;
+    }
+
+    private void skipUntil(char character) {
+        while (position < end && bytes[position] != character)
+            position++;
+        position++;
+    }
+
+    private void skipSeparators() {
+        while (position < end && (bytes[position] == ' ' || bytes[position] == ','))
+            position++;
+    }
+
+    private boolean keyEquals(byte[] key) {
+        return Arrays.equals(bytes, keyStart, keyEnd, key, 0, key.length);
+    }
+
+    private boolean startsWith(int start, byte[] prefix) {
+        return end - start >= prefix.length && Arrays.equals(bytes, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    //endregion
+
+    //region Values
+
+    /**
+     * @return The current value as number.
+     * @throws NumberFormatException Thrown when the value is empty or not a number.
+     */
+    private int readInt() {
+        boolean negative = valueStart < valueEnd && bytes[valueStart] == '-';
+        int digitStart = negative ? valueStart + 1 : valueStart;
+
+        if(digitStart == valueEnd || valueEnd - digitStart > MAX_DIGITS)
+            throw notANumber();
+
+        int result = 0;
+        for (int i = digitStart; i < valueEnd; i++) {
+            int digit = bytes[i] - '0';
+            if(digit < 0 || digit > 9)
+                throw notANumber();
+
+            result = result * 10 + digit;
+        }
+
+        return negative ? -result : result;
+    }
+
+    private NumberFormatException notANumber() {
+        String value = new String(bytes, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1);
+        return new NumberFormatException("Not a number: \"" + value + "\"");
+    }
+
+    /**
+     * @return The current value as String, a recently received String is returned if it has the same contents.
+     */
+    private String readString() {
+        if(valueEscaped)
+            return unescape();
+
+        int index = findCached();
+        if(index < 0) {
+            index = addCached();
+            cachedStrings[index] = new String(bytes, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1);
+        }
+
+        return cachedStrings[index];
+    }
+
+    /**
+     * @return The current value as Player, a recently received Player is returned if it has the same name.
+     */
+    private Player readPlayer() {
+        if(valueEscaped)
+            return new Player(unescape());
+
+        int index = findCached();
+        if(index < 0) {
+            index = addCached();
+            cachedStrings[index] = new String(bytes, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1);
+        }
+
+        if(cachedPlayers[index] == null)
+            cachedPlayers[index] = new Player(cachedStrings[index]);
+
+        return cachedPlayers[index];
+    }
+
+    private int findCached() {
+        int length = valueEnd - valueStart;
+
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            byte[] cached = cachedBytes[i];
+            if(cached != null && cached.length == length && Arrays.equals(bytes, valueStart, valueEnd, cached, 0, length))
+                return i;
+        }
+
+        return -1;
+    }
+
+    private int addCached() {
+        int index = nextCacheIndex;
+        nextCacheIndex = (nextCacheIndex + 1) % CACHE_SIZE;
+
+        cachedBytes[index] = Arrays.copyOfRange(bytes, valueStart, valueEnd);
+        cachedStrings[index] = null;
+        cachedPlayers[index] = null;
+        return index;
+    }
+
+    private String unescape() {
+        StringBuilder builder = new StringBuilder(valueEnd - valueStart);
+
+        for (int i = valueStart; i < valueEnd; i++) {
+            if(bytes[i] == '\\' && i + 1 < valueEnd)
+                i++;
+
+            builder.append((char) (bytes[i] & 0xFF));
+        }
+
+        return builder.toString();
+    }
+
+    private static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    //endregion
+
+    //region Getters
+
+    /**
+     * @return The reused move of the last MOVE message.
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * @return The reused start of the last MATCH message.
+     */
+    public GameStart getGameStart() {
+        return gameStart;
+    }
+
+    /**
+     * @return The reused end of the last WIN, LOSS or DRAW message.
+     */
+    public GameEnd getGameEnd() {
+        return gameEnd;
+    }
+
+    /**
+     * @return The challenge of the last CHALLENGE message.
+     */
+    public Challenge getChallenge() {
+        return challenge;
+    }
+
+    /**
+     * @return The number of the challenge of the last CHALLENGE CANCELLED message.
+     */
+    public int getChallengeNumber() {
+        return challengeNumber;
+    }
+
+    /**
+     * @return The message of the last YOURTURN message.
+     */
+    public String getTurnMessage() {
+        return turnMessage;
+    }
+
+    /**
+     * @return The complete line of the last ERR message, or the reason and line of the last MALFORMED message.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * @return The values of the last PLAYERLIST or GAMELIST message.
+     */
+    public String[] getList() {
+        return list;
+    }
+
+    //endregion
+}
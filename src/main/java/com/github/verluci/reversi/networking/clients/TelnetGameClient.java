@@ -1,18 +1,13 @@
 package com.github.verluci.reversi.networking.clients;
 
-import com.github.verluci.reversi.networking.types.*;
 import com.github.verluci.reversi.networking.GameClientExceptions.*;
 import org.apache.commons.net.telnet.TelnetClient;
-import org.json.*;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.SynchronousQueue;
 
-public class TelnetGameClient extends GameClient {
+public class TelnetGameClient extends ProtocolGameClient {
 
     //region Declarations
 
@@ -20,19 +15,12 @@ public class TelnetGameClient extends GameClient {
     private DataOutputStream out;
     private DataInputStream in;
 
-    private boolean isConnected;
+    private volatile boolean isConnected;
 
     private BlockingQueue<String> returnQueue;
     private Thread returnedInfo;
     private Thread processQueue;
 
-    private volatile Player[] playerList;
-    private volatile String[] gameList;
-    private volatile boolean isOK;
-    private volatile String error;
-
-    private ConcurrentHashMap<Integer, Challenge> activeChallenges;
-
     //endregion
 
     /**
@@ -41,7 +29,6 @@ public class TelnetGameClient extends GameClient {
      */
     public TelnetGameClient() {
         returnQueue = new SynchronousQueue<>();
-        activeChallenges = new ConcurrentHashMap<>();
 
         returnedInfo = new Thread(() -> {
             try {
@@ -61,6 +48,8 @@ public class TelnetGameClient extends GameClient {
             } catch (IOException | InterruptedException e) {
                 System.out.println("Interrupt: Stopped reading the incoming information.");
             }
+
+            connectionClosed();
         });
 
         processQueue  = new Thread(() -> {
@@ -70,138 +59,14 @@ public class TelnetGameClient extends GameClient {
                     processQueuedString(string);
                 } catch (InterruptedException e) {
                     System.out.println("Interrupt: Stopped processing incoming information.");
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    connectionClosed();
                 }
             }
         });
     }
 
-    public void processQueuedString(String string) {
-        String jsonString;
-        JSONArray array;
-
-        if(string.startsWith("SVR")) {
-            String[] split = string.split(" ");
-
-            switch (split[1]) {
-                case "PLAYERLIST":
-                    jsonString = string.substring("SVR PLAYERLIST ".length());
-                    array = new JSONArray(jsonString);
-
-                    Player[] playerList = new Player[array.length()];
-                    for (int i = 0; i < array.length(); i++) {
-                        playerList[i] = new Player(array.getString(i));
-                    }
-                    this.playerList = playerList;
-
-                    break;
-                case "GAMELIST":
-                    jsonString = string.substring("SVR GAMELIST ".length());
-                    array = new JSONArray(jsonString);
-
-                    String[] gameList = new String[array.length()];
-                    for (int i = 0; i < array.length(); i++) {
-                        gameList[i] = array.getString(i);
-                    }
-
-                    this.gameList = gameList;
-                    break;
-                case "GAME":
-                    switch (split[2]) {
-                        case "CHALLENGE":
-                            if(split[3].equals("CANCELLED")) {
-                                jsonString = string.substring("SVR GAME CHALLENGE CANCELLED ".length());
-                                JSONObject object = new JSONObject(jsonString);
-                                int challengeId = Integer.parseInt(object.getString("CHALLENGENUMBER"));
-                                Challenge challenge = activeChallenges.remove(challengeId);
-                                notifyOnCancelChallenge(challenge);
-                            } else {
-                                jsonString = string.substring("SVR GAME CHALLENGE ".length());
-                                JSONObject object = new JSONObject(jsonString);
-
-                                int challengeId = Integer.parseInt(object.getString("CHALLENGENUMBER"));
-                                String playerName = object.getString("CHALLENGER");
-                                String gameType = object.getString("GAMETYPE");
-
-                                Challenge challenge = new Challenge(challengeId, new Player(playerName), gameType);
-                                activeChallenges.put(challengeId, challenge);
-                                notifyOnReceiveChallenge(challenge);
-                            }
-                            break;
-                        case "MATCH":
-                            GameStart gameStart;
-
-                            jsonString = string.substring("SVR GAME MATCH ".length());
-                            JSONObject object = new JSONObject(jsonString);
-
-                            String playerToMove = object.getString("PLAYERTOMOVE");
-                            String opponent = object.getString("OPPONENT");
-                            String gameType = object.getString("GAMETYPE");
-
-                            if(playerToMove.equals(opponent)) {
-                                Player enemy = new Player(opponent);
-                                gameStart = new GameStart(enemy, enemy, gameType);
-                            } else {
-                                Player starter = new Player(playerToMove);
-                                Player oppponent = new Player(opponent);
-                                gameStart = new GameStart(starter, oppponent, gameType);
-                            }
-                            notifyOnGameStart(gameStart);
-                            break;
-                        case "YOURTURN":
-                            jsonString = string.substring("SVR GAME YOURTURN ".length());
-                            JSONObject turnObject = new JSONObject(jsonString);
-                            String message = turnObject.getString("TURNMESSAGE");
-                            notifyOnTurn(message);
-                            break;
-                        case "MOVE":
-                            jsonString = string.substring("SVR GAME MOVE ".length());
-                            JSONObject moveObject = new JSONObject(jsonString);
-
-                            Player player = new Player(moveObject.getString("PLAYER"));
-                            int setMove = Integer.parseInt(moveObject.getString("MOVE"));
-                            String details = moveObject.getString("DETAILS");
-
-                            Move move = new Move(player, setMove, details);
-                            notifyOnMove(move);
-                            break;
-                        case "WIN":
-                        case "DRAW":
-                        case "LOSS":
-                            String entry = "SVR GAME " + split[2] + " ";
-                            jsonString = string.substring(entry.length());
-                            JSONObject endGameObject = new JSONObject(jsonString);
-
-                            int playerOneScore = Integer.parseInt(endGameObject.getString("PLAYERONESCORE"));
-                            int playerTwoScore = Integer.parseInt(endGameObject.getString("PLAYERTWOSCORE"));
-                            String comment = endGameObject.getString("COMMENT");
-
-                            GameResult result = GameResult.LOSS;
-                            switch (split[2]) {
-                                case "WIN":
-                                    result = GameResult.WIN;
-                                    break;
-                                case "DRAW":
-                                    result = GameResult.DRAW;
-                                    break;
-                                case "LOSS":
-                                    result = GameResult.LOSS;
-                                    break;
-                            }
-                            GameEnd gameEnd = new GameEnd(result, playerOneScore, playerTwoScore, comment);
-                            notifyOnGameEnd(gameEnd);
-                            break;
-                    }
-                    break;
-            }
-        }
-        else if (string.startsWith("ERR")) {
-            error = string;
-        }
-        else if (string.startsWith("OK")) {
-            isOK = true;
-        }
-    }
-
     //region Game Methods
 
     /**
@@ -240,6 +105,7 @@ public class TelnetGameClient extends GameClient {
             isConnected = false;
             processQueue.interrupt();
             returnedInfo.interrupt();
+            failPendingCommands();
 
             telnet.disconnect();
         } catch (IOException e) {
@@ -256,186 +122,35 @@ public class TelnetGameClient extends GameClient {
     }
 
     /**
-     * Use this method if you want to login to the server with a certain username.
-     * @param username the unique username you want to use to connect to the server.
-     * @throws LoginException Thrown when the username already exists or if the command has failed.
+     * Called by the reading or processing thread when the server has closed the connection, or reading or processing
+     * the information failed. Commands that are still waiting for a response fail, like in disconnect().
      */
-    @Override
-    public void login(String username) throws LoginException {
-        try {
-            sendAndReceiveProtocol("login " + username);
-        } catch (Exception e) {
-            throw new LoginException(e.getMessage());
-        }
-    }
-
-    /**
-     * Use this command if you want to logout, logging out closes the connection
-     * (this is how the telnet-server has been implemented sadly).
-     * @throws LoginException Thrown when logging out somehow fails.
-     */
-    @Override
-    public void logout() throws LoginException {
-        try {
-            String output = "logout\n";
-            out.writeBytes(output);
-            out.flush();
-        } catch (Exception e) {
-            throw new LoginException(e.getMessage());
-        }
-    }
-
-    /**
-     * Retrieves a list of games that the server supports.
-     * @return A String[] array of games that the server supports.
-     */
-    @Override
-    public String[] getGameList() {
-        try {
-            String output = "get gamelist\n";
-            out.writeBytes(output);
-            out.flush();
+    private synchronized void connectionClosed() {
+        if(!isConnected)
+            return;
 
-            gameList = null;
-            while (gameList == null) {
-                Thread.onSpinWait();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        System.out.println("The server has closed the connection.");
+        isConnected = false;
+        failPendingCommands();
 
-        return gameList.clone();
-    }
-
-    /**
-     * Retrieves all the players that are currently online.
-     * @return A list of players that are online.
-     */
-    @Override
-    public Player[] getPlayerList() {
+        processQueue.interrupt();
         try {
-            String output = "get playerlist\n";
-            out.writeBytes(output);
-            out.flush();
-
-            playerList = null;
-            while (playerList == null) {
-                Thread.onSpinWait();
-            }
+            telnet.disconnect();
         } catch (IOException e) {
             e.printStackTrace();
         }
-
-        return playerList.clone();
-    }
-
-    /**
-     * @return A list of challenges against you.
-     */
-    @Override
-    public Challenge[] getChallenges() {
-        var iterator = activeChallenges.values().iterator();
-        List<Challenge> list = new ArrayList<>();
-        iterator.forEachRemaining(list::add);
-
-        return list.toArray(new Challenge[0]);
-    }
-
-    /**
-     * Use this method if you want to subscribe to a game inorder to auto-join a match.
-     * @param gameName The name of the game you want to subscribe to.
-     * @throws SubscribeException Thrown when the response is not OK but an ERR.
-     */
-    @Override
-    public void subscribeToGame(String gameName) throws SubscribeException {
-        try {
-            sendAndReceiveProtocol("subscribe " + gameName);
-        } catch (Exception e) {
-            throw new SubscribeException(e.getMessage());
-        }
-    }
-
-    /**
-     * Use this method if you want to challenge a player to a match.
-     * @param player The player you want to challenge.
-     * @param gameName The name of the game you want to play with the challenged player.
-     * @throws ChallengePlayerException Thrown when challenging a player fails because of invalid Player-name or Game-name.
-     */
-    @Override
-    public void challengePlayer(Player player, String gameName) throws ChallengePlayerException {
-        try {
-            sendAndReceiveProtocol("challenge \"" + player.getName() + "\" \"" + gameName + "\"");
-        } catch (Exception e) {
-            throw new ChallengePlayerException(e.getMessage());
-        }
-    }
-
-    /**
-     * Use this method when you want to accept a given challenge.
-     * @param challenge The challenge that should be accepted.
-     * @throws ChallengePlayerException Thrown when accepting a challenge fails.
-     */
-    @Override
-    public void acceptChallenge(Challenge challenge) throws ChallengePlayerException{
-        try {
-            sendAndReceiveProtocol("challenge accept " + challenge.getNumber());
-        } catch (Exception e) {
-            throw new ChallengePlayerException(e.getMessage());
-        }
-    }
-
-    /**
-     * Performs a move on the given position. beware! will return OK on illegal moves!
-     * @param position The position the move should be performed on.
-     * @throws MoveException Thrown when a move fails because of invalid syntax (not because of illegal moves).
-     */
-    @Override
-    public void performMove(int position) throws MoveException {
-        try {
-            sendAndReceiveProtocol("move " + position);
-        } catch (Exception e) {
-            throw new MoveException(e.getMessage());
-        }
-    }
-
-    /**
-     * Use this method when you want to give up during a match.
-     * @throws MoveException Thrown when the response is not OK but an ERR.
-     */
-    @Override
-    public void forfeit() throws MoveException {
-        try {
-            sendAndReceiveProtocol("forfeit");
-        } catch (Exception e) {
-            throw new MoveException(e.getMessage());
-        }
     }
 
     //endregion
 
     /**
-     * Universal telnet send and receive used by the different telnet game methods.
-     * @param command The command that needs to be sent to the server.
-     * @throws Exception Thrown when the response is not OK but an ERR.
+     * Writes a single line to the telnet-connection.
+     * @param line The line that should be sent to the server.
+     * @throws IOException Thrown when writing to the connection fails.
      */
-    private synchronized void sendAndReceiveProtocol(String command) throws Exception {
-        try {
-            String output = command + "\n";
-            out.writeBytes(output);
-            out.flush();
-
-            isOK = false;
-            error = null;
-            while (!isOK && error == null) {
-                Thread.onSpinWait();
-            }
-
-            if(error != null)
-                throw new Exception(error);
-
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new Exception("Failed command:" + command);
-        }
+    @Override
+    protected void writeLine(String line) throws IOException {
+        out.writeBytes(line + "\n");
+        out.flush();
     }
 }
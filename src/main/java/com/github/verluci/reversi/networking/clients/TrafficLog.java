@@ -0,0 +1,164 @@
+package com.github.verluci.reversi.networking.clients;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A log that has been written by a TrafficRecorder, all records are kept in memory so they can be replayed without
+ * reading from the file in between.
+ */
+public class TrafficLog {
+    private final long startTime;
+    private final byte[] bytes;
+
+    private final boolean[] inbound;
+    private final long[] timestamps;
+    private final int[] starts;
+    private final int[] ends;
+
+    private TrafficLog(long startTime, byte[] bytes, boolean[] inbound, long[] timestamps, int[] starts, int[] ends) {
+        this.startTime = startTime;
+        this.bytes = bytes;
+        this.inbound = inbound;
+        this.timestamps = timestamps;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Reads a log from a file, a record that has only been written partially (for example after a crash) is ignored.
+     * @param file The file the log has been written to.
+     * @return The log with all complete records.
+     * @throws IOException Thrown when the file can not be read or is not a traffic log.
+     */
+    public static TrafficLog load(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+
+        if(data.length < 16 || input.readInt() != TrafficRecorder.MAGIC)
+            throw new IOException("The file is not a traffic log: " + file);
+        if(input.readInt() != TrafficRecorder.VERSION)
+            throw new IOException("The traffic log has an unsupported version: " + file);
+
+        long startTime = input.readLong();
+
+        int capacity = 1024;
+        boolean[] inbound = new boolean[capacity];
+        long[] timestamps = new long[capacity];
+        int[] starts = new int[capacity];
+        int[] ends = new int[capacity];
+
+        int count = 0;
+        int position = 16;
+        long time = 0;
+
+        while (position < data.length) {
+            int[] cursor = { position + 1 };
+            long delta = readVarLong(data, cursor);
+            long length = readVarLong(data, cursor);
+            if(delta < 0 || length < 0 || cursor[0] + length > data.length)
+                break;
+
+            if(count == capacity) {
+                capacity *= 2;
+                inbound = Arrays.copyOf(inbound, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+
+            time += delta;
+            inbound[count] = data[position] == TrafficRecorder.INBOUND;
+            timestamps[count] = time;
+            starts[count] = cursor[0];
+            ends[count] = cursor[0] + (int) length;
+            count++;
+
+            position = cursor[0] + (int) length;
+        }
+
+        return new TrafficLog(startTime, data,
+                Arrays.copyOf(inbound, count), Arrays.copyOf(timestamps, count),
+                Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+    }
+
+    /**
+     * Reads a variable-length integer.
+     * @return The value, or -1 if the end of the data has been reached before the value was complete.
+     */
+    private static long readVarLong(byte[] data, int[] cursor) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            if(cursor[0] >= data.length)
+                return -1;
+
+            byte b = data[cursor[0]++];
+            value |= (long) (b & 0x7F) << shift;
+
+            if((b & 0x80) == 0)
+                return value;
+        }
+
+        return -1;
+    }
+
+    //region Getters
+
+    /**
+     * @return The wall-clock time in milliseconds at which the recording has been started.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return The amount of records in this log.
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * @return The array which contains the bytes of all records.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @param index The index of the record.
+     * @return True if the line has been received, false if it has been sent.
+     */
+    public boolean isInbound(int index) {
+        return inbound[index];
+    }
+
+    /**
+     * @param index The index of the record.
+     * @return The nanoseconds between the start of the recording and the record.
+     */
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * @param index The index of the record.
+     * @return The position of the first byte of the line in getBytes().
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * @param index The index of the record.
+     * @return The position after the last byte of the line in getBytes().
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    //endregion
+}
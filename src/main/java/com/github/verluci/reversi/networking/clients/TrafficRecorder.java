@@ -0,0 +1,115 @@
+package com.github.verluci.reversi.networking.clients;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes every line that a GameClient receives or sends to an append-only log, which can be replayed by the
+ * TrafficReplayer.
+ *
+ * The log starts with a header (magic, version, wall-clock time of the start in milliseconds) followed by one record
+ * per line: a direction byte, the nanoseconds since the previous record and the length of the line as variable-length
+ * integers, and the bytes of the line without the line-ending. A received move takes about 60 bytes this way.
+ */
+public class TrafficRecorder implements Closeable {
+    static final int MAGIC = 0x52565452;
+    static final int VERSION = 1;
+
+    static final byte INBOUND = 0;
+    static final byte OUTBOUND = 1;
+
+    private final DataOutputStream output;
+    private long previousTime;
+    private boolean isClosed;
+
+    /**
+     * Constructor for TrafficRecorder, an existing file is overwritten.
+     * @param file The file the log is written to.
+     * @throws IOException Thrown when the file could not be created.
+     */
+    public TrafficRecorder(Path file) throws IOException {
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(System.currentTimeMillis());
+
+        previousTime = System.nanoTime();
+    }
+
+    /**
+     * Records a line that has been received from the server.
+     * @param bytes The array that contains the line.
+     * @param start The position of the first byte of the line.
+     * @param end The position after the last byte of the line.
+     */
+    public synchronized void recordInbound(byte[] bytes, int start, int end) {
+        record(INBOUND, bytes, start, end);
+    }
+
+    /**
+     * Records a line that has been sent to the server.
+     * @param line The line without the line-ending.
+     */
+    public synchronized void recordOutbound(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        record(OUTBOUND, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     */
+    public synchronized void flush() {
+        try {
+            if(!isClosed)
+                output.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes all buffered records and closes the file, records after closing are ignored.
+     */
+    @Override
+    public synchronized void close() {
+        if(isClosed)
+            return;
+
+        isClosed = true;
+        try {
+            output.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void record(byte direction, byte[] bytes, int start, int end) {
+        if(isClosed)
+            return;
+
+        long time = System.nanoTime();
+
+        try {
+            output.writeByte(direction);
+            writeVarLong(time - previousTime);
+            writeVarLong(end - start);
+            output.write(bytes, start, end - start);
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+        }
+
+        previousTime = time;
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        output.writeByte((int) value);
+    }
+}
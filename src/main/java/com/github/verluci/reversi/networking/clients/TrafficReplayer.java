@@ -0,0 +1,218 @@
+package com.github.verluci.reversi.networking.clients;
+
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the received lines of a log written by a TrafficRecorder through the parsing and dispatching of a
+ * ProtocolGameClient, so recorded matches can be reproduced locally without a server.
+ *
+ * The lines can be replayed at the original speed, in which case the delay of every line compared to the recording is
+ * measured, or flat out (optionally multiple times) which measures the throughput of the parsing and dispatch path.
+ * Sent lines are not replayed, because the client would only write them to a connection.
+ */
+public class TrafficReplayer {
+    private final TrafficLog log;
+    private final OfflineGameClient client = new OfflineGameClient();
+
+    // The callbacks that register game listeners again after the client has cleared them at the end of a game.
+    private final List<Consumer<GameClient>> gameListeners = new ArrayList<>();
+
+    // The amount of events that have been dispatched to the listeners.
+    private long moves;
+    private long turns;
+    private long gameStarts;
+    private long gameEnds;
+    private long challenges;
+    private boolean gameEnded;
+
+    /**
+     * Constructor for TrafficReplayer
+     * @param log The log that should be replayed.
+     */
+    public TrafficReplayer(TrafficLog log) {
+        this.log = log;
+
+        client.onReceiveChallenge(listener -> challenges++);
+        registerListeners();
+    }
+
+    /**
+     * The client clears its game listeners (onMove, onTurn, onGameStart and onGameEnd) at the end of every game, so
+     * only listeners like onReceiveChallenge that are added directly to it survive past the first game. Game listeners
+     * should be added with addGameListeners() instead.
+     * @return The client that processes the replayed lines.
+     */
+    public GameClient getClient() {
+        return client;
+    }
+
+    /**
+     * Adds game listeners to the client now and again after every game that has ended, so they receive the events of
+     * every game of the replay.
+     * @param registration The callback that adds the game listeners to the given client.
+     */
+    public void addGameListeners(Consumer<GameClient> registration) {
+        gameListeners.add(registration);
+        registration.accept(client);
+    }
+
+    /**
+     * Replays all received lines as fast as possible.
+     * @return The amount of lines that have been replayed.
+     */
+    public int replayFlatOut() {
+        byte[] bytes = log.getBytes();
+        int lines = 0;
+
+        for (int i = 0; i < log.size(); i++) {
+            if(!log.isInbound(i))
+                continue;
+
+            processLine(bytes, log.getStart(i), log.getEnd(i));
+            lines++;
+        }
+
+        return lines;
+    }
+
+    /**
+     * Replays all received lines with the same time between them as in the recording.
+     * @return The largest delay in nanoseconds between the time a line should have been replayed and the time it has.
+     */
+    public long replayRealTime() {
+        byte[] bytes = log.getBytes();
+        long startTime = System.nanoTime();
+        long maximumDelay = 0;
+
+        for (int i = 0; i < log.size(); i++) {
+            if(!log.isInbound(i))
+                continue;
+
+            long replayTime = startTime + log.getTimestamp(i);
+            long remaining;
+            while ((remaining = replayTime - System.nanoTime()) > 0)
+                LockSupport.parkNanos(remaining);
+
+            maximumDelay = Math.max(maximumDelay, System.nanoTime() - replayTime);
+            processLine(bytes, log.getStart(i), log.getEnd(i));
+        }
+
+        return maximumDelay;
+    }
+
+    /**
+     * @return A line with the amount of events that have been dispatched to the listeners.
+     */
+    public String getEventCounts() {
+        return "moves=" + moves + ", turns=" + turns + ", game starts=" + gameStarts + ", game ends=" + gameEnds
+                + ", challenges=" + challenges;
+    }
+
+    private void processLine(byte[] bytes, int start, int end) {
+        client.processLine(bytes, start, end);
+
+        // The listeners of a game are cleared when it ends, so they are registered again for the next game.
+        if(gameEnded) {
+            gameEnded = false;
+            registerListeners();
+        }
+    }
+
+    private void registerListeners() {
+        client.onMove(listener -> moves++);
+        client.onTurn(listener -> turns++);
+        client.onGameStart(listener -> gameStarts++);
+        client.onGameEnd(listener -> {
+            gameEnds++;
+            gameEnded = true;
+        });
+
+        for (Consumer<GameClient> registration : gameListeners)
+            registration.accept(client);
+    }
+
+    /**
+     * An entry-point which replays a traffic log and prints the throughput or the delays of the replay.
+     * @param args -i LOG_FILE, -m MODE (flat or realtime), -n REPETITIONS
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option inputOption = new Option("i", "input", true, "The traffic log that should be replayed.");
+        inputOption.setRequired(true);
+        options.addOption(inputOption);
+
+        Option modeOption = new Option("m", "mode", true,
+                "flat to replay as fast as possible, realtime to replay at the original speed. (default: flat)");
+        modeOption.setRequired(false);
+        options.addOption(modeOption);
+
+        Option repetitionsOption = new Option("n", "repetitions", true,
+                "The amount of times the log is replayed flat out, after a tenth of that as warmup. (default: 100)");
+        repetitionsOption.setRequired(false);
+        options.addOption(repetitionsOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        boolean realTime = "realtime".equalsIgnoreCase(cmd.getOptionValue("mode"));
+        int repetitions = cmd.getOptionValue("repetitions") == null ? 100 : Integer.parseInt(cmd.getOptionValue("repetitions"));
+
+        //endregion
+
+        TrafficLog log = TrafficLog.load(Paths.get(cmd.getOptionValue("input")));
+        long inboundBytes = 0;
+        for (int i = 0; i < log.size(); i++) {
+            if(log.isInbound(i))
+                inboundBytes += log.getEnd(i) - log.getStart(i);
+        }
+
+        String recordedAt = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(log.getStartTime()));
+        System.out.println("Loaded " + log.size() + " records recorded at " + recordedAt + ", duration "
+                + (log.size() == 0 ? 0 : log.getTimestamp(log.size() - 1) / 1_000_000) + "ms.");
+
+        TrafficReplayer replayer = new TrafficReplayer(log);
+
+        if(realTime) {
+            long maximumDelay = replayer.replayRealTime();
+            System.out.println("Replayed at the original speed, maximum delay: " + maximumDelay / 1000 + "us");
+        } else {
+            int warmup = Math.max(1, repetitions / 10);
+            for (int i = 0; i < warmup; i++)
+                replayer.replayFlatOut();
+
+            long lines = 0;
+            long startTime = System.nanoTime();
+            for (int i = 0; i < repetitions; i++)
+                lines += replayer.replayFlatOut();
+            long elapsed = System.nanoTime() - startTime;
+
+            System.out.printf("Replayed %,d lines in %.1fms: %,.0f lines/s, %.1f MB/s, %.0f ns/line%n",
+                    lines, elapsed / 1e6, lines / (elapsed / 1e9),
+                    inboundBytes * (double) repetitions / (elapsed / 1e9) / 1e6, (double) elapsed / Math.max(lines, 1));
+        }
+
+        System.out.println(replayer.getEventCounts());
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.verluci.reversi.networking.clients;
+
+import java.util.Arrays;
+
+/**
+ * Measures how long every stage of a networked turn takes, from receiving SVR GAME YOURTURN until the server has
+ * acknowledged the move with OK, so it can be found out which stage uses the time of a turn.
+ *
+ * Every stage is marked with a timestamp when it is reached. A turn is complete when the move has been acknowledged,
+ * after which the time between every two consecutive marks is added to the samples of the later stage.
+ * The agent can start thinking before the turn has arrived (the move of the opponent is received before the turn),
+ * in that case the waiting time is 0 and the time the move waits for the turn is part of the send stage.
+ */
+public class TurnMetrics {
+    public enum Stage { RECEIVED, DISPATCHED, THINK_STARTED, THINK_FINISHED, WRITTEN, ACKNOWLEDGED }
+
+    // The amount of samples that are kept per stage, older samples are overwritten.
+    private static final int MAXIMUM_SAMPLES = 4096;
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final String[] STAGE_NAMES = { "response", "dispatch", "wait", "think", "send", "ack" };
+
+    private final long[] timestamps = new long[STAGES.length];
+    private final boolean[] marked = new boolean[STAGES.length];
+
+    // The samples per stage, the samples of RECEIVED contain the total time between RECEIVED and WRITTEN.
+    private final long[][] samples = new long[STAGES.length][64];
+    private final int[] sampleCounts = new int[STAGES.length];
+    private long turnCount;
+
+    /**
+     * Marks that the current turn has reached a stage now.
+     * @param stage The stage that has been reached.
+     */
+    public void mark(Stage stage) {
+        mark(stage, System.nanoTime());
+    }
+
+    /**
+     * Marks that the current turn has reached a stage. If the stage has already been reached in the current turn,
+     * the current turn is finished with the stages it has reached and the mark belongs to the next turn.
+     * @param stage The stage that has been reached.
+     * @param time The value of System.nanoTime() at which the stage has been reached.
+     */
+    public synchronized void mark(Stage stage, long time) {
+        if(marked[stage.ordinal()])
+            finishTurn();
+
+        timestamps[stage.ordinal()] = time;
+        marked[stage.ordinal()] = true;
+
+        if(stage == Stage.ACKNOWLEDGED)
+            finishTurn();
+    }
+
+    /**
+     * Forgets the stages of the current turn without adding them to the samples, used when a game has ended.
+     */
+    public synchronized void discardTurn() {
+        Arrays.fill(marked, false);
+    }
+
+    /**
+     * @param stage The stage, RECEIVED gives the time between receiving the turn and writing the move.
+     * @param percentile The percentile between 0 and 100.
+     * @return The duration of the stage at the given percentile in nanoseconds, or 0 if there are no samples.
+     */
+    public synchronized long getPercentile(Stage stage, double percentile) {
+        int count = Math.min(sampleCounts[stage.ordinal()], MAXIMUM_SAMPLES);
+        if(count == 0)
+            return 0;
+
+        long[] sorted = Arrays.copyOf(samples[stage.ordinal()], count);
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(percentile / 100d * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * @return The amount of turns that have been completed.
+     */
+    public synchronized long getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return A line with the 50th, 90th and 99th percentile and the maximum of every stage in milliseconds.
+     */
+    public synchronized String getSummary() {
+        StringBuilder builder = new StringBuilder("Turn latency over " + turnCount + " turns (p50/p90/p99/max ms):");
+
+        for (Stage stage : STAGES) {
+            builder.append(' ').append(STAGE_NAMES[stage.ordinal()]).append('=')
+                    .append(format(getPercentile(stage, 50))).append('/')
+                    .append(format(getPercentile(stage, 90))).append('/')
+                    .append(format(getPercentile(stage, 99))).append('/')
+                    .append(format(getPercentile(stage, 100)));
+        }
+
+        return builder.toString();
+    }
+
+    private void finishTurn() {
+        boolean isComplete = false;
+
+        for (int i = 1; i < STAGES.length; i++) {
+            if(marked[i] && marked[i - 1]) {
+                addSample(i, Math.max(0, timestamps[i] - timestamps[i - 1]));
+                isComplete = true;
+            }
+        }
+
+        int received = Stage.RECEIVED.ordinal();
+        int written = Stage.WRITTEN.ordinal();
+        if(marked[received] && marked[written])
+            addSample(received, Math.max(0, timestamps[written] - timestamps[received]));
+
+        if(isComplete)
+            turnCount++;
+
+        Arrays.fill(marked, false);
+    }
+
+    private void addSample(int stage, long duration) {
+        if(sampleCounts[stage] == samples[stage].length && samples[stage].length < MAXIMUM_SAMPLES)
+            samples[stage] = Arrays.copyOf(samples[stage], samples[stage].length * 2);
+
+        samples[stage][sampleCounts[stage] % MAXIMUM_SAMPLES] = duration;
+        sampleCounts[stage]++;
+    }
+
+    private static String format(long nanoseconds) {
+        return String.format("%.1f", nanoseconds / 1e6);
+    }
+}
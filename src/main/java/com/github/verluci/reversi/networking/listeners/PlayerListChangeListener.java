@@ -0,0 +1,10 @@
+package com.github.verluci.reversi.networking.listeners;
+
+import com.github.verluci.reversi.networking.types.Player;
+
+/**
+ * An interface that should be implemented when creating a listener for when players join or leave the server.
+ */
+public interface PlayerListChangeListener {
+    void onPlayerListChange(Player[] addedPlayers, Player[] removedPlayers);
+}
@@ -0,0 +1,619 @@
+package com.github.verluci.reversi.networking.server;
+
+import com.github.verluci.reversi.game.Game;
+import com.github.verluci.reversi.game.GameFactory;
+import com.github.verluci.reversi.game.OthelloGame;
+import com.github.verluci.reversi.game.TicTacToeGame;
+import org.apache.commons.cli.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local stand-in for the tournament server which speaks the same text-protocol as the GameClients.
+ * It can be used to test the clients and agents under load, and to measure end-to-end latencies on loopback.
+ *
+ * Supported commands: login, logout, exit, get gamelist, get playerlist, subscribe, challenge, challenge accept, move
+ * and forfeit. Reversi and Tic-tac-toe are refereed by the Game classes of the project, a player that makes an
+ * illegal move or exceeds the turn time loses the match.
+ *
+ * A single thread accepts, reads and writes all connections with a Selector, all state of the server is only
+ * used by that thread so none of it has to be synchronized. A connection that fails (for example because of an error
+ * while processing its command) is dropped, and accepting is paused for a moment when it fails, the server itself and
+ * the other connections keep running.
+ */
+public class GameServer implements Closeable {
+
+    //region Declarations
+
+    public static final int DEFAULT_PORT = 7789;
+    public static final long DEFAULT_TURN_TIME = 10_000;
+
+    // The amount of milliseconds accepting is paused after it has failed, for example when there are no file
+    // descriptors left.
+    private static final long ACCEPT_RETRY_DELAY = 100;
+
+    private static final Map<String, Class<? extends Game>> GAME_TYPES = new LinkedHashMap<>();
+
+    static {
+        GAME_TYPES.put("Reversi", OthelloGame.class);
+        GAME_TYPES.put("Tic-tac-toe", TicTacToeGame.class);
+    }
+
+    private final long turnTime;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final SelectionKey serverKey;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(16 * 1024);
+
+    private final Map<String, ServerConnection> players = new LinkedHashMap<>();
+    private final Map<String, ServerConnection> subscriptions = new HashMap<>();
+    private final Map<Integer, Challenge> challenges = new HashMap<>();
+    private final TreeSet<TurnTimeout> timeouts = new TreeSet<>(Comparator.<TurnTimeout>comparingLong(timeout -> timeout.deadline)
+            .thenComparingLong(timeout -> timeout.sequence));
+    private final Map<ServerMatch, TurnTimeout> matchTimeouts = new HashMap<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private int nextChallengeNumber = 1;
+    private long nextTimeoutSequence;
+    private long acceptResumeTime;
+    private boolean isAcceptPaused;
+    private volatile boolean isRunning = true;
+
+    // Statistics, these are only written by the thread of the server.
+    private volatile int connectionCount;
+    private volatile int runningMatches;
+    private volatile long finishedMatches;
+    private volatile long moveCount;
+    private volatile long totalTurnTime;
+
+    //endregion
+
+    /**
+     * Constructor for GameServer, the server starts accepting connections when run() is called.
+     * @param port The port the server listens on, 0 to choose a free port.
+     * @param turnTime The amount of milliseconds a player is allowed to use per move.
+     * @throws IOException Thrown when the port could not be opened.
+     */
+    public GameServer(int port, long turnTime) throws IOException {
+        this.turnTime = turnTime;
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Runs the server on the current thread until close() is called.
+     */
+    public void run() {
+        try {
+            while (isRunning) {
+                long wakeupTime = getWakeupTime();
+                if(wakeupTime == Long.MAX_VALUE)
+                    selector.select();
+                else
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wakeupTime - System.nanoTime())));
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    if(!key.isValid())
+                        continue;
+
+                    if(key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    ServerConnection connection = (ServerConnection) key.attachment();
+                    try {
+                        if(key.isWritable())
+                            connection.flush();
+                        if(key.isValid() && key.isReadable())
+                            read(key, connection);
+                    } catch (RuntimeException e) {
+                        // Only the connection whose command has failed is dropped.
+                        e.printStackTrace();
+                        dropConnection(connection);
+                    }
+                }
+
+                if(isAcceptPaused && System.nanoTime() - acceptResumeTime >= 0) {
+                    isAcceptPaused = false;
+                    serverKey.interestOps(SelectionKey.OP_ACCEPT);
+                }
+
+                processTimeouts();
+            }
+
+            for (SelectionKey key : selector.keys())
+                key.channel().close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the server and closes all connections.
+     */
+    @Override
+    public void close() {
+        tasks.add(() -> isRunning = false);
+        selector.wakeup();
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return A line with the amount of connections, matches and moves, and the average time players take per turn.
+     */
+    public String getStatistics() {
+        long moves = moveCount;
+        return "connections=" + connectionCount + ", running matches=" + runningMatches + ", finished matches=" + finishedMatches
+                + ", moves=" + moves + ", average turn=" + (moves == 0 ? 0 : totalTurnTime / moves / 1000) + "us";
+    }
+
+    //region Connections
+
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                System.out.println("Failed to accept a connection, retrying in " + ACCEPT_RETRY_DELAY + "ms: " + e.getMessage());
+                pauseAccepting();
+                return;
+            }
+
+            if(channel == null)
+                return;
+
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                ServerConnection connection = new ServerConnection(channel, key);
+                key.attach(connection);
+                connectionCount++;
+
+                connection.send("Strategic Game Server Fixed [Version 1.1.0]");
+                connection.send("(C) Copyright 2015 Hanzehogeschool Groningen");
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeChannel(channel);
+            }
+        }
+    }
+
+    /**
+     * Stops selecting the server channel for ACCEPT_RETRY_DELAY, otherwise a failing accept is selected again at once.
+     */
+    private void pauseAccepting() {
+        isAcceptPaused = true;
+        acceptResumeTime = System.nanoTime() + ACCEPT_RETRY_DELAY * 1_000_000L;
+        serverKey.interestOps(0);
+    }
+
+    /**
+     * @return The value of System.nanoTime() at which the server has to wake up, or Long.MAX_VALUE.
+     */
+    private long getWakeupTime() {
+        long wakeupTime = timeouts.isEmpty() ? Long.MAX_VALUE : timeouts.first().deadline;
+        if(isAcceptPaused && (wakeupTime == Long.MAX_VALUE || acceptResumeTime - wakeupTime < 0))
+            wakeupTime = acceptResumeTime;
+
+        return wakeupTime;
+    }
+
+    private void read(SelectionKey key, ServerConnection connection) {
+        int read;
+
+        try {
+            while ((read = connection.getChannel().read(readBuffer)) > 0) {
+                readBuffer.flip();
+                connection.append(readBuffer);
+                readBuffer.clear();
+            }
+        } catch (IOException e) {
+            read = -1;
+        }
+
+        String line;
+        while (key.isValid() && (line = connection.nextLine()) != null)
+            processCommand(connection, line.trim());
+
+        if(read < 0 || !key.isValid())
+            disconnect(connection);
+    }
+
+    private void disconnect(ServerConnection connection) {
+        if(!connection.getChannel().isOpen())
+            return;
+
+        if(connection.getMatch() != null)
+            connection.getMatch().disconnect(connection);
+
+        if(connection.getSubscription() != null)
+            subscriptions.remove(connection.getSubscription(), connection);
+
+        if(connection.getName() != null) {
+            players.remove(connection.getName());
+            challenges.values().removeIf(challenge -> challenge.challenger == connection || challenge.opponent == connection);
+        }
+
+        closeChannel(connection.getChannel());
+        connectionCount--;
+    }
+
+    /**
+     * Disconnects a connection after processing it has failed, its channel is closed even when disconnecting fails.
+     */
+    private void dropConnection(ServerConnection connection) {
+        try {
+            disconnect(connection);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+
+            if(connection.getChannel().isOpen()) {
+                closeChannel(connection.getChannel());
+                connectionCount--;
+            }
+        }
+    }
+
+    private static void closeChannel(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //endregion
+
+    //region Commands
+
+    private void processCommand(ServerConnection connection, String line) {
+        String lowerCase = line.toLowerCase();
+
+        if(lowerCase.isEmpty())
+            return;
+
+        if(lowerCase.startsWith("login ")) {
+            login(connection, line.substring("login ".length()).trim());
+        } else if(lowerCase.equals("logout") || lowerCase.equals("exit") || lowerCase.equals("quit") || lowerCase.equals("disconnect") || lowerCase.equals("bye")) {
+            connection.flush();
+            disconnect(connection);
+        } else if(lowerCase.equals("get gamelist")) {
+            connection.send("OK");
+            connection.send("SVR GAMELIST " + toList(GAME_TYPES.keySet()));
+        } else if(lowerCase.equals("get playerlist")) {
+            connection.send("OK");
+            connection.send("SVR PLAYERLIST " + toList(players.keySet()));
+        } else if(connection.getName() == null) {
+            connection.send("ERR Not logged in");
+        } else if(lowerCase.startsWith("subscribe ")) {
+            subscribe(connection, line.substring("subscribe ".length()).trim());
+        } else if(lowerCase.startsWith("challenge accept ")) {
+            acceptChallenge(connection, line.substring("challenge accept ".length()).trim());
+        } else if(lowerCase.startsWith("challenge ")) {
+            challenge(connection, line.substring("challenge ".length()));
+        } else if(lowerCase.startsWith("move ")) {
+            move(connection, line.substring("move ".length()).trim());
+        } else if(lowerCase.equals("forfeit")) {
+            if(connection.getMatch() == null) {
+                connection.send("ERR Not in any match");
+            } else {
+                connection.send("OK");
+                connection.getMatch().forfeit(connection);
+            }
+        } else {
+            connection.send("ERR Unknown command");
+        }
+    }
+
+    private void login(ServerConnection connection, String name) {
+        if(connection.getName() != null)
+            connection.send("ERR Already logged in");
+        else if(name.isEmpty())
+            connection.send("ERR No name entered");
+        else if(players.containsKey(name))
+            connection.send("ERR Duplicate name exists");
+        else {
+            connection.setName(name);
+            players.put(name, connection);
+            connection.send("OK");
+        }
+    }
+
+    private void subscribe(ServerConnection connection, String gameType) {
+        if(!GAME_TYPES.containsKey(gameType)) {
+            connection.send("ERR Unknown game: '" + gameType + "'");
+            return;
+        }
+
+        if(connection.getSubscription() != null)
+            subscriptions.remove(connection.getSubscription(), connection);
+
+        connection.send("OK");
+
+        ServerConnection waitingPlayer = subscriptions.get(gameType);
+        if(waitingPlayer == null || waitingPlayer == connection || waitingPlayer.getMatch() != null || connection.getMatch() != null) {
+            if(waitingPlayer != null)
+                waitingPlayer.setSubscription(null);
+
+            subscriptions.put(gameType, connection);
+            connection.setSubscription(gameType);
+            return;
+        }
+
+        subscriptions.remove(gameType);
+        waitingPlayer.setSubscription(null);
+        connection.setSubscription(null);
+
+        startMatch(gameType, waitingPlayer, connection);
+    }
+
+    private void challenge(ServerConnection connection, String arguments) {
+        String[] parts = arguments.split("\"");
+        if(parts.length < 4) {
+            connection.send("ERR Syntax error: challenge \"<player>\" \"<game>\"");
+            return;
+        }
+
+        ServerConnection opponent = players.get(parts[1]);
+        String gameType = parts[3];
+
+        if(opponent == null || opponent == connection) {
+            connection.send("ERR Unknown player: '" + parts[1] + "'");
+        } else if(!GAME_TYPES.containsKey(gameType)) {
+            connection.send("ERR Unknown game: '" + gameType + "'");
+        } else {
+            int number = nextChallengeNumber++;
+            challenges.put(number, new Challenge(connection, opponent, gameType));
+
+            connection.send("OK");
+            opponent.send("SVR GAME CHALLENGE {CHALLENGER: \"" + connection.getName() + "\", GAMETYPE: \"" + gameType
+                    + "\", CHALLENGENUMBER: \"" + number + "\", TURNTIME: \"" + turnTime / 1000 + "\"}");
+        }
+    }
+
+    private void acceptChallenge(ServerConnection connection, String number) {
+        Challenge challenge;
+        try {
+            challenge = challenges.get(Integer.parseInt(number));
+        } catch (NumberFormatException e) {
+            challenge = null;
+        }
+
+        if(challenge == null || challenge.opponent != connection) {
+            connection.send("ERR Invalid challenge number: '" + number + "'");
+            return;
+        }
+
+        if(challenge.challenger.getMatch() != null || connection.getMatch() != null) {
+            connection.send("ERR Player is already in a match");
+            return;
+        }
+
+        challenges.remove(Integer.parseInt(number));
+        connection.send("OK");
+
+        startMatch(challenge.gameType, challenge.challenger, connection);
+    }
+
+    private void move(ServerConnection connection, String position) {
+        if(connection.getMatch() == null) {
+            connection.send("ERR Not in any match");
+            return;
+        }
+
+        int move;
+        try {
+            move = Integer.parseInt(position);
+        } catch (NumberFormatException e) {
+            connection.send("ERR Invalid move: '" + position + "'");
+            return;
+        }
+
+        connection.getMatch().move(connection, move);
+    }
+
+    //endregion
+
+    //region Matches
+
+    private void startMatch(String gameType, ServerConnection player1, ServerConnection player2) {
+        Game game = GameFactory.createGame(GAME_TYPES.get(gameType));
+
+        runningMatches++;
+        new ServerMatch(this, gameType, game, player1, player2).start();
+    }
+
+    /**
+     * Called by a match when a turn has been given to a player, this replaces the timeout of the previous turn.
+     * @param match The match the turn belongs to.
+     * @param turn The number of the turn.
+     */
+    void scheduleTimeout(ServerMatch match, int turn) {
+        TurnTimeout timeout = new TurnTimeout(System.nanoTime() + turnTime * 1_000_000L, nextTimeoutSequence++, match, turn);
+
+        TurnTimeout previousTimeout = matchTimeouts.put(match, timeout);
+        if(previousTimeout != null)
+            timeouts.remove(previousTimeout);
+
+        timeouts.add(timeout);
+    }
+
+    /**
+     * Called by a match when a player has responded to its turn.
+     * @param nanoseconds The time between sending the turn and receiving the move.
+     */
+    void recordTurnTime(long nanoseconds) {
+        moveCount++;
+        totalTurnTime += nanoseconds;
+    }
+
+    /**
+     * Called by a match when it has ended.
+     * @param match The match that has ended.
+     */
+    void matchEnded(ServerMatch match) {
+        TurnTimeout timeout = matchTimeouts.remove(match);
+        if(timeout != null)
+            timeouts.remove(timeout);
+
+        runningMatches--;
+        finishedMatches++;
+    }
+
+    private void processTimeouts() {
+        long now = System.nanoTime();
+
+        // Only the timeout of the current turn of a running match is in the queue.
+        while (!timeouts.isEmpty() && timeouts.first().deadline - now <= 0) {
+            TurnTimeout timeout = timeouts.pollFirst();
+            matchTimeouts.remove(timeout.match, timeout);
+
+            try {
+                timeout.match.timeout(timeout.turn);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    //endregion
+
+    private static String toList(Collection<String> names) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (String name : names)
+            joiner.add("\"" + name + "\"");
+
+        return joiner.toString();
+    }
+
+    /**
+     * A challenge that has been sent but not accepted yet.
+     */
+    private static class Challenge {
+        private final ServerConnection challenger;
+        private final ServerConnection opponent;
+        private final String gameType;
+
+        private Challenge(ServerConnection challenger, ServerConnection opponent, String gameType) {
+            this.challenger = challenger;
+            this.opponent = opponent;
+            this.gameType = gameType;
+        }
+    }
+
+    /**
+     * The moment at which a turn of a match ends, timeouts with the same deadline are ordered by their sequence.
+     */
+    private static class TurnTimeout {
+        private final long deadline;
+        private final long sequence;
+        private final ServerMatch match;
+        private final int turn;
+
+        private TurnTimeout(long deadline, long sequence, ServerMatch match, int turn) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.match = match;
+            this.turn = turn;
+        }
+    }
+
+    /**
+     * An entry-point which runs a local game server.
+     * @param args -p PORT, -tt TURN_TIME, -s STATISTICS_INTERVAL
+     */
+    public static void main(String[] args) throws IOException {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option portOption = new Option("p", "port", true, "The port the server listens on. (default: 7789)");
+        portOption.setRequired(false);
+        options.addOption(portOption);
+
+        Option turnTimeOption = new Option("tt", "turntime", true,
+                "The amount of seconds a player is allowed to use per move. (default: 10)");
+        turnTimeOption.setRequired(false);
+        options.addOption(turnTimeOption);
+
+        Option statisticsOption = new Option("s", "statistics", true,
+                "The amount of seconds between printing the statistics of the server, 0 to disable. (default: 10)");
+        statisticsOption.setRequired(false);
+        options.addOption(statisticsOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        int port = cmd.getOptionValue("port") == null ? DEFAULT_PORT : Integer.parseInt(cmd.getOptionValue("port"));
+        long turnTime = cmd.getOptionValue("turntime") == null ? DEFAULT_TURN_TIME : (long) (Double.parseDouble(cmd.getOptionValue("turntime")) * 1000d);
+        long statisticsInterval = cmd.getOptionValue("statistics") == null ? 10_000 : (long) (Double.parseDouble(cmd.getOptionValue("statistics")) * 1000d);
+
+        //endregion
+
+        GameServer server = new GameServer(port, turnTime);
+        System.out.println("The server is listening on port " + server.getPort() + ".");
+
+        if(statisticsInterval > 0) {
+            Thread statisticsThread = new Thread(() -> {
+                try {
+                    while (true) {
+                        Thread.sleep(statisticsInterval);
+                        System.out.println(server.getStatistics());
+                    }
+                } catch (InterruptedException e) {
+                    // The server has stopped.
+                }
+            }, "GameServer-statistics");
+            statisticsThread.setDaemon(true);
+            statisticsThread.start();
+        }
+
+        server.run();
+    }
+}
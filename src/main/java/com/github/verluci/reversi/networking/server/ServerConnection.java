@@ -0,0 +1,154 @@
+package com.github.verluci.reversi.networking.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A single client that is connected to the GameServer.
+ * All methods of this class are called from the thread of the GameServer.
+ */
+class ServerConnection {
+    private static final int BUFFER_SIZE = 1024;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+
+    private byte[] lineBytes = new byte[BUFFER_SIZE];
+    private int lineLength;
+    private ByteBuffer outgoing = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private String name;
+    private String subscription;
+    private ServerMatch match;
+
+    /**
+     * Constructor for ServerConnection
+     * @param channel The channel of the client.
+     * @param key The key with which the channel is registered at the selector of the server.
+     */
+    ServerConnection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    //region Reading
+
+    /**
+     * Adds bytes that have been read from the channel to the incomplete line.
+     * @param buffer A buffer in read-mode.
+     */
+    void append(ByteBuffer buffer) {
+        int read = buffer.remaining();
+        if(lineLength + read > lineBytes.length)
+            lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, lineLength + read));
+
+        buffer.get(lineBytes, lineLength, read);
+        lineLength += read;
+    }
+
+    /**
+     * Removes the first complete line from the received bytes.
+     * @return The line without the line-ending, or null if there is no complete line.
+     */
+    String nextLine() {
+        for (int i = 0; i < lineLength; i++) {
+            if(lineBytes[i] != '\n')
+                continue;
+
+            int lineEnd = i;
+            if(lineEnd > 0 && lineBytes[lineEnd - 1] == '\r')
+                lineEnd--;
+
+            String line = new String(lineBytes, 0, lineEnd, StandardCharsets.ISO_8859_1);
+            System.arraycopy(lineBytes, i + 1, lineBytes, 0, lineLength - i - 1);
+            lineLength -= i + 1;
+
+            return line;
+        }
+
+        return null;
+    }
+
+    //endregion
+
+    //region Writing
+
+    /**
+     * Sends a line to the client, the part that could not be written yet is written when the channel is writable.
+     * @param line The line that should be sent. (without the line-ending)
+     */
+    void send(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.ISO_8859_1);
+
+        if(outgoing.remaining() < bytes.length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(outgoing.capacity() * 2, outgoing.position() + bytes.length));
+            outgoing.flip();
+            larger.put(outgoing);
+            outgoing = larger;
+        }
+
+        outgoing.put(bytes);
+        flush();
+    }
+
+    /**
+     * Writes as much of the outgoing bytes to the channel as possible.
+     */
+    void flush() {
+        if(!key.isValid())
+            return;
+
+        try {
+            outgoing.flip();
+            channel.write(outgoing);
+            outgoing.compact();
+        } catch (IOException e) {
+            // The connection is closed by the server when reading from it fails as well.
+            outgoing.clear();
+            return;
+        }
+
+        if(outgoing.position() > 0)
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        else
+            key.interestOps(SelectionKey.OP_READ);
+    }
+
+    //endregion
+
+    //region Getters and Setters
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    String getSubscription() {
+        return subscription;
+    }
+
+    void setSubscription(String subscription) {
+        this.subscription = subscription;
+    }
+
+    ServerMatch getMatch() {
+        return match;
+    }
+
+    void setMatch(ServerMatch match) {
+        this.match = match;
+    }
+
+    //endregion
+}
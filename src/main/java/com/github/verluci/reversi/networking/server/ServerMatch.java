@@ -0,0 +1,160 @@
+package com.github.verluci.reversi.networking.server;
+
+import com.github.verluci.reversi.game.Game;
+
+/**
+ * A match between two connections on the GameServer, the moves are refereed by a Game of the project itself.
+ * The starting player is always PLAYER1 in the Game, this is also the player the scores of PLAYERONESCORE belong to.
+ * All methods of this class are called from the thread of the GameServer.
+ */
+class ServerMatch {
+    private final GameServer server;
+    private final String gameType;
+    private final Game game;
+    private final ServerConnection player1;
+    private final ServerConnection player2;
+
+    private String endComment = "";
+    private Game.Player winner;
+    private int playerOneScore;
+    private int playerTwoScore;
+    private int turnNumber;
+    private long turnStartTime;
+
+    /**
+     * Constructor for ServerMatch
+     * @param server The server on which the match is played.
+     * @param gameType The name of the game.
+     * @param game The game that referees the moves.
+     * @param player1 The connection that is allowed to make the first move.
+     * @param player2 The opponent of player1.
+     */
+    ServerMatch(GameServer server, String gameType, Game game, ServerConnection player1, ServerConnection player2) {
+        this.server = server;
+        this.gameType = gameType;
+        this.game = game;
+        this.player1 = player1;
+        this.player2 = player2;
+
+        game.onGameEnd((winner, playerOneScore, playerTwoScore) -> {
+            this.winner = winner;
+            this.playerOneScore = playerOneScore;
+            this.playerTwoScore = playerTwoScore;
+        });
+    }
+
+    /**
+     * Sends the match to both players, starts the game and gives the turn to the starting player.
+     */
+    void start() {
+        player1.setMatch(this);
+        player2.setMatch(this);
+
+        player1.send("SVR GAME MATCH {PLAYERTOMOVE: \"" + player1.getName() + "\", GAMETYPE: \"" + gameType + "\", OPPONENT: \"" + player2.getName() + "\"}");
+        player2.send("SVR GAME MATCH {PLAYERTOMOVE: \"" + player1.getName() + "\", GAMETYPE: \"" + gameType + "\", OPPONENT: \"" + player1.getName() + "\"}");
+
+        game.startGame(Game.Player.PLAYER1);
+        giveTurn();
+    }
+
+    /**
+     * Performs a move of a player, an illegal move ends the match with a loss for that player.
+     * @param connection The player that performs the move.
+     * @param position The position of the move.
+     */
+    void move(ServerConnection connection, int position) {
+        Game.Player player = getPlayer(connection);
+        if(player != game.getCurrentPlayer()) {
+            connection.send("ERR Not your turn");
+            return;
+        }
+
+        server.recordTurnTime(System.nanoTime() - turnStartTime);
+
+        int xSize = game.getBoard().getXSize();
+        int ySize = game.getBoard().getYSize();
+        if(position < 0 || position >= xSize * ySize || !game.tryMove(player, position % xSize, position / xSize)) {
+            connection.send("ERR Illegal move");
+            end(Game.getOppositePlayer(player), "Illegal move");
+            return;
+        }
+
+        connection.send("OK");
+
+        String move = "SVR GAME MOVE {PLAYER: \"" + connection.getName() + "\", MOVE: \"" + position + "\", DETAILS: \"\"}";
+        player1.send(move);
+        player2.send(move);
+
+        if(game.getCurrentGameState() == Game.GameState.RUNNING)
+            giveTurn();
+        else
+            sendResults();
+    }
+
+    /**
+     * Ends the match with a loss for the player that forfeits.
+     * @param connection The player that forfeits.
+     */
+    void forfeit(ServerConnection connection) {
+        end(Game.getOppositePlayer(getPlayer(connection)), "Player forfeited match");
+    }
+
+    /**
+     * Ends the match with a loss for a player that has disconnected.
+     * @param connection The player that has disconnected.
+     */
+    void disconnect(ServerConnection connection) {
+        end(Game.getOppositePlayer(getPlayer(connection)), "Client disconnected");
+    }
+
+    /**
+     * Ends the match with a loss for the current player if the given turn has not ended yet.
+     * @param turn The number of the turn the timer belongs to.
+     */
+    void timeout(int turn) {
+        if(turn == turnNumber && game.getCurrentGameState() == Game.GameState.RUNNING)
+            end(Game.getOppositePlayer(game.getCurrentPlayer()), "Turn timelimit reached");
+    }
+
+    private void giveTurn() {
+        turnNumber++;
+        turnStartTime = System.nanoTime();
+
+        getConnection(game.getCurrentPlayer()).send("SVR GAME YOURTURN {TURNMESSAGE: \"\"}");
+        server.scheduleTimeout(this, turnNumber);
+    }
+
+    private void end(Game.Player winner, String comment) {
+        endComment = comment;
+        game.stopGame(winner);
+        sendResults();
+    }
+
+    /**
+     * Sends the result to both players after the game has ended, either by the rules of the game or by end().
+     * The result is sent after the last move, so it is stored by the listener of the game and not sent from there.
+     */
+    private void sendResults() {
+        String details = " {PLAYERONESCORE: \"" + playerOneScore + "\", PLAYERTWOSCORE: \"" + playerTwoScore + "\", COMMENT: \"" + endComment + "\"}";
+
+        if(winner == Game.Player.UNDEFINED) {
+            player1.send("SVR GAME DRAW" + details);
+            player2.send("SVR GAME DRAW" + details);
+        } else {
+            getConnection(winner).send("SVR GAME WIN" + details);
+            getConnection(Game.getOppositePlayer(winner)).send("SVR GAME LOSS" + details);
+        }
+
+        player1.setMatch(null);
+        player2.setMatch(null);
+        server.matchEnded(this);
+    }
+
+    private Game.Player getPlayer(ServerConnection connection) {
+        return connection == player1 ? Game.Player.PLAYER1 : Game.Player.PLAYER2;
+    }
+
+    private ServerConnection getConnection(Game.Player player) {
+        return player == Game.Player.PLAYER1 ? player1 : player2;
+    }
+}
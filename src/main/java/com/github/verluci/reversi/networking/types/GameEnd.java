@@ -23,6 +23,21 @@ public class GameEnd {
         this.comment = comment;
     }
 
+    /**
+     * Replaces the contents of this object, this is used by the GameClient to reuse a single instance for every
+     * ended match. Listeners should copy the values they want to keep after the listener has returned.
+     * @param result The result of the match.
+     * @param playerOneScore The total-score of player-one.
+     * @param playerTwoScore The total-score of player-two.
+     * @param comment A message on how the game has ended.
+     */
+    public void set(GameResult result, int playerOneScore, int playerTwoScore, String comment) {
+        this.result = result;
+        this.playerOneScore = playerOneScore;
+        this.playerTwoScore = playerTwoScore;
+        this.comment = comment;
+    }
+
     /**
      * @return The result of the match.
      */
@@ -20,6 +20,19 @@ public class GameStart {
         this.gameType = gameType;
     }
 
+    /**
+     * Replaces the contents of this object, this is used by the GameClient to reuse a single instance for every
+     * started match. Listeners should copy the values they want to keep after the listener has returned.
+     * @param startingPlayer The player that can make the first move.
+     * @param opponent The player that is played against.
+     * @param gameType The type of game that is being played.
+     */
+    public void set(Player startingPlayer, Player opponent, String gameType) {
+        this.startingPlayer = startingPlayer;
+        this.opponent = opponent;
+        this.gameType = gameType;
+    }
+
     /**
      * @return The player that can start first.
      */
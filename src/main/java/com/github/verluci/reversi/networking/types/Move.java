@@ -20,6 +20,19 @@ public class Move {
         this.details = details;
     }
 
+    /**
+     * Replaces the contents of this move, this is used by the GameClient to reuse a single instance for every
+     * received move. Listeners should copy the values they want to keep after the listener has returned.
+     * @param player The player that made the move.
+     * @param move The move that has been made.
+     * @param details Information about the move that has been made.
+     */
+    public void set(Player player, int move, String details) {
+        this.player = player;
+        this.move = move;
+        this.details = details;
+    }
+
     /**
      * @return The player that made the move.
      */
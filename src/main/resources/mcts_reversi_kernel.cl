@@ -313,3 +313,48 @@ __kernel void mctsKernel(
     // The evaluation is passed to results negative since a single move has already been made which inverts the out-going value.
     results[global_id] = -evaluate_board(players, random_numbers, global_id);
 }
+
+/*
+ * A debug entry-point that exposes the move generation of this kernel for a list of positions,
+ * so it can be checked against the move generation on the CPU (see Perft).
+ *
+ * param: positions         Is an array with 2 values per position: the tiles of the player to move and the tiles of the opponent.
+ * param: valid_moves       Is an array with 1 value per position in which the bits of all valid moves of the player are set.
+ * param: opponent_can_move Is an array with 1 value per position that is 1 if the opponent has a valid move, otherwise 0.
+ * param: move_results      Is an array with 64 values per position with the tiles of the player after a move on that tile,
+                                or 0 if the move is not valid.
+ */
+__kernel void moveGenerationKernel(
+    __global const unsigned long* positions,
+    __global unsigned long* valid_moves,
+    __global int* opponent_can_move,
+    __global unsigned long* move_results)
+{
+    // Retrieve the global_id of this thread.
+    __private int global_id = get_global_id(0);
+
+    unsigned long player = positions[global_id * 2];
+    unsigned long opponent = positions[global_id * 2 + 1];
+    unsigned long moves = 0UL;
+
+    for (int i = 0; i < 64; i++) {
+        unsigned long result = 0UL;
+
+        if (is_correct_move(i, player, opponent)) {
+            __private unsigned long players[2];
+            players[0] = player;
+            players[1] = opponent;
+
+            // make_move() passes the turn, so the player that made the move is in players[1] afterwards.
+            make_move(i, players);
+
+            moves = moves | (1UL << i);
+            result = players[1];
+        }
+
+        move_results[global_id * 64 + i] = result;
+    }
+
+    valid_moves[global_id] = moves;
+    opponent_can_move[global_id] = valid_move_available(opponent, player) ? 1 : 0;
+}
@@ -0,0 +1,98 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.Perft.*;
+import com.github.verluci.reversi.game.bitboard.BitBoard;
+import com.github.verluci.reversi.gpgpu.GraphicsDevice;
+import com.github.verluci.reversi.gpgpu.JOCLSample;
+import com.github.verluci.reversi.gpgpu.KernelMoveGenerator;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class contains the tests of the move generators, which count the leaf nodes of the game-tree from the starting
+ * position (perft) and compare them with the published counts.
+ */
+public class PerftTest {
+    // The perft counts of the starting position for the depths 1 to 6.
+    private static final long[] EXPECTED_COUNTS = { 4L, 12L, 56L, 244L, 1396L, 8200L };
+
+    //region CPU Move Generators
+
+    /**
+     * A Test to make sure the BitBoard generates the right moves and flips.
+     */
+    @Test
+    public void shouldCountBitBoardMoves() {
+        for (int depth = 1; depth <= EXPECTED_COUNTS.length; depth++)
+            Assert.assertEquals("depth " + depth, EXPECTED_COUNTS[depth - 1], perft(depth, new BitBoardMoveGenerator()));
+    }
+
+    /**
+     * A Test to make sure the Tile[][] rules of the OthelloGame generate the right moves and flips.
+     */
+    @Test
+    public void shouldCountTileMoves() {
+        for (int depth = 1; depth <= EXPECTED_COUNTS.length; depth++)
+            Assert.assertEquals("depth " + depth, EXPECTED_COUNTS[depth - 1], perft(depth, new TileMoveGenerator()));
+    }
+
+    /**
+     * A Test to make sure the parallel perft counts the same nodes as the single-threaded perft.
+     */
+    @Test
+    public void shouldCountMovesInParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (int depth = 1; depth <= EXPECTED_COUNTS.length; depth++) {
+                long count = Perft.perft(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT, depth, BitBoardMoveGenerator::new, pool);
+                Assert.assertEquals("depth " + depth, EXPECTED_COUNTS[depth - 1], count);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A Test to make sure the level-wise perft of the batch generators counts the same nodes, every position is
+     * checked against the BitBoard as well.
+     */
+    @Test
+    public void shouldCountBatchMoves() {
+        for (int depth = 1; depth <= EXPECTED_COUNTS.length; depth++)
+            Assert.assertEquals("depth " + depth, EXPECTED_COUNTS[depth - 1], perft(depth, new BitBoardBatchMoveGenerator()));
+    }
+
+    //endregion
+
+    //region OpenCL Move Generator
+
+    /**
+     * A Test to make sure the move generation of the OpenCL kernel generates the right moves and flips.
+     * This test is skipped when there is no graphics-device.
+     */
+    @Test
+    public void shouldCountKernelMoves() {
+        List<GraphicsDevice> graphicsDevices = JOCLSample.getGraphicsDevices();
+        Assume.assumeFalse("No graphics-device is available.", graphicsDevices.isEmpty());
+
+        try (KernelMoveGenerator generator = new KernelMoveGenerator(graphicsDevices.get(0))) {
+            for (int depth = 1; depth <= EXPECTED_COUNTS.length; depth++)
+                Assert.assertEquals("depth " + depth, EXPECTED_COUNTS[depth - 1], perft(depth, generator));
+        }
+    }
+
+    //endregion
+
+    private static long perft(int depth, MoveGenerator generator) {
+        return Perft.perft(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT, depth, generator);
+    }
+
+    private static long perft(int depth, BatchMoveGenerator generator) {
+        return Perft.perft(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT, depth, generator, new BitBoardMoveGenerator());
+    }
+}
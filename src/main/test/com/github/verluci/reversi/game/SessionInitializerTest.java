@@ -0,0 +1,65 @@
+package com.github.verluci.reversi.game;
+
+import com.github.verluci.reversi.game.agents.RandomMoveAIAgent;
+import com.github.verluci.reversi.game.events.EventDispatcher;
+import com.github.verluci.reversi.networking.clients.TelnetGameClient;
+import com.github.verluci.reversi.networking.types.Player;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains the tests of the matches that are played through a GameClient.
+ */
+public class SessionInitializerTest {
+    private static final String MATCH = "SVR GAME MATCH {PLAYERTOMOVE: \"Janneke\", GAMETYPE: \"Reversi\", OPPONENT: \"Janneke\"}";
+    private static final String LOSS = "SVR GAME LOSS {PLAYERONESCORE: \"2\", PLAYERTWOSCORE: \"0\", COMMENT: \"Player forfeited match\"}";
+
+    /**
+     * A Test to make sure every match that is started through the same client is played, and that the second match is
+     * played by the agent of the first. The end of the first match and the start of the second are processed right
+     * after each other, like they can arrive in the same packet, so the second match must not be refused while the
+     * agent is still busy with the first.
+     */
+    @Test
+    public void shouldPlayMatchesInARow() throws InterruptedException {
+        TelnetGameClient gameClient = new TelnetGameClient();
+        gameClient.setEventDispatcher(new EventDispatcher(EventDispatcher.newEventThread("GameClient-events")));
+
+        // The agents that have been created and the games they have been given.
+        List<RandomMoveAIAgent> agents = new CopyOnWriteArrayList<>();
+        List<Game> agentGames = new CopyOnWriteArrayList<>();
+        MatchPool matchPool = new MatchPool(() -> {
+            RandomMoveAIAgent agent = new RandomMoveAIAgent() {
+                @Override
+                public void setGame(Game game) {
+                    super.setGame(game);
+                    agentGames.add(game);
+                }
+            };
+            agents.add(agent);
+            return agent;
+        }, 1, new SessionScheduler(), true);
+
+        List<Game> games = new CopyOnWriteArrayList<>();
+        CountDownLatch gamesEnded = new CountDownLatch(2);
+        SessionInitializer.playMatches(gameClient, new Player("Jip"), matchPool, game -> {
+            games.add(game);
+            game.onGameEnd((winner, playerOneScore, playerTwoScore) -> gamesEnded.countDown());
+        });
+
+        gameClient.processQueuedString(MATCH);
+        gameClient.processQueuedString(LOSS);
+        gameClient.processQueuedString(MATCH);
+        gameClient.processQueuedString(LOSS);
+
+        Assert.assertTrue("Not every match has ended.", gamesEnded.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, games.size());
+        Assert.assertEquals(1, agents.size());
+        Assert.assertEquals(games, agentGames);
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class contains the tests of the proofs of the EndgameSolver and the SearchTree, which are compared with a plain
+ * minimax search of random positions near the end of the game.
+ */
+public class EndgameSolverTest {
+    private static final long SEED = 49L;
+    private static final int POSITION_COUNT = 300;
+    private static final int EMPTY_TILES = 9;
+
+    //region EndgameSolver
+
+    /**
+     * A Test to make sure the EndgameSolver proves the same result as minimax.
+     */
+    @Test
+    public void shouldProvePositionsLikeMinimax() {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < POSITION_COUNT; i++) {
+            long[] position = createPosition(random, EMPTY_TILES);
+            Proof expected = Proof.fromDiscDifference(minimax(position[0], position[1]));
+
+            Assert.assertEquals(describe(position), expected, new EndgameSolver(Long.MAX_VALUE).prove(position[0], position[1]));
+        }
+    }
+
+    /**
+     * A Test to make sure the EndgameSolver proves the moves like minimax, and that the best move of the statistics
+     * reaches the result of the position.
+     */
+    @Test
+    public void shouldProveMovesLikeMinimax() {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < POSITION_COUNT; i++) {
+            long[] position = createPosition(random, EMPTY_TILES);
+            MoveStatistics statistics = new MoveStatistics(position[0], position[1]);
+
+            Assert.assertTrue(describe(position), new EndgameSolver(Long.MAX_VALUE).prove(statistics));
+            Assert.assertTrue(describe(position), statistics.isSolved());
+
+            // The moves after a winning move are not proven anymore.
+            for (int m = 0; m < statistics.getMoveCount(); m++) {
+                if(statistics.getProof(m) != Proof.UNPROVEN)
+                    Assert.assertEquals(describe(position), Proof.fromDiscDifference(minimaxAfterMove(position, statistics.getMove(m))), statistics.getProof(m));
+            }
+
+            assertBestMove(position, statistics);
+        }
+    }
+
+    //endregion
+
+    //region SearchTree
+
+    /**
+     * A Test to make sure the SearchTree proves the same result as minimax, and that the exported statistics choose a
+     * move that reaches that result.
+     */
+    @Test
+    public void shouldProveSearchTreeLikeMinimax() {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < POSITION_COUNT; i++) {
+            long[] position = createPosition(random, EMPTY_TILES);
+            Proof expected = Proof.fromDiscDifference(minimax(position[0], position[1]));
+
+            SearchTree tree = new SearchTree(position[0], position[1], new NodeTable(1 << 17));
+            tree.searchUntil(System.nanoTime() + 5_000_000_000L, random);
+
+            Assert.assertTrue(describe(position), tree.isSolved());
+            Assert.assertEquals(describe(position), expected, tree.getProof());
+
+            MoveStatistics statistics = new MoveStatistics(position[0], position[1]);
+            tree.exportTo(statistics);
+            assertBestMove(position, statistics);
+        }
+    }
+
+    //endregion
+
+    /**
+     * Asserts that the best move of the statistics reaches the result that minimax finds for the position.
+     */
+    static void assertBestMove(long[] position, MoveStatistics statistics) {
+        int expected = Integer.signum(minimax(position[0], position[1]));
+        int move = statistics.getMove(statistics.getBestMoveIndex());
+
+        Assert.assertEquals(describe(position) + ", move " + BitBoard.indexToNotation(move),
+                expected, Integer.signum(minimaxAfterMove(position, move)));
+    }
+
+    /**
+     * @return The difference in discs at the end of the game for the player to move, when both players play perfectly.
+     */
+    static int minimax(long player, long opponent) {
+        return minimax(player, opponent, false);
+    }
+
+    private static int minimax(long player, long opponent, boolean hasPassed) {
+        long moves = BitBoard.findValidMoves(player, opponent);
+        if(moves == 0) {
+            if(hasPassed)
+                return Long.bitCount(player) - Long.bitCount(opponent);
+
+            return -minimax(opponent, player, true);
+        }
+
+        int best = Integer.MIN_VALUE;
+        for (; moves != 0; moves &= moves - 1) {
+            int move = Long.numberOfTrailingZeros(moves);
+            long flips = BitBoard.calculateFlips(player, opponent, move);
+
+            best = Math.max(best, -minimax(opponent ^ flips, player | flips | (1L << move), false));
+        }
+
+        return best;
+    }
+
+    /**
+     * @return The result of minimax for the player to move after the player has made the given move.
+     */
+    static int minimaxAfterMove(long[] position, int move) {
+        long flips = BitBoard.calculateFlips(position[0], position[1], move);
+        return -minimax(position[1] ^ flips, position[0] | flips | (1L << move));
+    }
+
+    /**
+     * Plays random moves from the starting position until the given amount of tiles is empty.
+     * @return A position as { player, opponent } in which the player to move has a valid move.
+     */
+    static long[] createPosition(SplittableRandom random, int emptyTiles) {
+        while (true) {
+            long player = BitBoard.STARTING_PLAYER;
+            long opponent = BitBoard.STARTING_OPPONENT;
+            int passes = 0;
+
+            while (64 - Long.bitCount(player | opponent) > emptyTiles && passes < 2) {
+                long moves = BitBoard.findValidMoves(player, opponent);
+
+                if(moves == 0) {
+                    passes++;
+                } else {
+                    passes = 0;
+
+                    int move = PlayoutSimulator.selectMove(moves, random.nextInt(Long.bitCount(moves)));
+                    long flips = BitBoard.calculateFlips(player, opponent, move);
+                    player |= flips | (1L << move);
+                    opponent ^= flips;
+                }
+
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+            }
+
+            if(passes < 2 && BitBoard.findValidMoves(player, opponent) != 0)
+                return new long[] { player, opponent };
+        }
+    }
+
+    static String describe(long[] position) {
+        return "player " + Long.toHexString(position[0]) + ", opponent " + Long.toHexString(position[1]);
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import com.github.verluci.reversi.game.bitboard.NodeTable.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * This class contains the tests of the NodeTable and of the Zobrist hashes that are used to index it.
+ */
+public class NodeTableTest {
+    private static final long SEED = 50L;
+
+    // A table of 256 slots has 64 buckets of 4 slots, so the bucket of a position is its hash & 252.
+    private static final int SMALL_CAPACITY = 256;
+    private static final int SMALL_BUCKET_MASK = SMALL_CAPACITY - 4;
+
+    //region Zobrist
+
+    /**
+     * A Test to make sure the hash of a position is the XOR of the keys of its tiles, and depends on who owns a tile.
+     */
+    @Test
+    public void shouldHashTilesIndependently() {
+        Assert.assertEquals(0L, Zobrist.hash(0L, 0L));
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < 1000; i++) {
+            long occupied = random.nextLong();
+            long player = occupied & random.nextLong();
+            long opponent = occupied & ~player;
+
+            long expected = 0L;
+            for (long tiles = player; tiles != 0; tiles &= tiles - 1)
+                expected ^= Zobrist.hash(Long.lowestOneBit(tiles), 0L);
+            for (long tiles = opponent; tiles != 0; tiles &= tiles - 1)
+                expected ^= Zobrist.hash(0L, Long.lowestOneBit(tiles));
+
+            Assert.assertEquals(expected, Zobrist.hash(player, opponent));
+        }
+
+        for (int tile = 0; tile < 64; tile++)
+            Assert.assertNotEquals(Zobrist.hash(1L << tile, 0L), Zobrist.hash(0L, 1L << tile));
+    }
+
+    //endregion
+
+    //region Replacement
+
+    /**
+     * A Test to make sure a full table of 256 slots always finds the node it has just created, returns the same node
+     * for the same position again and never holds more nodes than it has slots.
+     */
+    @Test
+    public void shouldReplaceNodesInSmallTable() {
+        NodeTable table = new NodeTable(SMALL_CAPACITY);
+        Assert.assertEquals(SMALL_CAPACITY, table.getCapacity());
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < 20_000; i++) {
+            long[] position = EndgameSolverTest.createPosition(random, 4 + random.nextInt(56));
+            if(i % 1000 == 0)
+                table.startSearch(position[0], position[1]);
+
+            Node node = table.getOrCreate(position[0], position[1]);
+            Assert.assertEquals(position[0], node.player);
+            Assert.assertEquals(position[1], node.opponent);
+            Assert.assertSame(node, table.get(position[0], position[1]));
+            Assert.assertSame(node, table.getOrCreate(position[0], position[1]));
+
+            for (int v = random.nextInt(4); v > 0; v--)
+                node.addVirtualLoss();
+
+            Assert.assertTrue(table.getSize() <= table.getCapacity());
+        }
+
+        Assert.assertEquals(SMALL_CAPACITY, table.getSize());
+
+        table.clear();
+        Assert.assertEquals(0, table.getSize());
+    }
+
+    /**
+     * A Test to make sure a node that can not be reached from the root is replaced before a node that can, even if
+     * it has more visits.
+     */
+    @Test
+    public void shouldReplaceUnreachableNodesFirst() {
+        List<long[]> bucket = findBucket(20, 5);
+        NodeTable table = new NodeTable(SMALL_CAPACITY);
+
+        // The first position has fewer discs than the others, so it can not be reached once the root has more discs.
+        long[] unreachable = bucket.get(0);
+        Node unreachableNode = table.getOrCreate(unreachable[0], unreachable[1]);
+        for (int v = 0; v < 100; v++)
+            unreachableNode.addVirtualLoss();
+
+        for (int i = 1; i < 4; i++)
+            table.getOrCreate(bucket.get(i)[0], bucket.get(i)[1]);
+
+        // A root with exactly 20 discs, which the other positions have at least.
+        table.startSearch((1L << 20) - 1, 0L);
+        table.getOrCreate(bucket.get(4)[0], bucket.get(4)[1]);
+
+        Assert.assertNull(table.get(unreachable[0], unreachable[1]));
+        for (int i = 1; i < 5; i++)
+            Assert.assertNotNull(table.get(bucket.get(i)[0], bucket.get(i)[1]));
+    }
+
+    /**
+     * A Test to make sure the node with the fewest visits is replaced when all nodes of the bucket can be reached.
+     */
+    @Test
+    public void shouldReplaceLeastVisitedNode() {
+        List<long[]> bucket = findBucket(20, 5);
+        NodeTable table = new NodeTable(SMALL_CAPACITY);
+        table.startSearch(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT);
+
+        // The third position gets the fewest visits.
+        int[] visits = { 5, 3, 1, 4 };
+        for (int i = 0; i < 4; i++) {
+            Node node = table.getOrCreate(bucket.get(i)[0], bucket.get(i)[1]);
+            for (int v = 0; v < visits[i]; v++)
+                node.addVirtualLoss();
+        }
+
+        table.getOrCreate(bucket.get(4)[0], bucket.get(4)[1]);
+
+        Assert.assertNull(table.get(bucket.get(2)[0], bucket.get(2)[1]));
+        for (int i : new int[] { 0, 1, 3, 4 })
+            Assert.assertNotNull(table.get(bucket.get(i)[0], bucket.get(i)[1]));
+    }
+
+    //endregion
+
+    //region Multithreaded Search
+
+    /**
+     * A Test to make sure a SearchTree that is searched by 4 threads proves the same result as minimax, both with a
+     * table that holds the whole tree and with a table of 256 slots in which nodes are replaced all the time.
+     */
+    @Test
+    public void shouldProveWithMultipleThreads() throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < 100; i++) {
+            long[] position = EndgameSolverTest.createPosition(random, 10);
+            Proof expected = Proof.fromDiscDifference(EndgameSolverTest.minimax(position[0], position[1]));
+
+            NodeTable table = new NodeTable(i % 2 == 0 ? SMALL_CAPACITY : 1 << 16);
+            SearchTree tree = new SearchTree(position[0], position[1], table);
+            long deadline = System.nanoTime() + 10_000_000_000L;
+
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                SplittableRandom threadRandom = random.split();
+                threads[t] = new Thread(() -> tree.searchUntil(deadline, threadRandom));
+                threads[t].start();
+            }
+
+            for (Thread thread : threads)
+                thread.join();
+
+            String message = EndgameSolverTest.describe(position) + ", capacity " + table.getCapacity();
+            Assert.assertTrue(message, tree.isSolved());
+            Assert.assertEquals(message, expected, tree.getProof());
+        }
+    }
+
+    //endregion
+
+    /**
+     * Finds positions of which the nodes are stored in the same bucket of a table of 256 slots.
+     * @param minimumDiscs The minimum amount of discs of every position after the first.
+     * @param count The amount of positions.
+     * @return Positions as { player, opponent }, the first position has fewer discs than the minimum.
+     */
+    private static List<long[]> findBucket(int minimumDiscs, int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Map<Integer, long[]> fewDiscs = new HashMap<>();
+        Map<Integer, List<long[]>> manyDiscs = new HashMap<>();
+
+        while (true) {
+            long[] position = EndgameSolverTest.createPosition(random, 4 + random.nextInt(56));
+            int discs = Long.bitCount(position[0] | position[1]);
+            int bucket = (int) Zobrist.hash(position[0], position[1]) & SMALL_BUCKET_MASK;
+
+            if(discs < minimumDiscs) {
+                fewDiscs.putIfAbsent(bucket, position);
+            } else {
+                List<long[]> positions = manyDiscs.computeIfAbsent(bucket, key -> new ArrayList<>());
+                if(positions.stream().noneMatch(other -> other[0] == position[0] && other[1] == position[1]))
+                    positions.add(position);
+            }
+
+            if(fewDiscs.containsKey(bucket) && manyDiscs.getOrDefault(bucket, List.of()).size() >= count - 1) {
+                List<long[]> result = new ArrayList<>();
+                result.add(fewDiscs.get(bucket));
+                result.addAll(manyDiscs.get(bucket).subList(0, count - 1));
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.verluci.reversi.networking;
+
+import com.github.verluci.reversi.networking.clients.NioGameClient;
+import com.github.verluci.reversi.networking.clients.ProtocolParser;
+import com.github.verluci.reversi.networking.clients.ProtocolParser.MessageType;
+import com.github.verluci.reversi.networking.clients.TelnetGameClient;
+import com.github.verluci.reversi.networking.types.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class contains the tests of the ProtocolParser and of the way the clients split the received bytes into lines.
+ */
+public class ProtocolParserTest {
+    //region Well-formed Messages
+
+    /**
+     * A Test to make sure the most frequent messages are parsed into their values.
+     */
+    @Test
+    public void shouldParseWellFormedMessages() {
+        ProtocolParser parser = new ProtocolParser();
+
+        Assert.assertEquals(MessageType.MOVE, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"19\", DETAILS: \"\"}"));
+        Assert.assertEquals(new Player("Jip"), parser.getMove().getPlayer());
+        Assert.assertEquals(19, parser.getMove().getMove());
+        Assert.assertEquals("", parser.getMove().getDetails());
+
+        Assert.assertEquals(MessageType.YOURTURN, parse(parser, "SVR GAME YOURTURN {TURNMESSAGE: \"Your turn\"}"));
+        Assert.assertEquals("Your turn", parser.getTurnMessage());
+
+        Assert.assertEquals(MessageType.MATCH, parse(parser, "SVR GAME MATCH {PLAYERTOMOVE: \"Jip\", GAMETYPE: \"Reversi\", OPPONENT: \"Janneke\"}"));
+        Assert.assertEquals(new Player("Jip"), parser.getGameStart().getStartingPlayer());
+        Assert.assertEquals(new Player("Janneke"), parser.getGameStart().getOpponent());
+        Assert.assertEquals("Reversi", parser.getGameStart().getGameType());
+
+        Assert.assertEquals(MessageType.GAME_END, parse(parser, "SVR GAME WIN {PLAYERONESCORE: \"40\", PLAYERTWOSCORE: \"24\", COMMENT: \"\"}"));
+        Assert.assertEquals(GameResult.WIN, parser.getGameEnd().getResult());
+        Assert.assertEquals(40, parser.getGameEnd().getPlayerOneScore());
+        Assert.assertEquals(24, parser.getGameEnd().getPlayerTwoScore());
+
+        Assert.assertEquals(MessageType.CHALLENGE_CANCELLED, parse(parser, "SVR GAME CHALLENGE CANCELLED {CHALLENGENUMBER: \"7\"}"));
+        Assert.assertEquals(7, parser.getChallengeNumber());
+
+        Assert.assertEquals(MessageType.OK, parse(parser, "OK"));
+        Assert.assertEquals(MessageType.ERR, parse(parser, "ERR Duplicate name exists"));
+        Assert.assertEquals("ERR Duplicate name exists", parser.getErrorMessage());
+        Assert.assertEquals(MessageType.UNKNOWN, parse(parser, "SVR HELP Unknown command"));
+    }
+
+    /**
+     * A Test to make sure a value may contain the characters that separate the keys and values.
+     */
+    @Test
+    public void shouldParseNestedValues() {
+        ProtocolParser parser = new ProtocolParser();
+
+        // The details contain an object with a list, a comma and escaped quotes before the move itself.
+        Assert.assertEquals(MessageType.MOVE, parse(parser,
+                "SVR GAME MOVE {PLAYER: \"Jip\", DETAILS: \"{\\\"flips\\\": [27, 35]}, done\", MOVE: \"19\"}"));
+        Assert.assertEquals(19, parser.getMove().getMove());
+        Assert.assertEquals("{\"flips\": [27, 35]}, done", parser.getMove().getDetails());
+
+        Assert.assertEquals(MessageType.PLAYERLIST, parse(parser, "SVR PLAYERLIST [\"Jip\", \"Jan, neke\", \"{x}\"]"));
+        Assert.assertEquals(3, parser.getList().length);
+        Assert.assertEquals("Jip", parser.getList()[0]);
+        Assert.assertEquals("Jan, neke", parser.getList()[1]);
+        Assert.assertEquals("{x}", parser.getList()[2]);
+
+        Assert.assertEquals(MessageType.GAMELIST, parse(parser, "SVR GAMELIST []"));
+        Assert.assertEquals(0, parser.getList().length);
+    }
+
+    //endregion
+
+    //region Malformed Messages
+
+    /**
+     * A Test to make sure a number that can not be read is reported instead of being replaced by -1, which a
+     * NetworkAgent would mistake for the end of the game.
+     */
+    @Test
+    public void shouldReportMalformedNumbers() {
+        ProtocolParser parser = new ProtocolParser();
+
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"\", DETAILS: \"\"}"));
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"d3\", DETAILS: \"\"}"));
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"-1\", DETAILS: \"\"}"));
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", DETAILS: \"\"}"));
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"12345678901\"}"));
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME WIN {PLAYERONESCORE: \"-\", PLAYERTWOSCORE: \"24\"}"));
+        Assert.assertEquals(MessageType.MALFORMED, parse(parser, "SVR GAME CHALLENGE CANCELLED {CHALLENGENUMBER: \"one\"}"));
+        Assert.assertTrue(parser.getErrorMessage().contains("one"));
+
+        // The parser can still be used after a malformed message.
+        Assert.assertEquals(MessageType.MOVE, parse(parser, "SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"0\", DETAILS: \"\"}"));
+        Assert.assertEquals(0, parser.getMove().getMove());
+    }
+
+    /**
+     * A Test to make sure a client drops a malformed message instead of notifying its listeners.
+     */
+    @Test
+    public void shouldDropMalformedMessages() {
+        TelnetGameClient gameClient = new TelnetGameClient();
+
+        List<Integer> moves = new ArrayList<>();
+        gameClient.onMove(listener -> moves.add(listener.getMove()));
+
+        gameClient.processQueuedString("SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"\", DETAILS: \"\"}");
+        gameClient.processQueuedString("SVR GAME MOVE {PLAYER: \"Jip\", MOVE: \"26\", DETAILS: \"\"}");
+
+        Assert.assertEquals(1, moves.size());
+        Assert.assertEquals(26, (int) moves.get(0));
+    }
+
+    //endregion
+
+    //region Split Lines
+
+    /**
+     * A Test to make sure a NioGameClient joins a line that is received in multiple parts, and splits multiple lines
+     * that are received at once.
+     */
+    @Test
+    public void shouldJoinSplitLines() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            NioGameClient gameClient = new NioGameClient();
+
+            List<Move> moves = new ArrayList<>();
+            CountDownLatch received = new CountDownLatch(3);
+            gameClient.onMove(listener -> {
+                moves.add(new Move(listener.getPlayer(), listener.getMove(), listener.getDetails()));
+                received.countDown();
+            });
+            gameClient.onTurn(listener -> received.countDown());
+
+            gameClient.connect("localhost", server.getLocalPort());
+            try (Socket socket = server.accept()) {
+                OutputStream out = socket.getOutputStream();
+
+                // A move that is split inside the prefix and inside a value, followed by a turn and a second move at once.
+                write(out, "SVR GAME MO");
+                write(out, "VE {PLAYER: \"Jip\", MOVE: \"1");
+                write(out, "9\", DETAILS: \"\"}\r\nSVR GAME YOURTURN {TURNMESSAGE: \"\"}\nSVR GAME MOVE {PLAYER: ");
+                write(out, "\"Janneke\", MOVE: \"26\", DETAILS: \"\"}\n");
+
+                Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+            } finally {
+                gameClient.disconnect();
+            }
+
+            Assert.assertEquals(2, moves.size());
+            Assert.assertEquals(new Player("Jip"), moves.get(0).getPlayer());
+            Assert.assertEquals(19, moves.get(0).getMove());
+            Assert.assertEquals(new Player("Janneke"), moves.get(1).getPlayer());
+            Assert.assertEquals(26, moves.get(1).getMove());
+        }
+    }
+
+    //endregion
+
+    private static MessageType parse(ProtocolParser parser, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        return parser.parse(bytes, 0, bytes.length);
+    }
+
+    private static void write(OutputStream out, String part) throws Exception {
+        out.write(part.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+
+        // Give the client the time to read this part before the next part is sent.
+        Thread.sleep(50);
+    }
+}
@@ -0,0 +1,419 @@
+package com.github.verluci.reversi.game.bitboard;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.apache.commons.cli.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A CPU implementation of the random simulations of resources/mcts_reversi_kernel.cl that plays several games at the
+ * same time in the lanes of a LongVector, instead of a single game per loop like the PlayoutSimulator.
+ *
+ * Every lane does what a single work-item does in evaluate_board(): the valid moves and the flips are calculated for
+ * all lanes at once with shifts and masks, only the random choice of a move is made per lane. A lane whose game has
+ * ended is filled with the next game, so the lanes are kept busy until there are no games left. This is faster than
+ * the PlayoutSimulator with 4 lanes (AVX2) or 8 lanes (AVX-512), but not on CPUs that only have 128-bit vectors.
+ *
+ * The Vector API is an incubator module, so this class is only built with the vector profile (mvn -P vector package)
+ * and should be run with --add-modules jdk.incubator.vector.
+ */
+public class VectorPlayoutSimulator {
+    // The widest vector of the CPU, which holds 4 boards with AVX2 and 8 boards with AVX-512.
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    public static final int LANES = SPECIES.length();
+
+    // The amount of plies that are played between checking the deadline.
+    private static final int PLIES_PER_DEADLINE_CHECK = 64;
+
+    private static final long NOT_LEFT_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+    private static final long NOT_RIGHT_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    //region Vector Move Generation
+
+    /**
+     * The vector version of BitBoard.findValidMoves().
+     * @param player The tiles of the player that is allowed to move, per lane.
+     * @param opponent The tiles of the opponent, per lane.
+     * @return The valid moves of the player, per lane.
+     */
+    private static LongVector findValidMoves(LongVector player, LongVector opponent) {
+        // The opponent tiles that do not wrap around the left or right side after a horizontal or diagonal step.
+        LongVector inner = opponent.and(NOT_LEFT_COLUMN & NOT_RIGHT_COLUMN);
+
+        LongVector moves = findMovesLeft(player, inner, 1)
+                .or(findMovesRight(player, inner, 1))
+                .or(findMovesLeft(player, opponent, 8))
+                .or(findMovesRight(player, opponent, 8))
+                .or(findMovesLeft(player, inner, 9))
+                .or(findMovesRight(player, inner, 9))
+                .or(findMovesLeft(player, inner, 7))
+                .or(findMovesRight(player, inner, 7));
+
+        return moves.and(player.or(opponent).not());
+    }
+
+    /**
+     * @param opponent The opponent tiles a line can contain, the edge columns are left out for directions with a
+     *                 horizontal step, so a line can not wrap around the board.
+     * @param n The shift of a single step towards the higher indices.
+     * @return The tiles that are one step behind a line of opponent tiles that starts next to a tile of the player.
+     */
+    private static LongVector findMovesLeft(LongVector player, LongVector opponent, int n) {
+        LongVector candidates = player.lanewise(VectorOperators.LSHL, n).and(opponent);
+        for (int i = 0; i < 5; i++)
+            candidates = candidates.or(candidates.lanewise(VectorOperators.LSHL, n).and(opponent));
+
+        return candidates.lanewise(VectorOperators.LSHL, n);
+    }
+
+    /**
+     * @see #findMovesLeft(LongVector, LongVector, int), but with steps towards the lower indices.
+     */
+    private static LongVector findMovesRight(LongVector player, LongVector opponent, int n) {
+        LongVector candidates = player.lanewise(VectorOperators.LSHR, n).and(opponent);
+        for (int i = 0; i < 5; i++)
+            candidates = candidates.or(candidates.lanewise(VectorOperators.LSHR, n).and(opponent));
+
+        return candidates.lanewise(VectorOperators.LSHR, n);
+    }
+
+    /**
+     * The vector version of BitBoard.calculateFlips(), lanes without a move get no flips.
+     * @param player The tiles of the player that makes the move, per lane.
+     * @param opponent The tiles of the opponent, per lane.
+     * @param move The tile of the move as a single set bit, or 0, per lane.
+     * @return The tiles of the opponent that are flipped by the move, per lane.
+     */
+    private static LongVector calculateFlips(LongVector player, LongVector opponent, LongVector move) {
+        LongVector inner = opponent.and(NOT_LEFT_COLUMN & NOT_RIGHT_COLUMN);
+
+        return findFlipsLeft(player, inner, move, 1)
+                .or(findFlipsRight(player, inner, move, 1))
+                .or(findFlipsLeft(player, opponent, move, 8))
+                .or(findFlipsRight(player, opponent, move, 8))
+                .or(findFlipsLeft(player, inner, move, 9))
+                .or(findFlipsRight(player, inner, move, 9))
+                .or(findFlipsLeft(player, inner, move, 7))
+                .or(findFlipsRight(player, inner, move, 7));
+    }
+
+    /**
+     * @return The line of opponent tiles next to the move towards the higher indices, if it is closed by a tile of the
+     *         player.
+     */
+    private static LongVector findFlipsLeft(LongVector player, LongVector opponent, LongVector move, int n) {
+        LongVector line = move.lanewise(VectorOperators.LSHL, n).and(opponent);
+        for (int i = 0; i < 5; i++)
+            line = line.or(line.lanewise(VectorOperators.LSHL, n).and(opponent));
+
+        VectorMask<Long> isOpen = line.lanewise(VectorOperators.LSHL, n).and(player).compare(VectorOperators.EQ, 0);
+        return line.blend(0, isOpen);
+    }
+
+    /**
+     * @return The line of opponent tiles next to the move towards the lower indices, if it is closed by a tile of the
+     *         player.
+     */
+    private static LongVector findFlipsRight(LongVector player, LongVector opponent, LongVector move, int n) {
+        LongVector line = move.lanewise(VectorOperators.LSHR, n).and(opponent);
+        for (int i = 0; i < 5; i++)
+            line = line.or(line.lanewise(VectorOperators.LSHR, n).and(opponent));
+
+        VectorMask<Long> isOpen = line.lanewise(VectorOperators.LSHR, n).and(player).compare(VectorOperators.EQ, 0);
+        return line.blend(0, isOpen);
+    }
+
+    //endregion
+
+    //region Lanes
+
+    /**
+     * The games that are being played in the lanes of a vector.
+     */
+    private static class Lanes {
+        private final long[] players = new long[LANES];
+        private final long[] opponents = new long[LANES];
+        private final long[] moves = new long[LANES];
+        private final long[] selectedMoves = new long[LANES];
+
+        // The game in every lane, or -1 if the lane is not used.
+        private final int[] games = new int[LANES];
+        private final boolean[] isPlayerToMove = new boolean[LANES];
+        private final int[] passes = new int[LANES];
+        private final SplittableRandom[] randoms = new SplittableRandom[LANES];
+
+        // The games that have ended during the last step, with their results.
+        private final int[] finishedGames = new int[LANES];
+        private final int[] finishedResults = new int[LANES];
+        private int activeCount;
+
+        private Lanes() {
+            Arrays.fill(games, -1);
+        }
+
+        /**
+         * Starts a game in a lane that is not used.
+         * @param lane The lane the game is played in.
+         * @param game The number of the game, which is put in finishedGames when the game has ended.
+         * @param player The tiles of the player that is allowed to move.
+         * @param opponent The tiles of the opponent.
+         * @param random The random number generator that chooses the moves of this game.
+         */
+        private void start(int lane, int game, long player, long opponent, SplittableRandom random) {
+            players[lane] = player;
+            opponents[lane] = opponent;
+            games[lane] = game;
+            isPlayerToMove[lane] = true;
+            passes[lane] = 0;
+            randoms[lane] = random;
+            activeCount++;
+        }
+
+        /**
+         * Plays a single random move (or a pass) in every lane that is used.
+         * @return The amount of games that have ended, their lanes are available again after this step.
+         */
+        private int step() {
+            LongVector player = LongVector.fromArray(SPECIES, players, 0);
+            LongVector opponent = LongVector.fromArray(SPECIES, opponents, 0);
+            findValidMoves(player, opponent).intoArray(moves, 0);
+
+            int finishedCount = 0;
+            for (int lane = 0; lane < LANES; lane++) {
+                long laneMoves = moves[lane];
+
+                if(games[lane] < 0 || laneMoves == 0) {
+                    selectedMoves[lane] = 0L;
+
+                    // The game has ended when both players had to pass, like in evaluate_board().
+                    if(games[lane] >= 0 && ++passes[lane] == 2) {
+                        int discDifference = Long.bitCount(players[lane]) - Long.bitCount(opponents[lane]);
+                        finishedGames[finishedCount] = games[lane];
+                        finishedResults[finishedCount++] = isPlayerToMove[lane] ? discDifference : -discDifference;
+                        games[lane] = -1;
+                        activeCount--;
+                    }
+                } else {
+                    int n = randoms[lane].nextInt(Long.bitCount(laneMoves));
+                    selectedMoves[lane] = 1L << PlayoutSimulator.selectMove(laneMoves, n);
+                    passes[lane] = 0;
+                }
+            }
+
+            // A lane without a move passes, its tiles are only swapped.
+            LongVector move = LongVector.fromArray(SPECIES, selectedMoves, 0);
+            LongVector flips = calculateFlips(player, opponent, move);
+            opponent.lanewise(VectorOperators.XOR, flips).intoArray(players, 0);
+            player.or(flips).or(move).intoArray(opponents, 0);
+
+            for (int lane = 0; lane < LANES; lane++)
+                isPlayerToMove[lane] = !isPlayerToMove[lane];
+
+            return finishedCount;
+        }
+    }
+
+    //endregion
+
+    /**
+     * Plays random moves from the given positions until the games have ended.
+     * @param players The tiles of the player that is allowed to move, per game.
+     * @param opponents The tiles of the opponent, per game.
+     * @param randoms The random number generator that chooses the moves, per game.
+     * @return The difference in discs at the end of every game for the player that was allowed to move.
+     */
+    public static int[] playout(long[] players, long[] opponents, SplittableRandom[] randoms) {
+        int[] results = new int[players.length];
+        Lanes lanes = new Lanes();
+        int nextGame = 0;
+
+        do {
+            for (int lane = 0; lane < LANES && nextGame < players.length; lane++) {
+                if(lanes.games[lane] < 0) {
+                    lanes.start(lane, nextGame, players[nextGame], opponents[nextGame], randoms[nextGame]);
+                    nextGame++;
+                }
+            }
+
+            int finishedCount = lanes.step();
+            for (int i = 0; i < finishedCount; i++)
+                results[lanes.finishedGames[i]] = lanes.finishedResults[i];
+        } while (lanes.activeCount > 0 || nextGame < players.length);
+
+        return results;
+    }
+
+    /**
+     * Simulates the given amount of games for every move of the given statistics.
+     * @param statistics The statistics the results should be added to.
+     * @param gamesPerMove The amount of games that should be simulated for every move.
+     * @param random The random number generator that chooses the moves.
+     */
+    public static void simulate(MoveStatistics statistics, int gamesPerMove, SplittableRandom random) {
+        simulate(statistics, statistics.getMoveCount() * gamesPerMove, Long.MAX_VALUE, random);
+    }
+
+    /**
+     * Simulates games for every move of the given statistics until the deadline has passed, the games that are being
+     * played at the deadline are finished.
+     * @param statistics The statistics the results should be added to.
+     * @param deadline The value of System.nanoTime() at which the simulations should stop.
+     * @param random The random number generator that chooses the moves.
+     */
+    public static void simulateUntil(MoveStatistics statistics, long deadline, SplittableRandom random) {
+        simulate(statistics, Integer.MAX_VALUE, deadline, random);
+    }
+
+    /**
+     * Plays the games of the given statistics in rounds of one game per move, like PlayoutSimulator.simulateRound().
+     * @param gameCount The maximum amount of games that are played.
+     * @param deadline The value of System.nanoTime() after which no new games are started.
+     */
+    private static void simulate(MoveStatistics statistics, int gameCount, long deadline, SplittableRandom random) {
+        int moveCount = statistics.getMoveCount();
+        if(moveCount == 0)
+            return;
+
+        // The positions after every move, in which the opponent is allowed to move.
+        long[] players = new long[moveCount];
+        long[] opponents = new long[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            int move = statistics.getMove(i);
+            long flips = BitBoard.calculateFlips(statistics.getPlayer(), statistics.getOpponent(), move);
+
+            players[i] = statistics.getOpponent() ^ flips;
+            opponents[i] = statistics.getPlayer() | flips | (1L << move);
+        }
+
+        Lanes lanes = new Lanes();
+        int nextGame = 0;
+        boolean isBeforeDeadline = true;
+
+        for (int ply = 1; ; ply++) {
+            if(ply % PLIES_PER_DEADLINE_CHECK == 0 && deadline != Long.MAX_VALUE)
+                isBeforeDeadline = System.nanoTime() - deadline < 0;
+
+            for (int lane = 0; lane < LANES && isBeforeDeadline && nextGame < gameCount; lane++) {
+                if(lanes.games[lane] < 0) {
+                    int moveIndex = nextGame % moveCount;
+                    lanes.start(lane, moveIndex, players[moveIndex], opponents[moveIndex], random);
+                    nextGame++;
+                }
+            }
+
+            if(lanes.activeCount == 0)
+                break;
+
+            // The opponent was allowed to move after the move of the game, so the result is inverted.
+            int finishedCount = lanes.step();
+            for (int i = 0; i < finishedCount; i++)
+                statistics.add(lanes.finishedGames[i], -lanes.finishedResults[i]);
+        }
+    }
+
+    /**
+     * Checks the results of the vector playouts against the PlayoutSimulator, and compares the amount of games per second
+     * of both simulators on a single thread.
+     * @param args -g GAMES, -s SECONDS
+     */
+    public static void main(String[] args) {
+        //region Command Line Arguments
+
+        Options options = new Options();
+
+        Option gamesOption = new Option("g", "games", true, "The amount of games that are checked against the PlayoutSimulator. (default: 100000)");
+        gamesOption.setRequired(false);
+        options.addOption(gamesOption);
+
+        Option secondsOption = new Option("s", "seconds", true, "The duration of the throughput measurement of each simulator. (default: 5)");
+        secondsOption.setRequired(false);
+        options.addOption(secondsOption);
+
+        CommandLineParser parser = new DefaultParser();
+        HelpFormatter formatter = new HelpFormatter();
+        CommandLine cmd = null;
+
+        try {
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            System.out.println(e.getMessage());
+            formatter.printHelp(" ", options);
+
+            System.exit(1);
+        }
+
+        //endregion
+
+        int gameCount = Integer.parseInt(cmd.getOptionValue("games", "100000"));
+        long duration = Long.parseLong(cmd.getOptionValue("seconds", "5")) * 1_000_000_000L;
+        System.out.println("Lanes: " + LANES + " (" + SPECIES + ")");
+
+        //region Check
+
+        // Every game starts after 0 to 39 random moves from the starting position, and uses its own random number
+        // generator, so both simulators should play exactly the same moves.
+        SplittableRandom positionRandom = new SplittableRandom(2020);
+        long[] players = new long[gameCount];
+        long[] opponents = new long[gameCount];
+        SplittableRandom[] randoms = new SplittableRandom[gameCount];
+
+        for (int i = 0; i < gameCount; i++) {
+            long player = BitBoard.STARTING_PLAYER;
+            long opponent = BitBoard.STARTING_OPPONENT;
+
+            for (int ply = 0; ply < i % 40; ply++) {
+                long moves = BitBoard.findValidMoves(player, opponent);
+                if(moves != 0) {
+                    int move = PlayoutSimulator.selectMove(moves, positionRandom.nextInt(Long.bitCount(moves)));
+                    long flips = BitBoard.calculateFlips(player, opponent, move);
+                    player |= flips | (1L << move);
+                    opponent ^= flips;
+                }
+
+                long temporary = player;
+                player = opponent;
+                opponent = temporary;
+            }
+
+            players[i] = player;
+            opponents[i] = opponent;
+            randoms[i] = new SplittableRandom(i);
+        }
+
+        int[] results = playout(players, opponents, randoms);
+        int mismatches = 0;
+        for (int i = 0; i < gameCount; i++) {
+            if(results[i] != PlayoutSimulator.playout(players[i], opponents[i], new SplittableRandom(i)))
+                mismatches++;
+        }
+        System.out.println("Checked " + gameCount + " games: " + mismatches + " mismatches");
+
+        //endregion
+
+        //region Throughput
+
+        SplittableRandom random = new SplittableRandom();
+        MoveStatistics scalarStatistics = new MoveStatistics(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT);
+        MoveStatistics vectorStatistics = new MoveStatistics(BitBoard.STARTING_PLAYER, BitBoard.STARTING_OPPONENT);
+
+        long scalarTime = System.nanoTime();
+        PlayoutSimulator.simulateUntil(scalarStatistics, scalarTime + duration, random);
+        scalarTime = System.nanoTime() - scalarTime;
+
+        long vectorTime = System.nanoTime();
+        simulateUntil(vectorStatistics, vectorTime + duration, random);
+        vectorTime = System.nanoTime() - vectorTime;
+
+        System.out.printf("PlayoutSimulator:       %.0f games/s%n", scalarStatistics.getTotalGames() * 1e9 / scalarTime);
+        System.out.printf("VectorPlayoutSimulator: %.0f games/s%n", vectorStatistics.getTotalGames() * 1e9 / vectorTime);
+
+        //endregion
+
+        if(mismatches > 0)
+            System.exit(1);
+    }
+}